@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import org.springframework.vault.benchmark.AbstractMicrobenchmark;
+
+/**
+ * Benchmarks for {@link Sha256}.
+ *
+ * @author Mark Paluch
+ */
+public class Sha256Benchmark extends AbstractMicrobenchmark {
+
+	private static final String USER_ID = "00:1B:44:11:3A:B7";
+
+	@Benchmark
+	public String toSha256() {
+		return Sha256.toSha256(USER_ID);
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.vault.support.SslConfiguration;
+
+/**
+ * Self-signed certificate for {@code localhost} to serve TLS from
+ * {@link VaultStubServer}. The key store is generated with the JDK {@code keytool} and
+ * serves as key store for the server and trust store for the client.
+ *
+ * @author Mark Paluch
+ */
+public class StubCertificate {
+
+	private static final String PASSWORD = "changeit";
+
+	private final File keyStoreFile;
+
+	private StubCertificate(File keyStoreFile) {
+		this.keyStoreFile = keyStoreFile;
+	}
+
+	/**
+	 * Generate a new self-signed certificate for {@code localhost}.
+	 *
+	 * @return the {@link StubCertificate}.
+	 * @throws IOException if {@code keytool} fails.
+	 */
+	public static StubCertificate generate() throws IOException {
+
+		File keyStoreFile = File.createTempFile("vault-stub", ".jks");
+		keyStoreFile.delete();
+		keyStoreFile.deleteOnExit();
+
+		String keytool = new File(new File(System.getProperty("java.home"), "bin"),
+				"keytool").getPath();
+
+		Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias",
+				"localhost", "-keyalg", "RSA", "-keysize", "2048", "-validity", "2",
+				"-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+				"-keystore", keyStoreFile.getPath(), "-storetype", "JKS",
+				"-storepass", PASSWORD, "-keypass", PASSWORD).redirectErrorStream(true)
+				.start();
+
+		try {
+
+			if (process.waitFor() != 0 || !keyStoreFile.exists()) {
+				throw new IOException(String.format("keytool failed with exit code %d",
+						process.exitValue()));
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while generating certificate");
+		}
+
+		return new StubCertificate(keyStoreFile);
+	}
+
+	/**
+	 * @return the server-side {@link SSLContext}.
+	 * @throws GeneralSecurityException if the {@link SSLContext} cannot be initialized.
+	 * @throws IOException if the key store cannot be read.
+	 */
+	public SSLContext createServerSslContext() throws GeneralSecurityException,
+			IOException {
+
+		KeyStore keyStore = KeyStore.getInstance("JKS");
+
+		InputStream inputStream = new FileInputStream(keyStoreFile);
+		try {
+			keyStore.load(inputStream, PASSWORD.toCharArray());
+		}
+		finally {
+			inputStream.close();
+		}
+
+		KeyManagerFactory keyManagerFactory = KeyManagerFactory
+				.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keyManagerFactory.init(keyStore, PASSWORD.toCharArray());
+
+		SSLContext sslContext = SSLContext.getInstance("TLS");
+		sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+		return sslContext;
+	}
+
+	/**
+	 * @return the client-side {@link SslConfiguration} trusting this certificate.
+	 */
+	public SslConfiguration createClientSslConfiguration() {
+		return SslConfiguration.forTrustStore(new FileSystemResource(keyStoreFile),
+				PASSWORD);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+/**
+ * {@link ClientHttpRequestFactory} responding to each request with a fixed JSON body
+ * without network I/O. Benchmarks using this factory measure client-side processing
+ * only.
+ *
+ * @author Mark Paluch
+ */
+public class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+	private final byte[] body;
+
+	/**
+	 * Create a new {@link StubClientHttpRequestFactory} responding with {@code json}.
+	 *
+	 * @param json the response body.
+	 */
+	public StubClientHttpRequestFactory(String json) {
+		this.body = json.getBytes(Charset.forName("UTF-8"));
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod)
+			throws IOException {
+
+		return new MockClientHttpRequest(httpMethod, uri) {
+
+			@Override
+			protected ClientHttpResponse executeInternal() throws IOException {
+
+				MockClientHttpResponse response = new MockClientHttpResponse(body,
+						HttpStatus.OK);
+				response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+				return response;
+			}
+		};
+	}
+}
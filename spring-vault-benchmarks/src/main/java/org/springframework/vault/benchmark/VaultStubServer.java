@@ -0,0 +1,448 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+
+import org.springframework.util.Assert;
+import org.springframework.util.Base64Utils;
+import org.springframework.vault.client.VaultEndpoint;
+
+/**
+ * In-process HTTP/1.1 server emulating a subset of the Vault HTTP API for transport
+ * benchmarks. The stub answers:
+ * <ul>
+ * <li>{@code /v1/secret/*}: reads return a secret with a {@code value} of the
+ * configured payload size, writes and deletes return {@literal 204 No Content}.</li>
+ * <li>{@code /v1/transit/encrypt/*} and {@code /v1/transit/decrypt/*}: return
+ * ciphertext or plaintext of the configured payload size.</li>
+ * <li>{@code /v1/auth/token/*}: {@code lookup-self} returns token details, other calls
+ * return a new renewable token.</li>
+ * <li>{@code /v1/sys/health}: returns an unsealed active node.</li>
+ * </ul>
+ * Each response is delayed by the configured latency. Connections are kept alive and
+ * counted so benchmarks can report how many sockets a client opens. The server speaks
+ * TLS if created with a {@link SSLContext}.
+ *
+ * @author Mark Paluch
+ */
+public class VaultStubServer implements Closeable {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final long latency;
+
+	private final String payload;
+
+	private final SSLContext sslContext;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final Set<Socket> connections = Collections
+			.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+
+	private final AtomicLong acceptedConnections = new AtomicLong();
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private volatile ServerSocket serverSocket;
+
+	/**
+	 * Create a new {@link VaultStubServer}.
+	 *
+	 * @param latency response delay, must not be negative.
+	 * @param unit must not be {@literal null}.
+	 * @param payloadSize size of secret values and transit plaintext in bytes, must not
+	 * be negative.
+	 * @param sslContext {@link SSLContext} to serve TLS, may be {@literal null} to serve
+	 * plaintext HTTP.
+	 */
+	public VaultStubServer(long latency, TimeUnit unit, int payloadSize,
+			SSLContext sslContext) {
+
+		Assert.isTrue(latency >= 0, "Latency must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+		Assert.isTrue(payloadSize >= 0, "Payload size must not be negative");
+
+		this.latency = unit.toMillis(latency);
+		this.sslContext = sslContext;
+
+		char[] payload = new char[payloadSize];
+		Arrays.fill(payload, 'x');
+		this.payload = new String(payload);
+	}
+
+	/**
+	 * Start the server on an ephemeral port.
+	 *
+	 * @throws IOException if the server socket cannot be opened.
+	 */
+	public void start() throws IOException {
+
+		serverSocket = sslContext != null ? sslContext.getServerSocketFactory()
+				.createServerSocket(0, 1024) : new ServerSocket(0, 1024);
+
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				accept();
+			}
+		});
+	}
+
+	/**
+	 * @return the {@link VaultEndpoint} pointing to this server.
+	 */
+	public VaultEndpoint getVaultEndpoint() {
+
+		VaultEndpoint endpoint = VaultEndpoint.create("localhost",
+				serverSocket.getLocalPort());
+		endpoint.setScheme(sslContext != null ? "https" : "http");
+
+		return endpoint;
+	}
+
+	/**
+	 * @return the number of connections accepted since the server was started.
+	 */
+	public long getAcceptedConnections() {
+		return acceptedConnections.get();
+	}
+
+	/**
+	 * @return the number of requests served.
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		ServerSocket serverSocket = this.serverSocket;
+
+		if (serverSocket != null) {
+			serverSocket.close();
+		}
+
+		for (Socket socket : connections) {
+			socket.close();
+		}
+
+		executor.shutdownNow();
+	}
+
+	private void accept() {
+
+		while (!serverSocket.isClosed()) {
+
+			try {
+
+				final Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+
+				acceptedConnections.incrementAndGet();
+				connections.add(socket);
+
+				executor.execute(new Runnable() {
+
+					@Override
+					public void run() {
+						serve(socket);
+					}
+				});
+			}
+			catch (IOException e) {
+				// server socket closed
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+
+		try {
+
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			OutputStream out = socket.getOutputStream();
+
+			while (true) {
+
+				String requestLine = readLine(in);
+
+				if (requestLine == null || requestLine.isEmpty()) {
+					return;
+				}
+
+				boolean keepAlive = handle(requestLine, in, out);
+				requests.incrementAndGet();
+
+				if (!keepAlive) {
+					return;
+				}
+			}
+		}
+		catch (SocketException e) {
+			// client closed the connection
+		}
+		catch (IOException e) {
+			// client closed the connection
+		}
+		finally {
+
+			connections.remove(socket);
+
+			try {
+				socket.close();
+			}
+			catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Handle a single request and write the response.
+	 *
+	 * @return {@literal true} if the connection should be kept alive.
+	 */
+	private boolean handle(String requestLine, InputStream in, OutputStream out)
+			throws IOException {
+
+		String[] parts = requestLine.split(" ");
+		String method = parts[0];
+		String path = parts.length > 1 ? parts[1] : "/";
+
+		int contentLength = 0;
+		boolean chunked = false;
+		boolean keepAlive = !requestLine.endsWith("HTTP/1.0");
+
+		String header;
+		while ((header = readLine(in)) != null && !header.isEmpty()) {
+
+			int separator = header.indexOf(':');
+
+			if (separator < 0) {
+				continue;
+			}
+
+			String name = header.substring(0, separator).trim().toLowerCase(Locale.US);
+			String value = header.substring(separator + 1).trim();
+
+			if (name.equals("content-length")) {
+				contentLength = Integer.parseInt(value);
+			}
+			else if (name.equals("transfer-encoding")) {
+				chunked = value.equalsIgnoreCase("chunked");
+			}
+			else if (name.equals("connection")) {
+				keepAlive = !value.equalsIgnoreCase("close");
+			}
+		}
+
+		if (chunked) {
+			readChunked(in);
+		}
+		else {
+			skip(in, contentLength);
+		}
+
+		if (latency > 0) {
+			try {
+				Thread.sleep(latency);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		int queryStart = path.indexOf('?');
+		String body = respond(method, queryStart >= 0 ? path.substring(0, queryStart)
+				: path);
+
+		writeResponse(out, body, keepAlive);
+
+		return keepAlive;
+	}
+
+	private String respond(String method, String path) {
+
+		if (path.startsWith("/v1/secret/")) {
+
+			if (method.equals("GET")) {
+				return String.format("{\"data\": {\"value\": \"%s\"}}", payload);
+			}
+
+			return null;
+		}
+
+		if (path.startsWith("/v1/transit/encrypt/")) {
+			return String.format("{\"data\": {\"ciphertext\": \"vault:v1:%s\"}}",
+					base64Payload());
+		}
+
+		if (path.startsWith("/v1/transit/decrypt/")) {
+			return String.format("{\"data\": {\"plaintext\": \"%s\"}}", base64Payload());
+		}
+
+		if (path.equals("/v1/auth/token/lookup-self")) {
+			return "{\"data\": {\"id\": \"token\", \"ttl\": 3600, \"explicit_max_ttl\": 0, "
+					+ "\"renewable\": true, \"policies\": [\"default\"]}}";
+		}
+
+		if (path.startsWith("/v1/auth/token/")) {
+			return "{\"auth\": {\"client_token\": \"token\", \"accessor\": \"accessor\", "
+					+ "\"lease_duration\": 3600, \"renewable\": true, \"policies\": [\"default\"]}}";
+		}
+
+		if (path.equals("/v1/sys/health")) {
+			return "{\"initialized\": true, \"sealed\": false, \"standby\": false, "
+					+ "\"server_time_utc\": 1490000000, \"version\": \"0.7.0\"}";
+		}
+
+		return "";
+	}
+
+	private String base64Payload() {
+		return Base64Utils.encodeToString(payload.getBytes(UTF_8));
+	}
+
+	private static void writeResponse(OutputStream out, String body, boolean keepAlive)
+			throws IOException {
+
+		StringBuilder response = new StringBuilder();
+
+		if (body == null) {
+			response.append("HTTP/1.1 204 No Content\r\n");
+		}
+		else if (body.isEmpty()) {
+			body = "{\"errors\": []}";
+			response.append("HTTP/1.1 404 Not Found\r\n");
+		}
+		else {
+			response.append("HTTP/1.1 200 OK\r\n");
+		}
+
+		byte[] bytes = body != null ? body.getBytes(UTF_8) : new byte[0];
+
+		if (body != null) {
+			response.append("Content-Type: application/json\r\n");
+		}
+
+		response.append("Content-Length: ").append(bytes.length).append("\r\n");
+		response.append("Connection: ").append(keepAlive ? "keep-alive" : "close")
+				.append("\r\n\r\n");
+
+		out.write(response.toString().getBytes(UTF_8));
+		out.write(bytes);
+		out.flush();
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+
+		ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+
+		int b;
+		while ((b = in.read()) != -1) {
+
+			if (b == '\n') {
+				break;
+			}
+
+			if (b != '\r') {
+				line.write(b);
+			}
+		}
+
+		if (b == -1 && line.size() == 0) {
+			return null;
+		}
+
+		return new String(line.toByteArray(), UTF_8);
+	}
+
+	private static void readChunked(InputStream in) throws IOException {
+
+		while (true) {
+
+			String sizeLine = readLine(in);
+
+			if (sizeLine == null) {
+				return;
+			}
+
+			int extension = sizeLine.indexOf(';');
+			int size = Integer.parseInt(
+					(extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(),
+					16);
+
+			if (size == 0) {
+
+				String trailer = readLine(in);
+				while (trailer != null && !trailer.isEmpty()) {
+					trailer = readLine(in);
+				}
+
+				return;
+			}
+
+			skip(in, size);
+			readLine(in);
+		}
+	}
+
+	private static void skip(InputStream in, long count) throws IOException {
+
+		long remaining = count;
+
+		while (remaining > 0) {
+
+			long skipped = in.skip(remaining);
+
+			if (skipped <= 0) {
+
+				if (in.read() == -1) {
+					return;
+				}
+
+				skipped = 1;
+			}
+
+			remaining -= skipped;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.vault.benchmark.AbstractMicrobenchmark;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+
+/**
+ * Benchmarks for {@link VaultResponses}.
+ *
+ * @author Mark Paluch
+ */
+public class VaultResponsesBenchmark extends AbstractMicrobenchmark {
+
+	private static final String WRAPPED_RESPONSE = "{\"request_id\": \"058222ef-9ab9-ff39-f087-9d5bee64e46d\", "
+			+ "\"lease_id\": \"\", \"renewable\": false, \"lease_duration\": 2764800, "
+			+ "\"data\": {\"username\": \"app-user\", \"password\": \"secret\", \"port\": 5432}, "
+			+ "\"wrap_info\": null, \"warnings\": null, \"auth\": null}";
+
+	@Benchmark
+	public ParameterizedTypeReference<VaultResponseSupport<Map>> getTypeReference() {
+		return VaultResponses.getTypeReference(Map.class);
+	}
+
+	@Benchmark
+	public VaultResponse unwrap() {
+		return VaultResponses.unwrap(WRAPPED_RESPONSE, VaultResponse.class);
+	}
+}
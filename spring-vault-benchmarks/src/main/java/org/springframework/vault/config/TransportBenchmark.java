@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.config;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.vault.authentication.SimpleSessionManager;
+import org.springframework.vault.authentication.TokenAuthentication;
+import org.springframework.vault.benchmark.StubCertificate;
+import org.springframework.vault.benchmark.VaultStubServer;
+import org.springframework.vault.core.RestOperationsCallback;
+import org.springframework.vault.core.VaultTemplate;
+import org.springframework.vault.support.ClientOptions;
+import org.springframework.vault.support.SslConfiguration;
+import org.springframework.vault.support.VaultHealth;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * End-to-end benchmark of the HTTP clients supported by
+ * {@link ClientHttpRequestFactoryFactory}. Drives {@link VaultTemplate} against an
+ * in-process {@link VaultStubServer} through Apache Http Components, OkHttp, OkHttp 3,
+ * Netty and the JDK HTTP client, over plaintext HTTP and TLS, with configurable server
+ * latency and payload size.
+ * <p>
+ * Reports throughput and latency percentiles. Vary concurrency with the JMH
+ * {@code -t} option, allocation rates are reported by the GC profiler. The number of
+ * requests the server served and connections the client opened are reported as
+ * {@link Connections secondary results}.
+ *
+ * @author Mark Paluch
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+	private static final RestOperationsCallback<VaultResponse> LOOKUP_SELF = new RestOperationsCallback<VaultResponse>() {
+
+		@Override
+		public VaultResponse doWithRestOperations(RestOperations restOperations) {
+			return restOperations.getForObject("auth/token/lookup-self",
+					VaultResponse.class);
+		}
+	};
+
+	@Param({ "HttpComponents", "OkHttp", "OkHttp3", "Netty", "Jdk" })
+	private String client;
+
+	@Param({ "false", "true" })
+	private boolean tls;
+
+	@Param({ "0", "5" })
+	private int latency;
+
+	@Param({ "64", "4096" })
+	private int payloadSize;
+
+	private VaultStubServer server;
+
+	private ClientHttpRequestFactory requestFactory;
+
+	private VaultTemplate vaultTemplate;
+
+	private byte[] plaintext;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+
+		SslConfiguration sslConfiguration = SslConfiguration.NONE;
+		SSLContext serverSslContext = null;
+
+		if (tls) {
+
+			StubCertificate certificate = StubCertificate.generate();
+
+			serverSslContext = certificate.createServerSslContext();
+			sslConfiguration = certificate.createClientSslConfiguration();
+		}
+
+		server = new VaultStubServer(latency, TimeUnit.MILLISECONDS, payloadSize,
+				serverSslContext);
+		server.start();
+
+		ClientOptions options = ClientOptions.builder().maxTotalConnections(256)
+				.maxConnectionsPerRoute(256).maxIdleConnections(256).maxRequests(256)
+				.maxRequestsPerHost(256).build();
+
+		requestFactory = createRequestFactory(client, options, sslConfiguration);
+
+		if (requestFactory instanceof InitializingBean) {
+			((InitializingBean) requestFactory).afterPropertiesSet();
+		}
+
+		vaultTemplate = new VaultTemplate(server.getVaultEndpoint(), requestFactory,
+				new SimpleSessionManager(new TokenAuthentication("token")));
+
+		plaintext = new byte[payloadSize];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+
+		if (requestFactory instanceof DisposableBean) {
+			((DisposableBean) requestFactory).destroy();
+		}
+
+		server.close();
+	}
+
+	@Benchmark
+	public VaultResponse read(Connections connections) {
+		return vaultTemplate.read("secret/benchmark");
+	}
+
+	@Benchmark
+	public VaultResponse write(Connections connections) {
+		return vaultTemplate.write("secret/benchmark",
+				Collections.singletonMap("value", "benchmark"));
+	}
+
+	@Benchmark
+	public String encrypt(Connections connections) {
+		return vaultTemplate.opsForTransit().encrypt("benchmark", plaintext, null);
+	}
+
+	@Benchmark
+	public VaultResponse lookupSelf(Connections connections) {
+		return vaultTemplate.doWithSession(LOOKUP_SELF);
+	}
+
+	@Benchmark
+	public VaultHealth health(Connections connections) {
+		return vaultTemplate.opsForSys().health();
+	}
+
+	/**
+	 * Requests served and connections accepted by {@link VaultStubServer} during an
+	 * iteration. The first benchmark thread reports the server counters so that the
+	 * counters are not summed up for each thread.
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Connections {
+
+		public long requests;
+
+		public long connectionsOpened;
+
+		private long requestsBefore;
+
+		private long connectionsBefore;
+
+		@Setup(Level.Iteration)
+		public void setup(TransportBenchmark benchmark) {
+
+			requests = 0;
+			connectionsOpened = 0;
+			requestsBefore = benchmark.server.getRequestCount();
+			connectionsBefore = benchmark.server.getAcceptedConnections();
+		}
+
+		@TearDown(Level.Iteration)
+		public void tearDown(TransportBenchmark benchmark, ThreadParams threadParams) {
+
+			if (threadParams.getThreadIndex() == 0) {
+				requests = benchmark.server.getRequestCount() - requestsBefore;
+				connectionsOpened = benchmark.server.getAcceptedConnections()
+						- connectionsBefore;
+			}
+		}
+	}
+
+	static ClientHttpRequestFactory createRequestFactory(String client,
+			ClientOptions options, SslConfiguration sslConfiguration) throws Exception {
+
+		if (client.equals("HttpComponents")) {
+			return ClientHttpRequestFactoryFactory.HttpComponents.usingHttpComponents(
+					options, sslConfiguration);
+		}
+
+		if (client.equals("OkHttp")) {
+			return ClientHttpRequestFactoryFactory.OkHttp.usingOkHttp(options,
+					sslConfiguration);
+		}
+
+		if (client.equals("OkHttp3")) {
+			return ClientHttpRequestFactoryFactory.OkHttp3.usingOkHttp3(options,
+					sslConfiguration);
+		}
+
+		if (client.equals("Netty")) {
+			return ClientHttpRequestFactoryFactory.Netty.usingNetty(options,
+					sslConfiguration);
+		}
+
+		if (client.equals("Jdk")) {
+			return usingJdk(options, sslConfiguration);
+		}
+
+		throw new IllegalArgumentException(String.format("Unsupported client %s",
+				client));
+	}
+
+	/**
+	 * JDK HTTP client applying {@link SslConfiguration} to each connection.
+	 * {@link ClientHttpRequestFactoryFactory} leaves SSL configuration of the JDK client
+	 * to the application.
+	 */
+	private static ClientHttpRequestFactory usingJdk(ClientOptions options,
+			SslConfiguration sslConfiguration) throws Exception {
+
+		final SSLSocketFactory socketFactory = sslConfiguration.getTrustStore() != null ? ClientHttpRequestFactoryFactory
+				.getSSLContext(sslConfiguration).getSocketFactory() : null;
+
+		ClientHttpRequestFactoryFactory.DeadlineAwareSimpleClientHttpRequestFactory requestFactory = new ClientHttpRequestFactoryFactory.DeadlineAwareSimpleClientHttpRequestFactory() {
+
+			@Override
+			protected void prepareConnection(HttpURLConnection connection,
+					String httpMethod) throws IOException {
+
+				super.prepareConnection(connection, httpMethod);
+
+				// reuse the socket factory so that kept-alive connections are reused
+				if (socketFactory != null && connection instanceof HttpsURLConnection) {
+					((HttpsURLConnection) connection).setSSLSocketFactory(socketFactory);
+				}
+			}
+		};
+
+		requestFactory.setConnectTimeout(options.getConnectionTimeout());
+		requestFactory.setReadTimeout(options.getReadTimeout());
+
+		return requestFactory;
+	}
+}
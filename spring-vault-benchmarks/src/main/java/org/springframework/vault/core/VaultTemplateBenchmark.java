@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import org.springframework.vault.authentication.SimpleSessionManager;
+import org.springframework.vault.authentication.TokenAuthentication;
+import org.springframework.vault.benchmark.AbstractMicrobenchmark;
+import org.springframework.vault.benchmark.StubClientHttpRequestFactory;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Benchmarks for {@link VaultTemplate} measuring the overhead of the session token
+ * interceptor. Both benchmarks issue the same request, one with and one without session
+ * context, against a stubbed HTTP client.
+ *
+ * @author Mark Paluch
+ */
+public class VaultTemplateBenchmark extends AbstractMicrobenchmark {
+
+	private static final RestOperationsCallback<VaultResponse> READ = new RestOperationsCallback<VaultResponse>() {
+
+		@Override
+		public VaultResponse doWithRestOperations(RestOperations restOperations) {
+			return restOperations.getForObject("secret/foo", VaultResponse.class);
+		}
+	};
+
+	private VaultTemplate vaultTemplate;
+
+	@Setup
+	public void setup() {
+
+		vaultTemplate = new VaultTemplate(new VaultEndpoint(),
+				new StubClientHttpRequestFactory("{\"data\": {\"key\": \"value\"}}"),
+				new SimpleSessionManager(new TokenAuthentication("token")));
+	}
+
+	@Benchmark
+	public VaultResponse withSession() {
+		return vaultTemplate.doWithSession(READ);
+	}
+
+	@Benchmark
+	public VaultResponse withoutSession() {
+		return vaultTemplate.doWithVault(READ);
+	}
+
+	@Benchmark
+	public VaultResponse read() {
+		return vaultTemplate.read("secret/foo");
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import org.springframework.util.Base64Utils;
+import org.springframework.vault.authentication.SimpleSessionManager;
+import org.springframework.vault.authentication.TokenAuthentication;
+import org.springframework.vault.benchmark.AbstractMicrobenchmark;
+import org.springframework.vault.benchmark.StubClientHttpRequestFactory;
+import org.springframework.vault.client.VaultEndpoint;
+
+/**
+ * Benchmarks for {@link VaultTransitTemplate} covering Base64 encoding of plaintext
+ * and request/response mapping against a stubbed HTTP client. {@link #encode()} and
+ * {@link #decode()} measure Base64 encoding in isolation.
+ *
+ * @author Mark Paluch
+ */
+public class VaultTransitTemplateBenchmark extends AbstractMicrobenchmark {
+
+	@Param({ "64", "4096" })
+	private int size;
+
+	private byte[] plaintext;
+
+	private String encoded;
+
+	private VaultTransitOperations transitOperations;
+
+	@Setup
+	public void setup() {
+
+		plaintext = new byte[size];
+		new Random(0).nextBytes(plaintext);
+		encoded = Base64Utils.encodeToString(plaintext);
+
+		String response = String.format(
+				"{\"data\": {\"ciphertext\": \"vault:v1:%s\", \"plaintext\": \"%s\"}}",
+				encoded, encoded);
+
+		VaultTemplate vaultTemplate = new VaultTemplate(new VaultEndpoint(),
+				new StubClientHttpRequestFactory(response), new SimpleSessionManager(
+						new TokenAuthentication("token")));
+
+		transitOperations = vaultTemplate.opsForTransit();
+	}
+
+	@Benchmark
+	public String encode() {
+		return Base64Utils.encodeToString(plaintext);
+	}
+
+	@Benchmark
+	public byte[] decode() {
+		return Base64Utils.decodeFromString(encoded);
+	}
+
+	@Benchmark
+	public String encrypt() {
+		return transitOperations.encrypt("key", plaintext, null);
+	}
+
+	@Benchmark
+	public byte[] decrypt() {
+		return transitOperations.decrypt("key", "vault:v1:" + encoded, null);
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import org.springframework.vault.benchmark.AbstractMicrobenchmark;
+
+/**
+ * Benchmarks for {@link PropertyTransformers} chains.
+ *
+ * @author Mark Paluch
+ */
+public class PropertyTransformersBenchmark extends AbstractMicrobenchmark {
+
+	private Map<String, String> properties;
+
+	private PropertyTransformer prefix;
+
+	private PropertyTransformer chain;
+
+	@Setup
+	public void setup() {
+
+		properties = new LinkedHashMap<String, String>();
+		for (int i = 0; i < 20; i++) {
+			properties.put("key-" + i, "value-" + i);
+		}
+
+		prefix = PropertyTransformers.propertyNamePrefix("vault.");
+		chain = PropertyTransformers.noop()
+				.andThen(PropertyTransformers.propertyNamePrefix("secret."))
+				.andThen(PropertyTransformers.propertyNamePrefix("vault."));
+	}
+
+	@Benchmark
+	public Map<String, String> prefix() {
+		return prefix.transformProperties(properties);
+	}
+
+	@Benchmark
+	public Map<String, String> chain() {
+		return chain.transformProperties(properties);
+	}
+}
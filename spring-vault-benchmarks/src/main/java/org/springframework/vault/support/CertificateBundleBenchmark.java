@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.security.spec.KeySpec;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import org.springframework.util.Base64Utils;
+import org.springframework.vault.benchmark.AbstractMicrobenchmark;
+
+/**
+ * Benchmarks for {@link CertificateBundle} and DER parsing in {@link KeystoreUtil}.
+ *
+ * @author Mark Paluch
+ */
+public class CertificateBundleBenchmark extends AbstractMicrobenchmark {
+
+	private CertificateBundle certificateBundle;
+
+	private byte[] certificate;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+
+		Map<String, String> data = new ObjectMapper().readValue(
+				getClass().getResource("/certificate.json"), Map.class);
+
+		certificateBundle = CertificateBundle.of(data.get("serial_number"),
+				data.get("certificate"), data.get("issuing_ca"), data.get("private_key"));
+		certificate = Base64Utils.decodeFromString(data.get("certificate"));
+	}
+
+	@Benchmark
+	public X509Certificate parseCertificate() throws Exception {
+		return KeystoreUtil.getCertificate(certificate);
+	}
+
+	@Benchmark
+	public KeySpec getPrivateKeySpec() {
+		return certificateBundle.getPrivateKeySpec();
+	}
+
+	@Benchmark
+	public KeyStore createKeyStore() {
+		return certificateBundle.createKeyStore("vault");
+	}
+}
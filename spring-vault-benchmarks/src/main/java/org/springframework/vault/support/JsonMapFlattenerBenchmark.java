@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+import org.springframework.vault.benchmark.AbstractMicrobenchmark;
+
+/**
+ * Benchmarks for {@link JsonMapFlattener}.
+ *
+ * @author Mark Paluch
+ */
+public class JsonMapFlattenerBenchmark extends AbstractMicrobenchmark {
+
+	private Map<String, Object> flat;
+
+	private Map<String, Object> nested;
+
+	@Setup
+	public void setup() {
+
+		flat = new LinkedHashMap<String, Object>();
+		flat.put("username", "app-user");
+		flat.put("password", "secret");
+		flat.put("port", 5432);
+
+		Map<String, Object> datasource = new LinkedHashMap<String, Object>(flat);
+		datasource.put("hosts", Arrays.asList("db-1", "db-2", "db-3"));
+
+		List<Object> keys = new ArrayList<Object>();
+		for (int i = 0; i < 10; i++) {
+
+			Map<String, Object> key = new LinkedHashMap<String, Object>();
+			key.put("id", i);
+			key.put("value", "key-" + i);
+			keys.add(key);
+		}
+
+		nested = new LinkedHashMap<String, Object>();
+		nested.put("datasource", datasource);
+		nested.put("keys", keys);
+		nested.put("enabled", true);
+	}
+
+	@Benchmark
+	public Map<String, String> flattenFlat() {
+		return JsonMapFlattener.flatten(flat);
+	}
+
+	@Benchmark
+	public Map<String, String> flattenNested() {
+		return JsonMapFlattener.flatten(nested);
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import org.springframework.vault.support.VaultToken;
+
+/**
+ * {@link SessionManager} that holds a session token and can provide it without blocking.
+ *
+ * @author Mark Paluch
+ * @see ReactiveSessionManagerAdapter
+ */
+interface CachingSessionManager extends SessionManager {
+
+	/**
+	 * @return the current session token without login or waiting for another thread, may
+	 * be {@literal null} if no usable token is held.
+	 */
+	VaultToken getCachedSessionToken();
+}
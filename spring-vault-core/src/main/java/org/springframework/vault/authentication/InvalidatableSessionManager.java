@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import org.springframework.vault.support.VaultToken;
+
+/**
+ * {@link SessionManager} that allows invalidation of a session token that was rejected
+ * by Vault, for example because it was revoked or expired early. Invalidation discards
+ * the token so that the next {@link #getSessionToken()} call performs a new login.
+ *
+ * @author Mark Paluch
+ * @see SessionManager
+ */
+public interface InvalidatableSessionManager extends SessionManager {
+
+	/**
+	 * Invalidate the session {@code token}. Invalidation has no effect if the session
+	 * token was already replaced by a different token so concurrent invalidations of the
+	 * same token result in a single login.
+	 *
+	 * @param token the rejected session token, must not be {@literal null}.
+	 */
+	void invalidateSessionToken(VaultToken token);
+}
@@ -19,6 +19,7 @@ import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,14 +27,21 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.Trigger;
 import org.springframework.scheduling.TriggerContext;
 import org.springframework.util.Assert;
-import org.springframework.util.NumberUtils;
 import org.springframework.vault.VaultException;
+import org.springframework.vault.client.Deadline;
 import org.springframework.vault.client.VaultHttpHeaders;
 import org.springframework.vault.client.VaultResponses;
+import org.springframework.vault.support.VaultFlightRecorder;
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+import org.springframework.vault.support.VaultFlightRecorder.Recording;
 import org.springframework.vault.support.VaultToken;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
@@ -42,23 +50,46 @@ import org.springframework.web.client.RestOperations;
 /**
  * Lifecycle-aware Session Manager. This {@link SessionManager} obtains tokens from a
  * {@link ClientAuthentication} upon {@link #getSessionToken() request}. Tokens are
- * renewed asynchronously if a token has a lease duration. This happens 5 seconds before
- * the token expires, see {@link #REFRESH_PERIOD_BEFORE_EXPIRY}.
+ * renewed asynchronously if a token has a lease duration. Renewal is scheduled according
+ * to a {@link RefreshPolicy} which defaults to 5 seconds before the token expires, see
+ * {@link #REFRESH_PERIOD_BEFORE_EXPIRY}, with a small jitter.
+ * <p>
+ * Renewal timing uses the given {@link TaskScheduler} or, if a plain
+ * {@link AsyncTaskExecutor} is configured, the {@link #setRenewalScheduler(TaskScheduler)
+ * renewal scheduler} which hands the renewal over to the executor once it is due.
+ * Pending renewals do not occupy threads. The default {@link SharedRenewalScheduler} runs
+ * due renewals on a bounded worker pool.
  * <p>
  * This {@link SessionManager} also implements {@link DisposableBean} to revoke the
  * {@link LoginToken} once it's not required anymore. Token revocation will stop regular
  * token refresh.
  * <p>
- * If Token renewal runs into a client-side error, it assumes the token was
- * revoked/expired and discards the token state so the next attempt will lead to another
- * login attempt.
+ * Tokens that are not renewable, that cannot be renewed because of a client-side error
+ * or that approach their maximal TTL (explicit max TTL obtained through token lookup or
+ * a renewal capped by Vault) are replaced by a background login. The new token is swapped
+ * in atomically and the previous token is revoked asynchronously so threads requesting
+ * {@link #getSessionToken() the session token} do not wait for login. If the background
+ * login fails, it is retried while the current token is still valid. Renewals failing
+ * because of server or I/O errors are retried the same way and fall back to a login once
+ * the token has expired.
+ * <p>
+ * {@link #renewToken()} performs the background refresh synchronously. Once a token has
+ * expired and cannot be replaced, it is discarded so the next
+ * {@link #getSessionToken() request} performs a login.
+ * <p>
+ * Token and login state is exposed as managed attributes when the session manager is
+ * exported as MBean.
  *
  * @author Mark Paluch
  * @see LoginToken
  * @see SessionManager
  * @see AsyncTaskExecutor
+ * @see RefreshPolicy
+ * @see InvalidatableSessionManager
  */
-public class LifecycleAwareSessionManager implements SessionManager, DisposableBean {
+@ManagedResource(description = "Vault session manager")
+public class LifecycleAwareSessionManager implements InvalidatableSessionManager,
+		CachingSessionManager, DisposableBean {
 
 	public static final int REFRESH_PERIOD_BEFORE_EXPIRY = 5;
 
@@ -73,8 +104,35 @@ public class LifecycleAwareSessionManager implements SessionManager, DisposableB
 
 	private final Object lock = new Object();
 
+	private volatile RefreshPolicy refreshPolicy = RefreshPolicy.DEFAULT;
+
+	private volatile LoginGovernor loginGovernor = new LoginGovernor();
+
+	private volatile TaskScheduler renewalScheduler = SharedRenewalScheduler
+			.getInstance();
+
+	private volatile boolean revokeOnDestroy = true;
+
+	private volatile long renewTimeout;
+
 	private volatile VaultToken token;
 
+	private volatile TokenLifecycle lifecycle;
+
+	private volatile long lastRenewal;
+
+	/**
+	 * Create a {@link LifecycleAwareSessionManager} given {@link ClientAuthentication}
+	 * and {@link RestOperations} using the {@link SharedRenewalScheduler}.
+	 *
+	 * @param clientAuthentication must not be {@literal null}.
+	 * @param restOperations must not be {@literal null}.
+	 */
+	public LifecycleAwareSessionManager(ClientAuthentication clientAuthentication,
+			RestOperations restOperations) {
+		this(clientAuthentication, SharedRenewalScheduler.getInstance(), restOperations);
+	}
+
 	/**
 	 * Create a {@link LifecycleAwareSessionManager} given {@link ClientAuthentication},
 	 * {@link AsyncTaskExecutor} and {@link RestOperations}.
@@ -95,64 +153,111 @@ public class LifecycleAwareSessionManager implements SessionManager, DisposableB
 		this.taskExecutor = taskExecutor;
 	}
 
+	/**
+	 * Set the {@link RefreshPolicy} to determine when tokens are renewed. Defaults to
+	 * {@link RefreshPolicy#DEFAULT}.
+	 *
+	 * @param refreshPolicy must not be {@literal null}.
+	 */
+	public void setRefreshPolicy(RefreshPolicy refreshPolicy) {
+
+		Assert.notNull(refreshPolicy, "RefreshPolicy must not be null");
+
+		this.refreshPolicy = refreshPolicy;
+	}
+
+	/**
+	 * Set the {@link TaskScheduler} to time renewals if the configured
+	 * {@link AsyncTaskExecutor} is not a {@link TaskScheduler}. Renewals are handed over
+	 * to the {@link AsyncTaskExecutor} once they are due. Defaults to
+	 * {@link SharedRenewalScheduler#getInstance()}, which runs due renewals directly if
+	 * the {@link AsyncTaskExecutor} is the {@link SharedRenewalScheduler#getTaskExecutor()
+	 * shared worker pool}.
+	 *
+	 * @param renewalScheduler must not be {@literal null}.
+	 */
+	public void setRenewalScheduler(TaskScheduler renewalScheduler) {
+
+		Assert.notNull(renewalScheduler, "TaskScheduler must not be null");
+
+		this.renewalScheduler = renewalScheduler;
+	}
+
+	/**
+	 * Set the {@link LoginGovernor} that applies backoff and circuit breaking to login
+	 * attempts.
+	 *
+	 * @param loginGovernor must not be {@literal null}.
+	 */
+	public void setLoginGovernor(LoginGovernor loginGovernor) {
+
+		Assert.notNull(loginGovernor, "LoginGovernor must not be null");
+
+		this.loginGovernor = loginGovernor;
+	}
+
+	/**
+	 * Set the timeout for background token renewal including the token lookup and a
+	 * re-login. Defaults to {@literal 0} (no timeout beyond the client timeouts).
+	 *
+	 * @param timeout must not be negative, {@literal 0} for no timeout.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setRenewTimeout(long timeout, TimeUnit unit) {
+
+		Assert.isTrue(timeout >= 0, "Renew timeout must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.renewTimeout = unit.toMillis(timeout);
+	}
+
+	/**
+	 * Configure whether to revoke the {@link LoginToken} on {@link #destroy()}. Disable
+	 * revocation if the token is reused across restarts, see
+	 * {@link PersistentTokenAuthentication}. Defaults to {@literal true}.
+	 *
+	 * @param revokeOnDestroy {@literal true} to revoke the token on {@link #destroy()}.
+	 */
+	public void setRevokeOnDestroy(boolean revokeOnDestroy) {
+		this.revokeOnDestroy = revokeOnDestroy;
+	}
+
 	@Override
 	public void destroy() {
 
 		VaultToken token = this.token;
 		this.token = null;
 
-		if (token instanceof LoginToken) {
-
-			try {
-				restOperations.postForObject("/auth/token/revoke-self",
-						new HttpEntity<Object>(VaultHttpHeaders.from(token)), Map.class);
-			}
-			catch (HttpStatusCodeException e) {
-				logger.warn(String.format("Cannot revoke VaultToken: %s",
-						VaultResponses.getError(e.getResponseBodyAsString())));
-			}
+		if (revokeOnDestroy) {
+			revoke(token);
 		}
 	}
 
 	/**
 	 * Performs a token refresh. Creates a new token if no token was obtained before. If a
-	 * token was obtained before, it uses self-renewal to renew the current token.
-	 * Client-side errors (like permission denied) indicate the token cannot be renewed
-	 * because it's expired or simply not found.
+	 * token with a lease was obtained before, it performs the same refresh as the
+	 * scheduled background renewal: the token is renewed using self-renewal or, if it
+	 * cannot be renewed any further, replaced by a new login while the current token
+	 * remains in use. A successful refresh replaces the pending scheduled renewal.
 	 *
-	 * @return {@literal true} if the refresh was successful. {@literal false} if a new
-	 * token was obtained or refresh failed.
+	 * @return {@literal true} if the token was renewed. {@literal false} if a new token
+	 * was obtained or the token has no lease to renew.
 	 */
 	protected boolean renewToken() {
 
-		logger.info("Renewing token");
+		TokenLifecycle lifecycle = this.lifecycle;
+		VaultToken token = this.token;
 
 		if (token == null) {
 			getSessionToken();
 			return false;
 		}
 
-		try {
-			restOperations.postForObject("/auth/token/renew-self",
-					new HttpEntity<Object>(
-					VaultHttpHeaders.from(token)), Map.class);
-			return true;
+		if (lifecycle == null || lifecycle.token != token) {
+			return false;
 		}
-		catch (HttpStatusCodeException e) {
-
-			if (e.getStatusCode().is4xxClientError()) {
-				logger.debug(String
-						.format("Cannot refresh token, resetting token and performing re-login: %s",
-								VaultResponses.getError(e.getResponseBodyAsString())));
-				token = null;
-				return false;
-			}
 
-			throw new VaultException(VaultResponses.getError(e.getResponseBodyAsString()));
-		}
-		catch (RestClientException e) {
-			throw new VaultException("Cannot refresh token", e);
-		}
+		return refresh(lifecycle);
 	}
 
 	@Override
@@ -163,11 +268,11 @@ public class LifecycleAwareSessionManager implements SessionManager, DisposableB
 			synchronized (lock) {
 
 				if (token == null) {
-					token = clientAuthentication.login();
 
-					if (isTokenRenewable()) {
-						scheduleRenewal();
-					}
+					VaultToken token = loginGovernor.login(clientAuthentication);
+					this.token = token;
+
+					scheduleRefresh(token);
 				}
 			}
 		}
@@ -175,70 +280,430 @@ public class LifecycleAwareSessionManager implements SessionManager, DisposableB
 		return token;
 	}
 
-	private boolean isTokenRenewable() {
+	/**
+	 * @return the remaining time to live of the current session token in milliseconds
+	 * or {@literal -1} if no token was obtained yet or the token does not expire.
+	 */
+	@ManagedAttribute(description = "Remaining time to live of the session token in milliseconds")
+	public long getTokenTimeToLive() {
 
-		if (token instanceof LoginToken) {
+		TokenLifecycle lifecycle = this.lifecycle;
+		VaultToken token = this.token;
 
-			LoginToken loginToken = (LoginToken) token;
-			return loginToken.getLeaseDuration() > 0 && loginToken.isRenewable();
+		if (token == null || lifecycle == null || lifecycle.token != token) {
+			return -1;
 		}
 
-		return false;
+		return Math.max(0, lifecycle.getRemaining());
+	}
+
+	/**
+	 * @return time of the last successful token renewal, may be {@literal null} if the
+	 * token was not renewed yet.
+	 */
+	@ManagedAttribute(description = "Time of the last successful token renewal")
+	public Date getLastRenewal() {
+
+		long lastRenewal = this.lastRenewal;
+		return lastRenewal == 0 ? null : new Date(lastRenewal);
+	}
+
+	/**
+	 * @return the number of login attempts that reached {@link ClientAuthentication}.
+	 * @see LoginGovernor#getLoginCount()
+	 */
+	@ManagedAttribute(description = "Number of login attempts that reached the ClientAuthentication")
+	public long getLoginCount() {
+		return loginGovernor.getLoginCount();
+	}
+
+	/**
+	 * @return the number of failed logins.
+	 * @see LoginGovernor#getFailureCount()
+	 */
+	@ManagedAttribute(description = "Number of failed logins")
+	public long getLoginFailureCount() {
+		return loginGovernor.getFailureCount();
+	}
+
+	@Override
+	public VaultToken getCachedSessionToken() {
+		return token;
 	}
 
-	private void scheduleRenewal() {
+	@Override
+	public void invalidateSessionToken(VaultToken token) {
+
+		Assert.notNull(token, "VaultToken must not be null");
+
+		synchronized (lock) {
+			if (token.equals(this.token)) {
+				logger.info("Invalidating session token");
+				this.token = null;
+			}
+		}
+	}
+
+	/**
+	 * Schedule the refresh of {@code token} if it is a {@link LoginToken} with a lease
+	 * duration.
+	 */
+	private void scheduleRefresh(VaultToken token) {
+
+		if (token instanceof LoginToken
+				&& ((LoginToken) token).getLeaseDuration() > 0) {
+
+			TokenLifecycle lifecycle = new TokenLifecycle((LoginToken) token);
+			this.lifecycle = lifecycle;
+			scheduleRefresh(lifecycle, lifecycle.getRemaining());
+		}
+		else {
+			this.lifecycle = null;
+		}
+	}
+
+	private void scheduleRefresh(TokenLifecycle lifecycle, long remaining) {
 
 		logger.info("Scheduling Token renewal");
 
-		LoginToken loginToken = (LoginToken) token;
-		final int seconds = NumberUtils
-				.convertNumberToTargetClass(
-						Math.max(1, loginToken.getLeaseDuration()
-								- REFRESH_PERIOD_BEFORE_EXPIRY), Integer.class);
+		schedule(lifecycle,
+				refreshPolicy.getRefreshDelay(remaining, TimeUnit.MILLISECONDS));
+	}
+
+	private void schedule(final TokenLifecycle lifecycle, long delay) {
+
+		final long sequence = lifecycle.scheduled.incrementAndGet();
 
 		final Runnable task = new Runnable() {
 			@Override
 			public void run() {
+
+				if (lifecycle.scheduled.get() != sequence) {
+					return;
+				}
+
+				Deadline previous = Deadline.bind(renewTimeout > 0 ? Deadline.after(
+						renewTimeout, TimeUnit.MILLISECONDS) : null);
+
 				try {
-					if (LifecycleAwareSessionManager.this.token != null
-							&& isTokenRenewable()) {
-						if (renewToken()) {
-							scheduleRenewal();
-						}
-					}
+					refresh(lifecycle);
 				}
 				catch (Exception e) {
 					logger.error("Cannot renew VaultToken", e);
 				}
+				finally {
+					Deadline.restore(previous);
+				}
 			}
 		};
 
 		if (taskExecutor instanceof TaskScheduler) {
-			scheduleTask((TaskScheduler) taskExecutor, seconds, task);
+			scheduleTask((TaskScheduler) taskExecutor, delay, task);
 			return;
 		}
 
-		taskExecutor.execute(new Runnable() {
+		// the shared scheduler already runs due tasks on the shared worker pool
+		if (taskExecutor == SharedRenewalScheduler.getTaskExecutor()
+				&& renewalScheduler == SharedRenewalScheduler.getInstance()) {
+			scheduleTask(renewalScheduler, delay, task);
+			return;
+		}
+
+		scheduleTask(renewalScheduler, delay, new Runnable() {
 			@Override
 			public void run() {
-				try {
-					// TODO: Revisit this approach since it blocks a thread. Spinning up a
-					// managed
-					// TaskScheduler just for once-in-a-while token renewal seemed a bit
-					// over-sophisticated
-					// that's why we emulate a scheduler by blocking a Thread resource
-					Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
-					task.run();
+				taskExecutor.execute(task);
+			}
+		});
+	}
+
+	/**
+	 * Schedule another refresh attempt after a failed renewal or login while the current
+	 * token has not expired yet.
+	 */
+	private void scheduleRetry(TokenLifecycle lifecycle) {
+
+		long remaining = lifecycle.getRemaining();
+
+		schedule(lifecycle, Math.min(remaining,
+				Math.max(remaining / 2, TimeUnit.SECONDS.toMillis(1))));
+	}
+
+	private void scheduleTask(TaskScheduler taskScheduler, long delay, Runnable task) {
+		taskScheduler.schedule(task, new OneShotTrigger(delay));
+	}
+
+	/**
+	 * Renew the token of {@link TokenLifecycle} or obtain a new token if the current
+	 * token is not renewable or approaches its maximal TTL. Tokens obtained by re-login
+	 * replace the current token atomically so request threads do not wait for login.
+	 * Failed renewals and logins are retried until the current token expires.
+	 *
+	 * @return {@literal true} if the token was renewed.
+	 */
+	private boolean refresh(TokenLifecycle lifecycle) {
+
+		LoginToken current = lifecycle.token;
+
+		if (token != current) {
+			return false;
+		}
+
+		if (current.isRenewable()) {
+
+			if (!lifecycle.lookedUp) {
+				lookupMaxTtl(lifecycle);
+			}
+
+			long renewalPeriod = 2 * refreshPolicy.getRefreshBeforeExpiry();
+
+			try {
+				if (lifecycle.maxExpiry - System.currentTimeMillis() > renewalPeriod
+						&& renew(lifecycle)) {
+					return true;
 				}
-				catch (InterruptedException e) {
-					Thread.currentThread().interrupt();
+			}
+			catch (VaultException e) {
+
+				if (lifecycle.getRemaining() > 0) {
+
+					logger.warn("Cannot renew token, retrying", e);
+					scheduleRetry(lifecycle);
+					return false;
 				}
+
+				logger.warn("Cannot renew expired token, performing re-login", e);
 			}
-		});
+		}
+
+		reLogin(lifecycle);
+
+		return false;
 	}
 
-	private void scheduleTask(TaskScheduler taskScheduler, int seconds, Runnable task) {
-		taskScheduler.schedule(task, new OneShotTrigger(seconds));
+	/**
+	 * Renew the token using self-renewal.
+	 *
+	 * @return {@literal true} if the token was renewed. {@literal false} if the token
+	 * cannot be renewed because of a client-side error.
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean renew(TokenLifecycle lifecycle) {
+
+		logger.info("Renewing token");
+
+		LoginToken current = lifecycle.token;
+		long now = System.currentTimeMillis();
+
+		Map<String, Object> response;
+		Recording recording = beginRenewal();
+
+		try {
+			response = restOperations.postForObject("/auth/token/renew-self",
+					new HttpEntity<Object>(VaultHttpHeaders.from(current)), Map.class);
+		}
+		catch (HttpStatusCodeException e) {
+
+			recording.setStatus(e.getRawStatusCode());
+			recording.setFailure(e);
+
+			if (e.getStatusCode().is4xxClientError()) {
+				logger.debug(String.format(
+						"Cannot refresh token, performing re-login: %s",
+						VaultResponses.getError(e.getResponseBodyAsString())));
+				return false;
+			}
+
+			throw new VaultException(VaultResponses.getError(e.getResponseBodyAsString()));
+		}
+		catch (RestClientException e) {
+
+			recording.setFailure(e);
+
+			throw new VaultException("Cannot refresh token", e);
+		}
+		finally {
+			recording.commit();
+		}
+
+		long leaseDuration = current.getLeaseDuration();
+
+		if (response != null && response.get("auth") instanceof Map) {
+
+			Object lease = ((Map<String, Object>) response.get("auth"))
+					.get("lease_duration");
+
+			if (lease instanceof Number) {
+				leaseDuration = ((Number) lease).longValue();
+			}
+		}
+
+		long remaining = TimeUnit.SECONDS.toMillis(leaseDuration);
+		lifecycle.expiry = now + remaining;
+		lastRenewal = now;
+
+		// Vault caps renewals at the maximal TTL
+		if (leaseDuration < current.getLeaseDuration()) {
+			lifecycle.maxExpiry = Math.min(lifecycle.maxExpiry, lifecycle.expiry);
+		}
+
+		scheduleRefresh(lifecycle, remaining);
+
+		return true;
+	}
+
+	private static Recording beginRenewal() {
+
+		Recording recording = VaultFlightRecorder.begin(Operation.TOKEN_RENEWAL);
+		recording.setName("auth/token/renew-self");
+
+		return recording;
+	}
+
+	/**
+	 * Look up the explicit maximal TTL of the current token. Failures are ignored as the
+	 * maximal TTL is also detected from capped renewals.
+	 */
+	@SuppressWarnings("unchecked")
+	private void lookupMaxTtl(TokenLifecycle lifecycle) {
+
+		lifecycle.lookedUp = true;
+
+		try {
+
+			ResponseEntity<Map> entity = restOperations.exchange(
+					"/auth/token/lookup-self", HttpMethod.GET, new HttpEntity<Object>(
+							VaultHttpHeaders.from(lifecycle.token)), Map.class);
+
+			Map<String, Object> body = entity != null ? entity.getBody() : null;
+
+			if (body != null && body.get("data") instanceof Map) {
+
+				Object explicitMaxTtl = ((Map<String, Object>) body.get("data"))
+						.get("explicit_max_ttl");
+
+				if (explicitMaxTtl instanceof Number
+						&& ((Number) explicitMaxTtl).longValue() > 0) {
+					lifecycle.maxExpiry = lifecycle.obtained
+							+ TimeUnit.SECONDS.toMillis(((Number) explicitMaxTtl)
+									.longValue());
+				}
+			}
+		}
+		catch (RestClientException e) {
+			logger.debug(String.format("Cannot look up token: %s", e.getMessage()));
+		}
+	}
+
+	/**
+	 * Obtain a new token and replace the current token if it was not replaced in the
+	 * meantime. The previous token is revoked asynchronously.
+	 */
+	private void reLogin(TokenLifecycle lifecycle) {
+
+		logger.info("Obtaining new token before token expiry");
+
+		LoginToken previous = lifecycle.token;
+		VaultToken newToken;
+
+		try {
+			newToken = loginGovernor.login(clientAuthentication);
+		}
+		catch (RuntimeException e) {
+
+			if (lifecycle.getRemaining() > 0) {
+
+				logger.warn("Cannot obtain new token, retrying", e);
+				scheduleRetry(lifecycle);
+				return;
+			}
+
+			logger.error("Cannot obtain new token, discarding expired token", e);
+
+			synchronized (lock) {
+				if (token == previous) {
+					token = null;
+				}
+			}
+
+			return;
+		}
+
+		synchronized (lock) {
+
+			if (token != previous) {
+				revokeAsync(newToken);
+				return;
+			}
+
+			token = newToken;
+			scheduleRefresh(newToken);
+		}
+
+		revokeAsync(previous);
+	}
+
+	private void revokeAsync(final VaultToken token) {
+
+		if (!(token instanceof LoginToken)) {
+			return;
+		}
+
+		try {
+			taskExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					revoke(token);
+				}
+			});
+		}
+		catch (RuntimeException e) {
+			logger.warn(String.format("Cannot schedule token revocation: %s",
+					e.getMessage()));
+		}
+	}
+
+	private void revoke(VaultToken token) {
+
+		if (token instanceof LoginToken) {
+
+			try {
+				restOperations.postForObject("/auth/token/revoke-self",
+						new HttpEntity<Object>(VaultHttpHeaders.from(token)), Map.class);
+			}
+			catch (HttpStatusCodeException e) {
+				logger.warn(String.format("Cannot revoke VaultToken: %s",
+						VaultResponses.getError(e.getResponseBodyAsString())));
+			}
+		}
+	}
+
+	/**
+	 * Lifecycle state of a {@link LoginToken} tracking its expiry and maximal TTL.
+	 */
+	private static class TokenLifecycle {
+
+		final LoginToken token;
+
+		final long obtained = System.currentTimeMillis();
+
+		volatile long expiry;
+
+		volatile long maxExpiry = Long.MAX_VALUE;
+
+		volatile boolean lookedUp;
+
+		final AtomicLong scheduled = new AtomicLong();
+
+		TokenLifecycle(LoginToken token) {
+
+			this.token = token;
+			this.expiry = obtained + TimeUnit.SECONDS.toMillis(token.getLeaseDuration());
+		}
+
+		long getRemaining() {
+			return expiry - System.currentTimeMillis();
+		}
 	}
 
 	/**
@@ -248,18 +713,18 @@ public class LifecycleAwareSessionManager implements SessionManager, DisposableB
 	private static class OneShotTrigger implements Trigger {
 
 		private final AtomicBoolean fired = new AtomicBoolean();
-		private final int seconds;
 
-		OneShotTrigger(int seconds) {
-			this.seconds = seconds;
+		private final long delay;
+
+		OneShotTrigger(long delay) {
+			this.delay = delay;
 		}
 
 		@Override
 		public Date nextExecutionTime(TriggerContext triggerContext) {
 
 			if (fired.compareAndSet(false, true)) {
-				return new Date(System.currentTimeMillis()
-						+ TimeUnit.SECONDS.toMillis(seconds));
+				return new Date(System.currentTimeMillis() + delay);
 			}
 
 			return null;
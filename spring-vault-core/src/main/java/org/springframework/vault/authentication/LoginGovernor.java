@@ -0,0 +1,324 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.support.VaultFlightRecorder;
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+import org.springframework.vault.support.VaultFlightRecorder.Recording;
+import org.springframework.vault.support.VaultToken;
+
+/**
+ * Governor for {@link ClientAuthentication#login() login attempts} protecting Vault from
+ * login storms. {@link LoginGovernor} allows a single login in flight and delays the
+ * next attempt after a failed login using exponential backoff with full jitter. After
+ * {@link #setMaxAttempts(int) a number of consecutive failures} the governor opens its
+ * circuit and rejects login attempts for {@link #setCircuitOpenDuration(long, TimeUnit)
+ * a while}. Rejected attempts fail fast with a {@link VaultException} without contacting
+ * Vault. The first attempt after the circuit open period is allowed to probe Vault again.
+ * <p>
+ * {@link LoginGovernor} applies to every {@link ClientAuthentication} such as
+ * {@link AppRoleAuthentication}, {@link AppIdAuthentication},
+ * {@link AwsEc2Authentication}, {@link CubbyholeAuthentication} and
+ * {@link ClientCertificateAuthentication}. Session managers use a {@link LoginGovernor}
+ * for all logins.
+ * <p>
+ * Attempts after the {@link Deadline#current() current deadline} has passed fail without
+ * contacting Vault and do not count as failed attempts. A login that has started is
+ * limited by {@link #setLoginTimeout(long, TimeUnit) the login timeout} only and not by
+ * the caller's deadline because its token is shared with other callers.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Mark Paluch
+ * @see SimpleSessionManager#setLoginGovernor(LoginGovernor)
+ * @see LifecycleAwareSessionManager#setLoginGovernor(LoginGovernor)
+ */
+public class LoginGovernor {
+
+	/**
+	 * Default initial backoff in milliseconds.
+	 */
+	public static final long DEFAULT_INITIAL_BACKOFF = TimeUnit.SECONDS.toMillis(1);
+
+	/**
+	 * Default maximal backoff in milliseconds.
+	 */
+	public static final long DEFAULT_MAX_BACKOFF = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * Default number of consecutive failures that open the circuit.
+	 */
+	public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+	/**
+	 * Default circuit open duration in milliseconds.
+	 */
+	public static final long DEFAULT_CIRCUIT_OPEN_DURATION = TimeUnit.MINUTES.toMillis(2);
+
+	private final static Log logger = LogFactory.getLog(LoginGovernor.class);
+
+	private static final Random random = new Random();
+
+	private final Object lock = new Object();
+
+	private final AtomicLong loginCount = new AtomicLong();
+
+	private final AtomicLong failureCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private volatile long initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+	private volatile long maxBackoff = DEFAULT_MAX_BACKOFF;
+
+	private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+	private volatile long circuitOpenDuration = DEFAULT_CIRCUIT_OPEN_DURATION;
+
+	private volatile long loginTimeout;
+
+	private volatile int consecutiveFailures;
+
+	private volatile long nextAttempt;
+
+	/**
+	 * Set the backoff after the first failed login. Subsequent failures double the
+	 * backoff up to {@link #setMaxBackoff(long, TimeUnit) the maximal backoff}.
+	 *
+	 * @param duration must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setInitialBackoff(long duration, TimeUnit unit) {
+
+		Assert.isTrue(duration >= 0, "Initial backoff must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.initialBackoff = unit.toMillis(duration);
+	}
+
+	/**
+	 * Set the maximal backoff between login attempts.
+	 *
+	 * @param duration must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setMaxBackoff(long duration, TimeUnit unit) {
+
+		Assert.isTrue(duration >= 0, "Max backoff must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.maxBackoff = unit.toMillis(duration);
+	}
+
+	/**
+	 * Set the number of consecutive failed logins that open the circuit.
+	 *
+	 * @param maxAttempts must be greater than zero.
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+
+		Assert.isTrue(maxAttempts > 0, "Max attempts must be greater than zero");
+
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Set the duration for which the circuit stays open and login attempts are rejected.
+	 *
+	 * @param duration must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setCircuitOpenDuration(long duration, TimeUnit unit) {
+
+		Assert.isTrue(duration >= 0, "Circuit open duration must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.circuitOpenDuration = unit.toMillis(duration);
+	}
+
+	/**
+	 * Set the timeout for a login attempt. The timeout applies to all requests issued by
+	 * {@link ClientAuthentication} instead of the {@link Deadline#current() caller's
+	 * deadline}. Defaults to {@literal 0} (no timeout).
+	 *
+	 * @param timeout must not be negative, {@literal 0} for no timeout.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setLoginTimeout(long timeout, TimeUnit unit) {
+
+		Assert.isTrue(timeout >= 0, "Login timeout must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.loginTimeout = unit.toMillis(timeout);
+	}
+
+	/**
+	 * Log in using {@link ClientAuthentication} unless a backoff or the open circuit
+	 * rejects the attempt. Concurrent callers are serialized so only a single login is in
+	 * flight.
+	 *
+	 * @param clientAuthentication must not be {@literal null}.
+	 * @return the {@link VaultToken}.
+	 * @throws VaultException if the login failed or the attempt was rejected.
+	 */
+	public VaultToken login(ClientAuthentication clientAuthentication) {
+
+		Assert.notNull(clientAuthentication, "ClientAuthentication must not be null");
+
+		synchronized (lock) {
+
+			long wait = nextAttempt - currentTimeMillis();
+
+			if (wait > 0) {
+
+				rejectedCount.incrementAndGet();
+
+				throw new VaultException(String.format(
+						"Login %s after %d failed attempts, next attempt in %d ms",
+						isCircuitOpen() ? "circuit open" : "backoff in effect",
+						consecutiveFailures, wait));
+			}
+
+			Deadline.checkCurrent("login");
+
+			loginCount.incrementAndGet();
+
+			Recording recording = VaultFlightRecorder.begin(Operation.LOGIN);
+
+			if (recording.isEnabled()) {
+				recording.setName(ClassUtils.getShortName(clientAuthentication
+						.getClass()));
+				recording.setRetries(consecutiveFailures);
+			}
+
+			// the token is shared, a caller's tight deadline must not fail the login
+			Deadline previous = Deadline.current();
+			Deadline.restore(loginTimeout > 0 ? Deadline.after(loginTimeout,
+					TimeUnit.MILLISECONDS) : null);
+
+			try {
+
+				VaultToken token = clientAuthentication.login();
+
+				consecutiveFailures = 0;
+				nextAttempt = 0;
+
+				return token;
+			}
+			catch (RuntimeException e) {
+
+				failureCount.incrementAndGet();
+				onFailure();
+				recording.setFailure(e);
+
+				throw e;
+			}
+			finally {
+				Deadline.restore(previous);
+				recording.commit();
+			}
+		}
+	}
+
+	private void onFailure() {
+
+		int failures = ++consecutiveFailures;
+
+		long delay;
+
+		if (failures >= maxAttempts) {
+
+			logger.warn(String.format(
+					"Login failed %d times, rejecting login attempts for %d ms",
+					failures, circuitOpenDuration));
+
+			delay = circuitOpenDuration;
+		}
+		else {
+			delay = (long) (random() * getBackoffCeiling(failures));
+		}
+
+		nextAttempt = currentTimeMillis() + delay;
+	}
+
+	private long getBackoffCeiling(int failures) {
+
+		long ceiling = initialBackoff;
+
+		for (int i = 1; i < failures && ceiling < maxBackoff; i++) {
+			ceiling *= 2;
+		}
+
+		return Math.min(ceiling, maxBackoff);
+	}
+
+	/**
+	 * @return {@literal true} if the number of consecutive failures opened the circuit
+	 * and login attempts are rejected.
+	 */
+	public boolean isCircuitOpen() {
+		return consecutiveFailures >= maxAttempts
+				&& nextAttempt - currentTimeMillis() > 0;
+	}
+
+	/**
+	 * @return the number of login attempts that reached {@link ClientAuthentication}.
+	 */
+	public long getLoginCount() {
+		return loginCount.get();
+	}
+
+	/**
+	 * @return the number of failed logins.
+	 */
+	public long getFailureCount() {
+		return failureCount.get();
+	}
+
+	/**
+	 * @return the number of login attempts rejected because of a backoff or an open
+	 * circuit.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * @return the number of consecutive failed logins.
+	 */
+	public int getConsecutiveFailures() {
+		return consecutiveFailures;
+	}
+
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	double random() {
+		return random.nextDouble();
+	}
+}
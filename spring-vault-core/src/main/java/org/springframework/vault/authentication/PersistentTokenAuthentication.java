@@ -0,0 +1,391 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.client.VaultResponses;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultToken;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * {@link ClientAuthentication} that persists tokens obtained by a delegate
+ * {@link ClientAuthentication} to an encrypted file so they survive application
+ * restarts.
+ * <p>
+ * The first {@link #login()} reads the token file and validates the persisted token with
+ * a single {@code auth/token/lookup-self} request. A valid token is reused with its
+ * remaining TTL so restarts do not consume login credentials such as AppRole
+ * {@code secret_id} uses. Missing, unreadable, tampered or invalid tokens fall back to
+ * the delegate. Subsequent logins always use the delegate, and every token the delegate
+ * obtains is persisted.
+ * <p>
+ * The token file contains the token, its lease duration, the renewable flag and the time
+ * the token was obtained. The file is encrypted with AES-CBC and authenticated with
+ * HMAC-SHA256 using keys derived from the
+ * {@link PersistentTokenAuthenticationOptions#getEncryptionKey() operator-supplied key}.
+ * <p>
+ * Use this authentication with a {@link LifecycleAwareSessionManager} that
+ * {@link LifecycleAwareSessionManager#setRevokeOnDestroy(boolean) does not revoke} its
+ * token on shutdown.
+ *
+ * <pre>
+ * <code>
+ * PersistentTokenAuthenticationOptions options = PersistentTokenAuthenticationOptions.builder()
+ * 		.tokenFile(new File("/var/run/myapp/vault-token"))
+ * 		.encryptionKey(key)
+ * 		.build();
+ *
+ * ClientAuthentication authentication = new PersistentTokenAuthentication(options,
+ * 		new AppRoleAuthentication(appRoleOptions, restOperations), restOperations);
+ * </code>
+ * </pre>
+ *
+ * @author Mark Paluch
+ * @see PersistentTokenAuthenticationOptions
+ * @see LifecycleAwareSessionManager
+ */
+public class PersistentTokenAuthentication implements ClientAuthentication {
+
+	private final static Log logger = LogFactory
+			.getLog(PersistentTokenAuthentication.class);
+
+	private static final byte[] MAGIC = { 'V', 'T', 'O', 'K' };
+
+	private static final int VERSION = 1;
+
+	private static final int IV_LENGTH = 16;
+
+	private static final int MAC_LENGTH = 32;
+
+	private static final SecureRandom random = new SecureRandom();
+
+	private final PersistentTokenAuthenticationOptions options;
+
+	private final ClientAuthentication delegate;
+
+	private final RestOperations restOperations;
+
+	private final SecretKeySpec encryptionKey;
+
+	private final SecretKeySpec macKey;
+
+	private final AtomicBoolean restoreAttempted = new AtomicBoolean();
+
+	/**
+	 * Create a {@link PersistentTokenAuthentication} using
+	 * {@link PersistentTokenAuthenticationOptions}, a delegate
+	 * {@link ClientAuthentication} and {@link RestOperations}.
+	 *
+	 * @param options must not be {@literal null}.
+	 * @param delegate must not be {@literal null}.
+	 * @param restOperations must not be {@literal null}.
+	 */
+	public PersistentTokenAuthentication(PersistentTokenAuthenticationOptions options,
+			ClientAuthentication delegate, RestOperations restOperations) {
+
+		Assert.notNull(options, "PersistentTokenAuthenticationOptions must not be null");
+		Assert.notNull(delegate, "ClientAuthentication must not be null");
+		Assert.notNull(restOperations, "RestOperations must not be null");
+
+		this.options = options;
+		this.delegate = delegate;
+		this.restOperations = restOperations;
+
+		byte[] key = options.getEncryptionKey();
+
+		try {
+			this.encryptionKey = new SecretKeySpec(Arrays.copyOf(
+					hmac(key, "encryption".getBytes()), 16), "AES");
+			this.macKey = new SecretKeySpec(hmac(key, "authentication".getBytes()),
+					"HmacSHA256");
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot derive token file keys", e);
+		}
+		finally {
+			Arrays.fill(key, (byte) 0);
+		}
+	}
+
+	@Override
+	public VaultToken login() {
+
+		if (restoreAttempted.compareAndSet(false, true)) {
+
+			VaultToken token = restore();
+
+			if (token != null) {
+				return token;
+			}
+		}
+
+		VaultToken token = delegate.login();
+
+		if (token instanceof LoginToken) {
+			persist((LoginToken) token);
+		}
+
+		return token;
+	}
+
+	private VaultToken restore() {
+
+		File file = options.getTokenFile();
+
+		if (!file.isFile()) {
+			return null;
+		}
+
+		LoginToken persisted;
+
+		try {
+			persisted = decode(FileCopyUtils.copyToByteArray(file));
+		}
+		catch (IOException e) {
+			logger.warn(String.format("Cannot read token file %s: %s", file,
+					e.getMessage()));
+			return null;
+		}
+
+		if (persisted == null) {
+			logger.warn(String.format(
+					"Discarding token file %s: Unknown format or tampered content",
+					file));
+			return null;
+		}
+
+		return validate(persisted);
+	}
+
+	/**
+	 * Validate the persisted token by looking it up.
+	 *
+	 * @return the {@link LoginToken} with the remaining TTL or {@literal null} if the
+	 * token is no longer valid.
+	 */
+	private LoginToken validate(LoginToken persisted) {
+
+		ResponseEntity<VaultResponse> entity;
+
+		try {
+			entity = restOperations.exchange("auth/token/lookup-self", HttpMethod.GET,
+					new HttpEntity<Object>(VaultHttpHeaders.from(persisted)),
+					VaultResponse.class);
+		}
+		catch (HttpStatusCodeException e) {
+			logger.info(String.format("Persisted token is no longer valid: %s",
+					VaultResponses.getError(e.getResponseBodyAsString())));
+			return null;
+		}
+		catch (RestClientException e) {
+			logger.warn(String.format("Cannot validate persisted token: %s",
+					e.getMessage()));
+			return null;
+		}
+
+		Map<String, Object> data = entity != null && entity.getBody() != null ? entity
+				.getBody().getData() : null;
+
+		if (data == null) {
+			return null;
+		}
+
+		long ttl = data.get("ttl") instanceof Number ? ((Number) data.get("ttl"))
+				.longValue() : 0;
+
+		if (persisted.getLeaseDuration() > 0 && ttl <= 0) {
+			return null;
+		}
+
+		boolean renewable = data.containsKey("renewable") ? Boolean.TRUE.equals(data
+				.get("renewable")) : persisted.isRenewable();
+
+		logger.debug("Reusing persisted token");
+
+		return renewable ? LoginToken.renewable(persisted.getToken(), ttl) : LoginToken
+				.of(persisted.getToken(), ttl);
+	}
+
+	private void persist(LoginToken token) {
+
+		File file = options.getTokenFile();
+		File temp = new File(file.getPath() + ".tmp");
+
+		try {
+
+			byte[] content = encode(token, System.currentTimeMillis());
+
+			OutputStream out = new FileOutputStream(temp);
+			try {
+				restrictToOwner(temp);
+				out.write(content);
+			}
+			finally {
+				out.close();
+			}
+
+			if (!temp.renameTo(file)) {
+				file.delete();
+				if (!temp.renameTo(file)) {
+					throw new IOException(String.format("Cannot rename %s to %s", temp,
+							file));
+				}
+			}
+		}
+		catch (IOException e) {
+			temp.delete();
+			logger.warn(String.format("Cannot persist token to %s: %s", file,
+					e.getMessage()));
+		}
+	}
+
+	private static void restrictToOwner(File file) {
+
+		file.setReadable(false, false);
+		file.setWritable(false, false);
+		file.setReadable(true, true);
+		file.setWritable(true, true);
+	}
+
+	byte[] encode(LoginToken token, long obtainedAt) throws IOException {
+
+		ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(plaintext);
+
+		data.writeUTF(token.getToken());
+		data.writeLong(token.getLeaseDuration());
+		data.writeBoolean(token.isRenewable());
+		data.writeLong(obtainedAt);
+		data.flush();
+
+		byte[] iv = new byte[IV_LENGTH];
+		random.nextBytes(iv);
+
+		try {
+
+			Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+			cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+			byte[] ciphertext = cipher.doFinal(plaintext.toByteArray());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			out.write(MAGIC);
+			out.write(VERSION);
+			out.write(iv);
+			out.write(ciphertext);
+			out.write(mac(out.toByteArray()));
+
+			return out.toByteArray();
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot encrypt token", e);
+		}
+	}
+
+	/**
+	 * Decode the token file content.
+	 *
+	 * @return the {@link LoginToken} or {@literal null} if the content is not a valid
+	 * token file.
+	 */
+	LoginToken decode(byte[] content) throws IOException {
+
+		int headerLength = MAGIC.length + 1 + IV_LENGTH;
+
+		if (content.length < headerLength + MAC_LENGTH
+				|| !Arrays.equals(Arrays.copyOf(content, MAGIC.length), MAGIC)
+				|| content[MAGIC.length] != VERSION) {
+			return null;
+		}
+
+		int macOffset = content.length - MAC_LENGTH;
+
+		try {
+
+			byte[] expected = mac(Arrays.copyOf(content, macOffset));
+			byte[] actual = Arrays.copyOfRange(content, macOffset, content.length);
+
+			if (!MessageDigest.isEqual(expected, actual)) {
+				return null;
+			}
+
+			Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+			cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(
+					content, MAGIC.length + 1, IV_LENGTH));
+			byte[] plaintext = cipher.doFinal(content, headerLength, macOffset
+					- headerLength);
+
+			DataInputStream data = new DataInputStream(new ByteArrayInputStream(
+					plaintext));
+
+			String token = data.readUTF();
+			long leaseDuration = data.readLong();
+			boolean renewable = data.readBoolean();
+			data.readLong();
+
+			return renewable ? LoginToken.renewable(token, leaseDuration) : LoginToken
+					.of(token, leaseDuration);
+		}
+		catch (GeneralSecurityException e) {
+			return null;
+		}
+	}
+
+	private byte[] mac(byte[] content) throws GeneralSecurityException {
+
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(macKey);
+		return mac.doFinal(content);
+	}
+
+	private static byte[] hmac(byte[] key, byte[] content)
+			throws GeneralSecurityException {
+
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(key, "HmacSHA256"));
+		return mac.doFinal(content);
+	}
+}
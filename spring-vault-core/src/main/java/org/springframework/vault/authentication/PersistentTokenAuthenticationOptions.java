@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+
+/**
+ * Options for {@link PersistentTokenAuthentication}.
+ * <p>
+ * Options provide the token file and the key to encrypt the token file. Instances of this
+ * class are immutable once constructed.
+ *
+ * @author Mark Paluch
+ * @see PersistentTokenAuthentication
+ * @see #builder()
+ */
+public class PersistentTokenAuthenticationOptions {
+
+	/**
+	 * Minimal length of the encryption key in bytes.
+	 */
+	public static final int MIN_KEY_LENGTH = 16;
+
+	/**
+	 * File to persist the token.
+	 */
+	private final File tokenFile;
+
+	/**
+	 * Key to encrypt the token file.
+	 */
+	private final byte[] encryptionKey;
+
+	private PersistentTokenAuthenticationOptions(File tokenFile, byte[] encryptionKey) {
+
+		this.tokenFile = tokenFile;
+		this.encryptionKey = encryptionKey;
+	}
+
+	/**
+	 * @return a new {@link PersistentTokenAuthenticationOptionsBuilder}.
+	 */
+	public static PersistentTokenAuthenticationOptionsBuilder builder() {
+		return new PersistentTokenAuthenticationOptionsBuilder();
+	}
+
+	/**
+	 * @return the file to persist the token.
+	 */
+	public File getTokenFile() {
+		return tokenFile;
+	}
+
+	/**
+	 * @return a copy of the key to encrypt the token file.
+	 */
+	public byte[] getEncryptionKey() {
+		return Arrays.copyOf(encryptionKey, encryptionKey.length);
+	}
+
+	/**
+	 * Builder for {@link PersistentTokenAuthenticationOptions}.
+	 */
+	public static class PersistentTokenAuthenticationOptionsBuilder {
+
+		private File tokenFile;
+
+		private byte[] encryptionKey;
+
+		PersistentTokenAuthenticationOptionsBuilder() {
+		}
+
+		/**
+		 * Configure the file to persist the token. The file is created if it does not
+		 * exist and is readable by the owner only.
+		 *
+		 * @param tokenFile must not be {@literal null}.
+		 * @return {@code this} {@link PersistentTokenAuthenticationOptionsBuilder}.
+		 */
+		public PersistentTokenAuthenticationOptionsBuilder tokenFile(File tokenFile) {
+
+			Assert.notNull(tokenFile, "Token file must not be null");
+
+			this.tokenFile = tokenFile;
+			return this;
+		}
+
+		/**
+		 * Configure the key to encrypt the token file. Encryption and authentication keys
+		 * are derived from this key.
+		 *
+		 * @param encryptionKey must not be {@literal null} and at least
+		 * {@link #MIN_KEY_LENGTH} bytes long.
+		 * @return {@code this} {@link PersistentTokenAuthenticationOptionsBuilder}.
+		 */
+		public PersistentTokenAuthenticationOptionsBuilder encryptionKey(
+				byte[] encryptionKey) {
+
+			Assert.notNull(encryptionKey, "Encryption key must not be null");
+			Assert.isTrue(encryptionKey.length >= MIN_KEY_LENGTH, String.format(
+					"Encryption key must be at least %d bytes long", MIN_KEY_LENGTH));
+
+			this.encryptionKey = Arrays.copyOf(encryptionKey, encryptionKey.length);
+			return this;
+		}
+
+		/**
+		 * Build a new {@link PersistentTokenAuthenticationOptions} instance. Requires
+		 * {@link #tokenFile(File)} and {@link #encryptionKey(byte[])} to be configured.
+		 *
+		 * @return a new {@link PersistentTokenAuthenticationOptions}.
+		 */
+		public PersistentTokenAuthenticationOptions build() {
+
+			Assert.notNull(tokenFile, "Token file must not be null");
+			Assert.notNull(encryptionKey, "Encryption key must not be null");
+
+			return new PersistentTokenAuthenticationOptions(tokenFile, encryptionKey);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+/**
+ * Policy to determine when a leased token is refreshed. The refresh is scheduled a
+ * configurable {@link #before(long, TimeUnit) period before expiry} and moved earlier by
+ * a random {@link #withJitter(double) jitter} to spread refresh requests of many clients
+ * over time. A refresh is never scheduled earlier than one second.
+ * <p>
+ * {@link RefreshPolicy} objects are immutable and thread-safe.
+ *
+ * @author Mark Paluch
+ * @see LifecycleAwareSessionManager#setRefreshPolicy(RefreshPolicy)
+ */
+public class RefreshPolicy {
+
+	/**
+	 * Default policy refreshing {@link LifecycleAwareSessionManager#REFRESH_PERIOD_BEFORE_EXPIRY}
+	 * seconds before expiry with a jitter of {@literal 10%}.
+	 */
+	public static final RefreshPolicy DEFAULT = before(
+			LifecycleAwareSessionManager.REFRESH_PERIOD_BEFORE_EXPIRY, TimeUnit.SECONDS)
+			.withJitter(0.1);
+
+	private static final long MIN_DELAY = TimeUnit.SECONDS.toMillis(1);
+
+	private static final Random random = new Random();
+
+	private final long refreshBeforeExpiry;
+
+	private final double jitter;
+
+	private RefreshPolicy(long refreshBeforeExpiry, double jitter) {
+
+		this.refreshBeforeExpiry = refreshBeforeExpiry;
+		this.jitter = jitter;
+	}
+
+	/**
+	 * Create a {@link RefreshPolicy} refreshing {@code duration} before expiry without
+	 * jitter.
+	 *
+	 * @param duration must not be negative.
+	 * @param unit must not be {@literal null}.
+	 * @return the {@link RefreshPolicy}.
+	 */
+	public static RefreshPolicy before(long duration, TimeUnit unit) {
+
+		Assert.isTrue(duration >= 0, "Duration must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return new RefreshPolicy(unit.toMillis(duration), 0);
+	}
+
+	/**
+	 * Create a new {@link RefreshPolicy} moving the refresh earlier by a random amount of
+	 * up to {@code jitter} times the remaining delay.
+	 *
+	 * @param jitter fraction of the delay between {@literal 0} and {@literal 1}.
+	 * @return the new {@link RefreshPolicy}.
+	 */
+	public RefreshPolicy withJitter(double jitter) {
+
+		Assert.isTrue(jitter >= 0 && jitter <= 1, "Jitter must be between 0 and 1");
+
+		return new RefreshPolicy(refreshBeforeExpiry, jitter);
+	}
+
+	/**
+	 * @return the period before expiry in milliseconds.
+	 */
+	public long getRefreshBeforeExpiry() {
+		return refreshBeforeExpiry;
+	}
+
+	/**
+	 * @return the jitter fraction.
+	 */
+	public double getJitter() {
+		return jitter;
+	}
+
+	/**
+	 * Compute the delay until refresh of a lease expiring after {@code leaseDuration}.
+	 *
+	 * @param leaseDuration the remaining lease duration.
+	 * @param unit must not be {@literal null}.
+	 * @return the delay in milliseconds.
+	 */
+	public long getRefreshDelay(long leaseDuration, TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		long delay = unit.toMillis(leaseDuration) - refreshBeforeExpiry;
+
+		if (jitter > 0 && delay > MIN_DELAY) {
+			delay -= (long) (random.nextDouble() * jitter * delay);
+		}
+
+		return Math.max(MIN_DELAY, delay);
+	}
+}
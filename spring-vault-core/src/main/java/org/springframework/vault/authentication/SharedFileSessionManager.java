@@ -0,0 +1,719 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.client.VaultResponses;
+import org.springframework.vault.support.VaultFlightRecorder;
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+import org.springframework.vault.support.VaultFlightRecorder.Recording;
+import org.springframework.vault.support.VaultToken;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * {@link SessionManager} that shares a single Vault session between processes on the same
+ * host through a token file. Processes coordinate using an exclusive
+ * {@link FileChannel#tryLock() file lock} on a lock file next to the token file. The
+ * process holding the lock is the leader: it logs in, renews the token and writes the
+ * current token to the token file. All other processes are followers and read the token
+ * from the token file.
+ * <p>
+ * Followers periodically try to acquire the lock. The operating system releases the lock
+ * if the leader process dies so another process takes over leadership and continues to
+ * renew the token found in the token file. Followers that do not find a valid token
+ * within {@link #setLoginTimeout(long, TimeUnit) the login timeout} log in on their own
+ * without sharing the token.
+ * <p>
+ * Previous tokens are not revoked on token rotation or {@link #destroy()} as other
+ * processes might still use them. The token file is readable by the owner only and
+ * contains the token in plain text. All processes sharing the token file must use the
+ * same {@link ClientAuthentication} identity.
+ *
+ * @author Mark Paluch
+ * @see LifecycleAwareSessionManager
+ * @see SharedRenewalScheduler
+ */
+public class SharedFileSessionManager implements InvalidatableSessionManager,
+		CachingSessionManager, DisposableBean {
+
+	/**
+	 * Default interval in milliseconds to check leadership and the token file.
+	 */
+	public static final long DEFAULT_POLL_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+	/**
+	 * Default time in milliseconds followers wait for a token before logging in on their
+	 * own.
+	 */
+	public static final long DEFAULT_LOGIN_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+	private final static Log logger = LogFactory.getLog(SharedFileSessionManager.class);
+
+	private final ClientAuthentication clientAuthentication;
+
+	private final TaskScheduler taskScheduler;
+
+	private final RestOperations restOperations;
+
+	private final File tokenFile;
+
+	private final File lockFile;
+
+	private final Object lock = new Object();
+
+	private volatile RefreshPolicy refreshPolicy = RefreshPolicy.DEFAULT;
+
+	private volatile LoginGovernor loginGovernor = new LoginGovernor();
+
+	private volatile long loginTimeout = DEFAULT_LOGIN_TIMEOUT;
+
+	private volatile long pollInterval = DEFAULT_POLL_INTERVAL;
+
+	private volatile SharedToken current;
+
+	private volatile String rejectedToken;
+
+	private volatile ScheduledFuture<?> pollTask;
+
+	private RandomAccessFile lockAccess;
+
+	private FileLock leaderLock;
+
+	private long refreshAt;
+
+	/**
+	 * Create a new {@link SharedFileSessionManager} using the
+	 * {@link SharedRenewalScheduler}.
+	 *
+	 * @param clientAuthentication must not be {@literal null}.
+	 * @param restOperations must not be {@literal null}.
+	 * @param tokenFile must not be {@literal null}.
+	 */
+	public SharedFileSessionManager(ClientAuthentication clientAuthentication,
+			RestOperations restOperations, File tokenFile) {
+		this(clientAuthentication, SharedRenewalScheduler.getInstance(),
+				restOperations, tokenFile);
+	}
+
+	/**
+	 * Create a new {@link SharedFileSessionManager}.
+	 *
+	 * @param clientAuthentication must not be {@literal null}.
+	 * @param taskScheduler must not be {@literal null}.
+	 * @param restOperations must not be {@literal null}.
+	 * @param tokenFile must not be {@literal null}.
+	 */
+	public SharedFileSessionManager(ClientAuthentication clientAuthentication,
+			TaskScheduler taskScheduler, RestOperations restOperations, File tokenFile) {
+
+		Assert.notNull(clientAuthentication, "ClientAuthentication must not be null");
+		Assert.notNull(taskScheduler, "TaskScheduler must not be null");
+		Assert.notNull(restOperations, "RestOperations must not be null");
+		Assert.notNull(tokenFile, "Token file must not be null");
+
+		this.clientAuthentication = clientAuthentication;
+		this.taskScheduler = taskScheduler;
+		this.restOperations = restOperations;
+		this.tokenFile = tokenFile;
+		this.lockFile = new File(tokenFile.getPath() + ".lock");
+	}
+
+	/**
+	 * Set the {@link RefreshPolicy} the leader uses to schedule token renewal.
+	 *
+	 * @param refreshPolicy must not be {@literal null}.
+	 */
+	public void setRefreshPolicy(RefreshPolicy refreshPolicy) {
+
+		Assert.notNull(refreshPolicy, "RefreshPolicy must not be null");
+
+		this.refreshPolicy = refreshPolicy;
+	}
+
+	/**
+	 * Set the {@link LoginGovernor} that applies backoff and circuit breaking to login
+	 * attempts.
+	 *
+	 * @param loginGovernor must not be {@literal null}.
+	 */
+	public void setLoginGovernor(LoginGovernor loginGovernor) {
+
+		Assert.notNull(loginGovernor, "LoginGovernor must not be null");
+
+		this.loginGovernor = loginGovernor;
+	}
+
+	/**
+	 * Set the interval to check leadership and the token file. Polling starts with the
+	 * first {@link #getSessionToken()} call.
+	 *
+	 * @param interval must be greater than zero.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setPollInterval(long interval, TimeUnit unit) {
+
+		Assert.isTrue(interval > 0, "Poll interval must be greater than zero");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		synchronized (lock) {
+
+			this.pollInterval = unit.toMillis(interval);
+
+			if (pollTask != null) {
+				schedulePolling();
+			}
+		}
+	}
+
+	private void schedulePolling() {
+
+		ScheduledFuture<?> previous = this.pollTask;
+
+		this.pollTask = taskScheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					poll();
+				}
+				catch (Exception e) {
+					logger.error("Cannot refresh shared VaultToken", e);
+				}
+			}
+		}, pollInterval);
+
+		if (previous != null) {
+			previous.cancel(false);
+		}
+	}
+
+	/**
+	 * Set the time followers wait for the leader to provide a token before logging in on
+	 * their own.
+	 *
+	 * @param timeout must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setLoginTimeout(long timeout, TimeUnit unit) {
+
+		Assert.isTrue(timeout >= 0, "Login timeout must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.loginTimeout = unit.toMillis(timeout);
+	}
+
+	/**
+	 * @return {@literal true} if this session manager holds the lock and manages the
+	 * shared token.
+	 */
+	public boolean isLeader() {
+
+		synchronized (lock) {
+			return leaderLock != null;
+		}
+	}
+
+	@Override
+	public VaultToken getSessionToken() {
+
+		SharedToken current = this.current;
+
+		if (current != null && current.isValid()) {
+			return current.token;
+		}
+
+		synchronized (lock) {
+
+			if (pollTask == null) {
+				schedulePolling();
+			}
+
+			long deadline = System.currentTimeMillis() + loginTimeout;
+
+			while (true) {
+
+				current = this.current;
+
+				if (current != null && current.isValid()) {
+					return current.token;
+				}
+
+				if (tryAcquireLeadership()) {
+					return lead().token;
+				}
+
+				current = follow();
+
+				if (current != null) {
+					return current.token;
+				}
+
+				if (System.currentTimeMillis() >= deadline) {
+
+					logger.warn("No shared token available, logging in without sharing the token");
+
+					current = SharedToken.from(loginGovernor.login(clientAuthentication));
+					this.current = current;
+					return current.token;
+				}
+
+				Deadline.checkCurrent("obtaining shared session token");
+
+				try {
+					lock.wait(Math.min(100, loginTimeout));
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new VaultException("Interrupted while waiting for shared token");
+				}
+			}
+		}
+	}
+
+	@Override
+	public VaultToken getCachedSessionToken() {
+
+		SharedToken current = this.current;
+		return current != null && current.isValid() ? current.token : null;
+	}
+
+	@Override
+	public void invalidateSessionToken(VaultToken token) {
+
+		Assert.notNull(token, "VaultToken must not be null");
+
+		synchronized (lock) {
+
+			SharedToken current = this.current;
+
+			if (current != null && current.token.equals(token)) {
+
+				logger.info("Invalidating shared session token");
+
+				this.rejectedToken = token.getToken();
+				this.current = null;
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+
+		synchronized (lock) {
+
+			if (pollTask != null) {
+				pollTask.cancel(false);
+				pollTask = null;
+			}
+
+			this.current = null;
+			releaseLeadership();
+		}
+	}
+
+	/**
+	 * Check leadership and refresh the token. Leaders renew or rotate the token once it
+	 * is due, followers pick up the current token from the token file.
+	 */
+	void poll() {
+
+		synchronized (lock) {
+
+			if (current == null) {
+				return;
+			}
+
+			if (tryAcquireLeadership()) {
+
+				if (!current.isValid() || System.currentTimeMillis() >= refreshAt) {
+					lead();
+				}
+
+				return;
+			}
+
+			follow();
+		}
+	}
+
+	/**
+	 * Obtain or refresh the shared token as leader. A leader that just acquired
+	 * leadership continues with its valid token or a valid token from the token file and
+	 * shares a token the token file does not contain yet. Tokens that are due
+	 * for refresh are renewed if possible or replaced by a new login. Tokens whose
+	 * renewal is capped below twice the refresh period are replaced by a new login on
+	 * the next refresh.
+	 */
+	private SharedToken lead() {
+
+		SharedToken token = current;
+
+		if (token == null || !token.isValid()) {
+			token = read();
+		}
+
+		if (token != null
+				&& (!token.isValid() || token.token.getToken().equals(rejectedToken))) {
+			token = null;
+		}
+
+		if (token != null && (refreshAt == 0 || System.currentTimeMillis() < refreshAt)) {
+
+			if (refreshAt == 0) {
+
+				SharedToken shared = read();
+
+				if (shared == null || !shared.token.equals(token.token)) {
+					write(token);
+				}
+
+				refreshAt = getRefreshTime(token);
+			}
+
+			return use(token);
+		}
+
+		if (token != null && token.renewable) {
+			token = renew(token);
+		}
+		else {
+			token = null;
+		}
+
+		if (token == null) {
+			token = SharedToken.from(loginGovernor.login(clientAuthentication));
+		}
+
+		write(token);
+		refreshAt = getRefreshTime(token);
+
+		return use(token);
+	}
+
+	private SharedToken use(SharedToken token) {
+
+		this.current = token;
+		lock.notifyAll();
+
+		return token;
+	}
+
+	private long getRefreshTime(SharedToken token) {
+
+		if (token.expiresAt == Long.MAX_VALUE) {
+			return Long.MAX_VALUE;
+		}
+
+		return System.currentTimeMillis()
+				+ refreshPolicy.getRefreshDelay(token.getRemaining(),
+						TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Renew the token using self-renewal.
+	 *
+	 * @return the renewed token or {@literal null} if the token cannot be renewed.
+	 */
+	@SuppressWarnings("unchecked")
+	private SharedToken renew(SharedToken token) {
+
+		logger.info("Renewing shared token");
+
+		Recording recording = VaultFlightRecorder.begin(Operation.TOKEN_RENEWAL);
+		recording.setName("auth/token/renew-self");
+
+		try {
+
+			Map<String, Object> response = restOperations.postForObject(
+					"/auth/token/renew-self",
+					new HttpEntity<Object>(VaultHttpHeaders.from(token.token)), Map.class);
+
+			long leaseDuration = token.leaseDuration;
+
+			if (response != null && response.get("auth") instanceof Map) {
+
+				Object lease = ((Map<String, Object>) response.get("auth"))
+						.get("lease_duration");
+
+				if (lease instanceof Number) {
+					leaseDuration = ((Number) lease).longValue();
+				}
+			}
+
+			long remaining = TimeUnit.SECONDS.toMillis(leaseDuration);
+
+			// Renewals capped by the max TTL require a new login before expiry
+			boolean renewable = remaining > 2 * refreshPolicy.getRefreshBeforeExpiry();
+
+			return new SharedToken(token.token.getToken(), leaseDuration, renewable,
+					System.currentTimeMillis() + remaining);
+		}
+		catch (HttpStatusCodeException e) {
+
+			recording.setStatus(e.getRawStatusCode());
+			recording.setFailure(e);
+
+			if (e.getStatusCode().is4xxClientError()) {
+				logger.debug(String.format(
+						"Cannot renew shared token, performing re-login: %s",
+						VaultResponses.getError(e.getResponseBodyAsString())));
+				return null;
+			}
+
+			throw new VaultException(VaultResponses.getError(e.getResponseBodyAsString()));
+		}
+		catch (RestClientException e) {
+
+			recording.setFailure(e);
+
+			throw new VaultException("Cannot renew shared token", e);
+		}
+		finally {
+			recording.commit();
+		}
+	}
+
+	/**
+	 * Pick up the current token from the token file.
+	 *
+	 * @return the token or {@literal null} if the token file does not contain a valid
+	 * token.
+	 */
+	private SharedToken follow() {
+
+		SharedToken token = read();
+
+		if (token == null || !token.isValid()
+				|| token.token.getToken().equals(rejectedToken)) {
+			return null;
+		}
+
+		if (current == null || !current.token.equals(token.token)
+				|| current.expiresAt != token.expiresAt) {
+			this.current = token;
+		}
+
+		return this.current;
+	}
+
+	private boolean tryAcquireLeadership() {
+
+		if (leaderLock != null) {
+			return true;
+		}
+
+		try {
+
+			if (lockAccess == null) {
+				lockAccess = new RandomAccessFile(lockFile, "rw");
+			}
+
+			FileLock fileLock = lockAccess.getChannel().tryLock();
+
+			if (fileLock == null) {
+				return false;
+			}
+
+			logger.info(String.format("Acquired leadership for shared token %s",
+					tokenFile));
+
+			leaderLock = fileLock;
+			refreshAt = 0;
+			return true;
+		}
+		catch (OverlappingFileLockException e) {
+			return false;
+		}
+		catch (IOException e) {
+			logger.warn(String.format("Cannot lock %s: %s", lockFile, e.getMessage()));
+			return false;
+		}
+	}
+
+	private void releaseLeadership() {
+
+		try {
+			if (leaderLock != null) {
+				leaderLock.release();
+			}
+			if (lockAccess != null) {
+				lockAccess.close();
+			}
+		}
+		catch (IOException e) {
+			logger.warn(String.format("Cannot release lock %s: %s", lockFile,
+					e.getMessage()));
+		}
+		finally {
+			leaderLock = null;
+			lockAccess = null;
+		}
+	}
+
+	private SharedToken read() {
+
+		if (!tokenFile.isFile()) {
+			return null;
+		}
+
+		Properties properties = new Properties();
+
+		try {
+
+			InputStream in = new FileInputStream(tokenFile);
+			try {
+				properties.load(in);
+			}
+			finally {
+				in.close();
+			}
+
+			String token = properties.getProperty("token");
+
+			if (token == null || token.length() == 0) {
+				return null;
+			}
+
+			return new SharedToken(token, Long.parseLong(properties.getProperty(
+					"lease_duration", "0")), Boolean.parseBoolean(properties
+					.getProperty("renewable")), Long.parseLong(properties.getProperty(
+					"expires_at", Long.toString(Long.MAX_VALUE))));
+		}
+		catch (IOException e) {
+			logger.warn(String.format("Cannot read token file %s: %s", tokenFile,
+					e.getMessage()));
+			return null;
+		}
+		catch (NumberFormatException e) {
+			logger.warn(String.format("Cannot read token file %s: %s", tokenFile,
+					e.getMessage()));
+			return null;
+		}
+	}
+
+	private void write(SharedToken token) {
+
+		Properties properties = new Properties();
+		properties.setProperty("token", token.token.getToken());
+		properties.setProperty("lease_duration", Long.toString(token.leaseDuration));
+		properties.setProperty("renewable", Boolean.toString(token.renewable));
+		properties.setProperty("expires_at", Long.toString(token.expiresAt));
+
+		File temp = new File(tokenFile.getPath() + ".tmp");
+
+		try {
+
+			OutputStream out = new FileOutputStream(temp);
+			try {
+				temp.setReadable(false, false);
+				temp.setWritable(false, false);
+				temp.setReadable(true, true);
+				temp.setWritable(true, true);
+
+				properties.store(out, null);
+			}
+			finally {
+				out.close();
+			}
+
+			if (!temp.renameTo(tokenFile)) {
+				tokenFile.delete();
+				if (!temp.renameTo(tokenFile)) {
+					throw new IOException(String.format("Cannot rename %s to %s", temp,
+							tokenFile));
+				}
+			}
+		}
+		catch (IOException e) {
+			temp.delete();
+			logger.warn(String.format("Cannot write token file %s: %s", tokenFile,
+					e.getMessage()));
+		}
+	}
+
+	/**
+	 * Token shared through the token file.
+	 */
+	private static class SharedToken {
+
+		final LoginToken token;
+
+		final long leaseDuration;
+
+		final boolean renewable;
+
+		final long expiresAt;
+
+		SharedToken(String token, long leaseDuration, boolean renewable, long expiresAt) {
+
+			this.token = renewable ? LoginToken.renewable(token, leaseDuration)
+					: LoginToken.of(token, leaseDuration);
+			this.leaseDuration = leaseDuration;
+			this.renewable = renewable;
+			this.expiresAt = expiresAt;
+		}
+
+		static SharedToken from(VaultToken token) {
+
+			if (token instanceof LoginToken
+					&& ((LoginToken) token).getLeaseDuration() > 0) {
+
+				LoginToken loginToken = (LoginToken) token;
+
+				return new SharedToken(token.getToken(), loginToken.getLeaseDuration(),
+						loginToken.isRenewable(), System.currentTimeMillis()
+								+ TimeUnit.SECONDS.toMillis(loginToken
+										.getLeaseDuration()));
+			}
+
+			return new SharedToken(token.getToken(), 0, false, Long.MAX_VALUE);
+		}
+
+		long getRemaining() {
+			return expiresAt - System.currentTimeMillis();
+		}
+
+		boolean isValid() {
+			return getRemaining() > 0;
+		}
+	}
+}
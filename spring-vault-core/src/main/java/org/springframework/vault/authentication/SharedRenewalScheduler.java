@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.util.Date;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * JVM-wide scheduler for token renewal and other infrequent background tasks. Timing is
+ * backed by a single daemon thread and a delay queue so any number of session managers
+ * share one thread instead of blocking one thread per pending renewal.
+ * <p>
+ * The scheduler thread is used for timing only. Due tasks are handed over to a bounded
+ * pool of {@link #WORKER_THREADS} daemon threads, see {@link #getTaskExecutor()}, so a
+ * slow Vault node or a slow login does not delay other renewals and health checks.
+ * Periodic tasks skip an execution while their previous execution is still running.
+ *
+ * @author Mark Paluch
+ * @see LifecycleAwareSessionManager
+ */
+public abstract class SharedRenewalScheduler {
+
+	private final static Log logger = LogFactory.getLog(SharedRenewalScheduler.class);
+
+	/**
+	 * Number of worker threads running due tasks.
+	 */
+	public static final int WORKER_THREADS = 4;
+
+	/**
+	 * @return the shared {@link ConcurrentTaskScheduler}. Tasks are timed on the
+	 * scheduler thread and run on the {@link #getTaskExecutor() shared worker pool}. The
+	 * scheduler is created on first access and must not be shut down.
+	 */
+	public static ConcurrentTaskScheduler getInstance() {
+		return Holder.SCHEDULER;
+	}
+
+	/**
+	 * @return the shared {@link AsyncTaskExecutor} backed by a bounded pool of
+	 * {@link #WORKER_THREADS} daemon threads. The executor is created on first access
+	 * and must not be shut down.
+	 */
+	public static AsyncTaskExecutor getTaskExecutor() {
+		return Holder.EXECUTOR;
+	}
+
+	private static class Holder {
+
+		static final ThreadPoolExecutor WORKERS = createWorkers();
+
+		static final AsyncTaskExecutor EXECUTOR = new ConcurrentTaskExecutor(WORKERS);
+
+		static final ConcurrentTaskScheduler SCHEDULER = new HandOverTaskScheduler(
+				WORKERS, createTimer());
+
+		private static ScheduledExecutorService createTimer() {
+
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+					"spring-vault-renewal-");
+			threadFactory.setDaemon(true);
+
+			return new ScheduledThreadPoolExecutor(1, (ThreadFactory) threadFactory);
+		}
+
+		private static ThreadPoolExecutor createWorkers() {
+
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+					"spring-vault-worker-");
+			threadFactory.setDaemon(true);
+
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS,
+					WORKER_THREADS, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), (ThreadFactory) threadFactory);
+			executor.allowCoreThreadTimeOut(true);
+
+			return executor;
+		}
+	}
+
+	/**
+	 * {@link ConcurrentTaskScheduler} timing tasks on its scheduled executor and running
+	 * them on the concurrent executor.
+	 */
+	static class HandOverTaskScheduler extends ConcurrentTaskScheduler {
+
+		private final ThreadPoolExecutor workers;
+
+		HandOverTaskScheduler(ThreadPoolExecutor workers,
+				ScheduledExecutorService scheduledExecutor) {
+
+			super(workers, scheduledExecutor);
+			this.workers = workers;
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+			return super.schedule(handOver(task), trigger);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+			return super.schedule(handOver(task), startTime);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime,
+				long period) {
+			return super.scheduleAtFixedRate(handOver(task), startTime, period);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+			return super.scheduleAtFixedRate(handOver(task), period);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime,
+				long delay) {
+			return super.scheduleWithFixedDelay(handOver(task), startTime, delay);
+		}
+
+		@Override
+		public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+			return super.scheduleWithFixedDelay(handOver(task), delay);
+		}
+
+		private Runnable handOver(Runnable task) {
+			return new HandOver(workers, task);
+		}
+	}
+
+	/**
+	 * Hands a due task over to the worker pool unless its previous execution is still
+	 * running.
+	 */
+	private static class HandOver implements Runnable {
+
+		private final ThreadPoolExecutor workers;
+
+		private final Runnable task;
+
+		private final AtomicBoolean running = new AtomicBoolean();
+
+		HandOver(ThreadPoolExecutor workers, Runnable task) {
+
+			this.workers = workers;
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+
+			if (!running.compareAndSet(false, true)) {
+				return;
+			}
+
+			try {
+				workers.execute(new Runnable() {
+
+					@Override
+					public void run() {
+
+						try {
+							task.run();
+						}
+						catch (RuntimeException e) {
+							logger.error("Unexpected error occurred in scheduled task", e);
+						}
+						finally {
+							running.set(false);
+						}
+					}
+				});
+			}
+			catch (RuntimeException e) {
+
+				running.set(false);
+				throw e;
+			}
+		}
+	}
+}
@@ -27,13 +27,17 @@ import org.springframework.vault.support.VaultToken;
  * @author Mark Paluch
  * @see ClientAuthentication
  * @see VaultToken
+ * @see InvalidatableSessionManager
  */
-public class SimpleSessionManager implements SessionManager {
+public class SimpleSessionManager implements InvalidatableSessionManager,
+		CachingSessionManager {
 
 	private final ClientAuthentication clientAuthentication;
 
 	private final Object lock = new Object();
 
+	private volatile LoginGovernor loginGovernor = new LoginGovernor();
+
 	private volatile VaultToken token;
 
 	/**
@@ -48,17 +52,47 @@ public class SimpleSessionManager implements SessionManager {
 		this.clientAuthentication = clientAuthentication;
 	}
 
+	/**
+	 * Set the {@link LoginGovernor} that applies backoff and circuit breaking to login
+	 * attempts.
+	 *
+	 * @param loginGovernor must not be {@literal null}.
+	 */
+	public void setLoginGovernor(LoginGovernor loginGovernor) {
+
+		Assert.notNull(loginGovernor, "LoginGovernor must not be null");
+
+		this.loginGovernor = loginGovernor;
+	}
+
 	@Override
 	public VaultToken getSessionToken() {
 
 		if (token == null) {
 			synchronized (lock) {
 				if (token == null) {
-					token = clientAuthentication.login();
+					token = loginGovernor.login(clientAuthentication);
 				}
 			}
 		}
 
 		return token;
 	}
+
+	@Override
+	public VaultToken getCachedSessionToken() {
+		return token;
+	}
+
+	@Override
+	public void invalidateSessionToken(VaultToken token) {
+
+		Assert.notNull(token, "VaultToken must not be null");
+
+		synchronized (lock) {
+			if (token.equals(this.token)) {
+				this.token = null;
+			}
+		}
+	}
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+
+/**
+ * Point in time until which a Vault operation must complete. A {@link Deadline} is bound
+ * to the current thread and applies to every request issued by that thread, including
+ * retries, fail over to other endpoints and token acquisition. Requests are rejected
+ * with {@link VaultException} once the deadline has passed. Connect and read timeouts of
+ * clients created through
+ * {@link org.springframework.vault.config.ClientHttpRequestFactoryFactory} are limited
+ * to the remaining time for the JDK HTTP client and Apache Http Components.
+ * <p>
+ * Binding a deadline never extends a deadline that is already bound, so nested calls
+ * are limited by the enclosing deadline:
+ *
+ * <pre class="code">
+ * Deadline previous = Deadline.bind(Deadline.after(500, TimeUnit.MILLISECONDS));
+ * try {
+ * 	vaultOperations.read("secret/a");
+ * 	vaultOperations.read("secret/b");
+ * }
+ * finally {
+ * 	Deadline.restore(previous);
+ * }
+ * </pre>
+ *
+ * @author Mark Paluch
+ * @see org.springframework.vault.core.TimeoutVaultTemplate
+ */
+public final class Deadline {
+
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+	private final long deadline;
+
+	private Deadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Create a {@link Deadline} that expires after {@code timeout}.
+	 *
+	 * @param timeout must not be negative.
+	 * @param unit must not be {@literal null}.
+	 * @return the {@link Deadline}.
+	 */
+	public static Deadline after(long timeout, TimeUnit unit) {
+
+		Assert.isTrue(timeout >= 0, "Timeout must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return new Deadline(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * @return the {@link Deadline} bound to the current thread, may be {@literal null}.
+	 */
+	public static Deadline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Bind {@code deadline} to the current thread. An already bound deadline that expires
+	 * earlier remains in effect.
+	 *
+	 * @param deadline may be {@literal null} to keep the current deadline.
+	 * @return the previously bound {@link Deadline} to {@link #restore(Deadline)} after
+	 * the operation, may be {@literal null}.
+	 */
+	public static Deadline bind(Deadline deadline) {
+
+		Deadline previous = CURRENT.get();
+
+		if (deadline != null) {
+			CURRENT.set(previous != null ? previous.earliest(deadline) : deadline);
+		}
+
+		return previous;
+	}
+
+	/**
+	 * Restore a {@link Deadline} returned by {@link #bind(Deadline)}.
+	 *
+	 * @param previous may be {@literal null} to remove the deadline from the current
+	 * thread.
+	 */
+	public static void restore(Deadline previous) {
+
+		if (previous == null) {
+			CURRENT.remove();
+		}
+		else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Verify that the {@link #current() current deadline} has not passed.
+	 *
+	 * @param operation description of the operation for the exception message.
+	 * @throws VaultException if the current deadline has passed.
+	 */
+	public static void checkCurrent(String operation) throws VaultException {
+
+		Deadline deadline = CURRENT.get();
+
+		if (deadline != null && deadline.isExpired()) {
+			throw new VaultException(String.format("Deadline exceeded before %s",
+					operation));
+		}
+	}
+
+	/**
+	 * @param unit must not be {@literal null}.
+	 * @return the remaining time, {@literal 0} if the deadline has passed.
+	 */
+	public long getTimeRemaining(TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return unit.convert(Math.max(0, deadline - System.nanoTime()),
+				TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return {@literal true} if the deadline has passed.
+	 */
+	public boolean isExpired() {
+		return deadline - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * Limit a timeout in milliseconds to the remaining time. Zero or negative timeouts
+	 * denote no timeout and are replaced with the remaining time.
+	 *
+	 * @param timeout the configured timeout in milliseconds.
+	 * @return the limited timeout in milliseconds, at least {@literal 1}.
+	 */
+	public int limit(int timeout) {
+
+		long remaining = Math.max(1,
+				Math.min(Integer.MAX_VALUE, getTimeRemaining(TimeUnit.MILLISECONDS)));
+
+		return (int) (timeout > 0 ? Math.min(timeout, remaining) : remaining);
+	}
+
+	/**
+	 * @param other must not be {@literal null}.
+	 * @return the {@link Deadline} that expires first.
+	 */
+	public Deadline earliest(Deadline other) {
+
+		Assert.notNull(other, "Deadline must not be null");
+
+		return other.deadline - deadline < 0 ? other : this;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Deadline [remaining=%d ms]",
+				getTimeRemaining(TimeUnit.MILLISECONDS));
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.vault.support.VaultFlightRecorder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * {@link ClientHttpRequestFactory} that sends requests to the {@link VaultEndpoint}s
+ * provided by a {@link VaultEndpointProvider}. Requests are buffered and sent to the
+ * first endpoint. I/O errors and {@literal 503 Service Unavailable} responses are
+ * {@link VaultEndpointProvider#reportFailure(VaultEndpoint) reported} and the request
+ * fails over immediately to the next endpoint. The last endpoint's response or error is
+ * returned to the caller.
+ * <p>
+ * {@literal GET} and {@literal HEAD} requests fail over on any I/O error. Other requests
+ * fail over only if the connection could not be established as the endpoint might
+ * already have processed a request that failed later on, for example with a read
+ * timeout.
+ * <p>
+ * Request URIs are rewritten to the scheme, host and port of the selected endpoint.
+ * {@link RoutingVaultEndpointProvider Routing providers} select endpoints by request
+ * method and are notified about started and completed requests. A request completes
+ * when its response is closed. Requests do not fail over once the
+ * {@link Deadline#current() current deadline} has passed.
+ *
+ * @author Mark Paluch
+ * @see VaultEndpointProvider
+ * @see VaultClients#createRestTemplate(VaultEndpointProvider, ClientHttpRequestFactory)
+ */
+public class FailoverClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+	private final static Log logger = LogFactory
+			.getLog(FailoverClientHttpRequestFactory.class);
+
+	private final ClientHttpRequestFactory delegate;
+
+	private final VaultEndpointProvider endpointProvider;
+
+	/**
+	 * Create a new {@link FailoverClientHttpRequestFactory}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 * @param endpointProvider must not be {@literal null}.
+	 */
+	public FailoverClientHttpRequestFactory(ClientHttpRequestFactory delegate,
+			VaultEndpointProvider endpointProvider) {
+
+		Assert.notNull(delegate, "ClientHttpRequestFactory must not be null");
+		Assert.notNull(endpointProvider, "VaultEndpointProvider must not be null");
+
+		this.delegate = delegate;
+		this.endpointProvider = endpointProvider;
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod)
+			throws IOException {
+		return new FailoverClientHttpRequest(uri, httpMethod);
+	}
+
+	/**
+	 * Rewrite {@code uri} to use scheme, host and port of {@link VaultEndpoint}.
+	 *
+	 * @param uri must not be {@literal null}.
+	 * @param endpoint must not be {@literal null}.
+	 * @return the rewritten {@link URI}.
+	 */
+	static URI rewrite(URI uri, VaultEndpoint endpoint) {
+
+		return UriComponentsBuilder.fromUri(uri).scheme(endpoint.getScheme())
+				.host(endpoint.getHost()).port(endpoint.getPort()).build(true).toUri();
+	}
+
+	private class FailoverClientHttpRequest extends AbstractClientHttpRequest {
+
+		private final URI uri;
+
+		private final HttpMethod httpMethod;
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+
+		FailoverClientHttpRequest(URI uri, HttpMethod httpMethod) {
+
+			this.uri = uri;
+			this.httpMethod = httpMethod;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return httpMethod;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
+			return body;
+		}
+
+		@Override
+		protected ClientHttpResponse executeInternal(HttpHeaders headers)
+				throws IOException {
+
+			byte[] bytes = body.toByteArray();
+			Iterator<VaultEndpoint> iterator = getVaultEndpoints(httpMethod).iterator();
+
+			while (true) {
+
+				VaultEndpoint endpoint = iterator.next();
+
+				try {
+
+					ClientHttpResponse response = execute(endpoint, headers, bytes);
+
+					if (response.getRawStatusCode() != HttpStatus.SERVICE_UNAVAILABLE
+							.value()) {
+						return response;
+					}
+
+					endpointProvider.reportFailure(endpoint);
+
+					if (!iterator.hasNext() || isExpired()) {
+						return response;
+					}
+
+					response.close();
+
+					logger.debug(String.format(
+							"Vault endpoint %s unavailable, failing over", endpoint));
+
+					VaultFlightRecorder.recordRetry();
+				}
+				catch (IOException e) {
+
+					endpointProvider.reportFailure(endpoint);
+
+					if (!iterator.hasNext() || isExpired()
+							|| !isFailoverSafe(httpMethod, e)) {
+						throw e;
+					}
+
+					logger.debug(String.format(
+							"Cannot connect to Vault endpoint %s, failing over: %s",
+							endpoint, e.getMessage()));
+
+					VaultFlightRecorder.recordRetry();
+				}
+			}
+		}
+
+		private ClientHttpResponse execute(VaultEndpoint endpoint, HttpHeaders headers,
+				byte[] bytes) throws IOException {
+
+			ClientHttpRequest request = delegate.createRequest(rewrite(uri, endpoint),
+					httpMethod);
+			request.getHeaders().putAll(headers);
+
+			if (bytes.length > 0) {
+				StreamUtils.copy(bytes, request.getBody());
+			}
+
+			if (!(endpointProvider instanceof RoutingVaultEndpointProvider)) {
+				return request.execute();
+			}
+
+			RoutingVaultEndpointProvider routing = (RoutingVaultEndpointProvider) endpointProvider;
+			routing.requestStarted(endpoint);
+
+			try {
+				return new TrackingClientHttpResponse(request.execute(), routing,
+						endpoint);
+			}
+			catch (IOException e) {
+				routing.requestCompleted(endpoint);
+				throw e;
+			}
+			catch (RuntimeException e) {
+				routing.requestCompleted(endpoint);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Check whether a request that failed with {@link IOException} can be sent to another
+	 * endpoint. Idempotent reads can be repeated after any I/O error, other requests only
+	 * if the error happened before the request was sent.
+	 */
+	static boolean isFailoverSafe(HttpMethod httpMethod, IOException e) {
+
+		if (httpMethod == HttpMethod.GET || httpMethod == HttpMethod.HEAD) {
+			return true;
+		}
+
+		return isConnectFailure(e);
+	}
+
+	private static boolean isConnectFailure(Throwable e) {
+
+		if (e instanceof ConnectException || e instanceof NoRouteToHostException
+				|| e instanceof UnknownHostException) {
+			return true;
+		}
+
+		// HttpComponents connect and connection pool timeouts, avoid a hard dependency
+		for (Class<?> type = e.getClass(); type != null; type = type.getSuperclass()) {
+			if (type.getName().equals("org.apache.http.conn.ConnectTimeoutException")) {
+				return true;
+			}
+		}
+
+		return e.getCause() != null && e.getCause() != e
+				&& isConnectFailure(e.getCause());
+	}
+
+	private static boolean isExpired() {
+
+		Deadline deadline = Deadline.current();
+		return deadline != null && deadline.isExpired();
+	}
+
+	private List<VaultEndpoint> getVaultEndpoints(HttpMethod httpMethod) {
+
+		if (endpointProvider instanceof RoutingVaultEndpointProvider) {
+			return ((RoutingVaultEndpointProvider) endpointProvider)
+					.getVaultEndpoints(httpMethod);
+		}
+
+		return endpointProvider.getVaultEndpoints();
+	}
+
+	/**
+	 * {@link ClientHttpResponse} that reports request completion to
+	 * {@link RoutingVaultEndpointProvider} once it is closed.
+	 */
+	private static class TrackingClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse delegate;
+
+		private final RoutingVaultEndpointProvider endpointProvider;
+
+		private final VaultEndpoint endpoint;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		TrackingClientHttpResponse(ClientHttpResponse delegate,
+				RoutingVaultEndpointProvider endpointProvider, VaultEndpoint endpoint) {
+
+			this.delegate = delegate;
+			this.endpointProvider = endpointProvider;
+			this.endpoint = endpoint;
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return delegate.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return delegate.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return delegate.getStatusText();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return delegate.getBody();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return delegate.getHeaders();
+		}
+
+		@Override
+		public void close() {
+
+			try {
+				delegate.close();
+			}
+			finally {
+				if (closed.compareAndSet(false, true)) {
+					endpointProvider.requestCompleted(endpoint);
+				}
+			}
+		}
+	}
+}
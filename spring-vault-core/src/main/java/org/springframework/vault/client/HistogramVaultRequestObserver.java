@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+
+/**
+ * {@link VaultRequestObserver} that records request durations in a
+ * {@link LatencyHistogram} per operation. Operations consist of the HTTP method and the
+ * path template, for example {@literal GET secret/{name}} or
+ * {@literal POST transit/encrypt/{name}}. Requests exceeding the
+ * {@link #setSlowRequestThreshold(long, TimeUnit) slow request threshold} are logged
+ * with {@literal WARN} level.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Mark Paluch
+ * @see LatencyHistogram
+ * @see ObservingClientHttpRequestFactory
+ */
+public class HistogramVaultRequestObserver implements VaultRequestObserver,
+		VaultRequestObservation {
+
+	private final static Log logger = LogFactory
+			.getLog(HistogramVaultRequestObserver.class);
+
+	private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	private volatile long slowRequestThresholdNanos;
+
+	/**
+	 * Set the threshold above which requests are logged. Defaults to {@literal 0} which
+	 * disables slow request logging.
+	 *
+	 * @param threshold must not be negative, {@literal 0} to disable logging.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setSlowRequestThreshold(long threshold, TimeUnit unit) {
+
+		Assert.isTrue(threshold >= 0, "Threshold must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.slowRequestThresholdNanos = unit.toNanos(threshold);
+	}
+
+	@Override
+	public VaultRequestObservation requestStarted(HttpMethod method, String pathTemplate) {
+		return this;
+	}
+
+	@Override
+	public void requestCompleted(VaultRequestEvent event) {
+
+		long duration = event.getDuration(TimeUnit.NANOSECONDS);
+
+		getOrCreateHistogram(event.getOperation()).record(duration,
+				TimeUnit.NANOSECONDS);
+
+		long threshold = slowRequestThresholdNanos;
+
+		if (threshold > 0 && duration >= threshold && logger.isWarnEnabled()) {
+			logger.warn(String.format(
+					"Slow Vault request %s took %d ms (status %d, %d bytes sent, "
+							+ "%d bytes received)", event.getOperation(),
+					event.getDuration(TimeUnit.MILLISECONDS), event.getStatusCode(),
+					event.getRequestBytes(), event.getResponseBytes()));
+		}
+	}
+
+	/**
+	 * @param operation the operation, for example {@literal GET secret/{name}}.
+	 * @return the {@link LatencyHistogram} for {@code operation} or {@literal null} if no
+	 * request was recorded for the operation.
+	 */
+	public LatencyHistogram getHistogram(String operation) {
+		return histograms.get(operation);
+	}
+
+	/**
+	 * @return {@link LatencyHistogram}s keyed by operation.
+	 */
+	public Map<String, LatencyHistogram> getHistograms() {
+		return Collections.unmodifiableMap(histograms);
+	}
+
+	private LatencyHistogram getOrCreateHistogram(String operation) {
+
+		LatencyHistogram histogram = histograms.get(operation);
+
+		if (histogram == null) {
+
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = histograms.putIfAbsent(operation, created);
+
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+
+		return histogram;
+	}
+}
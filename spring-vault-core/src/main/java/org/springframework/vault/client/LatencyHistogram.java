@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets. Values are recorded with
+ * microsecond resolution. Values below {@literal 64} microseconds are recorded exactly,
+ * larger values are recorded in {@literal 32} linear sub-buckets per power of two which
+ * limits the relative error of reported percentiles to about three percent. Values
+ * larger than about {@literal 25} days are recorded as the maximum trackable value.
+ * <p>
+ * Recording is wait-free apart from tracking the maximum value. Percentiles are
+ * calculated from the current bucket counts and are approximate while values are
+ * recorded concurrently.
+ *
+ * @author Mark Paluch
+ * @see HistogramVaultRequestObserver
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+
+	private static final int MAX_EXPONENT = 40;
+
+	private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(LINEAR_BUCKETS
+			+ (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a latency value.
+	 *
+	 * @param value the latency, negative values are recorded as {@literal 0}.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void record(long value, TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		long micros = Math.min(MAX_VALUE, Math.max(0, unit.toMicros(value)));
+
+		counts.incrementAndGet(indexOf(micros));
+		count.incrementAndGet();
+		total.addAndGet(micros);
+
+		long current;
+		while (micros > (current = max.get())) {
+			if (max.compareAndSet(current, micros)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of recorded values.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @param unit must not be {@literal null}.
+	 * @return the largest recorded value, {@literal 0} if no values were recorded.
+	 */
+	public long getMax(TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return unit.convert(max.get(), TimeUnit.MICROSECONDS);
+	}
+
+	/**
+	 * @param unit must not be {@literal null}.
+	 * @return the mean of the recorded values, {@literal 0} if no values were recorded.
+	 */
+	public long getMean(TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		long count = this.count.get();
+
+		return count == 0 ? 0 : unit.convert(total.get() / count,
+				TimeUnit.MICROSECONDS);
+	}
+
+	/**
+	 * Obtain the latency at {@code percentile}.
+	 *
+	 * @param percentile the percentile between {@literal 0} and {@literal 1}.
+	 * @param unit must not be {@literal null}.
+	 * @return the latency at {@code percentile} or {@literal -1} if no values were
+	 * recorded.
+	 */
+	public long getPercentile(double percentile, TimeUnit unit) {
+
+		Assert.isTrue(percentile >= 0 && percentile <= 1,
+				"Percentile must be between 0 and 1");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		long[] snapshot = new long[counts.length()];
+		long recorded = 0;
+
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts.get(i);
+			recorded += snapshot[i];
+		}
+
+		if (recorded == 0) {
+			return -1;
+		}
+
+		long target = Math.max(1, (long) Math.ceil(percentile * recorded));
+		long cumulative = 0;
+
+		for (int i = 0; i < snapshot.length; i++) {
+
+			cumulative += snapshot[i];
+
+			if (cumulative >= target) {
+				return unit.convert(Math.min(highestEquivalentValue(i), max.get()),
+						TimeUnit.MICROSECONDS);
+			}
+		}
+
+		return unit.convert(max.get(), TimeUnit.MICROSECONDS);
+	}
+
+	/**
+	 * @param value value in microseconds between {@literal 0} and {@link #MAX_VALUE}.
+	 * @return the bucket index.
+	 */
+	static int indexOf(long value) {
+
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+
+		return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS
+				+ (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	/**
+	 * @param index the bucket index.
+	 * @return the largest value recorded in the bucket.
+	 */
+	static long highestEquivalentValue(int index) {
+
+		if (index < LINEAR_BUCKETS) {
+			return index;
+		}
+
+		int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+		long lowest = ((long) ((index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS)) << shift;
+
+		return lowest + (1L << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LatencyHistogram [count=%d, p50=%d ms, p99=%d ms, max=%d ms]",
+				getCount(), getPercentile(0.5, TimeUnit.MILLISECONDS),
+				getPercentile(0.99, TimeUnit.MILLISECONDS),
+				getMax(TimeUnit.MILLISECONDS));
+	}
+}
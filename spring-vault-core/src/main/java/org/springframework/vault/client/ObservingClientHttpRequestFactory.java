@@ -0,0 +1,480 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ClientHttpRequestFactory} that notifies a {@link VaultRequestObserver} about
+ * every request created through the delegate {@link ClientHttpRequestFactory}.
+ * Observations capture the number of request and response body bytes, the time until
+ * the response headers are received and the time until the response is closed.
+ * <p>
+ * Request paths are normalized to path templates to keep the number of distinct
+ * operations small: the mount (and the mount of {@literal auth} backends) and well-known
+ * Vault API segments such as {@literal encrypt}, {@literal login} or
+ * {@literal lookup-self} are retained, all other segments (secret names, key names,
+ * tokens, lease identifiers) are replaced by {@literal {name}}. A request to
+ * {@literal secret/my-app/database} is reported as {@literal secret/{name}}, a request
+ * to {@literal transit/encrypt/my-key} as {@literal transit/encrypt/{name}}.
+ * <p>
+ * Exceptions thrown by observers are logged and do not affect the request.
+ *
+ * @author Mark Paluch
+ * @see VaultRequestObserver
+ */
+public class ObservingClientHttpRequestFactory implements ClientHttpRequestFactory,
+		InitializingBean, DisposableBean {
+
+	private final static Log logger = LogFactory
+			.getLog(ObservingClientHttpRequestFactory.class);
+
+	private static final String PLACEHOLDER = "{name}";
+
+	private static final Set<String> KEYWORDS = Collections
+			.unmodifiableSet(new HashSet<String>(Arrays.asList("accessors", "audit",
+					"auth", "ca", "capabilities", "capabilities-self", "cert", "certs",
+					"config", "create", "create-orphan", "creds", "crl", "custom-secret-id",
+					"datakey", "decrypt", "encrypt", "export", "generate-root", "health",
+					"hmac", "init", "issue", "key-status", "keys", "leader", "leases",
+					"login", "lookup", "lookup-accessor", "lookup-self", "mounts",
+					"plaintext", "policy", "rekey", "remount", "renew", "renew-self",
+					"response", "revoke", "revoke-accessor", "revoke-prefix",
+					"revoke-self", "rewrap", "role", "role-id", "rotate", "seal",
+					"seal-status", "secret-id", "sign", "step-down", "tune", "unseal",
+					"unwrap", "verify", "wrap", "wrapped", "wrapping")));
+
+	private final ClientHttpRequestFactory delegate;
+
+	private final VaultRequestObserver observer;
+
+	/**
+	 * Create a new {@link ObservingClientHttpRequestFactory}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 * @param observer must not be {@literal null}.
+	 */
+	public ObservingClientHttpRequestFactory(ClientHttpRequestFactory delegate,
+			VaultRequestObserver observer) {
+
+		Assert.notNull(delegate, "ClientHttpRequestFactory must not be null");
+		Assert.notNull(observer, "VaultRequestObserver must not be null");
+
+		this.delegate = delegate;
+		this.observer = observer;
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod)
+			throws IOException {
+
+		return new ObservingClientHttpRequest(delegate.createRequest(uri, httpMethod),
+				toPathTemplate(uri.getRawPath()));
+	}
+
+	/**
+	 * @return the delegate {@link ClientHttpRequestFactory}.
+	 */
+	public ClientHttpRequestFactory getDelegate() {
+		return delegate;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws Exception {
+
+		if (delegate instanceof InitializingBean) {
+			((InitializingBean) delegate).afterPropertiesSet();
+		}
+	}
+
+	@Override
+	public void destroy() throws Exception {
+
+		if (delegate instanceof DisposableBean) {
+			((DisposableBean) delegate).destroy();
+		}
+	}
+
+	/**
+	 * Normalize a request path to a path template.
+	 *
+	 * @param path the request path, may be {@literal null}.
+	 * @return the path template relative to {@literal /v1/}.
+	 */
+	static String toPathTemplate(String path) {
+
+		if (path == null) {
+			return "";
+		}
+
+		String relative = path.startsWith("/") ? path.substring(1) : path;
+
+		if (relative.startsWith("v1/")) {
+			relative = relative.substring(3);
+		}
+
+		String[] segments = relative.split("/");
+		StringBuilder template = new StringBuilder(relative.length());
+		boolean placeholder = false;
+
+		for (int i = 0; i < segments.length; i++) {
+
+			String segment = segments[i];
+
+			if (segment.isEmpty()) {
+				continue;
+			}
+
+			boolean retain = i == 0 || (i == 1 && "auth".equals(segments[0]))
+					|| KEYWORDS.contains(segment);
+
+			if (!retain && placeholder) {
+				continue;
+			}
+
+			if (template.length() != 0) {
+				template.append('/');
+			}
+
+			template.append(retain ? segment : PLACEHOLDER);
+			placeholder = !retain;
+		}
+
+		return template.toString();
+	}
+
+	private VaultRequestObservation start(HttpMethod method, String pathTemplate) {
+
+		try {
+			VaultRequestObservation observation = observer.requestStarted(method,
+					pathTemplate);
+
+			if (observation != null) {
+				return observation;
+			}
+		}
+		catch (RuntimeException e) {
+			logger.warn(String.format("VaultRequestObserver failed for %s %s", method,
+					pathTemplate), e);
+		}
+
+		return null;
+	}
+
+	private static void complete(VaultRequestObservation observation,
+			VaultRequestEvent event) {
+
+		if (observation == null) {
+			return;
+		}
+
+		try {
+			observation.requestCompleted(event);
+		}
+		catch (RuntimeException e) {
+			logger.warn(String.format("VaultRequestObservation failed for %s", event), e);
+		}
+	}
+
+	private class ObservingClientHttpRequest implements ClientHttpRequest {
+
+		private final ClientHttpRequest delegate;
+
+		private final String pathTemplate;
+
+		private CountingOutputStream body;
+
+		ObservingClientHttpRequest(ClientHttpRequest delegate, String pathTemplate) {
+
+			this.delegate = delegate;
+			this.pathTemplate = pathTemplate;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return delegate.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return delegate.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return delegate.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+
+			if (body == null) {
+				body = new CountingOutputStream(delegate.getBody());
+			}
+
+			return body;
+		}
+
+		@Override
+		public ClientHttpResponse execute() throws IOException {
+
+			HttpMethod method = getMethod();
+			long requestBytes = body != null ? body.count : 0;
+			VaultRequestObservation observation = start(method, pathTemplate);
+
+			long startTime = System.currentTimeMillis();
+			long start = System.nanoTime();
+
+			try {
+
+				ClientHttpResponse response = delegate.execute();
+
+				return new ObservingClientHttpResponse(response, new Exchange(method,
+						pathTemplate, observation, requestBytes, startTime, start,
+						System.nanoTime() - start));
+			}
+			catch (IOException e) {
+				completeExceptionally(observation, method, requestBytes, startTime,
+						start, e);
+				throw e;
+			}
+			catch (RuntimeException e) {
+				completeExceptionally(observation, method, requestBytes, startTime,
+						start, e);
+				throw e;
+			}
+		}
+
+		private void completeExceptionally(VaultRequestObservation observation,
+				HttpMethod method, long requestBytes, long startTime, long start,
+				Exception e) {
+
+			long duration = System.nanoTime() - start;
+
+			complete(observation, new VaultRequestEvent(method, pathTemplate, 0,
+					requestBytes, 0, startTime, duration, duration, e));
+		}
+	}
+
+	/**
+	 * State of a request that received a response.
+	 */
+	private static class Exchange {
+
+		final HttpMethod method;
+
+		final String pathTemplate;
+
+		final VaultRequestObservation observation;
+
+		final long requestBytes;
+
+		final long startTime;
+
+		final long start;
+
+		final long responseTime;
+
+		Exchange(HttpMethod method, String pathTemplate,
+				VaultRequestObservation observation, long requestBytes, long startTime,
+				long start, long responseTime) {
+
+			this.method = method;
+			this.pathTemplate = pathTemplate;
+			this.observation = observation;
+			this.requestBytes = requestBytes;
+			this.startTime = startTime;
+			this.start = start;
+			this.responseTime = responseTime;
+		}
+	}
+
+	/**
+	 * {@link ClientHttpResponse} that completes the observation once it is closed.
+	 */
+	private static class ObservingClientHttpResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse delegate;
+
+		private final Exchange exchange;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private CountingInputStream body;
+
+		ObservingClientHttpResponse(ClientHttpResponse delegate, Exchange exchange) {
+
+			this.delegate = delegate;
+			this.exchange = exchange;
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return delegate.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return delegate.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return delegate.getStatusText();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+
+			if (body == null) {
+				body = new CountingInputStream(delegate.getBody());
+			}
+
+			return body;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return delegate.getHeaders();
+		}
+
+		@Override
+		public void close() {
+
+			try {
+				delegate.close();
+			}
+			finally {
+				if (closed.compareAndSet(false, true)) {
+					complete(exchange.observation, new VaultRequestEvent(
+							exchange.method, exchange.pathTemplate, getStatus(),
+							exchange.requestBytes, body != null ? body.count : 0,
+							exchange.startTime, exchange.responseTime, System.nanoTime()
+									- exchange.start, null));
+				}
+			}
+		}
+
+		private int getStatus() {
+
+			try {
+				return delegate.getRawStatusCode();
+			}
+			catch (IOException e) {
+				return 0;
+			}
+		}
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+
+		long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+	private static class CountingInputStream extends FilterInputStream {
+
+		long count;
+
+		private long marked;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+			super.mark(readlimit);
+			marked = count;
+		}
+
+		@Override
+		public synchronized void reset() throws IOException {
+			super.reset();
+			count = marked;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			int b = super.read();
+
+			if (b != -1) {
+				count++;
+			}
+
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+
+			int read = super.read(b, off, len);
+
+			if (read > 0) {
+				count += read;
+			}
+
+			return read;
+		}
+	}
+}
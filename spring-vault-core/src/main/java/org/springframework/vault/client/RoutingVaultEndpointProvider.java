@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.List;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * {@link VaultEndpointProvider} that routes requests depending on their
+ * {@link HttpMethod} and tracks outstanding requests per {@link VaultEndpoint}. Routing
+ * providers can send reads to other nodes than writes and balance requests by the number
+ * of outstanding requests.
+ *
+ * @author Mark Paluch
+ * @see FailoverClientHttpRequestFactory
+ * @see org.springframework.vault.core.HealthAwareVaultEndpointProvider
+ */
+public interface RoutingVaultEndpointProvider extends VaultEndpointProvider {
+
+	/**
+	 * Obtain the {@link VaultEndpoint}s for a request using {@link HttpMethod} in order
+	 * of preference.
+	 *
+	 * @param method the request method, must not be {@literal null}.
+	 * @return the {@link VaultEndpoint}s. Never {@literal null} or empty.
+	 */
+	List<VaultEndpoint> getVaultEndpoints(HttpMethod method);
+
+	/**
+	 * Notification that a request to {@link VaultEndpoint} was started.
+	 *
+	 * @param endpoint the {@link VaultEndpoint}.
+	 */
+	void requestStarted(VaultEndpoint endpoint);
+
+	/**
+	 * Notification that a request to {@link VaultEndpoint} completed, either by closing
+	 * its response or with an error.
+	 *
+	 * @param endpoint the {@link VaultEndpoint}.
+	 */
+	void requestCompleted(VaultEndpoint endpoint);
+}
@@ -22,6 +22,9 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.HttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
@@ -30,6 +33,12 @@ import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.support.VaultFlightRecorder;
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+import org.springframework.vault.support.VaultFlightRecorder.Recording;
+import org.springframework.web.client.AsyncRestTemplate;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.DefaultUriTemplateHandler;
 
@@ -40,6 +49,7 @@ import org.springframework.web.util.DefaultUriTemplateHandler;
  * @author Mark Paluch
  * @see VaultEndpoint
  * @see RestTemplate
+ * @see AsyncRestTemplate
  */
 public class VaultClients {
 
@@ -72,13 +82,38 @@ public class VaultClients {
 		return restTemplate;
 	}
 
+	/**
+	 * Create a {@link RestTemplate} configured with {@link VaultEndpointProvider} and
+	 * {@link ClientHttpRequestFactory}. Requests are sent to the endpoints provided by
+	 * {@link VaultEndpointProvider} and fail over to the next endpoint on connection
+	 * errors and {@literal 503 Service Unavailable} responses. The template accepts
+	 * relative URIs without a leading slash and is configured like
+	 * {@link #createRestTemplate(VaultEndpoint, ClientHttpRequestFactory)}.
+	 *
+	 * @param endpointProvider must not be {@literal null}.
+	 * @param requestFactory must not be {@literal null}.
+	 * @return the {@link RestTemplate}.
+	 * @see FailoverClientHttpRequestFactory
+	 */
+	public static RestTemplate createRestTemplate(VaultEndpointProvider endpointProvider,
+			ClientHttpRequestFactory requestFactory) {
+
+		Assert.notNull(endpointProvider, "VaultEndpointProvider must not be null");
+		Assert.notNull(requestFactory, "ClientHttpRequestFactory must not be null");
+
+		return createRestTemplate(endpointProvider.getVaultEndpoints().get(0),
+				new FailoverClientHttpRequestFactory(requestFactory, endpointProvider));
+	}
+
 	/**
 	 * Create a {@link RestTemplate} for Vault interaction. {@link RestTemplate} is
 	 * configured with a {@link ClientHttpRequestInterceptor} to enforce serialization to
 	 * a byte array prior continuing the request. Eager serialization leads to a known
 	 * request body size that is required to send a
 	 * {@link org.springframework.http.HttpHeaders#CONTENT_LENGTH} request header.
-	 * Otherwise, Vault will deny body processing.
+	 * Otherwise, Vault will deny body processing. The interceptor rejects requests once
+	 * the {@link Deadline#current() current deadline} has passed and emits
+	 * {@link VaultFlightRecorder flight recorder} events.
 	 * <p>
 	 * Requires Jackson 2 for Object-to-JSON mapping.
 	 *
@@ -88,26 +123,111 @@ public class VaultClients {
 	 */
 	public static RestTemplate createRestTemplate() {
 
-		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>(
-				3);
-		messageConverters.add(new ByteArrayHttpMessageConverter());
-		messageConverters.add(new StringHttpMessageConverter());
-		messageConverters.add(new MappingJackson2HttpMessageConverter());
-
-		RestTemplate restTemplate = new RestTemplate(messageConverters);
+		RestTemplate restTemplate = new RestTemplate(createMessageConverters());
 
 		restTemplate.getInterceptors().add(new ClientHttpRequestInterceptor() {
 
 			@Override
 			public ClientHttpResponse intercept(HttpRequest request, byte[] body,
 					ClientHttpRequestExecution execution) throws IOException {
-				return execution.execute(request, body);
+
+				Deadline.checkCurrent(String.format("%s %s", request.getMethod(),
+						request.getURI().getPath()));
+
+				Recording recording = VaultFlightRecorder.begin(Operation.REQUEST);
+
+				if (!recording.isEnabled()) {
+					return execution.execute(request, body);
+				}
+
+				recording.setName(request.getMethod()
+						+ " "
+						+ ObservingClientHttpRequestFactory.toPathTemplate(request.getURI()
+								.getRawPath()));
+
+				try {
+
+					ClientHttpResponse response = execution.execute(request, body);
+
+					recording.setStatus(response.getRawStatusCode());
+					recording.setRequestBytes(body.length);
+					recording.setResponseBytes(Math.max(0, response.getHeaders()
+							.getContentLength()));
+
+					return response;
+				}
+				catch (IOException e) {
+					recording.setFailure(e);
+					throw e;
+				}
+				catch (RuntimeException e) {
+					recording.setFailure(e);
+					throw e;
+				}
+				finally {
+					recording.commit();
+				}
 			}
 		});
 
 		return restTemplate;
 	}
 
+	/**
+	 * Create a {@link AsyncRestTemplate} configured with {@link VaultEndpoint} and
+	 * {@link AsyncClientHttpRequestFactory}. The template accepts relative URIs without a
+	 * leading slash that are expanded to use {@link VaultEndpoint}.
+	 * {@link AsyncRestTemplate} is configured with a
+	 * {@link AsyncClientHttpRequestInterceptor} to enforce serialization to a byte array
+	 * prior continuing the request to send a
+	 * {@link org.springframework.http.HttpHeaders#CONTENT_LENGTH} request header. Requests
+	 * are rejected if the {@link Deadline#current() current deadline} has passed. The
+	 * deadline does not limit the asynchronous response.
+	 * <p>
+	 * Requires Jackson 2 for Object-to-JSON mapping.
+	 *
+	 * @param endpoint must not be {@literal null}.
+	 * @param asyncRequestFactory must not be {@literal null}.
+	 * @return the {@link AsyncRestTemplate}.
+	 * @see org.springframework.http.client.Netty4ClientHttpRequestFactory
+	 * @see MappingJackson2HttpMessageConverter
+	 */
+	public static AsyncRestTemplate createAsyncRestTemplate(VaultEndpoint endpoint,
+			AsyncClientHttpRequestFactory asyncRequestFactory) {
+
+		AsyncRestTemplate asyncRestTemplate = new AsyncRestTemplate(asyncRequestFactory,
+				new RestTemplate(createMessageConverters()));
+
+		asyncRestTemplate.setUriTemplateHandler(createUriTemplateHandler(endpoint));
+
+		asyncRestTemplate.getInterceptors().add(new AsyncClientHttpRequestInterceptor() {
+
+			@Override
+			public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request,
+					byte[] body, AsyncClientHttpRequestExecution execution)
+					throws IOException {
+
+				Deadline.checkCurrent(String.format("%s %s", request.getMethod(),
+						request.getURI().getPath()));
+
+				return execution.executeAsync(request, body);
+			}
+		});
+
+		return asyncRestTemplate;
+	}
+
+	private static List<HttpMessageConverter<?>> createMessageConverters() {
+
+		List<HttpMessageConverter<?>> messageConverters = new ArrayList<HttpMessageConverter<?>>(
+				3);
+		messageConverters.add(new ByteArrayHttpMessageConverter());
+		messageConverters.add(new StringHttpMessageConverter());
+		messageConverters.add(new MappingJackson2HttpMessageConverter());
+
+		return messageConverters;
+	}
+
 	private static DefaultUriTemplateHandler createUriTemplateHandler(
 			VaultEndpoint endpoint) {
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.List;
+
+/**
+ * Strategy interface that provides {@link VaultEndpoint}s to clients accessing a Vault
+ * cluster with multiple nodes. Clients use the endpoints in the provided order and
+ * {@link #reportFailure(VaultEndpoint) report failures} so the provider can route
+ * subsequent requests to other nodes.
+ *
+ * @author Mark Paluch
+ * @see FailoverClientHttpRequestFactory
+ * @see org.springframework.vault.core.HealthAwareVaultEndpointProvider
+ */
+public interface VaultEndpointProvider {
+
+	/**
+	 * Obtain the {@link VaultEndpoint}s in order of preference.
+	 *
+	 * @return the {@link VaultEndpoint}s. Never {@literal null} or empty.
+	 */
+	List<VaultEndpoint> getVaultEndpoints();
+
+	/**
+	 * Report a failed request to {@link VaultEndpoint} due to a connection error or a
+	 * node that is not available.
+	 *
+	 * @param endpoint the failed {@link VaultEndpoint}.
+	 */
+	void reportFailure(VaultEndpoint endpoint);
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+
+/**
+ * {@link VaultException} reporting an erroneous HTTP response from Vault. Carries the
+ * {@link HttpStatus} so callers can distinguish client and server errors without
+ * parsing the message.
+ *
+ * @author Mark Paluch
+ * @see VaultResponses#buildException(org.springframework.web.client.HttpStatusCodeException)
+ */
+@SuppressWarnings("serial")
+public class VaultHttpException extends VaultException {
+
+	private final HttpStatus statusCode;
+
+	/**
+	 * Create a {@link VaultHttpException} with the specified detail message and
+	 * {@link HttpStatus}.
+	 *
+	 * @param msg the detail message.
+	 * @param statusCode must not be {@literal null}.
+	 */
+	public VaultHttpException(String msg, HttpStatus statusCode) {
+
+		super(msg);
+
+		Assert.notNull(statusCode, "HttpStatus must not be null");
+
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * @return the HTTP status code of the response.
+	 */
+	public HttpStatus getStatusCode() {
+		return statusCode;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+
+/**
+ * Value object describing a completed Vault request. Events carry the request method,
+ * the normalized path template, the response status, the number of bytes sent and
+ * received and the request timings.
+ *
+ * @author Mark Paluch
+ * @see VaultRequestObservation
+ */
+public class VaultRequestEvent {
+
+	private final HttpMethod method;
+
+	private final String pathTemplate;
+
+	private final int statusCode;
+
+	private final long requestBytes;
+
+	private final long responseBytes;
+
+	private final long startTime;
+
+	private final long responseTimeNanos;
+
+	private final long durationNanos;
+
+	private final Exception exception;
+
+	/**
+	 * Create a new {@link VaultRequestEvent}.
+	 *
+	 * @param method must not be {@literal null}.
+	 * @param pathTemplate must not be {@literal null}.
+	 * @param statusCode the HTTP status code, {@literal 0} if no response was received.
+	 * @param requestBytes number of request body bytes sent.
+	 * @param responseBytes number of response body bytes read.
+	 * @param startTime request start in milliseconds since the epoch.
+	 * @param responseTimeNanos time until the response headers were received in
+	 * nanoseconds.
+	 * @param durationNanos time until the request completed in nanoseconds.
+	 * @param exception the exception if the request failed, may be {@literal null}.
+	 */
+	public VaultRequestEvent(HttpMethod method, String pathTemplate, int statusCode,
+			long requestBytes, long responseBytes, long startTime,
+			long responseTimeNanos, long durationNanos, Exception exception) {
+
+		Assert.notNull(method, "HttpMethod must not be null");
+		Assert.notNull(pathTemplate, "Path template must not be null");
+
+		this.method = method;
+		this.pathTemplate = pathTemplate;
+		this.statusCode = statusCode;
+		this.requestBytes = requestBytes;
+		this.responseBytes = responseBytes;
+		this.startTime = startTime;
+		this.responseTimeNanos = responseTimeNanos;
+		this.durationNanos = durationNanos;
+		this.exception = exception;
+	}
+
+	/**
+	 * @return the HTTP method.
+	 */
+	public HttpMethod getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return the request path relative to {@code /v1/} with secret names, tokens and
+	 * lease identifiers replaced by {@literal {name}}.
+	 */
+	public String getPathTemplate() {
+		return pathTemplate;
+	}
+
+	/**
+	 * @return the operation consisting of method and path template, for example
+	 * {@literal GET secret/{name}}.
+	 */
+	public String getOperation() {
+		return method + " " + pathTemplate;
+	}
+
+	/**
+	 * @return the HTTP status code, {@literal 0} if no response was received.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return number of request body bytes sent.
+	 */
+	public long getRequestBytes() {
+		return requestBytes;
+	}
+
+	/**
+	 * @return number of response body bytes read.
+	 */
+	public long getResponseBytes() {
+		return responseBytes;
+	}
+
+	/**
+	 * @return request start in milliseconds since the epoch.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @param unit must not be {@literal null}.
+	 * @return the time until the response headers were received.
+	 */
+	public long getResponseTime(TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return unit.convert(responseTimeNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param unit must not be {@literal null}.
+	 * @return the time until the request completed, including reading the response body.
+	 */
+	public long getDuration(TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the exception if the request failed, may be {@literal null}.
+	 */
+	public Exception getException() {
+		return exception;
+	}
+
+	/**
+	 * @return {@literal true} if the request failed without receiving a response.
+	 */
+	public boolean isFailed() {
+		return exception != null;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %s [status=%d, duration=%d ms]", method, pathTemplate,
+				statusCode, getDuration(TimeUnit.MILLISECONDS));
+	}
+}
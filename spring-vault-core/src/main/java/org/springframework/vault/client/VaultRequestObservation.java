@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+/**
+ * Observation of a single Vault request created by
+ * {@link VaultRequestObserver#requestStarted(org.springframework.http.HttpMethod, String)}
+ * . The observation is completed exactly once.
+ *
+ * @author Mark Paluch
+ * @see VaultRequestObserver
+ */
+public interface VaultRequestObservation {
+
+	/**
+	 * Callback after the request completed. A request completes when its response is
+	 * closed or when sending the request fails.
+	 *
+	 * @param event the {@link VaultRequestEvent} describing the request, never
+	 * {@literal null}.
+	 */
+	void requestCompleted(VaultRequestEvent event);
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Observer notified about requests to Vault. Observers are invoked around every request
+ * that is sent through an {@link ObservingClientHttpRequestFactory}, including requests
+ * issued by {@link org.springframework.vault.core.VaultTemplate}, session managers and
+ * {@link org.springframework.vault.authentication.ClientAuthentication authentication}
+ * implementations that share the request factory.
+ * <p>
+ * {@link #requestStarted(HttpMethod, String)} is called before the request is sent.
+ * The returned {@link VaultRequestObservation} is notified once the response is closed
+ * or the request fails. Implementations must be thread-safe and should return quickly
+ * as they are called on the requesting thread.
+ *
+ * @author Mark Paluch
+ * @see ObservingClientHttpRequestFactory
+ * @see HistogramVaultRequestObserver
+ */
+public interface VaultRequestObserver {
+
+	/**
+	 * Callback before a request is sent to Vault.
+	 *
+	 * @param method the HTTP method.
+	 * @param pathTemplate the request path relative to {@code /v1/} with secret names,
+	 * tokens and lease identifiers replaced by {@literal {name}}.
+	 * @return the {@link VaultRequestObservation} to notify once the request completes.
+	 * Must not be {@literal null}.
+	 */
+	VaultRequestObservation requestStarted(HttpMethod method, String pathTemplate);
+}
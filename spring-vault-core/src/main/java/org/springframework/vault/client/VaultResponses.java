@@ -50,7 +50,7 @@ public abstract class VaultResponses {
 	/**
 	 * Build a {@link VaultException} given {@link HttpStatusCodeException}.
 	 * @param e must not be {@literal null}.
-	 * @return the {@link VaultException}.
+	 * @return the {@link VaultHttpException} carrying the status code.
 	 */
 	public static VaultException buildException(HttpStatusCodeException e) {
 
@@ -59,11 +59,12 @@ public abstract class VaultResponses {
 		String message = VaultResponses.getError(e.getResponseBodyAsString());
 
 		if (StringUtils.hasText(message)) {
-			return new VaultException(String.format("Status %s: %s", e.getStatusCode(),
-					message));
+			return new VaultHttpException(String.format("Status %s: %s",
+					e.getStatusCode(), message), e.getStatusCode());
 		}
 
-		return new VaultException(String.format("Status %s", e.getStatusCode()));
+		return new VaultHttpException(String.format("Status %s", e.getStatusCode()),
+				e.getStatusCode());
 	}
 
 	/**
@@ -71,7 +72,7 @@ public abstract class VaultResponses {
 	 * {@code path}.
 	 * @param e must not be {@literal null}.
 	 * @param path
-	 * @return the {@link VaultException}.
+	 * @return the {@link VaultHttpException} carrying the status code.
 	 */
 	public static VaultException buildException(HttpStatusCodeException e, String path) {
 
@@ -80,11 +81,12 @@ public abstract class VaultResponses {
 		String message = VaultResponses.getError(e.getResponseBodyAsString());
 
 		if (StringUtils.hasText(message)) {
-			return new VaultException(String.format("Status %s %s: %s",
-					e.getStatusCode(), path, message));
+			return new VaultHttpException(String.format("Status %s %s: %s",
+					e.getStatusCode(), path, message), e.getStatusCode());
 		}
 
-		return new VaultException(String.format("Status %s %s", e.getStatusCode(), path));
+		return new VaultHttpException(String.format("Status %s %s", e.getStatusCode(),
+				path), e.getStatusCode());
 	}
 
 	/**
@@ -24,14 +24,16 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.core.task.AsyncTaskExecutor;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.util.Assert;
 import org.springframework.vault.authentication.ClientAuthentication;
 import org.springframework.vault.authentication.LifecycleAwareSessionManager;
 import org.springframework.vault.authentication.SessionManager;
+import org.springframework.vault.authentication.SharedRenewalScheduler;
+import org.springframework.vault.client.ObservingClientHttpRequestFactory;
 import org.springframework.vault.client.VaultClients;
 import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultRequestObserver;
 import org.springframework.vault.core.VaultTemplate;
 import org.springframework.vault.support.ClientOptions;
 import org.springframework.vault.support.SslConfiguration;
@@ -105,13 +107,16 @@ public abstract class AbstractVaultConfiguration implements ApplicationContextAw
 	 * Annotate with {@link Bean} in case you want to expose a {@link AsyncTaskExecutor}
 	 * instance to the {@link org.springframework.context.ApplicationContext}. This might
 	 * be useful to supply managed executor instances or {@link AsyncTaskExecutor}s using
-	 * a queue/pooled threads.
+	 * a queue/pooled threads. Defaults to the bounded worker pool of the
+	 * {@link SharedRenewalScheduler} which is shared across the JVM. Renewals are timed by
+	 * the {@link SharedRenewalScheduler} and run on this executor once due.
 	 *
 	 * @return the {@link AsyncTaskExecutor} to use. Must not be {@literal null}.
 	 * @see AsyncTaskExecutor
+	 * @see SharedRenewalScheduler
 	 */
 	public AsyncTaskExecutor asyncTaskExecutor() {
-		return new SimpleAsyncTaskExecutor("spring-vault-SimpleAsyncTaskExecutor-");
+		return SharedRenewalScheduler.getTaskExecutor();
 	}
 
 	/**
@@ -137,11 +142,51 @@ public abstract class AbstractVaultConfiguration implements ApplicationContextAw
 	 * instance.
 	 * @see #clientOptions()
 	 * @see #sslConfiguration()
+	 * @see #vaultRequestObserver()
 	 */
 	@Bean
 	public ClientFactoryWrapper clientHttpRequestFactoryWrapper() {
-		return new ClientFactoryWrapper(ClientHttpRequestFactoryFactory.create(
-				clientOptions(), sslConfiguration()));
+
+		ClientHttpRequestFactory clientHttpRequestFactory = ClientHttpRequestFactoryFactory
+				.create(clientOptions(), sslConfiguration());
+		VaultRequestObserver vaultRequestObserver = vaultRequestObserver();
+
+		if (vaultRequestObserver != null) {
+			clientHttpRequestFactory = new ObservingClientHttpRequestFactory(
+					clientHttpRequestFactory, vaultRequestObserver);
+		}
+
+		return new ClientFactoryWrapper(clientHttpRequestFactory);
+	}
+
+	/**
+	 * Return the {@link VaultRequestObserver} to be notified about every request to
+	 * Vault, including authentication and session renewal. Annotate with {@link Bean} in
+	 * case you want to expose a {@link VaultRequestObserver} instance to the
+	 * {@link org.springframework.context.ApplicationContext}.
+	 *
+	 * @return the {@link VaultRequestObserver} to use, may be {@literal null} to not
+	 * observe requests. Defaults to {@literal null}.
+	 * @see ObservingClientHttpRequestFactory
+	 * @see org.springframework.vault.client.HistogramVaultRequestObserver
+	 */
+	public VaultRequestObserver vaultRequestObserver() {
+		return null;
+	}
+
+	/**
+	 * Expose {@link TransportStatistics} of the {@link ClientHttpRequestFactory} held by
+	 * {@link #clientHttpRequestFactoryWrapper()}. Statistics are exported as MBean
+	 * through {@link org.springframework.context.annotation.EnableMBeanExport}.
+	 *
+	 * @return the {@link TransportStatistics}.
+	 * @see ClientHttpRequestFactoryFactory#getTransportStatistics(ClientHttpRequestFactory)
+	 */
+	@Bean
+	public TransportStatistics transportStatistics() {
+		return ClientHttpRequestFactoryFactory
+				.getTransportStatistics(clientHttpRequestFactoryWrapper()
+						.getClientHttpRequestFactory());
 	}
 
 	/**
@@ -17,6 +17,7 @@ package org.springframework.vault.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.ProxySelector;
 import java.security.GeneralSecurityException;
 import java.security.KeyStore;
@@ -29,21 +30,36 @@ import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
 
 import com.squareup.okhttp.OkHttpClient;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient.Builder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.ssl.SSLContexts;
 
 import org.springframework.core.io.Resource;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.Netty4ClientHttpRequestFactory;
@@ -53,13 +69,18 @@ import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.client.ObservingClientHttpRequestFactory;
 import org.springframework.vault.support.ClientOptions;
 import org.springframework.vault.support.SslConfiguration;
 
 /**
  * Factory for {@link ClientHttpRequestFactory} that supports Apache HTTP Components,
  * OkHttp, Netty and the JDK HTTP client (in that order). This factory configures a
- * {@link ClientHttpRequestFactory} depending on the available dependencies.
+ * {@link ClientHttpRequestFactory} depending on the available dependencies. Timeouts and
+ * connection pool settings are applied from {@link ClientOptions}. Connect and read
+ * timeouts of the JDK HTTP client and Apache HTTP Components are limited per request to
+ * the time remaining until the {@link Deadline#current() current deadline}.
  *
  * @author Mark Paluch
  */
@@ -129,7 +150,76 @@ public class ClientHttpRequestFactoryFactory {
 					+ "must be applied outside the Vault Client to use the JDK HTTP client");
 		}
 
-		return new SimpleClientHttpRequestFactory();
+		SimpleClientHttpRequestFactory requestFactory = new DeadlineAwareSimpleClientHttpRequestFactory();
+
+		requestFactory.setConnectTimeout(options.getConnectionTimeout());
+		requestFactory.setReadTimeout(options.getReadTimeout());
+
+		return requestFactory;
+	}
+
+	/**
+	 * Creates a non-blocking {@link AsyncClientHttpRequestFactory} for the given
+	 * {@link ClientOptions} and {@link SslConfiguration}. Supports Netty and OkHttp 3 (in
+	 * that order).
+	 *
+	 * @param options must not be {@literal null}
+	 * @param sslConfiguration must not be {@literal null}
+	 * @return a new {@link AsyncClientHttpRequestFactory}. Lifecycle beans must be
+	 * initialized after obtaining.
+	 * @throws IllegalStateException if neither Netty nor OkHttp 3 are available.
+	 */
+	public static AsyncClientHttpRequestFactory createAsync(ClientOptions options,
+			SslConfiguration sslConfiguration) {
+
+		Assert.notNull(options, "ClientOptions must not be null");
+		Assert.notNull(sslConfiguration, "SslConfiguration must not be null");
+
+		try {
+
+			if (NETTY_PRESENT) {
+				return Netty.usingNetty(options, sslConfiguration);
+			}
+
+			if (OKHTTP3_PRESENT) {
+				return OkHttp3.usingOkHttp3(options, sslConfiguration);
+			}
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		throw new IllegalStateException(
+				"Asynchronous Vault access requires Netty or OkHttp 3 on the class path");
+	}
+
+	/**
+	 * Obtain {@link TransportStatistics} for a {@link ClientHttpRequestFactory} created by
+	 * this factory. {@link ObservingClientHttpRequestFactory} is unwrapped. Request
+	 * factories that were not created by this factory report no statistics.
+	 *
+	 * @param requestFactory must not be {@literal null}.
+	 * @return the {@link TransportStatistics}.
+	 */
+	public static TransportStatistics getTransportStatistics(
+			ClientHttpRequestFactory requestFactory) {
+
+		Assert.notNull(requestFactory, "ClientHttpRequestFactory must not be null");
+
+		ClientHttpRequestFactory factory = requestFactory;
+
+		while (factory instanceof ObservingClientHttpRequestFactory) {
+			factory = ((ObservingClientHttpRequestFactory) factory).getDelegate();
+		}
+
+		if (factory instanceof TransportStatisticsAware) {
+			return ((TransportStatisticsAware) factory).getTransportStatistics();
+		}
+
+		return new TransportStatistics(factory.getClass().getName(), null);
 	}
 
 	static SSLContext getSSLContext(SslConfiguration sslConfiguration)
@@ -203,6 +293,48 @@ public class ClientHttpRequestFactoryFactory {
 				|| sslConfiguration.getKeyStore() != null;
 	}
 
+	/**
+	 * {@link ClientHttpRequestFactory} exposing {@link TransportStatistics}.
+	 */
+	interface TransportStatisticsAware {
+
+		/**
+		 * @return the {@link TransportStatistics}.
+		 */
+		TransportStatistics getTransportStatistics();
+	}
+
+	/**
+	 * {@link SimpleClientHttpRequestFactory} limiting timeouts to the
+	 * {@link Deadline#current() current deadline}.
+	 */
+	static class DeadlineAwareSimpleClientHttpRequestFactory extends
+			SimpleClientHttpRequestFactory implements TransportStatisticsAware {
+
+		private final TransportStatistics statistics = new TransportStatistics("JDK",
+				null);
+
+		@Override
+		public TransportStatistics getTransportStatistics() {
+			return statistics;
+		}
+
+		@Override
+		protected void prepareConnection(HttpURLConnection connection, String httpMethod)
+				throws IOException {
+
+			super.prepareConnection(connection, httpMethod);
+
+			Deadline deadline = Deadline.current();
+
+			if (deadline != null) {
+				connection.setConnectTimeout(deadline.limit(connection
+						.getConnectTimeout()));
+				connection.setReadTimeout(deadline.limit(connection.getReadTimeout()));
+			}
+		}
+	}
+
 	/**
 	 * {@link ClientHttpRequestFactory} for Apache Http Components.
 	 *
@@ -219,14 +351,22 @@ public class ClientHttpRequestFactoryFactory {
 			httpClientBuilder.setRoutePlanner(new SystemDefaultRoutePlanner(
 					DefaultSchemePortResolver.INSTANCE, ProxySelector.getDefault()));
 
-			if (hasSslConfiguration(sslConfiguration)) {
+			SSLContext sslContext = hasSslConfiguration(sslConfiguration) ? getSSLContext(sslConfiguration)
+					: SSLContexts.createDefault();
+			TlsHandshakeStatistics tlsHandshakes = new TlsHandshakeStatistics();
 
-				SSLContext sslContext = getSSLContext(sslConfiguration);
-				SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(
-						sslContext);
-				httpClientBuilder.setSSLSocketFactory(sslSocketFactory);
-				httpClientBuilder.setSSLContext(sslContext);
-			}
+			SSLConnectionSocketFactory sslSocketFactory = new SSLConnectionSocketFactory(
+					tlsHandshakes.track(sslContext.getSocketFactory()),
+					SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+
+			final PoolingHttpClientConnectionManager connectionManager = createConnectionManager(
+					options, sslSocketFactory);
+
+			httpClientBuilder.setConnectionManager(connectionManager);
+
+			httpClientBuilder.evictExpiredConnections();
+			httpClientBuilder.evictIdleConnections(options.getIdleConnectionTimeout(),
+					TimeUnit.MILLISECONDS);
 
 			RequestConfig requestConfig = RequestConfig.custom() //
 					.setConnectTimeout(options.getConnectionTimeout()) //
@@ -236,7 +376,98 @@ public class ClientHttpRequestFactoryFactory {
 
 			httpClientBuilder.setDefaultRequestConfig(requestConfig);
 
-			return new HttpComponentsClientHttpRequestFactory(httpClientBuilder.build());
+			TransportStatistics statistics = new TransportStatistics("HttpComponents",
+					tlsHandshakes) {
+
+				@Override
+				int leasedConnections() {
+					return connectionManager.getTotalStats().getLeased();
+				}
+
+				@Override
+				int availableConnections() {
+					return connectionManager.getTotalStats().getAvailable();
+				}
+
+				@Override
+				int pendingConnections() {
+					return connectionManager.getTotalStats().getPending();
+				}
+
+				@Override
+				int maxConnections() {
+					return connectionManager.getTotalStats().getMax();
+				}
+			};
+
+			return new DeadlineAwareHttpComponentsClientHttpRequestFactory(
+					httpClientBuilder.build(), statistics);
+		}
+
+		/**
+		 * {@link HttpComponentsClientHttpRequestFactory} limiting timeouts to the
+		 * {@link Deadline#current() current deadline}.
+		 */
+		static class DeadlineAwareHttpComponentsClientHttpRequestFactory extends
+				HttpComponentsClientHttpRequestFactory implements
+				TransportStatisticsAware {
+
+			private final TransportStatistics statistics;
+
+			DeadlineAwareHttpComponentsClientHttpRequestFactory(HttpClient httpClient,
+					TransportStatistics statistics) {
+
+				super(httpClient);
+				this.statistics = statistics;
+			}
+
+			@Override
+			public TransportStatistics getTransportStatistics() {
+				return statistics;
+			}
+
+			@Override
+			protected RequestConfig createRequestConfig(Object client) {
+
+				RequestConfig requestConfig = super.createRequestConfig(client);
+				Deadline deadline = Deadline.current();
+
+				if (deadline == null) {
+					return requestConfig;
+				}
+
+				if (requestConfig == null) {
+					requestConfig = RequestConfig.DEFAULT;
+				}
+
+				return RequestConfig.copy(requestConfig) //
+						.setConnectTimeout(deadline.limit(requestConfig.getConnectTimeout())) //
+						.setConnectionRequestTimeout(
+								deadline.limit(requestConfig.getConnectionRequestTimeout())) //
+						.setSocketTimeout(deadline.limit(requestConfig.getSocketTimeout())) //
+						.build();
+			}
+		}
+
+		private static PoolingHttpClientConnectionManager createConnectionManager(
+				ClientOptions options, SSLConnectionSocketFactory sslSocketFactory) {
+
+			Registry<ConnectionSocketFactory> registry = RegistryBuilder
+					.<ConnectionSocketFactory> create() //
+					.register("http", PlainConnectionSocketFactory.getSocketFactory()) //
+					.register("https", sslSocketFactory) //
+					.build();
+
+			PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+					registry, null, null, null, options.getConnectionTimeToLive() > 0 ? options
+							.getConnectionTimeToLive() : -1, TimeUnit.MILLISECONDS);
+
+			connectionManager.setMaxTotal(options.getMaxTotalConnections());
+			connectionManager.setDefaultMaxPerRoute(options.getMaxConnectionsPerRoute());
+			connectionManager.setValidateAfterInactivity(options
+					.getValidateAfterInactivity());
+
+			return connectionManager;
 		}
 	}
 
@@ -272,6 +503,13 @@ public class ClientHttpRequestFactoryFactory {
 						.getSocketFactory());
 			}
 
+			okHttpClient.setConnectionPool(new com.squareup.okhttp.ConnectionPool(options
+					.getMaxIdleConnections(), options.getIdleConnectionTimeout()));
+
+			okHttpClient.getDispatcher().setMaxRequests(options.getMaxRequests());
+			okHttpClient.getDispatcher().setMaxRequestsPerHost(
+					options.getMaxRequestsPerHost());
+
 			requestFactory.setConnectTimeout(options.getConnectionTimeout());
 			requestFactory.setReadTimeout(options.getReadTimeout());
 
@@ -286,36 +524,124 @@ public class ClientHttpRequestFactoryFactory {
 	 */
 	static class OkHttp3 {
 
-		static ClientHttpRequestFactory usingOkHttp3(ClientOptions options,
+		static OkHttp3ClientHttpRequestFactory usingOkHttp3(ClientOptions options,
 				SslConfiguration sslConfiguration) throws GeneralSecurityException,
 				IOException {
 
 			Builder builder = new Builder();
 
-			if (hasSslConfiguration(sslConfiguration)) {
-				builder.sslSocketFactory(getSSLContext(sslConfiguration)
-						.getSocketFactory());
-			}
+			TlsHandshakeStatistics tlsHandshakes = new TlsHandshakeStatistics();
+			SSLContext sslContext = hasSslConfiguration(sslConfiguration) ? getSSLContext(sslConfiguration)
+					: SSLContext.getDefault();
+
+			builder.sslSocketFactory(tlsHandshakes.track(sslContext.getSocketFactory()),
+					getTrustManager(sslConfiguration));
 
 			builder.connectTimeout(options.getConnectionTimeout(), TimeUnit.MILLISECONDS)
 					.readTimeout(options.getReadTimeout(), TimeUnit.MILLISECONDS);
 
-			return new OkHttp3ClientHttpRequestFactory(builder.build());
+			builder.connectionPool(new ConnectionPool(options.getMaxIdleConnections(),
+					options.getIdleConnectionTimeout(), TimeUnit.MILLISECONDS));
+
+			Dispatcher dispatcher = new Dispatcher();
+			dispatcher.setMaxRequests(options.getMaxRequests());
+			dispatcher.setMaxRequestsPerHost(options.getMaxRequestsPerHost());
+
+			builder.dispatcher(dispatcher);
+
+			final okhttp3.OkHttpClient client = builder.build();
+
+			TransportStatistics statistics = new TransportStatistics("OkHttp3",
+					tlsHandshakes) {
+
+				@Override
+				int leasedConnections() {
+
+					ConnectionPool connectionPool = client.connectionPool();
+					return connectionPool.connectionCount()
+							- connectionPool.idleConnectionCount();
+				}
+
+				@Override
+				int availableConnections() {
+					return client.connectionPool().idleConnectionCount();
+				}
+
+				@Override
+				int queuedRequests() {
+					return client.dispatcher().queuedCallsCount();
+				}
+
+				@Override
+				int runningRequests() {
+					return client.dispatcher().runningCallsCount();
+				}
+			};
+
+			return new StatisticsAwareOkHttp3ClientHttpRequestFactory(client, statistics);
+		}
+
+		private static X509TrustManager getTrustManager(SslConfiguration sslConfiguration)
+				throws GeneralSecurityException, IOException {
+
+			TrustManagerFactory trustManagerFactory;
+
+			if (sslConfiguration.getTrustStore() != null) {
+				trustManagerFactory = createTrustManagerFactory(
+						sslConfiguration.getTrustStore(),
+						sslConfiguration.getTrustStorePassword());
+			}
+			else {
+				trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory
+						.getDefaultAlgorithm());
+				trustManagerFactory.init((KeyStore) null);
+			}
+
+			for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
+				if (trustManager instanceof X509TrustManager) {
+					return (X509TrustManager) trustManager;
+				}
+			}
+
+			throw new IllegalStateException("No X509TrustManager available");
+		}
+
+		/**
+		 * {@link OkHttp3ClientHttpRequestFactory} exposing {@link TransportStatistics}.
+		 */
+		static class StatisticsAwareOkHttp3ClientHttpRequestFactory extends
+				OkHttp3ClientHttpRequestFactory implements TransportStatisticsAware {
+
+			private final TransportStatistics statistics;
+
+			StatisticsAwareOkHttp3ClientHttpRequestFactory(okhttp3.OkHttpClient client,
+					TransportStatistics statistics) {
+
+				super(client);
+				this.statistics = statistics;
+			}
+
+			@Override
+			public TransportStatistics getTransportStatistics() {
+				return statistics;
+			}
 		}
 	}
 
 	/**
-	 * {@link ClientHttpRequestFactory} for Netty.
+	 * {@link ClientHttpRequestFactory} for Netty. {@link Netty4ClientHttpRequestFactory}
+	 * opens a channel per request so connection pool settings do not apply.
 	 *
 	 * @author Mark Paluch
 	 */
 	static class Netty {
 
-		static ClientHttpRequestFactory usingNetty(ClientOptions options,
+		static Netty4ClientHttpRequestFactory usingNetty(ClientOptions options,
 				SslConfiguration sslConfiguration) throws GeneralSecurityException,
 				IOException {
 
-			final Netty4ClientHttpRequestFactory requestFactory = new Netty4ClientHttpRequestFactory();
+			final StatisticsAwareNetty4ClientHttpRequestFactory requestFactory = new StatisticsAwareNetty4ClientHttpRequestFactory(
+					new NioEventLoopGroup());
 
 			if (hasSslConfiguration(sslConfiguration)) {
 
@@ -343,5 +669,55 @@ public class ClientHttpRequestFactoryFactory {
 
 			return requestFactory;
 		}
+
+		/**
+		 * {@link Netty4ClientHttpRequestFactory} exposing the number of pending event
+		 * loop tasks as {@link TransportStatistics}. The {@link EventLoopGroup} is shut
+		 * down on {@link #destroy()}.
+		 */
+		static class StatisticsAwareNetty4ClientHttpRequestFactory extends
+				Netty4ClientHttpRequestFactory implements TransportStatisticsAware {
+
+			private final EventLoopGroup eventLoopGroup;
+
+			private final TransportStatistics statistics;
+
+			StatisticsAwareNetty4ClientHttpRequestFactory(
+					final EventLoopGroup eventLoopGroup) {
+
+				super(eventLoopGroup);
+
+				this.eventLoopGroup = eventLoopGroup;
+				this.statistics = new TransportStatistics("Netty", null) {
+
+					@Override
+					int pendingTasks() {
+
+						int pendingTasks = 0;
+
+						for (EventExecutor executor : eventLoopGroup) {
+							if (executor instanceof SingleThreadEventExecutor) {
+								pendingTasks += ((SingleThreadEventExecutor) executor)
+										.pendingTasks();
+							}
+						}
+
+						return pendingTasks;
+					}
+				};
+			}
+
+			@Override
+			public TransportStatistics getTransportStatistics() {
+				return statistics;
+			}
+
+			@Override
+			public void destroy() throws InterruptedException {
+
+				super.destroy();
+				eventLoopGroup.shutdownGracefully().sync();
+			}
+		}
 	}
 }
@@ -41,6 +41,8 @@ import org.springframework.vault.authentication.MacAddressUserId;
 import org.springframework.vault.authentication.StaticUserId;
 import org.springframework.vault.authentication.TokenAuthentication;
 import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.support.ClientOptions;
+import org.springframework.vault.support.ClientOptions.ClientOptionsBuilder;
 import org.springframework.vault.support.SslConfiguration;
 import org.springframework.vault.support.VaultToken;
 import org.springframework.web.client.RestOperations;
@@ -88,6 +90,22 @@ import org.springframework.web.client.RestOperations;
  * <li>Truststore password: {@code vault.ssl.trust-store-password} (optional)</li>
  * </ul>
  * </li>
+ * <li>Connection pool configuration (applies to pooling HTTP clients, durations in
+ * milliseconds)
+ * <ul>
+ * <li>Max total connections: {@code vault.connection-pool.max-total} (optional)</li>
+ * <li>Max connections per route: {@code vault.connection-pool.max-per-route}
+ * (optional)</li>
+ * <li>Max idle connections: {@code vault.connection-pool.max-idle} (optional)</li>
+ * <li>Connection time to live: {@code vault.connection-pool.time-to-live} (optional)</li>
+ * <li>Idle connection timeout: {@code vault.connection-pool.idle-timeout} (optional)</li>
+ * <li>Validate after inactivity: {@code vault.connection-pool.validate-after-inactivity}
+ * (optional)</li>
+ * <li>Max concurrent requests: {@code vault.connection-pool.max-requests} (optional)</li>
+ * <li>Max concurrent requests per host:
+ * {@code vault.connection-pool.max-requests-per-host} (optional)</li>
+ * </ul>
+ * </li>
  * <li>Authentication method: {@code vault.authentication} (defaults to {@literal TOKEN},
  * supported authentication methods are:
  * {@literal TOKEN, APPID, APPROLE, AWS_EC2, CERT, CUBBYHOLE})</li>
@@ -181,6 +199,41 @@ public class EnvironmentVaultConfiguration extends AbstractVaultConfiguration
 				trustStorePassword);
 	}
 
+	@Override
+	public ClientOptions clientOptions() {
+
+		ClientOptions defaults = super.clientOptions();
+		ClientOptionsBuilder builder = ClientOptions.builder() //
+				.connectionTimeout(defaults.getConnectionTimeout()) //
+				.readTimeout(defaults.getReadTimeout());
+
+		builder.maxTotalConnections(getInteger("vault.connection-pool.max-total",
+				defaults.getMaxTotalConnections()));
+
+		if (getEnvironment().containsProperty("vault.connection-pool.max-per-route")) {
+			builder.maxConnectionsPerRoute(getInteger(
+					"vault.connection-pool.max-per-route",
+					defaults.getMaxConnectionsPerRoute()));
+		}
+
+		builder.maxIdleConnections(getInteger("vault.connection-pool.max-idle",
+				defaults.getMaxIdleConnections()));
+		builder.connectionTimeToLive(getInteger("vault.connection-pool.time-to-live",
+				defaults.getConnectionTimeToLive()));
+		builder.idleConnectionTimeout(getInteger("vault.connection-pool.idle-timeout",
+				defaults.getIdleConnectionTimeout()));
+		builder.validateAfterInactivity(getInteger(
+				"vault.connection-pool.validate-after-inactivity",
+				defaults.getValidateAfterInactivity()));
+		builder.maxRequests(getInteger("vault.connection-pool.max-requests",
+				defaults.getMaxRequests()));
+		builder.maxRequestsPerHost(getInteger(
+				"vault.connection-pool.max-requests-per-host",
+				defaults.getMaxRequestsPerHost()));
+
+		return builder.build();
+	}
+
 	@Override
 	public ClientAuthentication clientAuthentication() {
 
@@ -310,6 +363,10 @@ public class EnvironmentVaultConfiguration extends AbstractVaultConfiguration
 		return getEnvironment().getProperty(key);
 	}
 
+	private int getInteger(String key, int defaultValue) {
+		return getEnvironment().getProperty(key, Integer.class, defaultValue);
+	}
+
 	private Resource getResource(String key) {
 
 		String value = getProperty(key);
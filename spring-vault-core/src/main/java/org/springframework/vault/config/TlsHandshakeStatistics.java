@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.config;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Statistics about completed TLS handshakes. Handshakes are tracked for sockets created
+ * through a {@link SSLSocketFactory} obtained from {@link #track(SSLSocketFactory)}. The
+ * handshake duration is measured from socket creation until the handshake completes.
+ *
+ * @author Mark Paluch
+ * @see TransportStatistics
+ */
+class TlsHandshakeStatistics {
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Wrap {@code delegate} to track handshakes of its sockets.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 * @return the tracking {@link SSLSocketFactory}.
+	 */
+	SSLSocketFactory track(SSLSocketFactory delegate) {
+		return new TrackingSSLSocketFactory(delegate);
+	}
+
+	void record(long nanos) {
+
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+
+		long current;
+		while (nanos > (current = maxNanos.get())) {
+			if (maxNanos.compareAndSet(current, nanos)) {
+				break;
+			}
+		}
+	}
+
+	long getCount() {
+		return count.get();
+	}
+
+	long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	private class TrackingSSLSocketFactory extends SSLSocketFactory {
+
+		private final SSLSocketFactory delegate;
+
+		TrackingSSLSocketFactory(SSLSocketFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public String[] getDefaultCipherSuites() {
+			return delegate.getDefaultCipherSuites();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return delegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public Socket createSocket() throws IOException {
+			return track(delegate.createSocket());
+		}
+
+		@Override
+		public Socket createSocket(Socket socket, String host, int port, boolean autoClose)
+				throws IOException {
+			return track(delegate.createSocket(socket, host, port, autoClose));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port) throws IOException {
+			return track(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(String host, int port, InetAddress localHost,
+				int localPort) throws IOException {
+			return track(delegate.createSocket(host, port, localHost, localPort));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress host, int port) throws IOException {
+			return track(delegate.createSocket(host, port));
+		}
+
+		@Override
+		public Socket createSocket(InetAddress address, int port,
+				InetAddress localAddress, int localPort) throws IOException {
+			return track(delegate.createSocket(address, port, localAddress, localPort));
+		}
+
+		private Socket track(Socket socket) {
+
+			if (socket instanceof SSLSocket) {
+
+				final long start = System.nanoTime();
+
+				((SSLSocket) socket)
+						.addHandshakeCompletedListener(new HandshakeCompletedListener() {
+
+							@Override
+							public void handshakeCompleted(HandshakeCompletedEvent event) {
+								record(System.nanoTime() - start);
+							}
+						});
+			}
+
+			return socket;
+		}
+	}
+}
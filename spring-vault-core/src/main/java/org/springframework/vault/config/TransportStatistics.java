@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Transport statistics of a {@link org.springframework.http.client.ClientHttpRequestFactory}
+ * created by {@link ClientHttpRequestFactoryFactory}. Exposes connection pool usage of
+ * Apache Http Components, connection pool and dispatcher queue sizes of OkHttp 3,
+ * pending event loop tasks of Netty and TLS handshake counts and durations of Apache Http
+ * Components and OkHttp 3. Statistics that do not apply to the underlying client are
+ * reported as {@literal -1}.
+ * <p>
+ * This class is annotated with {@link ManagedResource} so instances registered as beans
+ * are exported as MBeans when MBean export is enabled, for example using
+ * {@link org.springframework.context.annotation.EnableMBeanExport}.
+ *
+ * @author Mark Paluch
+ * @see ClientHttpRequestFactoryFactory#getTransportStatistics(org.springframework.http.client.ClientHttpRequestFactory)
+ */
+@ManagedResource(description = "Vault client transport statistics")
+public class TransportStatistics {
+
+	static final int UNAVAILABLE = -1;
+
+	private final String client;
+
+	private final TlsHandshakeStatistics tlsHandshakes;
+
+	/**
+	 * Create new {@link TransportStatistics}.
+	 *
+	 * @param client name of the HTTP client.
+	 * @param tlsHandshakes TLS handshake statistics, may be {@literal null} if handshakes
+	 * are not tracked.
+	 */
+	TransportStatistics(String client, TlsHandshakeStatistics tlsHandshakes) {
+
+		this.client = client;
+		this.tlsHandshakes = tlsHandshakes;
+	}
+
+	/**
+	 * @return name of the HTTP client.
+	 */
+	@ManagedAttribute(description = "HTTP client")
+	public String getClient() {
+		return client;
+	}
+
+	/**
+	 * @return number of connections in use.
+	 */
+	@ManagedAttribute(description = "Connections in use")
+	public int getLeasedConnections() {
+		return leasedConnections();
+	}
+
+	/**
+	 * @return number of idle connections available for reuse.
+	 */
+	@ManagedAttribute(description = "Idle connections available for reuse")
+	public int getAvailableConnections() {
+		return availableConnections();
+	}
+
+	/**
+	 * @return number of requests waiting for a connection.
+	 */
+	@ManagedAttribute(description = "Requests waiting for a connection")
+	public int getPendingConnections() {
+		return pendingConnections();
+	}
+
+	/**
+	 * @return maximal number of connections.
+	 */
+	@ManagedAttribute(description = "Maximal number of connections")
+	public int getMaxConnections() {
+		return maxConnections();
+	}
+
+	/**
+	 * @return number of requests queued by the dispatcher.
+	 */
+	@ManagedAttribute(description = "Requests queued by the dispatcher")
+	public int getQueuedRequests() {
+		return queuedRequests();
+	}
+
+	/**
+	 * @return number of requests executed by the dispatcher.
+	 */
+	@ManagedAttribute(description = "Requests executed by the dispatcher")
+	public int getRunningRequests() {
+		return runningRequests();
+	}
+
+	/**
+	 * @return number of tasks pending in event loops.
+	 */
+	@ManagedAttribute(description = "Tasks pending in event loops")
+	public int getPendingTasks() {
+		return pendingTasks();
+	}
+
+	/**
+	 * @return number of completed TLS handshakes.
+	 */
+	@ManagedAttribute(description = "Completed TLS handshakes")
+	public long getTlsHandshakeCount() {
+		return tlsHandshakes != null ? tlsHandshakes.getCount() : UNAVAILABLE;
+	}
+
+	/**
+	 * @return mean TLS handshake duration in milliseconds.
+	 */
+	@ManagedAttribute(description = "Mean TLS handshake duration in milliseconds")
+	public double getTlsHandshakeTimeMean() {
+
+		if (tlsHandshakes == null) {
+			return UNAVAILABLE;
+		}
+
+		long count = tlsHandshakes.getCount();
+
+		return count == 0 ? 0 : toMillis(tlsHandshakes.getTotalNanos()) / count;
+	}
+
+	/**
+	 * @return maximal TLS handshake duration in milliseconds.
+	 */
+	@ManagedAttribute(description = "Maximal TLS handshake duration in milliseconds")
+	public double getTlsHandshakeTimeMax() {
+		return tlsHandshakes != null ? toMillis(tlsHandshakes.getMaxNanos())
+				: UNAVAILABLE;
+	}
+
+	// -------------------------------------------------------------------------
+	// Client-specific statistics
+	// -------------------------------------------------------------------------
+
+	int leasedConnections() {
+		return UNAVAILABLE;
+	}
+
+	int availableConnections() {
+		return UNAVAILABLE;
+	}
+
+	int pendingConnections() {
+		return UNAVAILABLE;
+	}
+
+	int maxConnections() {
+		return UNAVAILABLE;
+	}
+
+	int queuedRequests() {
+		return UNAVAILABLE;
+	}
+
+	int runningRequests() {
+		return UNAVAILABLE;
+	}
+
+	int pendingTasks() {
+		return UNAVAILABLE;
+	}
+
+	private static double toMillis(long nanos) {
+		return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"TransportStatistics [client=%s, leased=%d, available=%d, pending=%d, max=%d]",
+				client, getLeasedConnections(), getAvailableConnections(),
+				getPendingConnections(), getMaxConnections());
+	}
+}
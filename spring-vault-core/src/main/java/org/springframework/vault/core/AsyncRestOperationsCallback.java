@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.web.client.AsyncRestOperations;
+
+/**
+ * A callback for executing arbitrary operations on {@link AsyncRestOperations}.
+ *
+ * @author Mark Paluch
+ * @see AsyncVaultOperations
+ */
+public interface AsyncRestOperationsCallback<T> {
+
+	/**
+	 * Callback method.
+	 *
+	 * @param restOperations restOperations to use, must not be {@literal null}.
+	 * @return a {@link ListenableFuture} completing with the result object or
+	 * {@literal null} if none.
+	 */
+	ListenableFuture<T> doWithRestOperations(AsyncRestOperations restOperations);
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.List;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+
+/**
+ * Interface that specifies a basic set of asynchronous Vault operations, implemented by
+ * {@link AsyncVaultTemplate}. Methods return a {@link ListenableFuture} and do not block
+ * the calling thread while awaiting the Vault response.
+ * <p>
+ * {@link AsyncVaultOperations} allows execution of callback methods. Callbacks can
+ * execute requests within a
+ * {@link AsyncVaultOperations#doWithSession(AsyncRestOperationsCallback) session context}
+ * and the {@link AsyncVaultOperations#doWithVault(AsyncRestOperationsCallback) without a
+ * session}.
+ * <p>
+ * Futures complete exceptionally with
+ * {@link org.springframework.vault.VaultException} if Vault responds with an error
+ * status.
+ *
+ * @author Mark Paluch
+ * @see AsyncVaultOperations#doWithSession(AsyncRestOperationsCallback)
+ * @see AsyncVaultOperations#doWithVault(AsyncRestOperationsCallback)
+ * @see org.springframework.web.client.AsyncRestOperations
+ * @see AsyncVaultTemplate
+ * @see VaultOperations
+ */
+public interface AsyncVaultOperations {
+
+	/**
+	 * @return the operations interface administrative Vault access.
+	 */
+	AsyncVaultSysOperations opsForSys();
+
+	/**
+	 * @return the operations interface to interact with Vault token.
+	 */
+	AsyncVaultTokenOperations opsForToken();
+
+	/**
+	 * @return the operations interface to interact with the Vault transit backend.
+	 */
+	AsyncVaultTransitOperations opsForTransit();
+
+	/**
+	 * Returns {@link AsyncVaultTransitOperations} if the transit backend is mounted on a
+	 * different path than {@code transit}.
+	 *
+	 * @param path the mount path
+	 * @return the operations interface to interact with the Vault transit backend.
+	 */
+	AsyncVaultTransitOperations opsForTransit(String path);
+
+	/**
+	 * @return the operations interface to interact with the Vault PKI backend.
+	 */
+	AsyncVaultPkiOperations opsForPki();
+
+	/**
+	 * Returns {@link AsyncVaultPkiOperations} if the PKI backend is mounted on a
+	 * different path than {@code pki}.
+	 *
+	 * @param path the mount path
+	 * @return the operations interface to interact with the Vault PKI backend.
+	 */
+	AsyncVaultPkiOperations opsForPki(String path);
+
+	/**
+	 * Read from a secret backend. Reading data using this method is suitable for secret
+	 * backends that do not require a request body.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @return a future completing with the data. Completes with {@literal null} if the
+	 * path does not exist.
+	 */
+	ListenableFuture<VaultResponse> read(String path);
+
+	/**
+	 * Read from a secret backend. Reading data using this method is suitable for secret
+	 * backends that do not require a request body.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @param responseType must not be {@literal null}.
+	 * @return a future completing with the data. Completes with {@literal null} if the
+	 * path does not exist.
+	 */
+	<T> ListenableFuture<VaultResponseSupport<T>> read(String path, Class<T> responseType);
+
+	/**
+	 * Enumerate keys from a secret backend.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @return a future completing with the keys. Completes with an empty list if the
+	 * path does not exist.
+	 */
+	ListenableFuture<List<String>> list(String path);
+
+	/**
+	 * Write to a secret backend.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @param body the body, may be {@literal null} if absent.
+	 * @return a future completing with the configuration data.
+	 */
+	ListenableFuture<VaultResponse> write(String path, Object body);
+
+	/**
+	 * Delete a path in the secret backend.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @return a future completing on deletion.
+	 */
+	ListenableFuture<Void> delete(String path);
+
+	/**
+	 * Executes a Vault {@link AsyncRestOperationsCallback}. Allows to interact with Vault
+	 * using {@link org.springframework.web.client.AsyncRestOperations} without requiring
+	 * a session. {@link org.springframework.web.client.HttpStatusCodeException}s are
+	 * translated to {@link org.springframework.vault.VaultException}.
+	 *
+	 * @param clientCallback the request.
+	 * @return the {@link AsyncRestOperationsCallback} return value.
+	 */
+	<T> ListenableFuture<T> doWithVault(AsyncRestOperationsCallback<T> clientCallback);
+
+	/**
+	 * Executes a Vault {@link AsyncRestOperationsCallback}. Allows to interact with Vault
+	 * in an authenticated session. {@link org.springframework.web.client.HttpStatusCodeException}s
+	 * are translated to {@link org.springframework.vault.VaultException}.
+	 *
+	 * @param sessionCallback the request.
+	 * @return the {@link AsyncRestOperationsCallback} return value.
+	 */
+	<T> ListenableFuture<T> doWithSession(AsyncRestOperationsCallback<T> sessionCallback);
+}
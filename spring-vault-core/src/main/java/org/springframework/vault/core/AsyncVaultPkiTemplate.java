@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Map;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.support.VaultCertificateRequest;
+import org.springframework.vault.support.VaultCertificateResponse;
+import org.springframework.web.client.AsyncRestOperations;
+
+/**
+ * Default implementation of {@link AsyncVaultPkiOperations}.
+ *
+ * @author Mark Paluch
+ */
+public class AsyncVaultPkiTemplate implements AsyncVaultPkiOperations {
+
+	private final AsyncVaultOperations vaultOperations;
+
+	private final String path;
+
+	/**
+	 * Create a new {@link AsyncVaultPkiTemplate} given {@link AsyncVaultOperations} and
+	 * the mount {@code path}.
+	 *
+	 * @param vaultOperations must not be {@literal null}.
+	 * @param path must not be empty or {@literal null}.
+	 */
+	public AsyncVaultPkiTemplate(AsyncVaultOperations vaultOperations, String path) {
+
+		Assert.notNull(vaultOperations, "AsyncVaultOperations must not be null");
+		Assert.hasText(path, "Path must not be empty");
+
+		this.vaultOperations = vaultOperations;
+		this.path = path;
+	}
+
+	@Override
+	public ListenableFuture<VaultCertificateResponse> issueCertificate(
+			final String roleName, VaultCertificateRequest certificateRequest) {
+
+		Assert.hasText(roleName, "Role name must not be empty");
+		Assert.notNull(certificateRequest, "Certificate request must not be null");
+
+		final Map<String, Object> request = VaultPkiTemplate
+				.createIssueRequest(certificateRequest);
+
+		return vaultOperations
+				.doWithSession(new AsyncRestOperationsCallback<VaultCertificateResponse>() {
+
+					@Override
+					public ListenableFuture<VaultCertificateResponse> doWithRestOperations(
+							AsyncRestOperations restOperations) {
+
+						return VaultFutures.map(restOperations.postForEntity(
+								"{path}/issue/{roleName}",
+								new HttpEntity<Object>(request),
+								VaultCertificateResponse.class, path, roleName),
+								AsyncVaultTemplate.<VaultCertificateResponse> body(),
+								null, false);
+					}
+				});
+	}
+}
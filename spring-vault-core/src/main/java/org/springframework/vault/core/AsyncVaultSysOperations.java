@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Map;
+
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.support.VaultHealth;
+import org.springframework.vault.support.VaultMount;
+import org.springframework.vault.support.VaultUnsealStatus;
+
+/**
+ * Interface that specifies asynchronous administrative Vault operations.
+ *
+ * @author Mark Paluch
+ * @see VaultSysOperations
+ */
+public interface AsyncVaultSysOperations {
+
+	/**
+	 * @return a future completing with {@literal true} if Vault is initialized.
+	 * @see <a href="https://www.vaultproject.io/docs/http/sys-init.html">GET
+	 * /sys/init</a>
+	 */
+	ListenableFuture<Boolean> isInitialized();
+
+	/**
+	 * @return a future completing with the {@link VaultUnsealStatus}.
+	 * @see <a href="https://www.vaultproject.io/docs/http/sys-seal-status.html">GET
+	 * /sys/seal-status</a>
+	 */
+	ListenableFuture<VaultUnsealStatus> getUnsealStatus();
+
+	/**
+	 * @return a future completing with the mounted secret backends.
+	 * @see <a href="https://www.vaultproject.io/docs/http/sys-mounts.html">GET
+	 * /sys/mounts</a>
+	 */
+	ListenableFuture<Map<String, VaultMount>> getMounts();
+
+	/**
+	 * @return a future completing with the mounted auth backends.
+	 * @see <a href="https://www.vaultproject.io/docs/http/sys-auth.html">GET
+	 * /sys/auth</a>
+	 */
+	ListenableFuture<Map<String, VaultMount>> getAuthMounts();
+
+	/**
+	 * Returns the health status of Vault.
+	 *
+	 * @return a future completing with the {@link VaultHealth}.
+	 * @see <a href="https://www.vaultproject.io/docs/http/sys-health.html">GET
+	 * /sys/health</a>
+	 */
+	ListenableFuture<VaultHealth> health();
+}
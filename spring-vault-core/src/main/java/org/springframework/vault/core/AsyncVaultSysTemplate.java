@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.vault.core.VaultSysTemplate.GetMounts;
+import org.springframework.vault.core.VaultSysTemplate.GetMounts.VaultMountsResponse;
+import org.springframework.vault.core.VaultSysTemplate.VaultHealthImpl;
+import org.springframework.vault.core.VaultSysTemplate.VaultUnsealStatusImpl;
+import org.springframework.vault.support.VaultHealth;
+import org.springframework.vault.support.VaultMount;
+import org.springframework.vault.support.VaultUnsealStatus;
+import org.springframework.web.client.AsyncRestOperations;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * Default implementation of {@link AsyncVaultSysOperations}.
+ *
+ * @author Mark Paluch
+ */
+public class AsyncVaultSysTemplate implements AsyncVaultSysOperations {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final AsyncVaultOperations vaultOperations;
+
+	/**
+	 * Creates a new {@link AsyncVaultSysTemplate} with the given
+	 * {@link AsyncVaultOperations}.
+	 *
+	 * @param vaultOperations must not be {@literal null}.
+	 */
+	public AsyncVaultSysTemplate(AsyncVaultOperations vaultOperations) {
+
+		Assert.notNull(vaultOperations, "AsyncVaultOperations must not be null");
+
+		this.vaultOperations = vaultOperations;
+	}
+
+	@Override
+	public ListenableFuture<Boolean> isInitialized() {
+
+		return vaultOperations.doWithVault(new AsyncRestOperationsCallback<Boolean>() {
+
+			@Override
+			public ListenableFuture<Boolean> doWithRestOperations(
+					AsyncRestOperations restOperations) {
+
+				return VaultFutures.map(
+						restOperations.getForEntity("/sys/init", Map.class),
+						new Converter<ResponseEntity<Map>, Boolean>() {
+
+							@Override
+							public Boolean convert(ResponseEntity<Map> source) {
+								return (Boolean) source.getBody().get("initialized");
+							}
+						}, null, false);
+			}
+		});
+	}
+
+	@Override
+	public ListenableFuture<VaultUnsealStatus> getUnsealStatus() {
+
+		return vaultOperations
+				.doWithVault(new AsyncRestOperationsCallback<VaultUnsealStatus>() {
+
+					@Override
+					public ListenableFuture<VaultUnsealStatus> doWithRestOperations(
+							AsyncRestOperations restOperations) {
+
+						return VaultFutures.map(restOperations.getForEntity(
+								"/sys/seal-status", VaultUnsealStatusImpl.class),
+								new Converter<ResponseEntity<VaultUnsealStatusImpl>, VaultUnsealStatus>() {
+
+									@Override
+									public VaultUnsealStatus convert(
+											ResponseEntity<VaultUnsealStatusImpl> source) {
+										return source.getBody();
+									}
+								}, null, false);
+					}
+				});
+	}
+
+	@Override
+	public ListenableFuture<Map<String, VaultMount>> getMounts() {
+		return vaultOperations.doWithSession(new AsyncGetMounts("/sys/mounts"));
+	}
+
+	@Override
+	public ListenableFuture<Map<String, VaultMount>> getAuthMounts() {
+		return vaultOperations.doWithSession(new AsyncGetMounts("/sys/auth"));
+	}
+
+	@Override
+	public ListenableFuture<VaultHealth> health() {
+
+		return vaultOperations
+				.doWithVault(new AsyncRestOperationsCallback<VaultHealth>() {
+
+					@Override
+					public ListenableFuture<VaultHealth> doWithRestOperations(
+							AsyncRestOperations restOperations) {
+
+						final SettableListenableFuture<VaultHealth> result = new SettableListenableFuture<VaultHealth>();
+
+						restOperations.exchange("/sys/health", HttpMethod.GET, null,
+								VaultHealthImpl.class).addCallback(
+								new ListenableFutureCallback<ResponseEntity<VaultHealthImpl>>() {
+
+									@Override
+									public void onSuccess(
+											ResponseEntity<VaultHealthImpl> response) {
+										result.set(response.getBody());
+									}
+
+									@Override
+									public void onFailure(Throwable ex) {
+
+										if (ex instanceof HttpStatusCodeException) {
+
+											// sealed, standby and uninitialized states
+											// report health using an error status
+											try {
+												result.set(OBJECT_MAPPER.readValue(
+														((HttpStatusCodeException) ex)
+																.getResponseBodyAsString(),
+														VaultHealthImpl.class));
+												return;
+											}
+											catch (Exception jsonError) {
+												// fall-through
+											}
+										}
+
+										result.setException(ex);
+									}
+								});
+
+						return result;
+					}
+				});
+	}
+
+	private static class AsyncGetMounts implements
+			AsyncRestOperationsCallback<Map<String, VaultMount>> {
+
+		private final String path;
+
+		AsyncGetMounts(String path) {
+			this.path = path;
+		}
+
+		@Override
+		public ListenableFuture<Map<String, VaultMount>> doWithRestOperations(
+				AsyncRestOperations restOperations) {
+
+			return VaultFutures.map(restOperations.exchange(path, HttpMethod.GET, null,
+					GetMounts.MOUNT_TYPE_REF, Collections.<String, Object> emptyMap()),
+					new Converter<ResponseEntity<VaultMountsResponse>, Map<String, VaultMount>>() {
+
+						@Override
+						public Map<String, VaultMount> convert(
+								ResponseEntity<VaultMountsResponse> source) {
+							return GetMounts.getMounts(source.getBody());
+						}
+					}, path, false);
+		}
+	}
+}
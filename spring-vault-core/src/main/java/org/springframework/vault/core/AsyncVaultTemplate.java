@@ -0,0 +1,283 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.AsyncClientHttpRequestExecution;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.AsyncClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.authentication.SessionManager;
+import org.springframework.vault.client.VaultClients;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.client.VaultResponses;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.web.client.AsyncRestOperations;
+import org.springframework.web.client.AsyncRestTemplate;
+
+/**
+ * This class encapsulates asynchronous Vault interaction. {@link AsyncVaultTemplate} uses
+ * a non-blocking {@link AsyncClientHttpRequestFactory} such as
+ * {@link org.springframework.http.client.Netty4ClientHttpRequestFactory} so callers are
+ * not blocked while awaiting Vault responses. Requests within a session context obtain
+ * the token from {@link SessionManager}.
+ * <p>
+ * The {@link org.springframework.vault.client.Deadline#current() caller's deadline}
+ * applies to obtaining the session token and is checked before a request is sent.
+ * Responses arrive on the threads of the {@link AsyncClientHttpRequestFactory} and are
+ * not limited by the deadline; use the read timeout of the request factory to limit them.
+ *
+ * @author Mark Paluch
+ * @see SessionManager
+ * @see AsyncRestTemplate
+ * @see org.springframework.vault.config.ClientHttpRequestFactoryFactory#createAsync
+ */
+public class AsyncVaultTemplate implements AsyncVaultOperations {
+
+	private final SessionManager sessionManager;
+
+	private final AsyncRestTemplate sessionTemplate;
+
+	private final AsyncRestTemplate plainTemplate;
+
+	/**
+	 * Creates a new {@link AsyncVaultTemplate} with a {@link VaultEndpoint},
+	 * {@link AsyncClientHttpRequestFactory} and {@link SessionManager}.
+	 *
+	 * @param vaultEndpoint must not be {@literal null}.
+	 * @param asyncRequestFactory must not be {@literal null}.
+	 * @param sessionManager must not be {@literal null}.
+	 */
+	public AsyncVaultTemplate(VaultEndpoint vaultEndpoint,
+			AsyncClientHttpRequestFactory asyncRequestFactory,
+			SessionManager sessionManager) {
+
+		Assert.notNull(vaultEndpoint, "VaultEndpoint must not be null");
+		Assert.notNull(asyncRequestFactory,
+				"AsyncClientHttpRequestFactory must not be null");
+		Assert.notNull(sessionManager, "SessionManager must not be null");
+
+		this.sessionManager = sessionManager;
+
+		this.sessionTemplate = createSessionTemplate(vaultEndpoint, asyncRequestFactory);
+		this.plainTemplate = VaultClients.createAsyncRestTemplate(vaultEndpoint,
+				asyncRequestFactory);
+	}
+
+	private AsyncRestTemplate createSessionTemplate(VaultEndpoint endpoint,
+			AsyncClientHttpRequestFactory requestFactory) {
+
+		AsyncRestTemplate restTemplate = VaultClients.createAsyncRestTemplate(endpoint,
+				requestFactory);
+
+		restTemplate.getInterceptors().add(new AsyncClientHttpRequestInterceptor() {
+
+			@Override
+			public ListenableFuture<ClientHttpResponse> intercept(HttpRequest request,
+					byte[] body, AsyncClientHttpRequestExecution execution)
+					throws IOException {
+
+				request.getHeaders().add(VaultHttpHeaders.VAULT_TOKEN,
+						sessionManager.getSessionToken().getToken());
+				return execution.executeAsync(request, body);
+			}
+		});
+
+		return restTemplate;
+	}
+
+	@Override
+	public AsyncVaultSysOperations opsForSys() {
+		return new AsyncVaultSysTemplate(this);
+	}
+
+	@Override
+	public AsyncVaultTokenOperations opsForToken() {
+		return new AsyncVaultTokenTemplate(this);
+	}
+
+	@Override
+	public AsyncVaultTransitOperations opsForTransit() {
+		return opsForTransit("transit");
+	}
+
+	@Override
+	public AsyncVaultTransitOperations opsForTransit(String path) {
+		return new AsyncVaultTransitTemplate(this, path);
+	}
+
+	@Override
+	public AsyncVaultPkiOperations opsForPki() {
+		return opsForPki("pki");
+	}
+
+	@Override
+	public AsyncVaultPkiOperations opsForPki(String path) {
+		return new AsyncVaultPkiTemplate(this, path);
+	}
+
+	@Override
+	public ListenableFuture<VaultResponse> read(String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return doRead(path, VaultResponse.class);
+	}
+
+	@Override
+	public <T> ListenableFuture<VaultResponseSupport<T>> read(final String path,
+			Class<T> responseType) {
+
+		Assert.hasText(path, "Path must not be empty");
+		Assert.notNull(responseType, "Response type must not be null");
+
+		ParameterizedTypeReference<VaultResponseSupport<T>> ref = VaultResponses
+				.getTypeReference(responseType);
+
+		ListenableFuture<ResponseEntity<VaultResponseSupport<T>>> exchange = sessionTemplate
+				.exchange(path, HttpMethod.GET, null, ref);
+
+		return VaultFutures.map(exchange,
+				AsyncVaultTemplate.<VaultResponseSupport<T>> body(), path, true);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public ListenableFuture<List<String>> list(String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		String listPath = String.format("%s?list=true", path.endsWith("/") ? path
+				: (path + "/"));
+
+		ListenableFuture<ResponseEntity<VaultListResponse>> exchange = sessionTemplate
+				.exchange(listPath, HttpMethod.GET, null, VaultListResponse.class);
+
+		return VaultFutures.map(exchange,
+				new Converter<ResponseEntity<VaultListResponse>, List<String>>() {
+
+					@Override
+					public List<String> convert(ResponseEntity<VaultListResponse> source) {
+
+						if (source == null || source.getBody() == null) {
+							return Collections.emptyList();
+						}
+
+						return (List) source.getBody().getData().get("keys");
+					}
+				}, listPath, true);
+	}
+
+	@Override
+	public ListenableFuture<VaultResponse> write(String path, Object body) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		ListenableFuture<ResponseEntity<VaultResponse>> exchange = sessionTemplate
+				.exchange(path, HttpMethod.POST, new HttpEntity<Object>(body),
+						VaultResponse.class);
+
+		return VaultFutures.map(exchange, AsyncVaultTemplate.<VaultResponse> body(),
+				path, false);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public ListenableFuture<Void> delete(String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		ListenableFuture<Object> delete = (ListenableFuture<Object>) sessionTemplate
+				.delete(path);
+
+		return VaultFutures.map(delete, new Converter<Object, Void>() {
+
+			@Override
+			public Void convert(Object source) {
+				return null;
+			}
+		}, path, true);
+	}
+
+	@Override
+	public <T> ListenableFuture<T> doWithVault(
+			AsyncRestOperationsCallback<T> clientCallback) {
+
+		Assert.notNull(clientCallback, "Client callback must not be null");
+
+		return VaultFutures.translate(clientCallback.doWithRestOperations(plainTemplate));
+	}
+
+	@Override
+	public <T> ListenableFuture<T> doWithSession(
+			AsyncRestOperationsCallback<T> sessionCallback) {
+
+		Assert.notNull(sessionCallback, "Session callback must not be null");
+
+		return VaultFutures.translate(sessionCallback
+				.doWithRestOperations(sessionTemplate));
+	}
+
+	private <T> ListenableFuture<T> doRead(final String path, final Class<T> responseType) {
+
+		return doWithSession(new AsyncRestOperationsCallback<T>() {
+
+			@Override
+			public ListenableFuture<T> doWithRestOperations(
+					AsyncRestOperations restOperations) {
+
+				ListenableFuture<ResponseEntity<T>> exchange = restOperations.exchange(
+						path, HttpMethod.GET, null, responseType);
+
+				return VaultFutures.map(exchange, AsyncVaultTemplate.<T> body(), path,
+						true);
+			}
+		});
+	}
+
+	/**
+	 * @return a {@link Converter} extracting the {@link ResponseEntity#getBody() body}
+	 * of a {@link ResponseEntity}.
+	 */
+	static <T> Converter<ResponseEntity<T>, T> body() {
+
+		return new Converter<ResponseEntity<T>, T>() {
+
+			@Override
+			public T convert(ResponseEntity<T> source) {
+				return source != null ? source.getBody() : null;
+			}
+		};
+	}
+
+	private static class VaultListResponse extends
+			VaultResponseSupport<Map<String, Object>> {
+	}
+}
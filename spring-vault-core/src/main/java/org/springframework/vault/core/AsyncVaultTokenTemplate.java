@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.HttpEntity;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.support.VaultToken;
+import org.springframework.vault.support.VaultTokenRequest;
+import org.springframework.vault.support.VaultTokenResponse;
+import org.springframework.web.client.AsyncRestOperations;
+
+/**
+ * Default implementation of {@link AsyncVaultTokenOperations}.
+ *
+ * @author Mark Paluch
+ */
+public class AsyncVaultTokenTemplate implements AsyncVaultTokenOperations {
+
+	private final AsyncVaultOperations vaultOperations;
+
+	/**
+	 * Creates a new {@link AsyncVaultTokenTemplate} with the given
+	 * {@link AsyncVaultOperations}.
+	 *
+	 * @param vaultOperations must not be {@literal null}.
+	 */
+	public AsyncVaultTokenTemplate(AsyncVaultOperations vaultOperations) {
+
+		Assert.notNull(vaultOperations, "AsyncVaultOperations must not be null");
+
+		this.vaultOperations = vaultOperations;
+	}
+
+	@Override
+	public ListenableFuture<VaultTokenResponse> create() {
+		return create(VaultTokenRequest.builder().build());
+	}
+
+	@Override
+	public ListenableFuture<VaultTokenResponse> create(VaultTokenRequest request) {
+
+		Assert.notNull(request, "VaultTokenRequest must not be null");
+
+		return write("/auth/token/create", request);
+	}
+
+	@Override
+	public ListenableFuture<VaultTokenResponse> createOrphan(VaultTokenRequest request) {
+
+		Assert.notNull(request, "VaultTokenRequest must not be null");
+
+		return write("/auth/token/create-orphan", request);
+	}
+
+	@Override
+	public ListenableFuture<VaultTokenResponse> renew(VaultToken vaultToken) {
+
+		Assert.notNull(vaultToken, "VaultToken must not be null");
+
+		return write(String.format("/auth/token/renew/%s", vaultToken.getToken()), null);
+	}
+
+	@Override
+	public ListenableFuture<Void> revoke(VaultToken vaultToken) {
+
+		Assert.notNull(vaultToken, "VaultToken must not be null");
+
+		return VaultFutures.map(
+				write(String.format("/auth/token/revoke/%s", vaultToken.getToken()), null),
+				new Converter<VaultTokenResponse, Void>() {
+
+					@Override
+					public Void convert(VaultTokenResponse source) {
+						return null;
+					}
+				}, null, false);
+	}
+
+	private ListenableFuture<VaultTokenResponse> write(final String path,
+			final Object body) {
+
+		return vaultOperations
+				.doWithSession(new AsyncRestOperationsCallback<VaultTokenResponse>() {
+
+					@Override
+					public ListenableFuture<VaultTokenResponse> doWithRestOperations(
+							AsyncRestOperations restOperations) {
+
+						return VaultFutures.map(restOperations.postForEntity(path,
+								new HttpEntity<Object>(body), VaultTokenResponse.class),
+								AsyncVaultTemplate.<VaultTokenResponse> body(), path,
+								false);
+					}
+				});
+	}
+}
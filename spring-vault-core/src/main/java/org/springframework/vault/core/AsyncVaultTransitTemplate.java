@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.util.Assert;
+import org.springframework.util.Base64Utils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultTransitContext;
+
+/**
+ * Default implementation of {@link AsyncVaultTransitOperations}.
+ *
+ * @author Mark Paluch
+ */
+public class AsyncVaultTransitTemplate implements AsyncVaultTransitOperations {
+
+	private final AsyncVaultOperations vaultOperations;
+
+	private final String path;
+
+	/**
+	 * Create a new {@link AsyncVaultTransitTemplate} given {@link AsyncVaultOperations}
+	 * and the mount {@code path}.
+	 *
+	 * @param vaultOperations must not be {@literal null}.
+	 * @param path must not be empty or {@literal null}.
+	 */
+	public AsyncVaultTransitTemplate(AsyncVaultOperations vaultOperations, String path) {
+
+		Assert.notNull(vaultOperations, "AsyncVaultOperations must not be null");
+		Assert.hasText(path, "Path must not be empty");
+
+		this.vaultOperations = vaultOperations;
+		this.path = path;
+	}
+
+	@Override
+	public ListenableFuture<String> encrypt(String keyName, String plaintext) {
+
+		Assert.notNull(plaintext, "Plain text must not be null");
+
+		return encrypt(keyName, plaintext.getBytes(), null);
+	}
+
+	@Override
+	public ListenableFuture<String> encrypt(String keyName, byte[] plaintext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.notNull(plaintext, "Plain text must not be null");
+
+		Map<String, String> request = new LinkedHashMap<String, String>();
+
+		request.put("plaintext", Base64Utils.encodeToString(plaintext));
+
+		if (transitRequest != null) {
+			VaultTransitTemplate.applyTransitOptions(transitRequest, request);
+		}
+
+		return write(String.format("%s/encrypt/%s", path, keyName), request,
+				"ciphertext");
+	}
+
+	@Override
+	public ListenableFuture<String> decrypt(String keyName, String ciphertext) {
+
+		return VaultFutures.map(decrypt(keyName, ciphertext, null),
+				new Converter<byte[], String>() {
+
+					@Override
+					public String convert(byte[] source) {
+						return new String(source);
+					}
+				}, null, false);
+	}
+
+	@Override
+	public ListenableFuture<byte[]> decrypt(String keyName, String ciphertext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.hasText(ciphertext, "Cipher text must not be empty");
+
+		Map<String, String> request = new LinkedHashMap<String, String>();
+
+		request.put("ciphertext", ciphertext);
+
+		if (transitRequest != null) {
+			VaultTransitTemplate.applyTransitOptions(transitRequest, request);
+		}
+
+		return VaultFutures.map(
+				write(String.format("%s/decrypt/%s", path, keyName), request,
+						"plaintext"), new Converter<String, byte[]>() {
+
+					@Override
+					public byte[] convert(String source) {
+						return Base64Utils.decodeFromString(source);
+					}
+				}, null, false);
+	}
+
+	@Override
+	public ListenableFuture<String> rewrap(String keyName, String ciphertext) {
+		return rewrap(keyName, ciphertext, null);
+	}
+
+	@Override
+	public ListenableFuture<String> rewrap(String keyName, String ciphertext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.hasText(ciphertext, "Cipher text must not be empty");
+
+		Map<String, String> request = new LinkedHashMap<String, String>();
+
+		request.put("ciphertext", ciphertext);
+
+		if (transitRequest != null) {
+			VaultTransitTemplate.applyTransitOptions(transitRequest, request);
+		}
+
+		return write(String.format("%s/rewrap/%s", path, keyName), request,
+				"ciphertext");
+	}
+
+	private ListenableFuture<String> write(String path, Map<String, String> request,
+			final String key) {
+
+		return VaultFutures.map(vaultOperations.write(path, request),
+				new Converter<VaultResponse, String>() {
+
+					@Override
+					public String convert(VaultResponse source) {
+						return (String) source.getData().get(key);
+					}
+				}, null, false);
+	}
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.Ciphertext;
+import org.springframework.vault.support.Plaintext;
+import org.springframework.vault.support.VaultDataKey;
+import org.springframework.vault.support.VaultDecryptionResult;
+import org.springframework.vault.support.VaultEncryptionResult;
+import org.springframework.vault.support.VaultTransitContext;
+import org.springframework.vault.support.VaultTransitKey;
+import org.springframework.vault.support.VaultTransitKeyConfiguration;
+import org.springframework.vault.support.VaultTransitKeyCreationRequest;
+
+/**
+ * {@link VaultTransitOperations} decorator that combines concurrent single-value
+ * {@code encrypt}, {@code decrypt} and {@code rewrap} calls for the same key into a
+ * single {@code batch_input} request.
+ * <p>
+ * The first call for a key and operation opens a batch and waits up to
+ * {@link #getMaxDelay() max delay} for further calls to join. The batch is sent once it
+ * reaches {@link #getMaxBatchSize() max batch size} or the delay elapses, and each caller
+ * receives its own result. Batching is transparent to callers: failures of a single item
+ * are reported to the caller of that item only. A batch containing a single call is sent
+ * using the single-value API. All other operations are passed through to the delegate.
+ *
+ * @author Mark Paluch
+ * @see VaultTransitOperations#encrypt(String, List)
+ * @see VaultTransitOperations#decrypt(String, List)
+ */
+public class BatchingVaultTransitTemplate implements VaultTransitOperations {
+
+	/**
+	 * Default time in milliseconds to wait for concurrent calls to join a batch.
+	 */
+	public static final long DEFAULT_MAX_DELAY = 5;
+
+	private final VaultTransitOperations delegate;
+
+	private final int maxBatchSize;
+
+	private final long maxDelay;
+
+	private final Object lock = new Object();
+
+	private final Map<String, Batch> openBatches = new HashMap<String, Batch>();
+
+	/**
+	 * Create a new {@link BatchingVaultTransitTemplate} using
+	 * {@link VaultTransitTemplate#DEFAULT_BATCH_SIZE} and {@link #DEFAULT_MAX_DELAY}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 */
+	public BatchingVaultTransitTemplate(VaultTransitOperations delegate) {
+		this(delegate, VaultTransitTemplate.DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Create a new {@link BatchingVaultTransitTemplate}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 * @param maxBatchSize maximal number of calls within a batch, must be greater than
+	 * zero.
+	 * @param maxDelay maximal time to wait for calls to join a batch, must not be
+	 * negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public BatchingVaultTransitTemplate(VaultTransitOperations delegate,
+			int maxBatchSize, long maxDelay, TimeUnit unit) {
+
+		Assert.notNull(delegate, "VaultTransitOperations must not be null");
+		Assert.isTrue(maxBatchSize > 0, "Max batch size must be greater than zero");
+		Assert.isTrue(maxDelay >= 0, "Max delay must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.delegate = delegate;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelay = unit.toMillis(maxDelay);
+	}
+
+	/**
+	 * @return the maximal number of calls within a batch.
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * @return the maximal time in milliseconds to wait for calls to join a batch.
+	 */
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	@Override
+	public void createKey(String keyName) {
+		delegate.createKey(keyName);
+	}
+
+	@Override
+	public void createKey(String keyName, VaultTransitKeyCreationRequest createKeyRequest) {
+		delegate.createKey(keyName, createKeyRequest);
+	}
+
+	@Override
+	public List<String> getKeys() {
+		return delegate.getKeys();
+	}
+
+	@Override
+	public void configureKey(String keyName, VaultTransitKeyConfiguration keyConfiguration) {
+		delegate.configureKey(keyName, keyConfiguration);
+	}
+
+	@Override
+	public VaultTransitKey getKey(String keyName) {
+		return delegate.getKey(keyName);
+	}
+
+	@Override
+	public void deleteKey(String keyName) {
+		delegate.deleteKey(keyName);
+	}
+
+	@Override
+	public void rotate(String keyName) {
+		delegate.rotate(keyName);
+	}
+
+	@Override
+	public String encrypt(String keyName, String plaintext) {
+
+		Assert.notNull(plaintext, "Plain text must not be null");
+
+		return encrypt(keyName, plaintext.getBytes(), null);
+	}
+
+	@Override
+	public String encrypt(String keyName, byte[] plaintext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.notNull(plaintext, "Plain text must not be null");
+
+		Plaintext item = Plaintext.of(plaintext).with(
+				transitRequest != null ? transitRequest : VaultTransitContext.empty());
+
+		return (String) submit(Operation.ENCRYPT, keyName, item);
+	}
+
+	@Override
+	public String decrypt(String keyName, String ciphertext) {
+		return new String(decrypt(keyName, ciphertext, null));
+	}
+
+	@Override
+	public byte[] decrypt(String keyName, String ciphertext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.hasText(ciphertext, "Cipher text must not be empty");
+
+		return (byte[]) submit(Operation.DECRYPT, keyName,
+				toCiphertext(ciphertext, transitRequest));
+	}
+
+	@Override
+	public String rewrap(String keyName, String ciphertext) {
+		return rewrap(keyName, ciphertext, null);
+	}
+
+	@Override
+	public String rewrap(String keyName, String ciphertext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.hasText(ciphertext, "Cipher text must not be empty");
+
+		return (String) submit(Operation.REWRAP, keyName,
+				toCiphertext(ciphertext, transitRequest));
+	}
+
+	@Override
+	public VaultDataKey createDataKey(String keyName) {
+		return delegate.createDataKey(keyName);
+	}
+
+	@Override
+	public VaultDataKey createDataKey(String keyName, VaultTransitContext transitRequest) {
+		return delegate.createDataKey(keyName, transitRequest);
+	}
+
+	@Override
+	public List<VaultEncryptionResult> encrypt(String keyName,
+			List<Plaintext> batchRequest) {
+		return delegate.encrypt(keyName, batchRequest);
+	}
+
+	@Override
+	public List<VaultDecryptionResult> decrypt(String keyName,
+			List<Ciphertext> batchRequest) {
+		return delegate.decrypt(keyName, batchRequest);
+	}
+
+	@Override
+	public List<VaultEncryptionResult> rewrap(String keyName,
+			List<Ciphertext> batchRequest) {
+		return delegate.rewrap(keyName, batchRequest);
+	}
+
+	/**
+	 * Add {@code input} to the open batch for {@code operation} and {@code keyName} and
+	 * await its result. The caller opening a batch sends it.
+	 */
+	private Object submit(Operation operation, String keyName, Object input) {
+
+		String batchKey = operation.name() + ":" + keyName;
+
+		Batch batch;
+		int index;
+		boolean leader = false;
+
+		synchronized (lock) {
+
+			batch = openBatches.get(batchKey);
+
+			if (batch == null) {
+
+				batch = new Batch();
+				openBatches.put(batchKey, batch);
+				leader = true;
+			}
+
+			index = batch.inputs.size();
+			batch.inputs.add(input);
+
+			if (batch.inputs.size() >= maxBatchSize) {
+
+				openBatches.remove(batchKey);
+				batch.full.countDown();
+			}
+		}
+
+		if (leader) {
+
+			awaitUninterruptibly(batch.full, maxDelay);
+
+			synchronized (lock) {
+
+				if (openBatches.get(batchKey) == batch) {
+					openBatches.remove(batchKey);
+				}
+			}
+
+			execute(operation, keyName, batch);
+		}
+
+		return batch.get(index);
+	}
+
+	/**
+	 * Send the {@link Batch}. Callers awaiting the batch are always completed, failures
+	 * complete all callers. An {@link Error} is rethrown to the leader and reported to
+	 * other callers as {@link VaultException}.
+	 */
+	private void execute(Operation operation, String keyName, Batch batch) {
+
+		List<Object> results = null;
+		RuntimeException failure = null;
+
+		try {
+			results = batch.inputs.size() == 1 ? executeSingle(operation, keyName,
+					batch.inputs.get(0)) : executeBatch(operation, keyName, batch.inputs);
+		}
+		catch (RuntimeException e) {
+			failure = e;
+		}
+		catch (Error e) {
+			failure = new VaultException("Batch execution failed", e);
+			throw e;
+		}
+		finally {
+
+			if (results == null) {
+
+				if (failure == null) {
+					failure = new VaultException("Batch execution failed");
+				}
+
+				results = new ArrayList<Object>(batch.inputs.size());
+
+				for (int i = 0; i < batch.inputs.size(); i++) {
+					results.add(failure);
+				}
+			}
+
+			batch.complete(results);
+		}
+	}
+
+	private List<Object> executeSingle(Operation operation, String keyName, Object input) {
+
+		List<Object> results = new ArrayList<Object>(1);
+
+		try {
+			switch (operation) {
+			case ENCRYPT:
+				Plaintext plaintext = (Plaintext) input;
+				results.add(delegate.encrypt(keyName, plaintext.getPlaintext(),
+						plaintext.getContext()));
+				break;
+			case DECRYPT:
+				Ciphertext ciphertext = (Ciphertext) input;
+				results.add(delegate.decrypt(keyName, ciphertext.getCiphertext(),
+						ciphertext.getContext()));
+				break;
+			default:
+				Ciphertext toRewrap = (Ciphertext) input;
+				results.add(delegate.rewrap(keyName, toRewrap.getCiphertext(),
+						toRewrap.getContext()));
+			}
+		}
+		catch (RuntimeException e) {
+			results.add(e);
+		}
+
+		return results;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object> executeBatch(Operation operation, String keyName,
+			List<?> inputs) {
+
+		List<Object> results = new ArrayList<Object>(inputs.size());
+
+		switch (operation) {
+		case ENCRYPT:
+			for (VaultEncryptionResult result : delegate.encrypt(keyName,
+					(List<Plaintext>) inputs)) {
+				results.add(result.isSuccessful() ? result.get().getCiphertext() : result
+						.getCause());
+			}
+			break;
+		case DECRYPT:
+			for (VaultDecryptionResult result : delegate.decrypt(keyName,
+					(List<Ciphertext>) inputs)) {
+				results.add(result.isSuccessful() ? result.get().getPlaintext() : result
+						.getCause());
+			}
+			break;
+		default:
+			for (VaultEncryptionResult result : delegate.rewrap(keyName,
+					(List<Ciphertext>) inputs)) {
+				results.add(result.isSuccessful() ? result.get().getCiphertext() : result
+						.getCause());
+			}
+		}
+
+		return results;
+	}
+
+	private static Ciphertext toCiphertext(String ciphertext,
+			VaultTransitContext transitRequest) {
+
+		return Ciphertext.of(ciphertext).with(
+				transitRequest != null ? transitRequest : VaultTransitContext.empty());
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch, long timeoutMillis) {
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		boolean interrupted = false;
+
+		try {
+			while (true) {
+				try {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0 || latch.await(remaining, TimeUnit.NANOSECONDS)) {
+						return;
+					}
+				}
+				catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private enum Operation {
+		ENCRYPT, DECRYPT, REWRAP
+	}
+
+	/**
+	 * Calls collected for a single request. Inputs are guarded by the template lock until
+	 * the batch is closed, results are published through {@link #done}.
+	 */
+	private static class Batch {
+
+		final List<Object> inputs = new ArrayList<Object>();
+
+		final CountDownLatch full = new CountDownLatch(1);
+
+		final CountDownLatch done = new CountDownLatch(1);
+
+		volatile List<Object> results;
+
+		void complete(List<Object> results) {
+
+			this.results = results;
+			done.countDown();
+		}
+
+		Object get(int index) {
+
+			try {
+				done.await();
+			}
+			catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+				throw new VaultException("Interrupted while awaiting batch result", e);
+			}
+
+			Object result = results.get(index);
+
+			if (result instanceof RuntimeException) {
+				throw (RuntimeException) result;
+			}
+
+			return result;
+		}
+	}
+}
@@ -0,0 +1,661 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.authentication.SharedRenewalScheduler;
+import org.springframework.vault.client.VaultHttpException;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * {@link VaultOperations} decorator caching responses of {@link #read(String)} and
+ * {@link #read(String, Class)}.
+ * <p>
+ * Cached responses expire after their {@code lease_duration}, capped by
+ * {@link #setMaxTtl(long, TimeUnit) max TTL}. Responses without a lease duration are
+ * cached for max TTL. Absent secrets (responses with status {@literal 404}) are cached
+ * for {@link #setNegativeTtl(long, TimeUnit) negative TTL} which is disabled by
+ * default. The cache is bounded by a number of {@link #setMaxEntries(int) entries} and
+ * by the estimated {@link #setMaxWeight(long) weight} of the cached data and evicts the
+ * least recently used entries first.
+ * <p>
+ * Reads tolerating stale data may enable
+ * {@link #setStaleWhileRevalidate(long, TimeUnit) stale-while-revalidate} to return an
+ * expired response immediately while refreshing it in the background, and
+ * {@link #setStaleIfError(long, TimeUnit) stale-if-error} to keep returning the last
+ * response when Vault responds with a server error or cannot be reached. Both periods
+ * start when a response expires.
+ * <p>
+ * {@link #write(String, Object)} and {@link #delete(String)} invalidate cached
+ * responses for the same path, including reads that are in progress. Operations
+ * obtained through {@code opsFor…} methods and callbacks are not intercepted. Cached
+ * responses are shared between callers and must not be modified.
+ *
+ * @author Mark Paluch
+ */
+public class CachingVaultTemplate implements VaultOperations {
+
+	/**
+	 * Default maximal time to live in milliseconds (5 minutes).
+	 */
+	public static final long DEFAULT_MAX_TTL = TimeUnit.MINUTES.toMillis(5);
+
+	/**
+	 * Default maximal number of cached responses.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	/**
+	 * Default maximal estimated weight of cached responses in bytes (16 MiB).
+	 */
+	public static final long DEFAULT_MAX_WEIGHT = 16 * 1024 * 1024;
+
+	private static final Log logger = LogFactory.getLog(CachingVaultTemplate.class);
+
+	private final VaultOperations delegate;
+
+	private final Object lock = new Object();
+
+	private final Map<CacheKey, CacheEntry> entries = new LinkedHashMap<CacheKey, CacheEntry>(
+			16, 0.75f, true);
+
+	private long maxTtl = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_TTL);
+
+	private long negativeTtl;
+
+	private long staleWhileRevalidate;
+
+	private long staleIfError;
+
+	private TaskExecutor refreshExecutor;
+
+	private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+	private long maxWeight = DEFAULT_MAX_WEIGHT;
+
+	private long weight;
+
+	private long invalidations;
+
+	/**
+	 * Create a new {@link CachingVaultTemplate} given the delegate
+	 * {@link VaultOperations}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 */
+	public CachingVaultTemplate(VaultOperations delegate) {
+
+		Assert.notNull(delegate, "VaultOperations must not be null");
+
+		this.delegate = delegate;
+		this.refreshExecutor = SharedRenewalScheduler.getTaskExecutor();
+	}
+
+	/**
+	 * Set the maximal time to live of cached responses. Defaults to
+	 * {@link #DEFAULT_MAX_TTL} milliseconds.
+	 *
+	 * @param maxTtl must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setMaxTtl(long maxTtl, TimeUnit unit) {
+
+		Assert.isTrue(maxTtl >= 0, "Max TTL must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.maxTtl = unit.toNanos(maxTtl);
+	}
+
+	/**
+	 * Set the time to live of cached absent secrets. Defaults to zero which disables
+	 * negative caching.
+	 *
+	 * @param negativeTtl must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setNegativeTtl(long negativeTtl, TimeUnit unit) {
+
+		Assert.isTrue(negativeTtl >= 0, "Negative TTL must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.negativeTtl = unit.toNanos(negativeTtl);
+	}
+
+	/**
+	 * Set the period after expiry during which a cached response is returned while it is
+	 * refreshed in the background. Only one refresh per response is in progress at a
+	 * time. Defaults to zero which disables stale-while-revalidate.
+	 *
+	 * @param staleWhileRevalidate must not be negative.
+	 * @param unit must not be {@literal null}.
+	 * @see #setRefreshExecutor(TaskExecutor)
+	 */
+	public void setStaleWhileRevalidate(long staleWhileRevalidate, TimeUnit unit) {
+
+		Assert.isTrue(staleWhileRevalidate >= 0,
+				"Stale-while-revalidate period must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.staleWhileRevalidate = unit.toNanos(staleWhileRevalidate);
+	}
+
+	/**
+	 * Set the period after expiry during which a cached response is returned if reading
+	 * the path fails with a server error ({@literal 5xx}) or an I/O error such as a
+	 * timeout. Defaults to zero which disables stale-if-error.
+	 *
+	 * @param staleIfError must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setStaleIfError(long staleIfError, TimeUnit unit) {
+
+		Assert.isTrue(staleIfError >= 0, "Stale-if-error period must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.staleIfError = unit.toNanos(staleIfError);
+	}
+
+	/**
+	 * Set the {@link TaskExecutor} used to refresh stale responses. Defaults to the
+	 * bounded {@link SharedRenewalScheduler#getTaskExecutor() shared worker pool}.
+	 *
+	 * @param refreshExecutor must not be {@literal null}.
+	 */
+	public void setRefreshExecutor(TaskExecutor refreshExecutor) {
+
+		Assert.notNull(refreshExecutor, "TaskExecutor must not be null");
+
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Set the maximal number of cached responses. Defaults to
+	 * {@link #DEFAULT_MAX_ENTRIES}.
+	 *
+	 * @param maxEntries must be greater than zero.
+	 */
+	public void setMaxEntries(int maxEntries) {
+
+		Assert.isTrue(maxEntries > 0, "Max entries must be greater than zero");
+
+		synchronized (lock) {
+			this.maxEntries = maxEntries;
+			evictIfNecessary();
+		}
+	}
+
+	/**
+	 * Set the maximal estimated weight of cached responses in bytes. Defaults to
+	 * {@link #DEFAULT_MAX_WEIGHT}.
+	 *
+	 * @param maxWeight must be greater than zero.
+	 */
+	public void setMaxWeight(long maxWeight) {
+
+		Assert.isTrue(maxWeight > 0, "Max weight must be greater than zero");
+
+		synchronized (lock) {
+			this.maxWeight = maxWeight;
+			evictIfNecessary();
+		}
+	}
+
+	/**
+	 * Remove cached responses for {@code path}.
+	 *
+	 * @param path must not be {@literal null}.
+	 */
+	public void evict(String path) {
+
+		Assert.notNull(path, "Path must not be null");
+
+		synchronized (lock) {
+
+			invalidations++;
+
+			for (Iterator<Map.Entry<CacheKey, CacheEntry>> iterator = entries.entrySet()
+					.iterator(); iterator.hasNext();) {
+
+				Map.Entry<CacheKey, CacheEntry> entry = iterator.next();
+
+				if (entry.getKey().path.equals(path)) {
+					weight -= entry.getValue().weight;
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove all cached responses.
+	 */
+	public void clear() {
+
+		synchronized (lock) {
+
+			invalidations++;
+			entries.clear();
+			weight = 0;
+		}
+	}
+
+	/**
+	 * @return the number of cached responses.
+	 */
+	public int size() {
+
+		synchronized (lock) {
+			return entries.size();
+		}
+	}
+
+	@Override
+	public VaultSysOperations opsForSys() {
+		return delegate.opsForSys();
+	}
+
+	@Override
+	public VaultTokenOperations opsForToken() {
+		return delegate.opsForToken();
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit() {
+		return delegate.opsForTransit();
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit(String path) {
+		return delegate.opsForTransit(path);
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki() {
+		return delegate.opsForPki();
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki(String path) {
+		return delegate.opsForPki(path);
+	}
+
+	@Override
+	public VaultResponse read(String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return (VaultResponse) doRead(new CacheKey(path, null));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> VaultResponseSupport<T> read(String path, Class<T> responseType) {
+
+		Assert.hasText(path, "Path must not be empty");
+		Assert.notNull(responseType, "Response type must not be null");
+
+		return (VaultResponseSupport<T>) doRead(new CacheKey(path, responseType));
+	}
+
+	@Override
+	public List<String> list(String path) {
+		return delegate.list(path);
+	}
+
+	@Override
+	public VaultResponse write(String path, Object body) {
+
+		try {
+			return delegate.write(path, body);
+		}
+		finally {
+			evict(path);
+		}
+	}
+
+	@Override
+	public void delete(String path) {
+
+		try {
+			delegate.delete(path);
+		}
+		finally {
+			evict(path);
+		}
+	}
+
+	@Override
+	public <T> T doWithVault(RestOperationsCallback<T> clientCallback)
+			throws VaultException, RestClientException {
+		return delegate.doWithVault(clientCallback);
+	}
+
+	@Override
+	public <T> T doWithSession(RestOperationsCallback<T> sessionCallback)
+			throws VaultException, RestClientException {
+		return delegate.doWithSession(sessionCallback);
+	}
+
+	private VaultResponseSupport<?> doRead(CacheKey key) {
+
+		CacheEntry entry;
+		long generation;
+		boolean stale = false;
+		boolean refresh = false;
+
+		synchronized (lock) {
+
+			entry = entries.get(key);
+
+			if (entry != null) {
+
+				long expired = System.nanoTime() - entry.expiresAt;
+
+				if (expired < 0) {
+					return entry.response;
+				}
+
+				if (expired < staleWhileRevalidate) {
+
+					stale = true;
+					refresh = !entry.refreshing;
+					entry.refreshing = true;
+				}
+				else if (expired >= staleIfError) {
+
+					remove(key);
+					entry = null;
+				}
+			}
+
+			generation = invalidations;
+		}
+
+		if (refresh) {
+			refresh(key, entry, generation);
+		}
+
+		if (stale) {
+			return entry.response;
+		}
+
+		try {
+			return load(key, generation);
+		}
+		catch (RuntimeException e) {
+
+			if (entry != null && isTransientError(e)
+					&& System.nanoTime() - entry.expiresAt < staleIfError) {
+
+				if (logger.isDebugEnabled()) {
+					logger.debug(String.format(
+							"Cannot read %s, returning stale response: %s", key.path,
+							e.getMessage()));
+				}
+
+				return entry.response;
+			}
+
+			throw e;
+		}
+	}
+
+	private void refresh(final CacheKey key, final CacheEntry entry, final long generation) {
+
+		try {
+			refreshExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+
+					try {
+						load(key, generation);
+					}
+					catch (RuntimeException e) {
+
+						logger.warn(
+								String.format("Cannot refresh cached response for %s",
+										key.path), e);
+
+						synchronized (lock) {
+							entry.refreshing = false;
+						}
+					}
+				}
+			});
+		}
+		catch (RuntimeException e) {
+
+			logger.warn(String.format("Cannot schedule refresh for %s", key.path), e);
+
+			synchronized (lock) {
+				entry.refreshing = false;
+			}
+		}
+	}
+
+	private VaultResponseSupport<?> load(CacheKey key, long generation) {
+
+		VaultResponseSupport<?> response = key.responseType == null ? delegate
+				.read(key.path) : delegate.read(key.path, key.responseType);
+
+		long ttl = getTtl(response);
+
+		if (ttl > 0) {
+
+			synchronized (lock) {
+
+				if (generation == invalidations) {
+					put(key, new CacheEntry(response, System.nanoTime() + ttl,
+							estimateWeight(key, response)));
+				}
+			}
+		}
+
+		return response;
+	}
+
+	/**
+	 * Determine whether {@code e} indicates a server error or an I/O error.
+	 * {@link VaultTemplate} reports HTTP errors as {@link VaultHttpException}.
+	 */
+	private static boolean isTransientError(RuntimeException e) {
+
+		if (e instanceof ResourceAccessException) {
+			return true;
+		}
+
+		if (e instanceof HttpStatusCodeException) {
+			return ((HttpStatusCodeException) e).getStatusCode().is5xxServerError();
+		}
+
+		return e instanceof VaultHttpException
+				&& ((VaultHttpException) e).getStatusCode().is5xxServerError();
+	}
+
+	private long getTtl(VaultResponseSupport<?> response) {
+
+		if (response == null) {
+			return negativeTtl;
+		}
+
+		if (response.getLeaseDuration() > 0) {
+			return Math.min(TimeUnit.SECONDS.toNanos(response.getLeaseDuration()), maxTtl);
+		}
+
+		return maxTtl;
+	}
+
+	private void put(CacheKey key, CacheEntry entry) {
+
+		remove(key);
+
+		entries.put(key, entry);
+		weight += entry.weight;
+
+		evictIfNecessary();
+	}
+
+	private void remove(CacheKey key) {
+
+		CacheEntry previous = entries.remove(key);
+
+		if (previous != null) {
+			weight -= previous.weight;
+		}
+	}
+
+	private void evictIfNecessary() {
+
+		Iterator<CacheEntry> iterator = entries.values().iterator();
+
+		while ((entries.size() > maxEntries || weight > maxWeight) && iterator.hasNext()) {
+
+			weight -= iterator.next().weight;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Estimate the memory footprint of a cached response in bytes.
+	 */
+	static long estimateWeight(CacheKey key, VaultResponseSupport<?> response) {
+
+		long weight = 64 + estimateWeight(key.path, 0);
+
+		if (response != null) {
+			weight += 128 + estimateWeight(response.getData(), 0)
+					+ estimateWeight(response.getMetadata(), 0)
+					+ estimateWeight(response.getAuth(), 0);
+		}
+
+		return weight;
+	}
+
+	private static long estimateWeight(Object object, int depth) {
+
+		if (object == null) {
+			return 0;
+		}
+
+		if (object instanceof CharSequence) {
+			return 40 + 2L * ((CharSequence) object).length();
+		}
+
+		if (object instanceof byte[]) {
+			return 16 + ((byte[]) object).length;
+		}
+
+		if (depth > 8) {
+			return 16;
+		}
+
+		if (object instanceof Map) {
+
+			long weight = 48;
+
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+				weight += 32 + estimateWeight(entry.getKey(), depth + 1)
+						+ estimateWeight(entry.getValue(), depth + 1);
+			}
+
+			return weight;
+		}
+
+		if (object instanceof Collection) {
+
+			long weight = 40;
+
+			for (Object element : (Collection<?>) object) {
+				weight += 8 + estimateWeight(element, depth + 1);
+			}
+
+			return weight;
+		}
+
+		return 64;
+	}
+
+	static class CacheKey {
+
+		final String path;
+
+		final Class<?> responseType;
+
+		CacheKey(String path, Class<?> responseType) {
+
+			this.path = path;
+			this.responseType = responseType;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+
+			if (this == o) {
+				return true;
+			}
+
+			if (!(o instanceof CacheKey)) {
+				return false;
+			}
+
+			CacheKey that = (CacheKey) o;
+
+			return path.equals(that.path)
+					&& ObjectUtils.nullSafeEquals(responseType, that.responseType);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * path.hashCode() + ObjectUtils.nullSafeHashCode(responseType);
+		}
+	}
+
+	static class CacheEntry {
+
+		final VaultResponseSupport<?> response;
+
+		final long expiresAt;
+
+		final long weight;
+
+		boolean refreshing;
+
+		CacheEntry(VaultResponseSupport<?> response, long expiresAt, long weight) {
+
+			this.response = response;
+			this.expiresAt = expiresAt;
+			this.weight = weight;
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.List;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * {@link VaultOperations} decorator coalescing concurrent identical reads. Calls to
+ * {@link #read(String)}, {@link #read(String, Class)} and {@link #list(String)} for a
+ * path that is already being read share the in-flight request and receive its result or
+ * exception. Requests through a template use the same session so identical paths imply
+ * identical tokens.
+ * <p>
+ * Coalescing can be combined with {@link CachingVaultTemplate} to collapse concurrent
+ * cache misses into a single request:
+ *
+ * <pre class="code">
+ * VaultOperations operations = new CachingVaultTemplate(new CoalescingVaultTemplate(
+ * 		vaultTemplate));
+ * </pre>
+ *
+ * Results are shared between callers and must not be modified.
+ *
+ * @author Mark Paluch
+ */
+public class CoalescingVaultTemplate implements VaultOperations {
+
+	private final VaultOperations delegate;
+
+	private final SingleFlight<RequestKey> singleFlight = new SingleFlight<RequestKey>();
+
+	/**
+	 * Create a new {@link CoalescingVaultTemplate} given the delegate
+	 * {@link VaultOperations}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 */
+	public CoalescingVaultTemplate(VaultOperations delegate) {
+
+		Assert.notNull(delegate, "VaultOperations must not be null");
+
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return the number of requests sent to the delegate.
+	 */
+	public long getRequestCount() {
+		return singleFlight.getExecutedCount();
+	}
+
+	/**
+	 * @return the number of requests saved by sharing an in-flight request.
+	 */
+	public long getCoalescedRequestCount() {
+		return singleFlight.getCoalescedCount();
+	}
+
+	/**
+	 * @return the number of callers currently waiting for an in-flight request.
+	 */
+	public int getWaiterCount() {
+		return singleFlight.getWaiterCount();
+	}
+
+	/**
+	 * @return the number of requests currently in flight.
+	 */
+	public int getInFlightRequestCount() {
+		return singleFlight.getInFlightCount();
+	}
+
+	@Override
+	public VaultSysOperations opsForSys() {
+		return delegate.opsForSys();
+	}
+
+	@Override
+	public VaultTokenOperations opsForToken() {
+		return delegate.opsForToken();
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit() {
+		return delegate.opsForTransit();
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit(String path) {
+		return delegate.opsForTransit(path);
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki() {
+		return delegate.opsForPki();
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki(String path) {
+		return delegate.opsForPki(path);
+	}
+
+	@Override
+	public VaultResponse read(final String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return singleFlight.execute(new RequestKey(Operation.READ, path, null),
+				new SingleFlight.Action<VaultResponse>() {
+
+					@Override
+					public VaultResponse execute() {
+						return delegate.read(path);
+					}
+				});
+	}
+
+	@Override
+	public <T> VaultResponseSupport<T> read(final String path,
+			final Class<T> responseType) {
+
+		Assert.hasText(path, "Path must not be empty");
+		Assert.notNull(responseType, "Response type must not be null");
+
+		return singleFlight.execute(new RequestKey(Operation.READ, path, responseType),
+				new SingleFlight.Action<VaultResponseSupport<T>>() {
+
+					@Override
+					public VaultResponseSupport<T> execute() {
+						return delegate.read(path, responseType);
+					}
+				});
+	}
+
+	@Override
+	public List<String> list(final String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return singleFlight.execute(new RequestKey(Operation.LIST, path, null),
+				new SingleFlight.Action<List<String>>() {
+
+					@Override
+					public List<String> execute() {
+						return delegate.list(path);
+					}
+				});
+	}
+
+	@Override
+	public VaultResponse write(String path, Object body) {
+		return delegate.write(path, body);
+	}
+
+	@Override
+	public void delete(String path) {
+		delegate.delete(path);
+	}
+
+	@Override
+	public <T> T doWithVault(RestOperationsCallback<T> clientCallback)
+			throws VaultException, RestClientException {
+		return delegate.doWithVault(clientCallback);
+	}
+
+	@Override
+	public <T> T doWithSession(RestOperationsCallback<T> sessionCallback)
+			throws VaultException, RestClientException {
+		return delegate.doWithSession(sessionCallback);
+	}
+
+	private enum Operation {
+		READ, LIST
+	}
+
+	private static class RequestKey {
+
+		private final Operation operation;
+
+		private final String path;
+
+		private final Class<?> responseType;
+
+		RequestKey(Operation operation, String path, Class<?> responseType) {
+
+			this.operation = operation;
+			this.path = path;
+			this.responseType = responseType;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+
+			if (this == o) {
+				return true;
+			}
+
+			if (!(o instanceof RequestKey)) {
+				return false;
+			}
+
+			RequestKey that = (RequestKey) o;
+
+			return operation == that.operation && path.equals(that.path)
+					&& ObjectUtils.nullSafeEquals(responseType, that.responseType);
+		}
+
+		@Override
+		public int hashCode() {
+
+			int result = operation.hashCode();
+			result = 31 * result + path.hashCode();
+			result = 31 * result + ObjectUtils.nullSafeHashCode(responseType);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+import org.springframework.vault.authentication.SessionManager;
+import org.springframework.vault.authentication.SharedRenewalScheduler;
+import org.springframework.vault.client.RoutingVaultEndpointProvider;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultEndpointProvider;
+import org.springframework.vault.support.VaultHealth;
+import org.springframework.vault.support.VaultToken;
+
+/**
+ * {@link VaultEndpointProvider} that tracks the state of multiple Vault nodes by
+ * periodically polling {@link VaultSysOperations#health() health}. Endpoints are
+ * provided in the order of their {@link NodeState}: active nodes first, followed by nodes
+ * with unknown state, standby nodes, sealed nodes and unavailable nodes. Nodes with the
+ * same state retain their configured order.
+ * <p>
+ * Endpoints that {@link #reportFailure(VaultEndpoint) failed} are considered unavailable
+ * until the next health check. Health checks run every
+ * {@link #setHealthCheckInterval(long, TimeUnit) 10 seconds} by default.
+ * <p>
+ * With {@link #setStandbyReads(boolean) standby reads} enabled, {@literal GET} requests
+ * such as reads, lists and mount queries are routed to (performance) standby nodes. Reads
+ * are balanced across standbys by the least number of outstanding requests and fall back
+ * to the active node. Standbys with the same number of outstanding requests take turns. All other requests, including writes, logins and token renewals,
+ * are routed to the active node.
+ *
+ * @author Mark Paluch
+ * @see VaultTemplate#VaultTemplate(VaultEndpointProvider, ClientHttpRequestFactory,
+ * SessionManager)
+ * @see org.springframework.vault.client.FailoverClientHttpRequestFactory
+ */
+public class HealthAwareVaultEndpointProvider implements RoutingVaultEndpointProvider,
+		DisposableBean {
+
+	/**
+	 * Default health check interval in milliseconds.
+	 */
+	public static final long DEFAULT_HEALTH_CHECK_INTERVAL = TimeUnit.SECONDS
+			.toMillis(10);
+
+	private final static Log logger = LogFactory
+			.getLog(HealthAwareVaultEndpointProvider.class);
+
+	private static final SessionManager NO_SESSION = new SessionManager() {
+
+		@Override
+		public VaultToken getSessionToken() {
+			throw new IllegalStateException("Health checks do not require a session");
+		}
+	};
+
+	private static final Comparator<Node> NODE_ORDER = new Comparator<Node>() {
+
+		@Override
+		public int compare(Node o1, Node o2) {
+			return o1.state.compareTo(o2.state);
+		}
+	};
+
+	private final List<Node> nodes;
+
+	private final TaskScheduler taskScheduler;
+
+	private final AtomicInteger rotation = new AtomicInteger();
+
+	private volatile ScheduledFuture<?> healthCheckTask;
+
+	private volatile boolean standbyReads;
+
+	/**
+	 * Create a new {@link HealthAwareVaultEndpointProvider} using the
+	 * {@link SharedRenewalScheduler} to schedule health checks.
+	 *
+	 * @param endpoints must not be {@literal null} or empty.
+	 * @param requestFactory must not be {@literal null}.
+	 */
+	public HealthAwareVaultEndpointProvider(List<VaultEndpoint> endpoints,
+			ClientHttpRequestFactory requestFactory) {
+		this(endpoints, requestFactory, SharedRenewalScheduler.getInstance());
+	}
+
+	/**
+	 * Create a new {@link HealthAwareVaultEndpointProvider}.
+	 *
+	 * @param endpoints must not be {@literal null} or empty.
+	 * @param requestFactory must not be {@literal null}.
+	 * @param taskScheduler must not be {@literal null}.
+	 */
+	public HealthAwareVaultEndpointProvider(List<VaultEndpoint> endpoints,
+			ClientHttpRequestFactory requestFactory, TaskScheduler taskScheduler) {
+
+		Assert.notEmpty(endpoints, "VaultEndpoints must not be empty");
+		Assert.notNull(requestFactory, "ClientHttpRequestFactory must not be null");
+		Assert.notNull(taskScheduler, "TaskScheduler must not be null");
+
+		List<Node> nodes = new ArrayList<Node>(endpoints.size());
+
+		for (VaultEndpoint endpoint : endpoints) {
+
+			Assert.notNull(endpoint, "VaultEndpoint must not be null");
+
+			nodes.add(new Node(endpoint, new VaultSysTemplate(new VaultTemplate(
+					endpoint, requestFactory, NO_SESSION))));
+		}
+
+		this.nodes = Collections.unmodifiableList(nodes);
+		this.taskScheduler = taskScheduler;
+
+		setHealthCheckInterval(DEFAULT_HEALTH_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Set the interval between health checks.
+	 *
+	 * @param interval must be greater than zero.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setHealthCheckInterval(long interval, TimeUnit unit) {
+
+		Assert.isTrue(interval > 0, "Health check interval must be greater than zero");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		ScheduledFuture<?> previous = this.healthCheckTask;
+
+		this.healthCheckTask = taskScheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				checkHealth();
+			}
+		}, unit.toMillis(interval));
+
+		if (previous != null) {
+			previous.cancel(false);
+		}
+	}
+
+	/**
+	 * Configure whether to route {@literal GET} requests to standby nodes. Defaults to
+	 * {@literal false}. Requires performance standby nodes that serve reads.
+	 *
+	 * @param standbyReads {@literal true} to route reads to standby nodes.
+	 */
+	public void setStandbyReads(boolean standbyReads) {
+		this.standbyReads = standbyReads;
+	}
+
+	@Override
+	public List<VaultEndpoint> getVaultEndpoints() {
+		return toEndpoints(sort(nodes, NODE_ORDER));
+	}
+
+	@Override
+	public List<VaultEndpoint> getVaultEndpoints(HttpMethod method) {
+
+		if (!standbyReads || method != HttpMethod.GET) {
+			return getVaultEndpoints();
+		}
+
+		List<Node> standbys = new ArrayList<Node>(nodes.size());
+		List<Node> others = new ArrayList<Node>(nodes.size());
+
+		for (Node node : nodes) {
+			if (node.state == NodeState.STANDBY) {
+				standbys.add(node);
+			}
+			else {
+				others.add(node);
+			}
+		}
+
+		int rotation = this.rotation.getAndIncrement() & Integer.MAX_VALUE;
+
+		List<VaultEndpoint> endpoints = sortByOutstanding(standbys, rotation);
+		endpoints.addAll(sortByOutstanding(others, rotation));
+
+		return endpoints;
+	}
+
+	@Override
+	public void requestStarted(VaultEndpoint endpoint) {
+
+		Node node = getNode(endpoint);
+
+		if (node != null) {
+			node.outstanding.incrementAndGet();
+		}
+	}
+
+	@Override
+	public void requestCompleted(VaultEndpoint endpoint) {
+
+		Node node = getNode(endpoint);
+
+		if (node != null) {
+			node.outstanding.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Obtain the number of outstanding requests to {@link VaultEndpoint}.
+	 *
+	 * @param endpoint must not be {@literal null}.
+	 * @return the number of outstanding requests.
+	 * @throws IllegalArgumentException if the endpoint is not known to this provider.
+	 */
+	public int getOutstandingRequests(VaultEndpoint endpoint) {
+
+		Node node = getNode(endpoint);
+
+		Assert.notNull(node, String.format("Unknown VaultEndpoint %s", endpoint));
+
+		return node.outstanding.get();
+	}
+
+	@Override
+	public void reportFailure(VaultEndpoint endpoint) {
+
+		Node node = getNode(endpoint);
+
+		if (node != null && node.state != NodeState.UNAVAILABLE) {
+
+			logger.warn(String.format("Vault endpoint %s is unavailable", endpoint));
+			node.state = NodeState.UNAVAILABLE;
+		}
+	}
+
+	/**
+	 * Obtain the {@link NodeState} of {@link VaultEndpoint}.
+	 *
+	 * @param endpoint must not be {@literal null}.
+	 * @return the {@link NodeState}.
+	 * @throws IllegalArgumentException if the endpoint is not known to this provider.
+	 */
+	public NodeState getNodeState(VaultEndpoint endpoint) {
+
+		Node node = getNode(endpoint);
+
+		Assert.notNull(node, String.format("Unknown VaultEndpoint %s", endpoint));
+
+		return node.state;
+	}
+
+	/**
+	 * Check the health of all nodes and update their {@link NodeState}.
+	 */
+	public void checkHealth() {
+
+		for (Node node : nodes) {
+
+			NodeState state;
+
+			try {
+
+				VaultHealth health = node.sysOperations.health();
+
+				if (!health.isInitialized() || health.isSealed()) {
+					state = NodeState.SEALED;
+				}
+				else if (health.isStandby()) {
+					state = NodeState.STANDBY;
+				}
+				else {
+					state = NodeState.ACTIVE;
+				}
+			}
+			catch (RuntimeException e) {
+
+				logger.debug(String.format("Health check of %s failed: %s",
+						node.endpoint, e.getMessage()));
+				state = NodeState.UNAVAILABLE;
+			}
+
+			if (node.state != state) {
+				logger.info(String.format("Vault endpoint %s changed from %s to %s",
+						node.endpoint, node.state, state));
+				node.state = state;
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+
+		ScheduledFuture<?> healthCheckTask = this.healthCheckTask;
+
+		if (healthCheckTask != null) {
+			healthCheckTask.cancel(false);
+		}
+	}
+
+	private static List<Node> sort(List<Node> nodes, Comparator<Node> comparator) {
+
+		List<Node> sorted = new ArrayList<Node>(nodes);
+		Collections.sort(sorted, comparator);
+		return sorted;
+	}
+
+	/**
+	 * Order {@code nodes} by state and the number of outstanding requests. Nodes with the
+	 * same state and number of outstanding requests are rotated by {@code rotation}.
+	 */
+	private static List<VaultEndpoint> sortByOutstanding(List<Node> nodes,
+			int rotation) {
+
+		int size = nodes.size();
+		List<Candidate> candidates = new ArrayList<Candidate>(size);
+
+		if (size != 0) {
+
+			int offset = rotation % size;
+
+			for (int i = 0; i < size; i++) {
+				candidates.add(new Candidate(nodes.get(i), (i - offset + size) % size));
+			}
+
+			Collections.sort(candidates);
+		}
+
+		List<VaultEndpoint> endpoints = new ArrayList<VaultEndpoint>(size);
+
+		for (Candidate candidate : candidates) {
+			endpoints.add(candidate.endpoint);
+		}
+
+		return endpoints;
+	}
+
+	private static List<VaultEndpoint> toEndpoints(List<Node> nodes) {
+
+		List<VaultEndpoint> endpoints = new ArrayList<VaultEndpoint>(nodes.size());
+
+		for (Node node : nodes) {
+			endpoints.add(node.endpoint);
+		}
+
+		return endpoints;
+	}
+
+	private Node getNode(VaultEndpoint endpoint) {
+
+		for (Node node : nodes) {
+			if (node.endpoint.equals(endpoint)) {
+				return node;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * State of a Vault node. The declaration order defines the routing preference.
+	 */
+	public enum NodeState {
+
+		/**
+		 * Active node serving requests.
+		 */
+		ACTIVE,
+
+		/**
+		 * Node whose health was not checked yet.
+		 */
+		UNKNOWN,
+
+		/**
+		 * Standby node forwarding requests to the active node.
+		 */
+		STANDBY,
+
+		/**
+		 * Sealed or uninitialized node.
+		 */
+		SEALED,
+
+		/**
+		 * Node that cannot be reached or failed recently.
+		 */
+		UNAVAILABLE
+	}
+
+	/**
+	 * Snapshot of a {@link Node} so that sorting does not observe changing state or
+	 * outstanding requests.
+	 */
+	private static class Candidate implements Comparable<Candidate> {
+
+		final VaultEndpoint endpoint;
+
+		final NodeState state;
+
+		final int outstanding;
+
+		final int position;
+
+		Candidate(Node node, int position) {
+
+			this.endpoint = node.endpoint;
+			this.state = node.state;
+			this.outstanding = node.outstanding.get();
+			this.position = position;
+		}
+
+		@Override
+		public int compareTo(Candidate o) {
+
+			int result = state.compareTo(o.state);
+
+			if (result != 0) {
+				return result;
+			}
+
+			if (outstanding != o.outstanding) {
+				return outstanding < o.outstanding ? -1 : 1;
+			}
+
+			return position < o.position ? -1 : (position == o.position ? 0 : 1);
+		}
+	}
+
+	private static class Node {
+
+		final VaultEndpoint endpoint;
+
+		final VaultSysOperations sysOperations;
+
+		final AtomicInteger outstanding = new AtomicInteger();
+
+		volatile NodeState state = NodeState.UNKNOWN;
+
+		Node(VaultEndpoint endpoint, VaultSysOperations sysOperations) {
+
+			this.endpoint = endpoint;
+			this.sysOperations = sysOperations;
+		}
+	}
+}
@@ -0,0 +1,525 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * {@link VaultOperations} decorator hedging idempotent reads to reduce tail latency.
+ * Calls to {@link #read(String)}, {@link #read(String, Class)} and {@link #list(String)}
+ * are sent to the delegate. If a call has not completed within the
+ * {@link #setHedgePercentile(double) latency percentile} of recent calls to the same
+ * path prefix, a second identical call is sent. The first successful response wins and
+ * the other call is cancelled. If both calls fail, the first failure is propagated.
+ * Cancelling only interrupts the thread running the losing call: its HTTP request
+ * usually runs to completion and holds its connection until then.
+ * <p>
+ * Hedged calls are limited by a budget: each call earns
+ * {@link #setMaxHedgeRatio(double) a fraction} of a hedged call so that hedging adds at
+ * most that ratio of extra load. Hedging starts once
+ * {@link #DEFAULT_MIN_SAMPLES enough latency samples} are recorded for a path prefix. The
+ * path prefix is the first path segment, usually the mount path.
+ * <p>
+ * Hedged calls go through the delegate again and use another connection. Combined with
+ * {@link HealthAwareVaultEndpointProvider} and standby reads, a hedged call is routed to
+ * the least loaded standby node. Calls that can be hedged run on a bounded
+ * {@link AsyncTaskExecutor}. Calls run on the caller thread without hedging if the budget
+ * does not allow a hedged call or if the executor rejects the call. The
+ * {@link Deadline#current() caller's deadline} applies to both calls.
+ *
+ * @author Mark Paluch
+ */
+public class HedgingVaultTemplate implements VaultOperations {
+
+	/**
+	 * Default latency percentile after which a call is hedged.
+	 */
+	public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+
+	/**
+	 * Default ratio of hedged calls to calls.
+	 */
+	public static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+	/**
+	 * Number of latency samples per path prefix required to hedge calls.
+	 */
+	public static final int DEFAULT_MIN_SAMPLES = 20;
+
+	/**
+	 * Number of threads of the default executor running calls that might be hedged.
+	 */
+	public static final int DEFAULT_MAX_THREADS = 16;
+
+	private static final int SAMPLES = 1000;
+
+	private static final int RECALCULATE_INTERVAL = 100;
+
+	private static final long BUDGET_SCALE = 1000000;
+
+	private static final long MAX_BUDGET = 10 * BUDGET_SCALE;
+
+	private final VaultOperations delegate;
+
+	private final ConcurrentMap<String, LatencyTracker> trackers = new ConcurrentHashMap<String, LatencyTracker>();
+
+	private final AtomicLong budget = new AtomicLong();
+
+	private final AtomicLong hedgedCount = new AtomicLong();
+
+	private final AtomicLong hedgeWinCount = new AtomicLong();
+
+	private volatile AsyncTaskExecutor executor;
+
+	private volatile double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+
+	private volatile double maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+
+	private volatile long minHedgeDelay = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * Create a new {@link HedgingVaultTemplate} given the delegate
+	 * {@link VaultOperations}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 */
+	public HedgingVaultTemplate(VaultOperations delegate) {
+
+		Assert.notNull(delegate, "VaultOperations must not be null");
+
+		this.delegate = delegate;
+
+		this.executor = new ConcurrentTaskExecutor(createDefaultExecutor());
+	}
+
+	private static ThreadPoolExecutor createDefaultExecutor() {
+
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				"spring-vault-hedge-");
+		threadFactory.setDaemon(true);
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_THREADS,
+				DEFAULT_MAX_THREADS, 60, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), (ThreadFactory) threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
+	/**
+	 * Set the latency percentile of recent calls after which a call is hedged. Defaults
+	 * to {@link #DEFAULT_HEDGE_PERCENTILE}.
+	 *
+	 * @param hedgePercentile percentile between {@literal 0} (exclusive) and
+	 * {@literal 1}.
+	 */
+	public void setHedgePercentile(double hedgePercentile) {
+
+		Assert.isTrue(hedgePercentile > 0 && hedgePercentile <= 1,
+				"Hedge percentile must be greater than 0 and less or equal to 1");
+
+		this.hedgePercentile = hedgePercentile;
+	}
+
+	/**
+	 * Set the maximal ratio of hedged calls to calls. Defaults to
+	 * {@link #DEFAULT_MAX_HEDGE_RATIO}. Zero disables hedging.
+	 *
+	 * @param maxHedgeRatio ratio between {@literal 0} and {@literal 1}.
+	 */
+	public void setMaxHedgeRatio(double maxHedgeRatio) {
+
+		Assert.isTrue(maxHedgeRatio >= 0 && maxHedgeRatio <= 1,
+				"Max hedge ratio must be between 0 and 1");
+
+		this.maxHedgeRatio = maxHedgeRatio;
+	}
+
+	/**
+	 * Set the minimal delay before a call is hedged. Defaults to one millisecond.
+	 *
+	 * @param minHedgeDelay must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setMinHedgeDelay(long minHedgeDelay, TimeUnit unit) {
+
+		Assert.isTrue(minHedgeDelay >= 0, "Min hedge delay must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.minHedgeDelay = unit.toNanos(minHedgeDelay);
+	}
+
+	/**
+	 * Set the {@link AsyncTaskExecutor} to run calls. Defaults to an executor using up to
+	 * {@link #DEFAULT_MAX_THREADS} daemon threads that rejects calls once all threads are
+	 * busy.
+	 *
+	 * @param executor must not be {@literal null}.
+	 */
+	public void setExecutor(AsyncTaskExecutor executor) {
+
+		Assert.notNull(executor, "AsyncTaskExecutor must not be null");
+
+		this.executor = executor;
+	}
+
+	/**
+	 * @return the number of hedged calls sent.
+	 */
+	public long getHedgedRequestCount() {
+		return hedgedCount.get();
+	}
+
+	/**
+	 * @return the number of hedged calls that completed before the original call.
+	 */
+	public long getHedgeWinCount() {
+		return hedgeWinCount.get();
+	}
+
+	@Override
+	public VaultSysOperations opsForSys() {
+		return delegate.opsForSys();
+	}
+
+	@Override
+	public VaultTokenOperations opsForToken() {
+		return delegate.opsForToken();
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit() {
+		return delegate.opsForTransit();
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit(String path) {
+		return delegate.opsForTransit(path);
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki() {
+		return delegate.opsForPki();
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki(String path) {
+		return delegate.opsForPki(path);
+	}
+
+	@Override
+	public VaultResponse read(final String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return hedge(path, new Callable<VaultResponse>() {
+
+			@Override
+			public VaultResponse call() {
+				return delegate.read(path);
+			}
+		});
+	}
+
+	@Override
+	public <T> VaultResponseSupport<T> read(final String path,
+			final Class<T> responseType) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return hedge(path, new Callable<VaultResponseSupport<T>>() {
+
+			@Override
+			public VaultResponseSupport<T> call() {
+				return delegate.read(path, responseType);
+			}
+		});
+	}
+
+	@Override
+	public List<String> list(final String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return hedge(path, new Callable<List<String>>() {
+
+			@Override
+			public List<String> call() {
+				return delegate.list(path);
+			}
+		});
+	}
+
+	@Override
+	public VaultResponse write(String path, Object body) {
+		return delegate.write(path, body);
+	}
+
+	@Override
+	public void delete(String path) {
+		delegate.delete(path);
+	}
+
+	@Override
+	public <T> T doWithVault(RestOperationsCallback<T> clientCallback)
+			throws VaultException, RestClientException {
+		return delegate.doWithVault(clientCallback);
+	}
+
+	@Override
+	public <T> T doWithSession(RestOperationsCallback<T> sessionCallback)
+			throws VaultException, RestClientException {
+		return delegate.doWithSession(sessionCallback);
+	}
+
+	private <T> T hedge(String path, Callable<T> call) {
+
+		LatencyTracker tracker = getTracker(path);
+		earnBudget();
+
+		long hedgeDelay = getHedgeDelay(tracker);
+
+		// without budget for a hedge, keep the call on the caller thread
+		if (hedgeDelay < 0 || budget.get() < BUDGET_SCALE) {
+			return measure(tracker, call);
+		}
+
+		CompletionService<T> completionService = new ExecutorCompletionService<T>(
+				executor);
+
+		Future<T> primary;
+
+		try {
+			primary = completionService.submit(measured(tracker, call));
+		}
+		catch (TaskRejectedException e) {
+			return measure(tracker, call);
+		}
+
+		Future<T> hedged = null;
+
+		try {
+
+			Future<T> completed = completionService.poll(hedgeDelay,
+					TimeUnit.NANOSECONDS);
+
+			if (completed == null && spendBudget()) {
+
+				try {
+					hedged = completionService.submit(measured(tracker, call));
+					hedgedCount.incrementAndGet();
+				}
+				catch (TaskRejectedException e) {
+					// executor saturated, keep waiting for the first call
+				}
+			}
+
+			if (completed == null) {
+				completed = completionService.take();
+			}
+
+			try {
+
+				T result = completed.get();
+
+				if (completed == hedged) {
+					hedgeWinCount.incrementAndGet();
+				}
+
+				return result;
+			}
+			catch (ExecutionException e) {
+
+				if (hedged == null) {
+					throw e;
+				}
+
+				// first call failed, wait for the other one
+				try {
+					return completionService.take().get();
+				}
+				catch (ExecutionException ignore) {
+					throw e;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new VaultException(String.format("Interrupted while reading %s",
+					path));
+		}
+		catch (ExecutionException e) {
+			throw propagate(e.getCause());
+		}
+		finally {
+
+			primary.cancel(true);
+
+			if (hedged != null) {
+				hedged.cancel(true);
+			}
+		}
+	}
+
+	private <T> Callable<T> measured(final LatencyTracker tracker,
+			final Callable<T> call) {
+
+		final long submitted = System.nanoTime();
+		final Deadline deadline = Deadline.current();
+
+		return new Callable<T>() {
+
+			@Override
+			public T call() throws Exception {
+
+				Deadline previous = Deadline.bind(deadline);
+
+				try {
+					return measure(tracker, call, submitted);
+				}
+				finally {
+					Deadline.restore(previous);
+				}
+			}
+		};
+	}
+
+	private static <T> T measure(LatencyTracker tracker, Callable<T> call) {
+		return measure(tracker, call, System.nanoTime());
+	}
+
+	/**
+	 * Run {@code call} and record its latency including the time it waited for the
+	 * executor since {@code start}.
+	 */
+	private static <T> T measure(LatencyTracker tracker, Callable<T> call, long start) {
+
+		try {
+			T result = call.call();
+			tracker.record(System.nanoTime() - start);
+			return result;
+		}
+		catch (Exception e) {
+			throw propagate(e);
+		}
+	}
+
+	private static RuntimeException propagate(Throwable e) {
+
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+
+		return new VaultException(e.getMessage());
+	}
+
+	/**
+	 * @return the delay in nanoseconds after which to hedge a call or {@literal -1} to
+	 * not hedge.
+	 */
+	private long getHedgeDelay(LatencyTracker tracker) {
+
+		if (maxHedgeRatio == 0 || tracker.getCount() < DEFAULT_MIN_SAMPLES) {
+			return -1;
+		}
+
+		return Math.max(minHedgeDelay, tracker.getPercentile(hedgePercentile));
+	}
+
+	private void earnBudget() {
+
+		long earned = (long) (maxHedgeRatio * BUDGET_SCALE);
+
+		while (true) {
+
+			long current = budget.get();
+			long next = Math.min(MAX_BUDGET, current + earned);
+
+			if (current == next || budget.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+	private boolean spendBudget() {
+
+		while (true) {
+
+			long current = budget.get();
+
+			if (current < BUDGET_SCALE) {
+				return false;
+			}
+
+			if (budget.compareAndSet(current, current - BUDGET_SCALE)) {
+				return true;
+			}
+		}
+	}
+
+	private LatencyTracker getTracker(String path) {
+
+		String prefix = getPathPrefix(path);
+		LatencyTracker tracker = trackers.get(prefix);
+
+		if (tracker == null) {
+
+			LatencyTracker created = new LatencyTracker(SAMPLES, RECALCULATE_INTERVAL);
+			tracker = trackers.putIfAbsent(prefix, created);
+
+			if (tracker == null) {
+				tracker = created;
+			}
+		}
+
+		return tracker;
+	}
+
+	static String getPathPrefix(String path) {
+
+		String trimmed = path.startsWith("/") ? path.substring(1) : path;
+		int index = trimmed.indexOf('/');
+
+		return index == -1 ? trimmed : trimmed.substring(0, index);
+	}
+}
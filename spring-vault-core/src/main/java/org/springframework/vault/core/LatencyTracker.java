@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Arrays;
+
+/**
+ * Tracker for the latency of recent requests. Keeps a fixed number of samples in a ring
+ * buffer and calculates percentiles from these samples. Percentiles are recalculated
+ * lazily after a number of new samples to keep the recording cost low.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author Mark Paluch
+ */
+class LatencyTracker {
+
+	private final long[] samples;
+
+	private final int recalculateInterval;
+
+	private int count;
+
+	private int position;
+
+	private int sinceRecalculation;
+
+	private long[] sorted = new long[0];
+
+	/**
+	 * Create a new {@link LatencyTracker}.
+	 *
+	 * @param capacity number of samples to keep.
+	 * @param recalculateInterval number of samples after which percentiles are
+	 * recalculated.
+	 */
+	LatencyTracker(int capacity, int recalculateInterval) {
+
+		this.samples = new long[capacity];
+		this.recalculateInterval = recalculateInterval;
+	}
+
+	/**
+	 * Record a latency sample.
+	 *
+	 * @param latency the latency.
+	 */
+	synchronized void record(long latency) {
+
+		samples[position] = latency;
+		position = (position + 1) % samples.length;
+
+		if (count < samples.length) {
+			count++;
+		}
+
+		sinceRecalculation++;
+	}
+
+	/**
+	 * @return the number of samples.
+	 */
+	synchronized int getCount() {
+		return count;
+	}
+
+	/**
+	 * Obtain the latency at {@code percentile}.
+	 *
+	 * @param percentile the percentile between {@literal 0} and {@literal 1}.
+	 * @return the latency at {@code percentile} or {@literal -1} if no samples were
+	 * recorded.
+	 */
+	synchronized long getPercentile(double percentile) {
+
+		if (count == 0) {
+			return -1;
+		}
+
+		if (sorted.length != count || sinceRecalculation >= recalculateInterval) {
+
+			sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			sinceRecalculation = 0;
+		}
+
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+
+		return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.vault.VaultException;
+
+/**
+ * Executes at most one call per key at a time. Callers arriving while a call for the
+ * same key is in flight wait for and share its outcome instead of issuing their own
+ * call.
+ *
+ * @author Mark Paluch
+ * @param <K> key type.
+ */
+class SingleFlight<K> {
+
+	private final ConcurrentMap<K, Call> calls = new ConcurrentHashMap<K, Call>();
+
+	private final AtomicLong executed = new AtomicLong();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	/**
+	 * Execute {@code action} unless a call for {@code key} is already in flight in which
+	 * case the result of that call is awaited. Exceptions are propagated to all callers.
+	 *
+	 * @param key the call key.
+	 * @param action the action to run.
+	 * @return the result of the action, may be {@literal null}.
+	 */
+	@SuppressWarnings("unchecked")
+	<V> V execute(K key, Action<V> action) {
+
+		Call call = new Call();
+		Call inFlight = calls.putIfAbsent(key, call);
+
+		if (inFlight != null) {
+
+			coalesced.incrementAndGet();
+			waiters.incrementAndGet();
+
+			try {
+				return (V) inFlight.await();
+			}
+			finally {
+				waiters.decrementAndGet();
+			}
+		}
+
+		executed.incrementAndGet();
+
+		try {
+
+			V result = action.execute();
+			call.complete(result, null);
+
+			return result;
+		}
+		catch (RuntimeException e) {
+
+			call.complete(null, e);
+			throw e;
+		}
+		catch (Error e) {
+
+			call.complete(null, e);
+			throw e;
+		}
+		finally {
+			calls.remove(key, call);
+		}
+	}
+
+	/**
+	 * @return the number of calls that were executed.
+	 */
+	long getExecutedCount() {
+		return executed.get();
+	}
+
+	/**
+	 * @return the number of calls that shared the outcome of an in-flight call.
+	 */
+	long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	/**
+	 * @return the number of callers currently waiting for an in-flight call.
+	 */
+	int getWaiterCount() {
+		return waiters.get();
+	}
+
+	/**
+	 * @return the number of calls currently in flight.
+	 */
+	int getInFlightCount() {
+		return calls.size();
+	}
+
+	/**
+	 * Action executed by {@link SingleFlight}.
+	 */
+	interface Action<V> {
+
+		V execute();
+	}
+
+	private static class Call {
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private volatile Object result;
+
+		private volatile Throwable error;
+
+		void complete(Object result, Throwable error) {
+
+			this.result = result;
+			this.error = error;
+			done.countDown();
+		}
+
+		Object await() {
+
+			try {
+				done.await();
+			}
+			catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+				throw new VaultException("Interrupted while awaiting in-flight request", e);
+			}
+
+			if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+
+			if (error instanceof Error) {
+				throw (Error) error;
+			}
+
+			return result;
+		}
+	}
+}
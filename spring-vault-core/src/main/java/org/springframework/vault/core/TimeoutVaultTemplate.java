@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * {@link VaultOperations} view applying a timeout to each call. Each call binds a
+ * {@link Deadline} to the calling thread for its duration. The deadline applies to every
+ * request issued during the call, including the session token acquisition, retries after
+ * invalidated tokens and fail over to other endpoints. Calls fail with
+ * {@link VaultException} once the deadline has passed. Timeouts do not extend an
+ * enclosing deadline.
+ * <p>
+ * Transit and PKI operations obtained from this view use their own timeouts, so PKI
+ * certificate issuance, which may legitimately take seconds, does not share the timeout
+ * of configuration reads:
+ *
+ * <pre class="code">
+ * TimeoutVaultTemplate operations = new TimeoutVaultTemplate(vaultTemplate, 100,
+ * 		TimeUnit.MILLISECONDS);
+ * operations.setPkiTimeout(10, TimeUnit.SECONDS);
+ *
+ * operations.read("secret/config");
+ * operations.opsForPki().issueCertificate("www", request);
+ * </pre>
+ *
+ * @author Mark Paluch
+ * @see Deadline
+ * @see VaultTemplate#withTimeout(long, TimeUnit)
+ */
+public class TimeoutVaultTemplate implements VaultOperations {
+
+	private final VaultOperations delegate;
+
+	private final long timeout;
+
+	private volatile long transitTimeout;
+
+	private volatile long pkiTimeout;
+
+	/**
+	 * Create a new {@link TimeoutVaultTemplate} given the delegate
+	 * {@link VaultOperations} and {@code timeout}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 * @param timeout must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public TimeoutVaultTemplate(VaultOperations delegate, long timeout, TimeUnit unit) {
+
+		Assert.notNull(delegate, "VaultOperations must not be null");
+		Assert.isTrue(timeout >= 0, "Timeout must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		this.delegate = delegate;
+		this.timeout = unit.toNanos(timeout);
+		this.transitTimeout = this.timeout;
+		this.pkiTimeout = this.timeout;
+	}
+
+	/**
+	 * Set the timeout for operations obtained through {@link #opsForTransit()}. Defaults
+	 * to the timeout of this view.
+	 *
+	 * @param timeout must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setTransitTimeout(long timeout, TimeUnit unit) {
+		this.transitTimeout = toNanos(timeout, unit);
+	}
+
+	/**
+	 * Set the timeout for operations obtained through {@link #opsForPki()}. Defaults to
+	 * the timeout of this view.
+	 *
+	 * @param timeout must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setPkiTimeout(long timeout, TimeUnit unit) {
+		this.pkiTimeout = toNanos(timeout, unit);
+	}
+
+	/**
+	 * @param unit must not be {@literal null}.
+	 * @return the timeout of this view.
+	 */
+	public long getTimeout(TimeUnit unit) {
+
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return unit.convert(timeout, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public VaultSysOperations opsForSys() {
+		return new VaultSysTemplate(this);
+	}
+
+	@Override
+	public VaultTokenOperations opsForToken() {
+		return new VaultTokenTemplate(this);
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit() {
+		return opsForTransit("transit");
+	}
+
+	@Override
+	public VaultTransitOperations opsForTransit(String path) {
+		return new VaultTransitTemplate(withTimeout(transitTimeout), path);
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki() {
+		return opsForPki("pki");
+	}
+
+	@Override
+	public VaultPkiOperations opsForPki(String path) {
+		return new VaultPkiTemplate(withTimeout(pkiTimeout), path);
+	}
+
+	@Override
+	public VaultResponse read(String path) {
+
+		Deadline previous = bindDeadline();
+
+		try {
+			return delegate.read(path);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+
+	@Override
+	public <T> VaultResponseSupport<T> read(String path, Class<T> responseType) {
+
+		Deadline previous = bindDeadline();
+
+		try {
+			return delegate.read(path, responseType);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+
+	@Override
+	public List<String> list(String path) {
+
+		Deadline previous = bindDeadline();
+
+		try {
+			return delegate.list(path);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+
+	@Override
+	public VaultResponse write(String path, Object body) {
+
+		Deadline previous = bindDeadline();
+
+		try {
+			return delegate.write(path, body);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+
+	@Override
+	public void delete(String path) {
+
+		Deadline previous = bindDeadline();
+
+		try {
+			delegate.delete(path);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+
+	@Override
+	public <T> T doWithVault(RestOperationsCallback<T> clientCallback)
+			throws VaultException, RestClientException {
+
+		Deadline previous = bindDeadline();
+
+		try {
+			return delegate.doWithVault(clientCallback);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+
+	@Override
+	public <T> T doWithSession(RestOperationsCallback<T> sessionCallback)
+			throws VaultException, RestClientException {
+
+		Deadline previous = bindDeadline();
+
+		try {
+			return delegate.doWithSession(sessionCallback);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+
+	private Deadline bindDeadline() {
+		return Deadline.bind(Deadline.after(timeout, TimeUnit.NANOSECONDS));
+	}
+
+	private VaultOperations withTimeout(long timeout) {
+		return timeout == this.timeout ? this : new TimeoutVaultTemplate(delegate,
+				timeout, TimeUnit.NANOSECONDS);
+	}
+
+	private static long toNanos(long timeout, TimeUnit unit) {
+
+		Assert.isTrue(timeout >= 0, "Timeout must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		return unit.toNanos(timeout);
+	}
+}
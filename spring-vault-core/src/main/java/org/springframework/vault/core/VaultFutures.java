@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.vault.client.VaultResponses;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * Utility methods to map and translate {@link ListenableFuture}s obtained from
+ * {@link org.springframework.web.client.AsyncRestOperations}.
+ *
+ * @author Mark Paluch
+ */
+abstract class VaultFutures {
+
+	/**
+	 * Translate failures of the {@link ListenableFuture}. Translates
+	 * {@link HttpStatusCodeException} into {@link org.springframework.vault.VaultException}.
+	 *
+	 * @param source must not be {@literal null}.
+	 * @return the translated {@link ListenableFuture}.
+	 */
+	static <T> ListenableFuture<T> translate(ListenableFuture<T> source) {
+		return map(source, VaultFutures.<T> identity(), null, false);
+	}
+
+	/**
+	 * Map the result of a {@link ListenableFuture} using {@link Converter} and translate
+	 * {@link HttpStatusCodeException} into {@link org.springframework.vault.VaultException}.
+	 *
+	 * @param source must not be {@literal null}.
+	 * @param converter must not be {@literal null}, is invoked also with {@literal null}
+	 * results.
+	 * @param path the request path to report on error, may be {@literal null}.
+	 * @param notFoundAsNull {@literal true} to complete with {@literal null} if Vault
+	 * responds with {@code 404 Not Found}.
+	 * @return the mapped {@link ListenableFuture}.
+	 */
+	static <S, T> ListenableFuture<T> map(final ListenableFuture<S> source,
+			final Converter<S, T> converter, final String path,
+			final boolean notFoundAsNull) {
+
+		final SettableListenableFuture<T> result = new SettableListenableFuture<T>() {
+
+			@Override
+			public boolean cancel(boolean mayInterruptIfRunning) {
+
+				boolean cancelled = super.cancel(mayInterruptIfRunning);
+				source.cancel(mayInterruptIfRunning);
+				return cancelled;
+			}
+		};
+
+		source.addCallback(new ListenableFutureCallback<S>() {
+
+			@Override
+			public void onSuccess(S value) {
+
+				try {
+					result.set(converter.convert(value));
+				}
+				catch (RuntimeException e) {
+					result.setException(e);
+				}
+			}
+
+			@Override
+			public void onFailure(Throwable ex) {
+
+				Throwable cause = ex instanceof ExecutionException && ex.getCause() != null ? ex
+						.getCause() : ex;
+
+				if (cause instanceof HttpStatusCodeException) {
+
+					HttpStatusCodeException e = (HttpStatusCodeException) cause;
+
+					if (notFoundAsNull && e.getStatusCode() == HttpStatus.NOT_FOUND) {
+						onSuccess(null);
+						return;
+					}
+
+					result.setException(path != null ? VaultResponses.buildException(e,
+							path) : VaultResponses.buildException(e));
+					return;
+				}
+
+				result.setException(cause);
+			}
+		});
+
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> Converter<T, T> identity() {
+		return (Converter<T, T>) IdentityConverter.INSTANCE;
+	}
+
+	private enum IdentityConverter implements Converter<Object, Object> {
+
+		INSTANCE;
+
+		@Override
+		public Object convert(Object source) {
+			return source;
+		}
+	}
+}
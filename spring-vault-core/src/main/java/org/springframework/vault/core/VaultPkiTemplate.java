@@ -61,7 +61,36 @@ public class VaultPkiTemplate implements VaultPkiOperations {
 		Assert.hasText(roleName, "Role name must not be empty");
 		Assert.notNull(certificateRequest, "Certificate request must not be null");
 
-		final Map<String, Object> request = new HashMap<String, Object>();
+		final Map<String, Object> request = createIssueRequest(certificateRequest);
+
+		return vaultOperations
+				.doWithSession(new RestOperationsCallback<VaultCertificateResponse>() {
+					@Override
+					public VaultCertificateResponse doWithRestOperations(
+							RestOperations restOperations) {
+
+						try {
+							return restOperations.postForObject(
+									"{path}/issue/{roleName}", request,
+									VaultCertificateResponse.class, path, roleName);
+						}
+						catch (HttpStatusCodeException e) {
+							throw VaultResponses.buildException(e);
+						}
+					}
+				});
+	}
+
+	/**
+	 * Create the request body to issue a certificate.
+	 *
+	 * @param certificateRequest must not be {@literal null}.
+	 * @return the request body.
+	 */
+	static Map<String, Object> createIssueRequest(
+			VaultCertificateRequest certificateRequest) {
+
+		Map<String, Object> request = new HashMap<String, Object>();
 		request.put("common_name", certificateRequest.getCommonName());
 
 		if (!certificateRequest.getAltNames().isEmpty()) {
@@ -88,22 +117,6 @@ public class VaultPkiTemplate implements VaultPkiOperations {
 			request.put("exclude_cn_from_sans", true);
 		}
 
-		return vaultOperations
-				.doWithSession(new RestOperationsCallback<VaultCertificateResponse>() {
-					@Override
-					public VaultCertificateResponse doWithRestOperations(
-							RestOperations restOperations) {
-
-						try {
-							return restOperations.postForObject(
-									"{path}/issue/{roleName}", request,
-									VaultCertificateResponse.class, path, roleName);
-						}
-						catch (HttpStatusCodeException e) {
-							throw VaultResponses.buildException(e);
-						}
-					}
-				});
+		return request;
 	}
-
 }
@@ -228,10 +228,9 @@ public class VaultSysTemplate implements VaultSysOperations {
 
 	}
 
-	private static class GetMounts implements
-			RestOperationsCallback<Map<String, VaultMount>> {
+	static class GetMounts implements RestOperationsCallback<Map<String, VaultMount>> {
 
-		private static final ParameterizedTypeReference<VaultMountsResponse> MOUNT_TYPE_REF = new ParameterizedTypeReference<VaultMountsResponse>() {
+		static final ParameterizedTypeReference<VaultMountsResponse> MOUNT_TYPE_REF = new ParameterizedTypeReference<VaultMountsResponse>() {
 		};
 
 		private final String path;
@@ -247,7 +246,10 @@ public class VaultSysTemplate implements VaultSysOperations {
 					HttpMethod.GET, null, MOUNT_TYPE_REF,
 					Collections.<String, Object> emptyMap());
 
-			VaultMountsResponse body = exchange.getBody();
+			return getMounts(exchange.getBody());
+		}
+
+		static Map<String, VaultMount> getMounts(VaultMountsResponse body) {
 
 			if (body.getData() != null) {
 				return body.getData();
@@ -256,7 +258,7 @@ public class VaultSysTemplate implements VaultSysOperations {
 			return body.getTopLevelMounts();
 		}
 
-		private static class VaultMountsResponse extends
+		static class VaultMountsResponse extends
 				VaultResponseSupport<Map<String, VaultMount>> {
 
 			private Map<String, VaultMount> topLevelMounts = new HashMap<String, VaultMount>();
@@ -19,42 +19,64 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
 import org.springframework.vault.authentication.ClientAuthentication;
+import org.springframework.vault.authentication.InvalidatableSessionManager;
 import org.springframework.vault.authentication.SessionManager;
 import org.springframework.vault.authentication.SimpleSessionManager;
+import org.springframework.vault.client.FailoverClientHttpRequestFactory;
 import org.springframework.vault.client.VaultClients;
 import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultEndpointProvider;
 import org.springframework.vault.client.VaultHttpHeaders;
 import org.springframework.vault.client.VaultResponses;
+import org.springframework.vault.support.VaultFlightRecorder;
 import org.springframework.vault.support.VaultResponse;
 import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.vault.support.VaultToken;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * This class encapsulates main Vault interaction. {@link VaultTemplate} will log into
  * Vault on initialization and use the token throughout the whole lifetime.
+ * <p>
+ * Requests rejected with {@literal 403 Forbidden} because Vault no longer accepts the
+ * session token (revoked or expired early) are retried once with a new token if the
+ * {@link SessionManager} is a {@link InvalidatableSessionManager}. Each
+ * {@literal 403 Forbidden} response costs one token lookup to tell invalid tokens from
+ * policy denials. Requests denied by policy are not retried. Retries are re-issued
+ * through all interceptors of the session {@link RestTemplate}.
  *
  * @author Mark Paluch
  * @see SessionManager
  */
 public class VaultTemplate implements InitializingBean, VaultOperations, DisposableBean {
 
+	/**
+	 * Marks a request replayed after re-authentication to prevent another retry.
+	 */
+	private static final ThreadLocal<Boolean> REPLAYING = new ThreadLocal<Boolean>();
+
 	private SessionManager sessionManager;
 
 	private RestTemplate sessionTemplate;
@@ -120,10 +142,36 @@ public class VaultTemplate implements InitializingBean, VaultOperations, Disposa
 				clientHttpRequestFactory);
 	}
 
+	/**
+	 * Creates a new {@link VaultTemplate} with a {@link VaultEndpointProvider},
+	 * {@link ClientHttpRequestFactory} and {@link SessionManager}. Requests fail over to
+	 * the next {@link VaultEndpoint} on connection errors and
+	 * {@literal 503 Service Unavailable} responses.
+	 *
+	 * @param endpointProvider must not be {@literal null}.
+	 * @param clientHttpRequestFactory must not be {@literal null}.
+	 * @param sessionManager must not be {@literal null}.
+	 * @see HealthAwareVaultEndpointProvider
+	 */
+	public VaultTemplate(VaultEndpointProvider endpointProvider,
+			ClientHttpRequestFactory clientHttpRequestFactory,
+			SessionManager sessionManager) {
+
+		this(getFirstEndpoint(endpointProvider), new FailoverClientHttpRequestFactory(
+				clientHttpRequestFactory, endpointProvider), sessionManager);
+	}
+
+	private static VaultEndpoint getFirstEndpoint(VaultEndpointProvider endpointProvider) {
+
+		Assert.notNull(endpointProvider, "VaultEndpointProvider must not be null");
+
+		return endpointProvider.getVaultEndpoints().get(0);
+	}
+
 	private RestTemplate createSessionTemplate(VaultEndpoint endpoint,
 			ClientHttpRequestFactory requestFactory) {
 
-		RestTemplate restTemplate = VaultClients.createRestTemplate(endpoint,
+		final RestTemplate restTemplate = VaultClients.createRestTemplate(endpoint,
 				requestFactory);
 
 		restTemplate.getInterceptors().add(new ClientHttpRequestInterceptor() {
@@ -132,16 +180,79 @@ public class VaultTemplate implements InitializingBean, VaultOperations, Disposa
 			public ClientHttpResponse intercept(HttpRequest request, byte[] body,
 					ClientHttpRequestExecution execution) throws IOException {
 
-				request.getHeaders().add(VaultHttpHeaders.VAULT_TOKEN,
-						sessionManager.getSessionToken().getToken());
+				VaultToken token = sessionManager.getSessionToken();
+				request.getHeaders().set(VaultHttpHeaders.VAULT_TOKEN, token.getToken());
+
+				ClientHttpResponse response = execution.execute(request, body);
+
+				if (REPLAYING.get() != null
+						|| response.getStatusCode() != HttpStatus.FORBIDDEN
+						|| !(sessionManager instanceof InvalidatableSessionManager)
+						|| !isTokenInvalid(token)) {
+					return response;
+				}
+
+				response.close();
+
+				((InvalidatableSessionManager) sessionManager)
+						.invalidateSessionToken(token);
 
-				return execution.execute(request, body);
+				VaultFlightRecorder.recordRetry();
+
+				return replay(restTemplate, request, body);
 			}
 		});
 
 		return restTemplate;
 	}
 
+	/**
+	 * Re-issue {@code request} through all interceptors of {@code restTemplate}. The
+	 * replayed request obtains a new session token and is not retried again.
+	 */
+	private static ClientHttpResponse replay(RestTemplate restTemplate,
+			HttpRequest request, byte[] body) throws IOException {
+
+		ClientHttpRequest replay = restTemplate.getRequestFactory().createRequest(
+				request.getURI(), request.getMethod());
+
+		replay.getHeaders().putAll(request.getHeaders());
+		replay.getHeaders().remove(VaultHttpHeaders.VAULT_TOKEN);
+		StreamUtils.copy(body, replay.getBody());
+
+		REPLAYING.set(Boolean.TRUE);
+
+		try {
+			return replay.execute();
+		}
+		finally {
+			REPLAYING.remove();
+		}
+	}
+
+	/**
+	 * Check whether Vault rejects {@code token} by looking the token up. Vault responds
+	 * with {@literal 403 Forbidden} for invalid tokens and for operations that are denied
+	 * by policy. Only invalid tokens qualify for re-authentication.
+	 *
+	 * @param token the token to check.
+	 * @return {@literal true} if the token is rejected by Vault.
+	 */
+	private boolean isTokenInvalid(VaultToken token) {
+
+		try {
+			plainTemplate.exchange("/auth/token/lookup-self", HttpMethod.GET,
+					new HttpEntity<Object>(VaultHttpHeaders.from(token)), Map.class);
+			return false;
+		}
+		catch (HttpStatusCodeException e) {
+			return e.getStatusCode() == HttpStatus.FORBIDDEN;
+		}
+		catch (RestClientException e) {
+			return false;
+		}
+	}
+
 	/**
 	 * Set the {@link SessionManager}.
 	 *
@@ -168,6 +279,20 @@ public class VaultTemplate implements InitializingBean, VaultOperations, Disposa
 		}
 	}
 
+	/**
+	 * Return a view of this template applying {@code timeout} to each call. The timeout
+	 * applies to all requests issued during a call, including session token acquisition
+	 * and fail over.
+	 *
+	 * @param timeout must not be negative.
+	 * @param unit must not be {@literal null}.
+	 * @return the {@link TimeoutVaultTemplate} view.
+	 * @see TimeoutVaultTemplate
+	 */
+	public TimeoutVaultTemplate withTimeout(long timeout, TimeUnit unit) {
+		return new TimeoutVaultTemplate(this, timeout, unit);
+	}
+
 	@Override
 	public VaultSysOperations opsForSys() {
 		return new VaultSysTemplate(this);
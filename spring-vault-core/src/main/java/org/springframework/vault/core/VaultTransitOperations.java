@@ -17,6 +17,11 @@ package org.springframework.vault.core;
 
 import java.util.List;
 
+import org.springframework.vault.support.Ciphertext;
+import org.springframework.vault.support.Plaintext;
+import org.springframework.vault.support.VaultDataKey;
+import org.springframework.vault.support.VaultDecryptionResult;
+import org.springframework.vault.support.VaultEncryptionResult;
 import org.springframework.vault.support.VaultTransitContext;
 import org.springframework.vault.support.VaultTransitKey;
 import org.springframework.vault.support.VaultTransitKeyConfiguration;
@@ -151,4 +156,62 @@ public interface VaultTransitOperations {
 	 * @see #rotate(String)
 	 */
 	String rewrap(String keyName, String ciphertext, VaultTransitContext transitRequest);
+
+	/**
+	 * Encrypts the provided batch of plaintext using the named key. Each
+	 * {@link Plaintext} may carry its own {@link VaultTransitContext}. The batch is sent
+	 * using Vault's {@code batch_input} and split into chunks if it exceeds the
+	 * configured batch size.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param batchRequest must not be {@literal null}.
+	 * @return the encryption results in the order of {@code batchRequest}. Failed items
+	 * report their cause through {@link VaultEncryptionResult#getCause()}.
+	 */
+	List<VaultEncryptionResult> encrypt(String keyName, List<Plaintext> batchRequest);
+
+	/**
+	 * Decrypts the provided batch of cipher text using the named key. Each
+	 * {@link Ciphertext} may carry its own {@link VaultTransitContext}. The batch is sent
+	 * using Vault's {@code batch_input} and split into chunks if it exceeds the
+	 * configured batch size.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param batchRequest must not be {@literal null}.
+	 * @return the decryption results in the order of {@code batchRequest}. Failed items
+	 * report their cause through {@link VaultDecryptionResult#getCause()}.
+	 */
+	List<VaultDecryptionResult> decrypt(String keyName, List<Ciphertext> batchRequest);
+
+	/**
+	 * Rewrap the provided batch of cipher text using the latest version of the named
+	 * key. Each {@link Ciphertext} may carry its own {@link VaultTransitContext}.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param batchRequest must not be {@literal null}.
+	 * @return the rewrapped cipher text in the order of {@code batchRequest}. Failed
+	 * items report their cause through {@link VaultEncryptionResult#getCause()}.
+	 * @see #rotate(String)
+	 */
+	List<VaultEncryptionResult> rewrap(String keyName, List<Ciphertext> batchRequest);
+
+	/**
+	 * Generate a new data key for local encryption using the named key. The returned
+	 * {@link VaultDataKey} contains the plaintext key and the key wrapped by the named
+	 * key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @return the generated {@link VaultDataKey}.
+	 * @see #decrypt(String, String, VaultTransitContext)
+	 */
+	VaultDataKey createDataKey(String keyName);
+
+	/**
+	 * Generate a new data key for local encryption using the named key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param transitRequest may be {@literal null} if no request options provided.
+	 * @return the generated {@link VaultDataKey}.
+	 */
+	VaultDataKey createDataKey(String keyName, VaultTransitContext transitRequest);
 }
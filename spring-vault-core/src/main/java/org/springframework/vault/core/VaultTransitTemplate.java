@@ -15,22 +15,42 @@
  */
 package org.springframework.vault.core;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.util.Assert;
 import org.springframework.util.Base64Utils;
+import org.springframework.util.StringUtils;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.client.VaultResponses;
+import org.springframework.vault.support.Ciphertext;
+import org.springframework.vault.support.Plaintext;
+import org.springframework.vault.support.VaultDataKey;
+import org.springframework.vault.support.VaultDecryptionResult;
+import org.springframework.vault.support.VaultEncryptionResult;
+import org.springframework.vault.support.VaultFlightRecorder;
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+import org.springframework.vault.support.VaultFlightRecorder.Recording;
 import org.springframework.vault.support.VaultResponse;
 import org.springframework.vault.support.VaultResponseSupport;
 import org.springframework.vault.support.VaultTransitContext;
 import org.springframework.vault.support.VaultTransitKey;
 import org.springframework.vault.support.VaultTransitKeyConfiguration;
 import org.springframework.vault.support.VaultTransitKeyCreationRequest;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestOperations;
 
 /**
  * Default implementation of {@link VaultTransitOperations}.
@@ -39,10 +59,19 @@ import org.springframework.vault.support.VaultTransitKeyCreationRequest;
  */
 public class VaultTransitTemplate implements VaultTransitOperations {
 
+	/**
+	 * Default number of items sent within a single {@code batch_input} request.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
 	private final VaultOperations vaultOperations;
 
 	private final String path;
 
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private TaskExecutor taskExecutor;
+
 	public VaultTransitTemplate(VaultOperations vaultOperations, String path) {
 
 		Assert.notNull(vaultOperations, "VaultOperations must not be null");
@@ -52,6 +81,30 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 		this.path = path;
 	}
 
+	/**
+	 * Set the maximal number of items sent within a single {@code batch_input} request.
+	 * Larger batches are split into multiple requests. Defaults to
+	 * {@link #DEFAULT_BATCH_SIZE}.
+	 *
+	 * @param batchSize must be greater than zero.
+	 */
+	public void setBatchSize(int batchSize) {
+
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than zero");
+
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the {@link TaskExecutor} to send chunks of a batch in parallel. Chunks are sent
+	 * sequentially on the calling thread if no {@link TaskExecutor} is set.
+	 *
+	 * @param taskExecutor the {@link TaskExecutor}, may be {@literal null}.
+	 */
+	public void setTaskExecutor(TaskExecutor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
 	@Override
 	public void createKey(String keyName) {
 
@@ -132,9 +185,7 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 
 		request.put("plaintext", Base64Utils.encodeToString(plaintext.getBytes()));
 
-		return (String) vaultOperations
-				.write(String.format("%s/encrypt/%s", path, keyName), request).getData()
-				.get("ciphertext");
+		return (String) write("encrypt", keyName, request).get("ciphertext");
 	}
 
 	@Override
@@ -152,9 +203,7 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 			applyTransitOptions(transitRequest, request);
 		}
 
-		return (String) vaultOperations
-				.write(String.format("%s/encrypt/%s", path, keyName), request).getData()
-				.get("ciphertext");
+		return (String) write("encrypt", keyName, request).get("ciphertext");
 	}
 
 	@Override
@@ -167,9 +216,7 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 
 		request.put("ciphertext", ciphertext);
 
-		String plaintext = (String) vaultOperations
-				.write(String.format("%s/decrypt/%s", path, keyName), request).getData()
-				.get("plaintext");
+		String plaintext = (String) write("decrypt", keyName, request).get("plaintext");
 
 		return new String(Base64Utils.decodeFromString(plaintext));
 	}
@@ -189,9 +236,7 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 			applyTransitOptions(transitRequest, request);
 		}
 
-		String plaintext = (String) vaultOperations
-				.write(String.format("%s/decrypt/%s", path, keyName), request).getData()
-				.get("plaintext");
+		String plaintext = (String) write("decrypt", keyName, request).get("plaintext");
 
 		return Base64Utils.decodeFromString(plaintext);
 	}
@@ -205,9 +250,7 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 		Map<String, String> request = new LinkedHashMap<String, String>();
 		request.put("ciphertext", ciphertext);
 
-		return (String) vaultOperations
-				.write(String.format("%s/rewrap/%s", path, keyName), request).getData()
-				.get("ciphertext");
+		return (String) write("rewrap", keyName, request).get("ciphertext");
 	}
 
 	@Override
@@ -225,12 +268,415 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 			applyTransitOptions(transitRequest, request);
 		}
 
-		return (String) vaultOperations
-				.write(String.format("%s/rewrap/%s", path, keyName), request).getData()
-				.get("ciphertext");
+		return (String) write("rewrap", keyName, request).get("ciphertext");
+	}
+
+	@Override
+	public VaultDataKey createDataKey(String keyName) {
+		return createDataKey(keyName, null);
 	}
 
-	private void applyTransitOptions(VaultTransitContext transitRequest,
+	@Override
+	public VaultDataKey createDataKey(String keyName, VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+
+		Map<String, String> request = new LinkedHashMap<String, String>();
+
+		if (transitRequest != null) {
+			applyTransitOptions(transitRequest, request);
+		}
+
+		Map<String, Object> data = write("datakey/plaintext", keyName, request);
+
+		return VaultDataKey.of(
+				Base64Utils.decodeFromString((String) data.get("plaintext")),
+				(String) data.get("ciphertext"));
+	}
+
+	@Override
+	public List<VaultEncryptionResult> encrypt(String keyName,
+			List<Plaintext> batchRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.notNull(batchRequest, "BatchRequest must not be null");
+
+		List<Map<String, String>> batchInput = new ArrayList<Map<String, String>>(
+				batchRequest.size());
+		List<VaultTransitContext> contexts = new ArrayList<VaultTransitContext>(
+				batchRequest.size());
+
+		for (Plaintext plaintext : batchRequest) {
+
+			Map<String, String> item = new LinkedHashMap<String, String>();
+
+			item.put("plaintext", Base64Utils.encodeToString(plaintext.getPlaintext()));
+			applyTransitOptions(plaintext.getContext(), item);
+
+			batchInput.add(item);
+			contexts.add(plaintext.getContext());
+		}
+
+		return toEncryptionResults(
+				writeBatch(String.format("%s/encrypt/%s", path, keyName), batchInput),
+				contexts);
+	}
+
+	@Override
+	public List<VaultDecryptionResult> decrypt(String keyName,
+			List<Ciphertext> batchRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.notNull(batchRequest, "BatchRequest must not be null");
+
+		List<Map<String, String>> batchResults = writeBatch(
+				String.format("%s/decrypt/%s", path, keyName),
+				toBatchInput(batchRequest));
+
+		List<VaultDecryptionResult> results = new ArrayList<VaultDecryptionResult>(
+				batchRequest.size());
+
+		for (int i = 0; i < batchResults.size(); i++) {
+
+			Map<String, String> result = batchResults.get(i);
+
+			if (StringUtils.hasText(result.get("error"))) {
+				results.add(new VaultDecryptionResult(toException(result)));
+				continue;
+			}
+
+			String plaintext = result.get("plaintext");
+			results.add(new VaultDecryptionResult(Plaintext.of(
+					plaintext != null ? Base64Utils.decodeFromString(plaintext)
+							: new byte[0]).with(batchRequest.get(i).getContext())));
+		}
+
+		return results;
+	}
+
+	@Override
+	public List<VaultEncryptionResult> rewrap(String keyName,
+			List<Ciphertext> batchRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.notNull(batchRequest, "BatchRequest must not be null");
+
+		List<VaultTransitContext> contexts = new ArrayList<VaultTransitContext>(
+				batchRequest.size());
+
+		for (Ciphertext ciphertext : batchRequest) {
+			contexts.add(ciphertext.getContext());
+		}
+
+		return toEncryptionResults(
+				writeBatch(String.format("%s/rewrap/%s", path, keyName),
+						toBatchInput(batchRequest)), contexts);
+	}
+
+	/**
+	 * Write {@code request} to the transit {@code operation} endpoint of {@code keyName}.
+	 *
+	 * @return the response data.
+	 */
+	private Map<String, Object> write(String operation, String keyName,
+			Map<String, String> request) {
+
+		String path = String.format("%s/%s/%s", this.path, operation, keyName);
+		Recording recording = VaultFlightRecorder.begin(Operation.TRANSIT);
+		recording.setName(path);
+
+		try {
+
+			Map<String, Object> data = vaultOperations.write(path, request).getData();
+
+			if (recording.isEnabled()) {
+				recording.setItems(1);
+				recording.setRequestBytes(getPayloadSize(request));
+				recording.setResponseBytes(getPayloadSize(data));
+			}
+
+			return data;
+		}
+		catch (RuntimeException e) {
+			recording.setFailure(e);
+			throw e;
+		}
+		finally {
+			recording.commit();
+		}
+	}
+
+	/**
+	 * Send {@code batchInput} in chunks of {@link #setBatchSize(int) batch size} items.
+	 * Chunks are sent in parallel if a {@link TaskExecutor} is configured and inherit the
+	 * {@link Deadline#current() caller's deadline}. Failed chunks report the failure for
+	 * each of their items.
+	 *
+	 * @return the {@code batch_results} in the order of {@code batchInput}.
+	 */
+	private List<Map<String, String>> writeBatch(String path,
+			List<Map<String, String>> batchInput) {
+
+		Recording recording = VaultFlightRecorder.begin(Operation.TRANSIT);
+		recording.setName(path);
+
+		try {
+
+			List<Map<String, String>> results = writeChunks(path, batchInput);
+
+			if (recording.isEnabled()) {
+
+				long requestBytes = 0;
+				long responseBytes = 0;
+
+				for (Map<String, String> item : batchInput) {
+					requestBytes += getPayloadSize(item);
+				}
+
+				for (Map<String, String> result : results) {
+					responseBytes += getPayloadSize(result);
+				}
+
+				recording.setItems(batchInput.size());
+				recording.setRequestBytes(requestBytes);
+				recording.setResponseBytes(responseBytes);
+			}
+
+			return results;
+		}
+		finally {
+			recording.commit();
+		}
+	}
+
+	private List<Map<String, String>> writeChunks(final String path,
+			List<Map<String, String>> batchInput) {
+
+		List<List<Map<String, String>>> chunks = new ArrayList<List<Map<String, String>>>();
+
+		for (int i = 0; i < batchInput.size(); i += batchSize) {
+			chunks.add(batchInput.subList(i, Math.min(i + batchSize, batchInput.size())));
+		}
+
+		List<Map<String, String>> results = new ArrayList<Map<String, String>>(
+				batchInput.size());
+
+		if (taskExecutor == null || chunks.size() < 2) {
+
+			for (List<Map<String, String>> chunk : chunks) {
+				results.addAll(writeChunk(path, chunk));
+			}
+
+			return results;
+		}
+
+		List<FutureTask<List<Map<String, String>>>> tasks = new ArrayList<FutureTask<List<Map<String, String>>>>(
+				chunks.size());
+		final Deadline deadline = Deadline.current();
+
+		for (final List<Map<String, String>> chunk : chunks) {
+
+			FutureTask<List<Map<String, String>>> task = new FutureTask<List<Map<String, String>>>(
+					new Callable<List<Map<String, String>>>() {
+
+						@Override
+						public List<Map<String, String>> call() {
+
+							Deadline previous = Deadline.bind(deadline);
+
+							try {
+								return writeChunk(path, chunk);
+							}
+							finally {
+								Deadline.restore(previous);
+							}
+						}
+					});
+
+			taskExecutor.execute(task);
+			tasks.add(task);
+		}
+
+		for (int i = 0; i < tasks.size(); i++) {
+
+			try {
+				results.addAll(tasks.get(i).get());
+			}
+			catch (ExecutionException e) {
+				results.addAll(toErrors(chunks.get(i).size(), e.getCause()));
+			}
+			catch (InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+
+				for (int j = i; j < tasks.size(); j++) {
+					tasks.get(j).cancel(true);
+					results.addAll(toErrors(chunks.get(j).size(), e));
+				}
+
+				break;
+			}
+		}
+
+		return results;
+	}
+
+	private List<Map<String, String>> writeChunk(final String path,
+			List<Map<String, String>> chunk) {
+
+		final Map<String, Object> request = Collections.<String, Object> singletonMap(
+				"batch_input", chunk);
+
+		try {
+
+			List<Map<String, String>> results = vaultOperations
+					.doWithSession(new RestOperationsCallback<List<Map<String, String>>>() {
+
+						@Override
+						public List<Map<String, String>> doWithRestOperations(
+								RestOperations restOperations) {
+
+							try {
+								return getBatchResults(restOperations.postForObject(
+										path, request, VaultResponse.class));
+							}
+							catch (HttpStatusCodeException e) {
+
+								// Vault responds with an error status if all items failed
+								List<Map<String, String>> results = getBatchResults(e);
+
+								if (results != null) {
+									return results;
+								}
+
+								throw VaultResponses.buildException(e, path);
+							}
+						}
+					});
+
+			if (results == null || results.size() != chunk.size()) {
+				throw new VaultException(String.format(
+						"Expected %d batch results from %s but received %s",
+						chunk.size(), path, results == null ? "none" : results.size()));
+			}
+
+			return results;
+		}
+		catch (RuntimeException e) {
+			return toErrors(chunk.size(), e);
+		}
+	}
+
+	/**
+	 * @return the number of characters of {@link String} values in {@code data}.
+	 */
+	private static long getPayloadSize(Map<String, ?> data) {
+
+		long size = 0;
+
+		if (data != null) {
+			for (Object value : data.values()) {
+				if (value instanceof String) {
+					size += ((String) value).length();
+				}
+			}
+		}
+
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, String>> getBatchResults(VaultResponse response) {
+
+		if (response == null || response.getData() == null) {
+			return null;
+		}
+
+		return (List<Map<String, String>>) response.getData().get("batch_results");
+	}
+
+	private static List<Map<String, String>> getBatchResults(HttpStatusCodeException e) {
+
+		try {
+			return getBatchResults(VaultResponses.unwrap(e.getResponseBodyAsString(),
+					VaultResponse.class));
+		}
+		catch (RuntimeException o_O) {
+			return null;
+		}
+	}
+
+	/**
+	 * Report the failure of a whole chunk for each of its {@code count} items. The
+	 * items retain {@code cause} so callers can tell failed requests from failed items.
+	 */
+	private static List<Map<String, String>> toErrors(int count, Throwable cause) {
+
+		VaultException exception;
+
+		if (cause instanceof VaultException) {
+			exception = (VaultException) cause;
+		}
+		else {
+			exception = new VaultException(cause.getMessage() != null ? cause
+					.getMessage() : cause.toString(), cause);
+		}
+
+		Map<String, String> item = new FailedItem(exception);
+
+		return Collections.nCopies(count, item);
+	}
+
+	private static VaultException toException(Map<String, String> result) {
+
+		if (result instanceof FailedItem) {
+			return ((FailedItem) result).exception;
+		}
+
+		return new VaultException(result.get("error"));
+	}
+
+	private static List<Map<String, String>> toBatchInput(List<Ciphertext> batchRequest) {
+
+		List<Map<String, String>> batchInput = new ArrayList<Map<String, String>>(
+				batchRequest.size());
+
+		for (Ciphertext ciphertext : batchRequest) {
+
+			Map<String, String> item = new LinkedHashMap<String, String>();
+
+			item.put("ciphertext", ciphertext.getCiphertext());
+			applyTransitOptions(ciphertext.getContext(), item);
+
+			batchInput.add(item);
+		}
+
+		return batchInput;
+	}
+
+	private static List<VaultEncryptionResult> toEncryptionResults(
+			List<Map<String, String>> batchResults, List<VaultTransitContext> contexts) {
+
+		List<VaultEncryptionResult> results = new ArrayList<VaultEncryptionResult>(
+				batchResults.size());
+
+		for (int i = 0; i < batchResults.size(); i++) {
+
+			Map<String, String> result = batchResults.get(i);
+
+			if (StringUtils.hasText(result.get("error"))) {
+				results.add(new VaultEncryptionResult(toException(result)));
+			}
+			else {
+				results.add(new VaultEncryptionResult(Ciphertext.of(
+						result.get("ciphertext")).with(contexts.get(i))));
+			}
+		}
+
+		return results;
+	}
+
+	static void applyTransitOptions(VaultTransitContext transitRequest,
 			Map<String, String> request) {
 
 		if (transitRequest.getContext() != null) {
@@ -243,6 +689,22 @@ public class VaultTransitTemplate implements VaultTransitOperations {
 		}
 	}
 
+	/**
+	 * Batch result of an item whose chunk failed as a whole.
+	 */
+	@SuppressWarnings("serial")
+	private static class FailedItem extends HashMap<String, String> {
+
+		final VaultException exception;
+
+		FailedItem(VaultException exception) {
+
+			this.exception = exception;
+			put("error", exception.getMessage() != null ? exception.getMessage()
+					: exception.toString());
+		}
+	}
+
 	@Data
 	static class VaultTransitKeyImpl implements VaultTransitKey {
 
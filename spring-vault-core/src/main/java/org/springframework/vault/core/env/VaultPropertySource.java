@@ -31,6 +31,9 @@ import org.springframework.vault.core.VaultTemplate;
 import org.springframework.vault.core.util.PropertyTransformer;
 import org.springframework.vault.core.util.PropertyTransformers;
 import org.springframework.vault.support.JsonMapFlattener;
+import org.springframework.vault.support.VaultFlightRecorder;
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+import org.springframework.vault.support.VaultFlightRecorder.Recording;
 import org.springframework.vault.support.VaultResponse;
 
 /**
@@ -120,10 +123,24 @@ public class VaultPropertySource extends EnumerablePropertySource<VaultOperation
 				logger.debug(String.format("Fetching properties from Vault at %s", path));
 			}
 
-			Map<String, String> properties = doGetProperties(path);
+			Recording recording = VaultFlightRecorder.begin(Operation.PROPERTY_SOURCE);
+			recording.setName(path);
 
-			if (properties != null) {
-				this.properties.putAll(doTransformProperties(properties));
+			try {
+
+				Map<String, String> properties = doGetProperties(path);
+
+				if (properties != null) {
+					this.properties.putAll(doTransformProperties(properties));
+					recording.setItems(properties.size());
+				}
+			}
+			catch (RuntimeException e) {
+				recording.setFailure(e);
+				throw e;
+			}
+			finally {
+				recording.commit();
 			}
 		}
 	}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.security.GeneralSecurityException;
+import java.security.spec.AlgorithmParameterSpec;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.vault.VaultException;
+
+/**
+ * AES-GCM frame cipher. Each frame is encrypted with a 96 bit IV composed of a random
+ * nonce prefix, the frame counter and a flag marking the final frame. Binding the
+ * counter and the final flag to the IV detects reordered, dropped and truncated frames.
+ * The envelope header is authenticated as additional data of each frame.
+ * <p>
+ * {@code GCMParameterSpec} and {@link Cipher#updateAAD(byte[])} are resolved
+ * reflectively as they are not available on Java 6.
+ *
+ * @author Mark Paluch
+ */
+class AesGcm {
+
+	static final int NONCE_PREFIX_LENGTH = 7;
+
+	static final int TAG_LENGTH = 16;
+
+	private static final int IV_LENGTH = 12;
+
+	private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+	private static final Constructor<?> GCM_PARAMETER_SPEC;
+
+	private static final Method UPDATE_AAD = ReflectionUtils.findMethod(Cipher.class,
+			"updateAAD", byte[].class);
+
+	static {
+
+		Constructor<?> constructor = null;
+
+		try {
+			constructor = ClassUtils.forName("javax.crypto.spec.GCMParameterSpec",
+					AesGcm.class.getClassLoader()).getConstructor(int.class, byte[].class);
+		}
+		catch (Exception e) {
+			// not available
+		}
+
+		GCM_PARAMETER_SPEC = constructor;
+	}
+
+	private final SecretKeySpec key;
+
+	private final byte[] noncePrefix;
+
+	private final byte[] associatedData;
+
+	private final Cipher cipher;
+
+	/**
+	 * Create a new {@link AesGcm} cipher.
+	 *
+	 * @param key the AES key.
+	 * @param noncePrefix random nonce prefix of {@link #NONCE_PREFIX_LENGTH} bytes.
+	 * @param associatedData additional data to authenticate with each frame.
+	 */
+	AesGcm(byte[] key, byte[] noncePrefix, byte[] associatedData) {
+
+		Assert.state(isAvailable(), "AES-GCM requires Java 7 or newer");
+		Assert.isTrue(noncePrefix.length == NONCE_PREFIX_LENGTH, String.format(
+				"Nonce prefix must be %d bytes long", NONCE_PREFIX_LENGTH));
+
+		this.key = new SecretKeySpec(key, "AES");
+		this.noncePrefix = noncePrefix;
+		this.associatedData = associatedData;
+
+		try {
+			this.cipher = Cipher.getInstance(TRANSFORMATION);
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException(String.format("Cannot obtain %s cipher",
+					TRANSFORMATION), e);
+		}
+	}
+
+	/**
+	 * @return {@literal true} if the runtime provides the AES-GCM parameter API.
+	 */
+	static boolean isAvailable() {
+		return GCM_PARAMETER_SPEC != null && UPDATE_AAD != null;
+	}
+
+	/**
+	 * Encrypt a frame.
+	 *
+	 * @return the number of bytes written to {@code output}.
+	 */
+	int encrypt(int counter, boolean last, byte[] input, int length, byte[] output) {
+
+		try {
+			init(Cipher.ENCRYPT_MODE, counter, last);
+			return cipher.doFinal(input, 0, length, output, 0);
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot encrypt frame", e);
+		}
+	}
+
+	/**
+	 * Decrypt and authenticate a frame.
+	 *
+	 * @return the number of bytes written to {@code output}.
+	 * @throws VaultException if the frame cannot be authenticated.
+	 */
+	int decrypt(int counter, boolean last, byte[] input, int length, byte[] output) {
+
+		try {
+			init(Cipher.DECRYPT_MODE, counter, last);
+			return cipher.doFinal(input, 0, length, output, 0);
+		}
+		catch (BadPaddingException e) {
+			throw new VaultException(String.format(
+					"Envelope frame %d cannot be authenticated", counter), e);
+		}
+		catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot decrypt frame", e);
+		}
+	}
+
+	private void init(int mode, int counter, boolean last)
+			throws GeneralSecurityException {
+
+		byte[] iv = new byte[IV_LENGTH];
+
+		System.arraycopy(noncePrefix, 0, iv, 0, NONCE_PREFIX_LENGTH);
+		iv[7] = (byte) (counter >>> 24);
+		iv[8] = (byte) (counter >>> 16);
+		iv[9] = (byte) (counter >>> 8);
+		iv[10] = (byte) counter;
+		iv[11] = (byte) (last ? 1 : 0);
+
+		AlgorithmParameterSpec spec = (AlgorithmParameterSpec) BeanUtils
+				.instantiateClass(GCM_PARAMETER_SPEC, TAG_LENGTH * 8, iv);
+
+		cipher.init(mode, key, spec);
+		ReflectionUtils.invokeMethod(UPDATE_AAD, cipher, (Object) associatedData);
+	}
+}
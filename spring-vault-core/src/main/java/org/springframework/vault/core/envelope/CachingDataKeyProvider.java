@@ -0,0 +1,387 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.VaultDataKey;
+
+/**
+ * {@link DataKeyProvider} decorator caching data keys to reduce Vault round-trips.
+ * <p>
+ * A data key obtained from the delegate is reused for encryption until it was handed
+ * out {@link #setMaxUses(int) max uses} times, encrypted {@link #setMaxBytes(long) max
+ * bytes} or reached its {@link #setMaxAge(long, TimeUnit) max age}, whichever comes
+ * first. The next request then obtains a new data key. The byte budget is accounted when
+ * data keys are released so concurrent encryptions may exceed it by their combined
+ * size. A single caller obtains the new data key without holding the cache lock, other
+ * callers requiring a data key wait for the rotation while decryption is not blocked.
+ * <p>
+ * Unwrapped data keys are kept in a least-recently-used cache keyed by the wrapped key so
+ * repeated decryption of envelopes sharing a data key requires a single unwrap request.
+ * Cached keys are held in byte arrays that are overwritten with zeros on rotation,
+ * eviction and {@link #destroy()}. Callers receive copies of cached keys.
+ *
+ * @author Mark Paluch
+ */
+public class CachingDataKeyProvider implements DataKeyProvider, DisposableBean {
+
+	/**
+	 * Default number of encryptions per data key.
+	 */
+	public static final int DEFAULT_MAX_USES = 10000;
+
+	/**
+	 * Default number of bytes encrypted per data key (1 GiB).
+	 */
+	public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+
+	/**
+	 * Default data key age in milliseconds (10 minutes).
+	 */
+	public static final long DEFAULT_MAX_AGE = TimeUnit.MINUTES.toMillis(10);
+
+	/**
+	 * Default number of cached unwrapped data keys.
+	 */
+	public static final int DEFAULT_MAX_DECRYPTION_KEYS = 100;
+
+	private final DataKeyProvider delegate;
+
+	private final Object lock = new Object();
+
+	private final DecryptionKeyCache decryptionKeys = new DecryptionKeyCache();
+
+	private CachedDataKey current;
+
+	private boolean rotating;
+
+	private int maxUses = DEFAULT_MAX_USES;
+
+	private long maxBytes = DEFAULT_MAX_BYTES;
+
+	private long maxAge = DEFAULT_MAX_AGE;
+
+	/**
+	 * Create a new {@link CachingDataKeyProvider} given the delegate
+	 * {@link DataKeyProvider}.
+	 *
+	 * @param delegate must not be {@literal null}.
+	 */
+	public CachingDataKeyProvider(DataKeyProvider delegate) {
+
+		Assert.notNull(delegate, "DataKeyProvider must not be null");
+
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Set the number of encryptions per data key. Defaults to {@link #DEFAULT_MAX_USES}.
+	 *
+	 * @param maxUses must be greater than zero.
+	 */
+	public void setMaxUses(int maxUses) {
+
+		Assert.isTrue(maxUses > 0, "Max uses must be greater than zero");
+
+		synchronized (lock) {
+			this.maxUses = maxUses;
+		}
+	}
+
+	/**
+	 * Set the number of plaintext bytes encrypted per data key. Defaults to
+	 * {@link #DEFAULT_MAX_BYTES}.
+	 *
+	 * @param maxBytes must be greater than zero.
+	 */
+	public void setMaxBytes(long maxBytes) {
+
+		Assert.isTrue(maxBytes > 0, "Max bytes must be greater than zero");
+
+		synchronized (lock) {
+			this.maxBytes = maxBytes;
+		}
+	}
+
+	/**
+	 * Set the maximal age of a data key used for encryption. Defaults to
+	 * {@link #DEFAULT_MAX_AGE} milliseconds.
+	 *
+	 * @param maxAge must not be negative.
+	 * @param unit must not be {@literal null}.
+	 */
+	public void setMaxAge(long maxAge, TimeUnit unit) {
+
+		Assert.isTrue(maxAge >= 0, "Max age must not be negative");
+		Assert.notNull(unit, "TimeUnit must not be null");
+
+		synchronized (lock) {
+			this.maxAge = unit.toMillis(maxAge);
+		}
+	}
+
+	/**
+	 * Set the number of cached unwrapped data keys. Defaults to
+	 * {@link #DEFAULT_MAX_DECRYPTION_KEYS}.
+	 *
+	 * @param maxDecryptionKeys must not be negative. Zero disables caching of unwrapped
+	 * keys.
+	 */
+	public void setMaxDecryptionKeys(int maxDecryptionKeys) {
+
+		Assert.isTrue(maxDecryptionKeys >= 0, "Max decryption keys must not be negative");
+
+		synchronized (lock) {
+			decryptionKeys.setMaxSize(maxDecryptionKeys);
+		}
+	}
+
+	@Override
+	public VaultDataKey getDataKey() {
+
+		while (true) {
+
+			synchronized (lock) {
+
+				if (current != null && !isExhausted(current)) {
+
+					current.uses++;
+
+					return VaultDataKey.of(current.key.clone(), current.wrappedKey);
+				}
+
+				if (rotating) {
+					awaitRotation();
+					continue;
+				}
+
+				rotating = true;
+			}
+
+			rotate();
+		}
+	}
+
+	@Override
+	public void releaseDataKey(VaultDataKey dataKey, long encryptedBytes) {
+
+		Assert.notNull(dataKey, "VaultDataKey must not be null");
+
+		synchronized (lock) {
+
+			if (current != null && current.wrappedKey.equals(dataKey.getCiphertext())) {
+				current.bytes += encryptedBytes;
+			}
+		}
+
+		dataKey.destroy();
+	}
+
+	@Override
+	public byte[] decryptDataKey(String wrappedKey) {
+
+		Assert.hasText(wrappedKey, "Wrapped key must not be empty");
+
+		synchronized (lock) {
+
+			byte[] key = decryptionKeys.get(wrappedKey);
+
+			if (key != null) {
+				return key.clone();
+			}
+		}
+
+		byte[] key = delegate.decryptDataKey(wrappedKey);
+
+		synchronized (lock) {
+			decryptionKeys.add(wrappedKey, key.clone());
+		}
+
+		return key;
+	}
+
+	/**
+	 * Overwrite all cached keys with zeros and clear the cache.
+	 */
+	@Override
+	public void destroy() {
+
+		synchronized (lock) {
+
+			if (current != null) {
+				current.destroy();
+				current = null;
+			}
+
+			decryptionKeys.clear();
+		}
+	}
+
+	private boolean isExhausted(CachedDataKey dataKey) {
+
+		return dataKey.uses >= maxUses || dataKey.bytes >= maxBytes
+				|| System.currentTimeMillis() - dataKey.created >= maxAge;
+	}
+
+	/**
+	 * Obtain a new data key from the delegate outside of {@link #lock} and swap it in.
+	 * Must be called by the caller that set {@link #rotating}.
+	 */
+	private void rotate() {
+
+		VaultDataKey dataKey = null;
+
+		try {
+
+			dataKey = delegate.getDataKey();
+
+			CachedDataKey rotated = new CachedDataKey(dataKey.getPlaintext().clone(),
+					dataKey.getCiphertext());
+
+			synchronized (lock) {
+
+				if (current != null) {
+					current.destroy();
+				}
+
+				current = rotated;
+				decryptionKeys.add(rotated.wrappedKey, rotated.key.clone());
+			}
+		}
+		finally {
+
+			synchronized (lock) {
+				rotating = false;
+				lock.notifyAll();
+			}
+
+			if (dataKey != null) {
+				delegate.releaseDataKey(dataKey, 0);
+			}
+		}
+	}
+
+	private void awaitRotation() {
+
+		try {
+			lock.wait();
+		}
+		catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new VaultException("Interrupted while awaiting data key rotation", e);
+		}
+	}
+
+	/**
+	 * Data key currently used for encryption along with its usage.
+	 */
+	private static class CachedDataKey {
+
+		final byte[] key;
+
+		final String wrappedKey;
+
+		final long created = System.currentTimeMillis();
+
+		int uses;
+
+		long bytes;
+
+		CachedDataKey(byte[] key, String wrappedKey) {
+
+			this.key = key;
+			this.wrappedKey = wrappedKey;
+		}
+
+		void destroy() {
+			Arrays.fill(key, (byte) 0);
+		}
+	}
+
+	/**
+	 * Access-ordered cache of unwrapped keys zeroing keys on eviction.
+	 */
+	@SuppressWarnings("serial")
+	private static class DecryptionKeyCache extends LinkedHashMap<String, byte[]> {
+
+		private int maxSize = DEFAULT_MAX_DECRYPTION_KEYS;
+
+		DecryptionKeyCache() {
+			super(16, 0.75f, true);
+		}
+
+		void setMaxSize(int maxSize) {
+
+			this.maxSize = maxSize;
+
+			while (size() > maxSize) {
+				evict(keySet().iterator().next());
+			}
+		}
+
+		void add(String wrappedKey, byte[] key) {
+
+			if (maxSize == 0) {
+				Arrays.fill(key, (byte) 0);
+				return;
+			}
+
+			byte[] previous = put(wrappedKey, key);
+
+			if (previous != null && previous != key) {
+				Arrays.fill(previous, (byte) 0);
+			}
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+
+			if (size() > maxSize) {
+				Arrays.fill(eldest.getValue(), (byte) 0);
+				return true;
+			}
+
+			return false;
+		}
+
+		@Override
+		public void clear() {
+
+			for (byte[] key : values()) {
+				Arrays.fill(key, (byte) 0);
+			}
+
+			super.clear();
+		}
+
+		private void evict(String wrappedKey) {
+
+			byte[] key = remove(wrappedKey);
+
+			if (key != null) {
+				Arrays.fill(key, (byte) 0);
+			}
+		}
+	}
+}
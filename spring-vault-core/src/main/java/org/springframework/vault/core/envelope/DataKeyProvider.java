@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import org.springframework.vault.support.VaultDataKey;
+
+/**
+ * Strategy interface to obtain data keys for envelope encryption. A data key is used to
+ * encrypt data locally and is stored alongside the cipher text in its wrapped form.
+ * <p>
+ * Data keys obtained through {@link #getDataKey()} are handed back through
+ * {@link #releaseDataKey(VaultDataKey, long)} once encryption is complete. Plaintext keys
+ * returned by {@link #decryptDataKey(String)} are owned by the caller and destroyed after
+ * use. Implementations must therefore not share returned key material between callers.
+ *
+ * @author Mark Paluch
+ * @see TransitDataKeyProvider
+ * @see EnvelopeEncryptionTemplate
+ */
+public interface DataKeyProvider {
+
+	/**
+	 * Obtain a data key to encrypt data.
+	 *
+	 * @return the {@link VaultDataKey} holding the plaintext and the wrapped key.
+	 */
+	VaultDataKey getDataKey();
+
+	/**
+	 * Release a data key obtained through {@link #getDataKey()} after encryption. The data
+	 * key must not be used afterwards.
+	 *
+	 * @param dataKey the data key, must not be {@literal null}.
+	 * @param encryptedBytes number of plaintext bytes encrypted with {@code dataKey}.
+	 */
+	void releaseDataKey(VaultDataKey dataKey, long encryptedBytes);
+
+	/**
+	 * Unwrap a data key that was previously obtained through {@link #getDataKey()}.
+	 *
+	 * @param wrappedKey the wrapped key, must not be empty or {@literal null}.
+	 * @return the plaintext key.
+	 */
+	byte[] decryptDataKey(String wrappedKey);
+}
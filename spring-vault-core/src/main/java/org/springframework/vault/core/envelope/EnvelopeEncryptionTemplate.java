@@ -0,0 +1,393 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.core.VaultTransitOperations;
+import org.springframework.vault.support.VaultDataKey;
+
+/**
+ * Streaming envelope encryption using data keys obtained from a {@link DataKeyProvider}.
+ * <p>
+ * Encryption obtains a single data key per object, writes a self-describing header
+ * containing the wrapped key and encrypts the input locally in AES-GCM frames of
+ * {@link #setChunkSize(int) chunk size} bytes. Decryption reads the header, unwraps the
+ * data key and decrypts frame by frame. Memory consumption is bounded by the chunk size
+ * regardless of the payload size and each object requires a single Vault round-trip.
+ * <p>
+ * Frames are authenticated individually. Decrypted data of a frame is written only after
+ * the frame has been authenticated; a tampered or truncated envelope fails with
+ * {@link VaultException} and may leave already written frames in the output. Streams
+ * and channels are not closed by this template.
+ *
+ * @author Mark Paluch
+ * @see DataKeyProvider
+ * @see TransitDataKeyProvider
+ */
+public class EnvelopeEncryptionTemplate {
+
+	/**
+	 * Default number of plaintext bytes per frame.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	private final DataKeyProvider dataKeyProvider;
+
+	private final SecureRandom random = new SecureRandom();
+
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Create a new {@link EnvelopeEncryptionTemplate} using data keys of the named
+	 * transit key.
+	 *
+	 * @param transitOperations must not be {@literal null}.
+	 * @param keyName name of the transit key, must not be empty or {@literal null}.
+	 */
+	public EnvelopeEncryptionTemplate(VaultTransitOperations transitOperations,
+			String keyName) {
+		this(new TransitDataKeyProvider(transitOperations, keyName));
+	}
+
+	/**
+	 * Create a new {@link EnvelopeEncryptionTemplate} given {@link DataKeyProvider}.
+	 *
+	 * @param dataKeyProvider must not be {@literal null}.
+	 */
+	public EnvelopeEncryptionTemplate(DataKeyProvider dataKeyProvider) {
+
+		Assert.notNull(dataKeyProvider, "DataKeyProvider must not be null");
+		Assert.state(AesGcm.isAvailable(),
+				"Envelope encryption requires AES-GCM support (Java 7 or newer)");
+
+		this.dataKeyProvider = dataKeyProvider;
+	}
+
+	/**
+	 * Set the number of plaintext bytes per frame. Defaults to
+	 * {@link #DEFAULT_CHUNK_SIZE}. The chunk size is stored in the envelope header so
+	 * envelopes remain readable after changing it.
+	 *
+	 * @param chunkSize must be greater than zero and not exceed 16 MiB.
+	 */
+	public void setChunkSize(int chunkSize) {
+
+		Assert.isTrue(chunkSize > 0 && chunkSize <= EnvelopeHeader.MAX_CHUNK_SIZE,
+				"Chunk size must be greater than zero and not exceed 16 MiB");
+
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Encrypt {@code plaintext} into {@code ciphertext}.
+	 *
+	 * @param plaintext must not be {@literal null}.
+	 * @param ciphertext must not be {@literal null}.
+	 * @throws IOException on I/O errors.
+	 */
+	public void encrypt(InputStream plaintext, OutputStream ciphertext)
+			throws IOException {
+
+		Assert.notNull(plaintext, "Plaintext InputStream must not be null");
+		Assert.notNull(ciphertext, "Ciphertext OutputStream must not be null");
+
+		int chunkSize = this.chunkSize;
+		byte[] current = new byte[chunkSize];
+		byte[] next = new byte[chunkSize];
+		byte[] frame = new byte[chunkSize + AesGcm.TAG_LENGTH];
+
+		VaultDataKey dataKey = dataKeyProvider.getDataKey();
+		long encryptedBytes = 0;
+
+		try {
+
+			byte[] noncePrefix = new byte[AesGcm.NONCE_PREFIX_LENGTH];
+			random.nextBytes(noncePrefix);
+
+			EnvelopeHeader header = EnvelopeHeader.create(chunkSize, noncePrefix,
+					dataKey.getCiphertext());
+			AesGcm cipher = new AesGcm(dataKey.getPlaintext(), noncePrefix,
+					header.getBytes());
+
+			DataOutputStream out = new DataOutputStream(ciphertext);
+			out.write(header.getBytes());
+
+			int currentLength = readFully(plaintext, current);
+			int counter = 0;
+
+			while (true) {
+
+				int nextLength = currentLength < chunkSize ? 0 : readFully(plaintext,
+						next);
+				boolean last = nextLength == 0;
+
+				int frameLength = cipher.encrypt(counter, last, current, currentLength,
+						frame);
+
+				out.writeInt(frameLength);
+				out.write(frame, 0, frameLength);
+				encryptedBytes += currentLength;
+
+				if (last) {
+					break;
+				}
+
+				byte[] tmp = current;
+				current = next;
+				next = tmp;
+				currentLength = nextLength;
+				counter = nextCounter(counter);
+			}
+
+			out.flush();
+		}
+		finally {
+
+			dataKeyProvider.releaseDataKey(dataKey, encryptedBytes);
+			Arrays.fill(current, (byte) 0);
+			Arrays.fill(next, (byte) 0);
+		}
+	}
+
+	/**
+	 * Encrypt {@code plaintext} into {@code ciphertext}.
+	 *
+	 * @param plaintext must not be {@literal null}.
+	 * @param ciphertext must not be {@literal null}.
+	 * @throws IOException on I/O errors.
+	 */
+	public void encrypt(ReadableByteChannel plaintext, WritableByteChannel ciphertext)
+			throws IOException {
+
+		Assert.notNull(plaintext, "Plaintext channel must not be null");
+		Assert.notNull(ciphertext, "Ciphertext channel must not be null");
+
+		encrypt(Channels.newInputStream(plaintext), Channels.newOutputStream(ciphertext));
+	}
+
+	/**
+	 * Encrypt {@code plaintext} into an envelope. Suitable for small values such as
+	 * individual fields.
+	 *
+	 * @param plaintext must not be {@literal null}.
+	 * @return the envelope.
+	 */
+	public byte[] encrypt(byte[] plaintext) {
+
+		Assert.notNull(plaintext, "Plaintext must not be null");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(plaintext.length + 128);
+
+		try {
+			encrypt(new ByteArrayInputStream(plaintext), out);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decrypt an envelope created by {@link #encrypt(byte[])}.
+	 *
+	 * @param ciphertext must not be {@literal null}.
+	 * @return the plaintext.
+	 * @throws VaultException if the envelope is malformed or cannot be authenticated.
+	 */
+	public byte[] decrypt(byte[] ciphertext) {
+
+		Assert.notNull(ciphertext, "Ciphertext must not be null");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(ciphertext.length);
+
+		try {
+			decrypt(new ByteArrayInputStream(ciphertext), out);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decrypt {@code ciphertext} into {@code plaintext}.
+	 *
+	 * @param ciphertext must not be {@literal null}.
+	 * @param plaintext must not be {@literal null}.
+	 * @throws IOException on I/O errors.
+	 * @throws VaultException if the envelope is malformed or cannot be authenticated.
+	 */
+	public void decrypt(InputStream ciphertext, OutputStream plaintext)
+			throws IOException {
+
+		Assert.notNull(ciphertext, "Ciphertext InputStream must not be null");
+		Assert.notNull(plaintext, "Plaintext OutputStream must not be null");
+
+		DataInputStream in = new DataInputStream(ciphertext);
+		EnvelopeHeader header;
+
+		try {
+			header = EnvelopeHeader.read(in);
+		}
+		catch (EOFException e) {
+			throw new VaultException("Envelope header is truncated", e);
+		}
+
+		int maxFrameLength = header.getChunkSize() + AesGcm.TAG_LENGTH;
+		byte[] frame = new byte[maxFrameLength];
+		byte[] output = new byte[maxFrameLength];
+
+		byte[] key = dataKeyProvider.decryptDataKey(header.getWrappedKey());
+
+		try {
+
+			AesGcm cipher = new AesGcm(key, header.getNoncePrefix(), header.getBytes());
+
+			int frameLength = readFrameLength(in, maxFrameLength);
+			if (frameLength == -1) {
+				throw new VaultException("Envelope contains no frames");
+			}
+
+			int counter = 0;
+
+			while (true) {
+
+				try {
+					in.readFully(frame, 0, frameLength);
+				}
+				catch (EOFException e) {
+					throw new VaultException("Envelope frame is truncated", e);
+				}
+
+				int nextLength = readFrameLength(in, maxFrameLength);
+				boolean last = nextLength == -1;
+
+				int length = cipher.decrypt(counter, last, frame, frameLength, output);
+				plaintext.write(output, 0, length);
+
+				if (last) {
+					break;
+				}
+
+				frameLength = nextLength;
+				counter = nextCounter(counter);
+			}
+
+			plaintext.flush();
+		}
+		finally {
+
+			Arrays.fill(key, (byte) 0);
+			Arrays.fill(output, (byte) 0);
+		}
+	}
+
+	/**
+	 * Decrypt {@code ciphertext} into {@code plaintext}.
+	 *
+	 * @param ciphertext must not be {@literal null}.
+	 * @param plaintext must not be {@literal null}.
+	 * @throws IOException on I/O errors.
+	 * @throws VaultException if the envelope is malformed or cannot be authenticated.
+	 */
+	public void decrypt(ReadableByteChannel ciphertext, WritableByteChannel plaintext)
+			throws IOException {
+
+		Assert.notNull(ciphertext, "Ciphertext channel must not be null");
+		Assert.notNull(plaintext, "Plaintext channel must not be null");
+
+		decrypt(Channels.newInputStream(ciphertext), Channels.newOutputStream(plaintext));
+	}
+
+	private static int nextCounter(int counter) {
+
+		if (counter == -1) {
+			throw new VaultException("Envelope exceeds the maximal number of frames");
+		}
+
+		return counter + 1;
+	}
+
+	/**
+	 * Read up to {@code buffer.length} bytes.
+	 *
+	 * @return the number of bytes read, less than the buffer length only at the end of
+	 * the stream.
+	 */
+	private static int readFully(InputStream in, byte[] buffer) throws IOException {
+
+		int offset = 0;
+
+		while (offset < buffer.length) {
+
+			int read = in.read(buffer, offset, buffer.length - offset);
+			if (read == -1) {
+				break;
+			}
+
+			offset += read;
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Read the length of the next frame.
+	 *
+	 * @return the frame length or {@literal -1} at the end of the stream.
+	 */
+	private static int readFrameLength(DataInputStream in, int maxFrameLength)
+			throws IOException {
+
+		int first = in.read();
+		if (first == -1) {
+			return -1;
+		}
+
+		int length;
+		try {
+			length = (first << 24) | (in.readUnsignedByte() << 16)
+					| (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+		}
+		catch (EOFException e) {
+			throw new VaultException("Envelope frame header is truncated", e);
+		}
+
+		if (length < AesGcm.TAG_LENGTH || length > maxFrameLength) {
+			throw new VaultException(String.format("Invalid envelope frame length %d",
+					length));
+		}
+
+		return length;
+	}
+}
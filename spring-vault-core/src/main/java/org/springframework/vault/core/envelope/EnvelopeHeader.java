@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.springframework.vault.VaultException;
+
+/**
+ * Self-describing envelope header. The header is written in front of the encrypted
+ * frames and holds everything required for decryption except the transit key:
+ *
+ * <pre>
+ * magic (4 bytes) | version (1 byte) | chunk size (int) | nonce prefix (7 bytes)
+ *     | wrapped key length (unsigned short) | wrapped key (UTF-8)
+ * </pre>
+ *
+ * @author Mark Paluch
+ */
+class EnvelopeHeader {
+
+	static final int VERSION = 1;
+
+	static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+	private static final byte[] MAGIC = { 'V', 'E', 'N', 'V' };
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final int chunkSize;
+
+	private final byte[] noncePrefix;
+
+	private final String wrappedKey;
+
+	private final byte[] bytes;
+
+	private EnvelopeHeader(int chunkSize, byte[] noncePrefix, String wrappedKey,
+			byte[] bytes) {
+
+		this.chunkSize = chunkSize;
+		this.noncePrefix = noncePrefix;
+		this.wrappedKey = wrappedKey;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Create a new {@link EnvelopeHeader}.
+	 */
+	static EnvelopeHeader create(int chunkSize, byte[] noncePrefix, String wrappedKey) {
+
+		byte[] key = wrappedKey.getBytes(UTF_8);
+
+		if (key.length > 0xFFFF) {
+			throw new IllegalArgumentException("Wrapped key exceeds 65535 bytes");
+		}
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(18 + key.length);
+		DataOutputStream out = new DataOutputStream(buffer);
+
+		try {
+			out.write(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(chunkSize);
+			out.write(noncePrefix);
+			out.writeShort(key.length);
+			out.write(key);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return new EnvelopeHeader(chunkSize, noncePrefix, wrappedKey,
+				buffer.toByteArray());
+	}
+
+	/**
+	 * Read an {@link EnvelopeHeader} from {@link DataInputStream}.
+	 *
+	 * @throws VaultException if the input is not an envelope.
+	 */
+	static EnvelopeHeader read(DataInputStream in) throws IOException {
+
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+
+		if (!Arrays.equals(MAGIC, magic)) {
+			throw new VaultException("Input is not an encrypted envelope");
+		}
+
+		int version = in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new VaultException(String.format(
+					"Unsupported envelope version %d", version));
+		}
+
+		int chunkSize = in.readInt();
+		if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+			throw new VaultException(String.format("Invalid envelope chunk size %d",
+					chunkSize));
+		}
+
+		byte[] noncePrefix = new byte[AesGcm.NONCE_PREFIX_LENGTH];
+		in.readFully(noncePrefix);
+
+		byte[] key = new byte[in.readUnsignedShort()];
+		in.readFully(key);
+
+		return create(chunkSize, noncePrefix, new String(key, UTF_8));
+	}
+
+	int getChunkSize() {
+		return chunkSize;
+	}
+
+	byte[] getNoncePrefix() {
+		return noncePrefix;
+	}
+
+	String getWrappedKey() {
+		return wrappedKey;
+	}
+
+	/**
+	 * @return the serialized header.
+	 */
+	byte[] getBytes() {
+		return bytes;
+	}
+}
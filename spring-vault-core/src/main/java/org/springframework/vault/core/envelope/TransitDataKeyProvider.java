@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.core.VaultTransitOperations;
+import org.springframework.vault.support.VaultDataKey;
+import org.springframework.vault.support.VaultTransitContext;
+
+/**
+ * {@link DataKeyProvider} generating a new data key for each request using Vault's
+ * transit backend. Data keys are unwrapped by decrypting them with the named transit
+ * key.
+ *
+ * @author Mark Paluch
+ * @see VaultTransitOperations#createDataKey(String, VaultTransitContext)
+ */
+public class TransitDataKeyProvider implements DataKeyProvider {
+
+	private final VaultTransitOperations transitOperations;
+
+	private final String keyName;
+
+	private final VaultTransitContext context;
+
+	/**
+	 * Create a new {@link TransitDataKeyProvider}.
+	 *
+	 * @param transitOperations must not be {@literal null}.
+	 * @param keyName name of the transit key, must not be empty or {@literal null}.
+	 */
+	public TransitDataKeyProvider(VaultTransitOperations transitOperations,
+			String keyName) {
+		this(transitOperations, keyName, VaultTransitContext.empty());
+	}
+
+	/**
+	 * Create a new {@link TransitDataKeyProvider} using a {@link VaultTransitContext} for
+	 * derived transit keys.
+	 *
+	 * @param transitOperations must not be {@literal null}.
+	 * @param keyName name of the transit key, must not be empty or {@literal null}.
+	 * @param context must not be {@literal null}.
+	 */
+	public TransitDataKeyProvider(VaultTransitOperations transitOperations,
+			String keyName, VaultTransitContext context) {
+
+		Assert.notNull(transitOperations, "VaultTransitOperations must not be null");
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.notNull(context, "VaultTransitContext must not be null");
+
+		this.transitOperations = transitOperations;
+		this.keyName = keyName;
+		this.context = context;
+	}
+
+	@Override
+	public VaultDataKey getDataKey() {
+		return transitOperations.createDataKey(keyName, context);
+	}
+
+	@Override
+	public void releaseDataKey(VaultDataKey dataKey, long encryptedBytes) {
+
+		Assert.notNull(dataKey, "VaultDataKey must not be null");
+
+		dataKey.destroy();
+	}
+
+	@Override
+	public byte[] decryptDataKey(String wrappedKey) {
+
+		Assert.hasText(wrappedKey, "Wrapped key must not be empty");
+
+		return transitOperations.decrypt(keyName, wrappedKey, context);
+	}
+}
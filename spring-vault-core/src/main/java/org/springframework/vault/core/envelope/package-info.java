@@ -0,0 +1,4 @@
+/**
+ * Envelope encryption support using data keys generated by Vault's transit backend.
+ */
+package org.springframework.vault.core.envelope;
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+
+/**
+ * Holder for the result of a single item within a batch operation. A result is either
+ * successful and holds a value or failed and holds a {@link VaultException}.
+ *
+ * @author Mark Paluch
+ */
+abstract class AbstractResult<V> {
+
+	private final VaultException exception;
+
+	protected AbstractResult() {
+		this.exception = null;
+	}
+
+	protected AbstractResult(VaultException exception) {
+
+		Assert.notNull(exception, "VaultException must not be null");
+
+		this.exception = exception;
+	}
+
+	/**
+	 * Return the result value or throw the {@link VaultException} if this result
+	 * failed.
+	 *
+	 * @return the result value.
+	 * @throws VaultException if this result failed.
+	 */
+	public V get() {
+
+		if (exception != null) {
+			throw exception;
+		}
+
+		return get0();
+	}
+
+	/**
+	 * Return the result value if successful or {@code other} if this result failed.
+	 *
+	 * @param other the value to return if this result failed, may be {@literal null}.
+	 * @return the result value or {@code other}.
+	 */
+	public V getOrElse(V other) {
+		return isSuccessful() ? get0() : other;
+	}
+
+	/**
+	 * @return {@literal true} if the item was processed successfully.
+	 */
+	public boolean isSuccessful() {
+		return exception == null;
+	}
+
+	/**
+	 * @return the {@link VaultException} if the item failed, otherwise
+	 * {@literal null}.
+	 */
+	public VaultException getCause() {
+		return exception;
+	}
+
+	protected abstract V get0();
+}
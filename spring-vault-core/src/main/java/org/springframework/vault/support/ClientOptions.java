@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 the original author or authors.
+ * Copyright 2016-2017 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,18 @@ package org.springframework.vault.support;
 
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.util.Assert;
+
 /**
- * Client options for Vault.
- * 
+ * Client options for Vault. Client options consist of timeouts and connection management
+ * settings. Connection management settings apply to HTTP clients that maintain a
+ * connection pool (Apache Http Components, OkHttp 2 and OkHttp 3). Netty and the JDK
+ * HTTP client do not support connection pooling through Spring's
+ * {@link org.springframework.http.client.ClientHttpRequestFactory} and use timeouts
+ * only.
+ *
  * @author Mark Paluch
+ * @see #builder()
  */
 public class ClientOptions {
 
@@ -34,6 +42,46 @@ public class ClientOptions {
 	 */
 	private final int readTimeout;
 
+	/**
+	 * Maximal number of connections across all routes.
+	 */
+	private final int maxTotalConnections;
+
+	/**
+	 * Maximal number of connections per route (Vault host).
+	 */
+	private final int maxConnectionsPerRoute;
+
+	/**
+	 * Maximal number of idle connections to keep.
+	 */
+	private final int maxIdleConnections;
+
+	/**
+	 * Maximal lifetime of a connection, {@literal 0} for no limit.
+	 */
+	private final int connectionTimeToLive;
+
+	/**
+	 * Time after which idle connections are evicted.
+	 */
+	private final int idleConnectionTimeout;
+
+	/**
+	 * Period of inactivity after which a pooled connection is validated before reuse.
+	 */
+	private final int validateAfterInactivity;
+
+	/**
+	 * Maximal number of concurrently executing asynchronous requests.
+	 */
+	private final int maxRequests;
+
+	/**
+	 * Maximal number of concurrently executing asynchronous requests per host.
+	 */
+	private final int maxRequestsPerHost;
+
 	/**
 	 * Creates new {@link ClientOptions} with default timeouts of {@literal 5}
 	 * {@link TimeUnit#SECONDS} connection timeout and {@literal 15}
@@ -44,16 +92,38 @@ public class ClientOptions {
 	}
 
 	/**
-	 * Creates new {@link ClientOptions}.
-	 * 
+	 * Creates new {@link ClientOptions} using default connection management settings.
+	 *
 	 * @param connectionTimeout connection timeout in {@link TimeUnit#MILLISECONDS}, must
 	 * be greater {@literal 0}.
 	 * @param readTimeout read timeout in {@link TimeUnit#MILLISECONDS}, must be greater
 	 * {@literal 0}.
+	 * @see #builder()
 	 */
 	public ClientOptions(int connectionTimeout, int readTimeout) {
-		this.connectionTimeout = connectionTimeout;
-		this.readTimeout = readTimeout;
+		this(builder().connectionTimeout(connectionTimeout).readTimeout(readTimeout));
+	}
+
+	private ClientOptions(ClientOptionsBuilder builder) {
+
+		this.connectionTimeout = builder.connectionTimeout;
+		this.readTimeout = builder.readTimeout;
+		this.maxTotalConnections = builder.maxTotalConnections;
+		this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute != null ? builder.maxConnectionsPerRoute
+				: Math.min(100, builder.maxTotalConnections);
+		this.maxIdleConnections = builder.maxIdleConnections;
+		this.connectionTimeToLive = builder.connectionTimeToLive;
+		this.idleConnectionTimeout = builder.idleConnectionTimeout;
+		this.validateAfterInactivity = builder.validateAfterInactivity;
+		this.maxRequests = builder.maxRequests;
+		this.maxRequestsPerHost = builder.maxRequestsPerHost;
+	}
+
+	/**
+	 * @return a new {@link ClientOptionsBuilder}.
+	 */
+	public static ClientOptionsBuilder builder() {
+		return new ClientOptionsBuilder();
 	}
 
 	/**
@@ -70,4 +140,271 @@ public class ClientOptions {
 		return readTimeout;
 	}
 
+	/**
+	 * @return the maximal number of connections across all routes.
+	 */
+	public int getMaxTotalConnections() {
+		return maxTotalConnections;
+	}
+
+	/**
+	 * @return the maximal number of connections per route.
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * @return the maximal number of idle connections to keep.
+	 */
+	public int getMaxIdleConnections() {
+		return maxIdleConnections;
+	}
+
+	/**
+	 * @return the maximal connection lifetime in {@link TimeUnit#MILLISECONDS},
+	 * {@literal 0} if connections may live forever.
+	 */
+	public int getConnectionTimeToLive() {
+		return connectionTimeToLive;
+	}
+
+	/**
+	 * @return the time in {@link TimeUnit#MILLISECONDS} after which idle connections are
+	 * evicted.
+	 */
+	public int getIdleConnectionTimeout() {
+		return idleConnectionTimeout;
+	}
+
+	/**
+	 * @return the period of inactivity in {@link TimeUnit#MILLISECONDS} after which a
+	 * pooled connection is validated before reuse.
+	 */
+	public int getValidateAfterInactivity() {
+		return validateAfterInactivity;
+	}
+
+	/**
+	 * @return the maximal number of concurrently executing asynchronous requests.
+	 */
+	public int getMaxRequests() {
+		return maxRequests;
+	}
+
+	/**
+	 * @return the maximal number of concurrently executing asynchronous requests per
+	 * host.
+	 */
+	public int getMaxRequestsPerHost() {
+		return maxRequestsPerHost;
+	}
+
+	/**
+	 * Builder for {@link ClientOptions}.
+	 */
+	public static class ClientOptionsBuilder {
+
+		private int connectionTimeout = (int) TimeUnit.SECONDS.toMillis(5);
+
+		private int readTimeout = (int) TimeUnit.SECONDS.toMillis(15);
+
+		private int maxTotalConnections = 100;
+
+		private Integer maxConnectionsPerRoute;
+
+		private int maxIdleConnections = 100;
+
+		private int connectionTimeToLive = 0;
+
+		private int idleConnectionTimeout = (int) TimeUnit.MINUTES.toMillis(5);
+
+		private int validateAfterInactivity = (int) TimeUnit.SECONDS.toMillis(2);
+
+		private int maxRequests = 100;
+
+		private int maxRequestsPerHost = 100;
+
+		ClientOptionsBuilder() {
+		}
+
+		/**
+		 * Configure the connection timeout.
+		 *
+		 * @param connectionTimeout connection timeout in {@link TimeUnit#MILLISECONDS},
+		 * must not be negative.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder connectionTimeout(int connectionTimeout) {
+
+			Assert.isTrue(connectionTimeout >= 0, "Connection timeout must not be negative");
+
+			this.connectionTimeout = connectionTimeout;
+			return this;
+		}
+
+		/**
+		 * Configure the read timeout.
+		 *
+		 * @param readTimeout read timeout in {@link TimeUnit#MILLISECONDS}, must not be
+		 * negative.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder readTimeout(int readTimeout) {
+
+			Assert.isTrue(readTimeout >= 0, "Read timeout must not be negative");
+
+			this.readTimeout = readTimeout;
+			return this;
+		}
+
+		/**
+		 * Configure the maximal number of pooled connections across all routes. Defaults
+		 * to {@literal 100}.
+		 *
+		 * @param maxTotalConnections must be greater {@literal 0}.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder maxTotalConnections(int maxTotalConnections) {
+
+			Assert.isTrue(maxTotalConnections > 0,
+					"Max total connections must be greater 0");
+
+			this.maxTotalConnections = maxTotalConnections;
+			return this;
+		}
+
+		/**
+		 * Configure the maximal number of pooled connections per route (Vault host).
+		 * Defaults to {@literal 100} or {@link #maxTotalConnections(int) max total
+		 * connections}, whichever is lower.
+		 *
+		 * @param maxConnectionsPerRoute must be greater {@literal 0}.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+
+			Assert.isTrue(maxConnectionsPerRoute > 0,
+					"Max connections per route must be greater 0");
+
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			return this;
+		}
+
+		/**
+		 * Configure the maximal number of idle connections to keep in the pool. Applies
+		 * to OkHttp 2 and OkHttp 3. Defaults to {@literal 100}.
+		 *
+		 * @param maxIdleConnections must not be negative.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder maxIdleConnections(int maxIdleConnections) {
+
+			Assert.isTrue(maxIdleConnections >= 0,
+					"Max idle connections must not be negative");
+
+			this.maxIdleConnections = maxIdleConnections;
+			return this;
+		}
+
+		/**
+		 * Configure the maximal lifetime of a pooled connection. Connections are closed
+		 * once they exceed their time to live. Applies to Apache Http Components.
+		 * Defaults to {@literal 0} (no limit).
+		 *
+		 * @param connectionTimeToLive time to live in {@link TimeUnit#MILLISECONDS},
+		 * {@literal 0} for no limit. Must not be negative.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder connectionTimeToLive(int connectionTimeToLive) {
+
+			Assert.isTrue(connectionTimeToLive >= 0,
+					"Connection time to live must not be negative");
+
+			this.connectionTimeToLive = connectionTimeToLive;
+			return this;
+		}
+
+		/**
+		 * Configure the time after which idle connections are evicted from the pool.
+		 * Defaults to {@literal 5} {@link TimeUnit#MINUTES}.
+		 *
+		 * @param idleConnectionTimeout idle timeout in {@link TimeUnit#MILLISECONDS},
+		 * must be greater {@literal 0}.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder idleConnectionTimeout(int idleConnectionTimeout) {
+
+			Assert.isTrue(idleConnectionTimeout > 0,
+					"Idle connection timeout must be greater 0");
+
+			this.idleConnectionTimeout = idleConnectionTimeout;
+			return this;
+		}
+
+		/**
+		 * Configure the period of inactivity after which a pooled connection is
+		 * validated before it is leased again. Applies to Apache Http Components.
+		 * Defaults to {@literal 2} {@link TimeUnit#SECONDS}.
+		 *
+		 * @param validateAfterInactivity inactivity period in
+		 * {@link TimeUnit#MILLISECONDS}, {@literal 0} to disable validation. Must not be
+		 * negative.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder validateAfterInactivity(int validateAfterInactivity) {
+
+			Assert.isTrue(validateAfterInactivity >= 0,
+					"Validate after inactivity must not be negative");
+
+			this.validateAfterInactivity = validateAfterInactivity;
+			return this;
+		}
+
+		/**
+		 * Configure the maximal number of concurrently executing asynchronous requests.
+		 * Applies to the OkHttp 2 and OkHttp 3 {@code Dispatcher}. Defaults to
+		 * {@literal 100}.
+		 *
+		 * @param maxRequests must be greater {@literal 0}.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder maxRequests(int maxRequests) {
+
+			Assert.isTrue(maxRequests > 0, "Max requests must be greater 0");
+
+			this.maxRequests = maxRequests;
+			return this;
+		}
+
+		/**
+		 * Configure the maximal number of concurrently executing asynchronous requests
+		 * per host. Applies to the OkHttp 2 and OkHttp 3 {@code Dispatcher}. Defaults to
+		 * {@literal 100}.
+		 *
+		 * @param maxRequestsPerHost must be greater {@literal 0}.
+		 * @return {@code this} {@link ClientOptionsBuilder}.
+		 */
+		public ClientOptionsBuilder maxRequestsPerHost(int maxRequestsPerHost) {
+
+			Assert.isTrue(maxRequestsPerHost > 0, "Max requests per host must be greater 0");
+
+			this.maxRequestsPerHost = maxRequestsPerHost;
+			return this;
+		}
+
+		/**
+		 * Build a new {@link ClientOptions} instance.
+		 *
+		 * @return a new {@link ClientOptions}.
+		 */
+		public ClientOptions build() {
+
+			Assert.isTrue(maxConnectionsPerRoute == null
+					|| maxConnectionsPerRoute <= maxTotalConnections,
+					"Max connections per route must not exceed max total connections");
+
+			return new ClientOptions(this);
+		}
+	}
 }
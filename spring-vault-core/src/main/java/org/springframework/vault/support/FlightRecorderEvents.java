@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+import org.springframework.vault.support.VaultFlightRecorder.Recording;
+
+/**
+ * Java Flight Recorder event types. This class requires the {@code jdk.jfr} API and is
+ * only loaded by {@link VaultFlightRecorder} if the API is present. The
+ * {@link EventType} of each {@link Operation} is looked up once so that events are only
+ * allocated while a flight recording captures them.
+ *
+ * @author Mark Paluch
+ */
+final class FlightRecorderEvents {
+
+	private static final EventType[] EVENT_TYPES = new EventType[Operation
+			.values().length];
+
+	static {
+		for (Operation operation : Operation.values()) {
+			EVENT_TYPES[operation.ordinal()] = EventType.getEventType(create(operation)
+					.getClass());
+		}
+	}
+
+	private FlightRecorderEvents() {
+	}
+
+	static Recording begin(Operation operation) {
+
+		if (!EVENT_TYPES[operation.ordinal()].isEnabled()) {
+			return Recording.DISABLED;
+		}
+
+		VaultEvent event = create(operation);
+		event.begin();
+
+		return new EventRecording(event);
+	}
+
+	private static VaultEvent create(Operation operation) {
+
+		switch (operation) {
+		case LOGIN:
+			return new LoginEvent();
+		case TOKEN_RENEWAL:
+			return new TokenRenewalEvent();
+		case PROPERTY_SOURCE:
+			return new PropertySourceEvent();
+		case TRANSIT:
+			return new TransitEvent();
+		default:
+			return new RequestEvent();
+		}
+	}
+
+	/**
+	 * {@link Recording} backed by a {@link VaultEvent}.
+	 */
+	static class EventRecording extends Recording {
+
+		private final VaultEvent event;
+
+		private final Recording previous;
+
+		EventRecording(VaultEvent event) {
+
+			this.event = event;
+			this.previous = VaultFlightRecorder.CURRENT.get();
+
+			VaultFlightRecorder.CURRENT.set(this);
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return true;
+		}
+
+		@Override
+		public void setName(String name) {
+			event.operation = name;
+		}
+
+		@Override
+		public void setStatus(int status) {
+			event.status = status;
+		}
+
+		@Override
+		public void setRetries(int retries) {
+			event.retries = retries;
+		}
+
+		@Override
+		void incrementRetries() {
+			event.retries++;
+		}
+
+		@Override
+		public void setRequestBytes(long requestBytes) {
+			event.requestBytes = requestBytes;
+		}
+
+		@Override
+		public void setResponseBytes(long responseBytes) {
+			event.responseBytes = responseBytes;
+		}
+
+		@Override
+		public void setItems(int items) {
+			event.items = items;
+		}
+
+		@Override
+		public void setFailure(Throwable failure) {
+			event.failure = failure != null ? failure.toString() : null;
+		}
+
+		@Override
+		public void commit() {
+
+			if (previous == null) {
+				VaultFlightRecorder.CURRENT.remove();
+			}
+			else {
+				VaultFlightRecorder.CURRENT.set(previous);
+			}
+
+			event.commit();
+		}
+	}
+
+	@Category("Spring Vault")
+	abstract static class VaultEvent extends Event {
+
+		@Label("Operation")
+		String operation;
+
+		@Label("Status")
+		@Description("HTTP status code")
+		int status;
+
+		@Label("Retries")
+		int retries;
+
+		@Label("Request Size")
+		@DataAmount
+		long requestBytes;
+
+		@Label("Response Size")
+		@DataAmount
+		long responseBytes;
+
+		@Label("Items")
+		@Description("Number of batch items or loaded properties")
+		int items;
+
+		@Label("Failure")
+		String failure;
+	}
+
+	@Name("org.springframework.vault.Request")
+	@Label("Vault Request")
+	@Description("HTTP request to Vault")
+	static class RequestEvent extends VaultEvent {
+	}
+
+	@Name("org.springframework.vault.Login")
+	@Label("Vault Login")
+	@Description("Login to Vault to obtain a session token")
+	static class LoginEvent extends VaultEvent {
+	}
+
+	@Name("org.springframework.vault.TokenRenewal")
+	@Label("Vault Token Renewal")
+	@Description("Renewal of the Vault session token")
+	static class TokenRenewalEvent extends VaultEvent {
+	}
+
+	@Name("org.springframework.vault.PropertySource")
+	@Label("Vault Property Source")
+	@Description("Loading properties from Vault")
+	static class PropertySourceEvent extends VaultEvent {
+	}
+
+	@Name("org.springframework.vault.Transit")
+	@Label("Vault Transit Operation")
+	@Description("Transit encryption, decryption, rewrapping or data key creation")
+	static class TransitEvent extends VaultEvent {
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import org.springframework.util.Assert;
+
+/**
+ * Value object representing plain text with an optional {@link VaultTransitContext}.
+ * Used as input to batch transit operations.
+ *
+ * @author Mark Paluch
+ * @see org.springframework.vault.core.VaultTransitOperations#encrypt(String,
+ * java.util.List)
+ */
+public class Plaintext {
+
+	private static final Plaintext EMPTY = new Plaintext(new byte[0],
+			VaultTransitContext.empty());
+
+	private final byte[] plaintext;
+
+	private final VaultTransitContext context;
+
+	private Plaintext(byte[] plaintext, VaultTransitContext context) {
+
+		this.plaintext = plaintext;
+		this.context = context;
+	}
+
+	/**
+	 * @return an empty {@link Plaintext}.
+	 */
+	public static Plaintext empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Factory method to create {@link Plaintext} from a byte sequence.
+	 *
+	 * @param plaintext the plain text to encrypt, must not be {@literal null}.
+	 * @return the {@link Plaintext} for {@code plaintext}.
+	 */
+	public static Plaintext of(byte[] plaintext) {
+
+		Assert.notNull(plaintext, "Plaintext must not be null");
+
+		if (plaintext.length == 0) {
+			return empty();
+		}
+
+		return new Plaintext(plaintext, VaultTransitContext.empty());
+	}
+
+	/**
+	 * Factory method to create {@link Plaintext} from a {@link String}.
+	 *
+	 * @param plaintext the plain text to encrypt, must not be {@literal null}.
+	 * @return the {@link Plaintext} for {@code plaintext}.
+	 */
+	public static Plaintext of(String plaintext) {
+
+		Assert.notNull(plaintext, "Plaintext must not be null");
+
+		return of(plaintext.getBytes());
+	}
+
+	/**
+	 * Create a new {@link Plaintext} object from this plain text associated with the
+	 * given {@link VaultTransitContext}.
+	 *
+	 * @param context transit context, must not be {@literal null}.
+	 * @return the new {@link Plaintext} object.
+	 */
+	public Plaintext with(VaultTransitContext context) {
+
+		Assert.notNull(context, "VaultTransitContext must not be null");
+
+		return new Plaintext(getPlaintext(), context);
+	}
+
+	/**
+	 * @return the plain text.
+	 */
+	public byte[] getPlaintext() {
+		return plaintext;
+	}
+
+	/**
+	 * @return the {@link VaultTransitContext}.
+	 */
+	public VaultTransitContext getContext() {
+		return context;
+	}
+
+	/**
+	 * @return the plain text as {@link String}.
+	 */
+	public String asString() {
+		return new String(plaintext);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+
+/**
+ * Value object representing a data key generated by Vault's transit backend. A data key
+ * consists of the plaintext key used for local encryption and its cipher text wrapped
+ * with the named transit key. Only the wrapped key should be persisted.
+ *
+ * @author Mark Paluch
+ * @see org.springframework.vault.core.VaultTransitOperations#createDataKey(String)
+ */
+public class VaultDataKey {
+
+	private final byte[] plaintext;
+
+	private final String ciphertext;
+
+	private VaultDataKey(byte[] plaintext, String ciphertext) {
+
+		this.plaintext = plaintext;
+		this.ciphertext = ciphertext;
+	}
+
+	/**
+	 * Factory method to create {@link VaultDataKey} from the given {@code plaintext} key
+	 * and its wrapped {@code ciphertext}.
+	 *
+	 * @param plaintext the plaintext key, must not be {@literal null}.
+	 * @param ciphertext the wrapped key, must not be empty or {@literal null}.
+	 * @return the {@link VaultDataKey}.
+	 */
+	public static VaultDataKey of(byte[] plaintext, String ciphertext) {
+
+		Assert.notNull(plaintext, "Plaintext key must not be null");
+		Assert.hasText(ciphertext, "Ciphertext must not be empty");
+
+		return new VaultDataKey(plaintext, ciphertext);
+	}
+
+	/**
+	 * @return the plaintext key.
+	 */
+	public byte[] getPlaintext() {
+		return plaintext;
+	}
+
+	/**
+	 * @return the key wrapped by the transit key.
+	 */
+	public String getCiphertext() {
+		return ciphertext;
+	}
+
+	/**
+	 * Overwrite the plaintext key with zeros. The key must not be used afterwards.
+	 */
+	public void destroy() {
+		Arrays.fill(plaintext, (byte) 0);
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+
+/**
+ * Result of a single decryption within a batch decrypt request. Holds either the
+ * {@link Plaintext} or the {@link VaultException} reported for the item.
+ *
+ * @author Mark Paluch
+ * @see org.springframework.vault.core.VaultTransitOperations#decrypt(String,
+ * java.util.List)
+ */
+public class VaultDecryptionResult extends AbstractResult<Plaintext> {
+
+	private final Plaintext value;
+
+	/**
+	 * Create a successful {@link VaultDecryptionResult} given {@link Plaintext}.
+	 *
+	 * @param value the plain text, must not be {@literal null}.
+	 */
+	public VaultDecryptionResult(Plaintext value) {
+
+		Assert.notNull(value, "Plaintext must not be null");
+
+		this.value = value;
+	}
+
+	/**
+	 * Create a failed {@link VaultDecryptionResult} given {@link VaultException}.
+	 *
+	 * @param exception the failure cause, must not be {@literal null}.
+	 */
+	public VaultDecryptionResult(VaultException exception) {
+
+		super(exception);
+
+		this.value = null;
+	}
+
+	@Override
+	protected Plaintext get0() {
+		return value;
+	}
+}
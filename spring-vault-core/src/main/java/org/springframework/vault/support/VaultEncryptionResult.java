@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.VaultException;
+
+/**
+ * Result of a single encryption within a batch encrypt request. Holds either the
+ * {@link Ciphertext} or the {@link VaultException} reported for the item.
+ *
+ * @author Mark Paluch
+ * @see org.springframework.vault.core.VaultTransitOperations#encrypt(String,
+ * java.util.List)
+ */
+public class VaultEncryptionResult extends AbstractResult<Ciphertext> {
+
+	private final Ciphertext value;
+
+	/**
+	 * Create a successful {@link VaultEncryptionResult} given {@link Ciphertext}.
+	 *
+	 * @param value the cipher text, must not be {@literal null}.
+	 */
+	public VaultEncryptionResult(Ciphertext value) {
+
+		Assert.notNull(value, "Ciphertext must not be null");
+
+		this.value = value;
+	}
+
+	/**
+	 * Create a failed {@link VaultEncryptionResult} given {@link VaultException}.
+	 *
+	 * @param exception the failure cause, must not be {@literal null}.
+	 */
+	public VaultEncryptionResult(VaultException exception) {
+
+		super(exception);
+
+		this.value = null;
+	}
+
+	@Override
+	protected Ciphertext get0() {
+		return value;
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Emits Java Flight Recorder events for Vault operations. Events are recorded for Vault
+ * requests, logins, token renewals, property source loading and transit operations.
+ * Events are available in the {@literal Spring Vault} category of a recording and carry
+ * the operation, status, number of retries, request and response sizes and the failure
+ * if the operation failed.
+ * <p>
+ * Recording requires the {@code jdk.jfr} API (Java 8u262 and newer, Java 11 and newer).
+ * {@link #begin(Operation)} returns a disabled {@link Recording} on older
+ * runtimes and while no flight recording captures the event type, so instrumented code
+ * does not allocate events or bind state to the current thread unless events are
+ * recorded.
+ * <p>
+ * Recordings are bound to the current thread until they are committed. Retries such as
+ * fail over to another Vault endpoint or a request replayed with a new token are
+ * {@link #recordRetry() counted} on the innermost recording.
+ *
+ * @author Mark Paluch
+ */
+public final class VaultFlightRecorder {
+
+	private static final boolean FLIGHT_RECORDER_PRESENT = ClassUtils.isPresent(
+			"jdk.jfr.Event", VaultFlightRecorder.class.getClassLoader());
+
+	static final ThreadLocal<Recording> CURRENT = new ThreadLocal<Recording>();
+
+	private VaultFlightRecorder() {
+	}
+
+	/**
+	 * Begin a {@link Recording} for {@code operation}.
+	 *
+	 * @param operation must not be {@literal null}.
+	 * @return the {@link Recording}. Disabled if events are not recorded.
+	 */
+	public static Recording begin(Operation operation) {
+
+		if (!FLIGHT_RECORDER_PRESENT) {
+			return Recording.DISABLED;
+		}
+
+		return FlightRecorderEvents.begin(operation);
+	}
+
+	/**
+	 * Count a retry on the innermost {@link Recording} bound to the current thread.
+	 */
+	public static void recordRetry() {
+
+		if (!FLIGHT_RECORDER_PRESENT) {
+			return;
+		}
+
+		Recording current = CURRENT.get();
+
+		if (current != null) {
+			current.incrementRetries();
+		}
+	}
+
+	/**
+	 * Recorded Vault operations.
+	 */
+	public enum Operation {
+
+		/**
+		 * HTTP request to Vault.
+		 */
+		REQUEST,
+
+		/**
+		 * Login using {@link org.springframework.vault.authentication.ClientAuthentication}.
+		 */
+		LOGIN,
+
+		/**
+		 * Renewal of the session token.
+		 */
+		TOKEN_RENEWAL,
+
+		/**
+		 * Loading properties for a
+		 * {@link org.springframework.vault.core.env.VaultPropertySource}.
+		 */
+		PROPERTY_SOURCE,
+
+		/**
+		 * Transit encryption, decryption, rewrapping and data key creation.
+		 */
+		TRANSIT
+	}
+
+	/**
+	 * Recording of a single operation. A {@link Recording} must be
+	 * {@link #commit() committed} on the thread that began the recording. Setters are
+	 * ignored if the recording is disabled.
+	 */
+	public abstract static class Recording {
+
+		static final Recording DISABLED = new Recording() {
+
+			@Override
+			public boolean isEnabled() {
+				return false;
+			}
+
+			@Override
+			public void setName(String name) {
+			}
+
+			@Override
+			public void setStatus(int status) {
+			}
+
+			@Override
+			public void setRetries(int retries) {
+			}
+
+			@Override
+			void incrementRetries() {
+			}
+
+			@Override
+			public void setRequestBytes(long requestBytes) {
+			}
+
+			@Override
+			public void setResponseBytes(long responseBytes) {
+			}
+
+			@Override
+			public void setItems(int items) {
+			}
+
+			@Override
+			public void setFailure(Throwable failure) {
+			}
+
+			@Override
+			public void commit() {
+			}
+		};
+
+		Recording() {
+		}
+
+		/**
+		 * @return {@literal true} if the event is recorded. Callers can skip calculating
+		 * event details if the recording is disabled.
+		 */
+		public abstract boolean isEnabled();
+
+		/**
+		 * @param name name of the operation, for example the request path template or the
+		 * authentication mechanism.
+		 */
+		public abstract void setName(String name);
+
+		/**
+		 * @param status the HTTP status code.
+		 */
+		public abstract void setStatus(int status);
+
+		/**
+		 * @param retries the number of retries.
+		 */
+		public abstract void setRetries(int retries);
+
+		abstract void incrementRetries();
+
+		/**
+		 * @param requestBytes the number of bytes sent.
+		 */
+		public abstract void setRequestBytes(long requestBytes);
+
+		/**
+		 * @param responseBytes the number of bytes received.
+		 */
+		public abstract void setResponseBytes(long responseBytes);
+
+		/**
+		 * @param items the number of processed items, such as batch items or loaded
+		 * properties.
+		 */
+		public abstract void setItems(int items);
+
+		/**
+		 * @param failure the failure of the operation.
+		 */
+		public abstract void setFailure(Throwable failure);
+
+		/**
+		 * Commit the event and unbind the recording from the current thread.
+		 */
+		public abstract void commit();
+	}
+}
@@ -15,21 +15,35 @@
  */
 package org.springframework.vault.authentication;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.vault.VaultException;
 import org.springframework.vault.client.VaultHttpHeaders;
 import org.springframework.vault.support.VaultToken;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestOperations;
 
@@ -37,6 +51,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -68,6 +83,7 @@ public class LifecycleAwareSessionManagerUnitTests {
 	public void before() throws Exception {
 		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
 				taskExecutor, restOperations);
+		sessionManager.setRenewalScheduler(new ImmediateTaskScheduler());
 	}
 
 	@Test
@@ -83,7 +99,7 @@ public class LifecycleAwareSessionManagerUnitTests {
 
 		when(clientAuthentication.login()).thenReturn(LoginToken.of("login"));
 
-		sessionManager.renewToken();
+		sessionManager.getSessionToken();
 		sessionManager.destroy();
 
 		verify(restOperations)
@@ -98,7 +114,7 @@ public class LifecycleAwareSessionManagerUnitTests {
 
 		when(clientAuthentication.login()).thenReturn(VaultToken.of("login"));
 
-		sessionManager.renewToken();
+		sessionManager.getSessionToken();
 		sessionManager.destroy();
 
 		verifyZeroInteractions(restOperations);
@@ -114,7 +130,7 @@ public class LifecycleAwareSessionManagerUnitTests {
 						ArgumentMatchers.<Class> any())).thenThrow(
 				new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
 
-		sessionManager.renewToken();
+		sessionManager.getSessionToken();
 		sessionManager.destroy();
 
 		verify(restOperations)
@@ -168,6 +184,62 @@ public class LifecycleAwareSessionManagerUnitTests {
 		verify(taskExecutor, times(2)).execute(any(Runnable.class));
 	}
 
+	@Test
+	public void shouldRunDueRenewalOnSharedWorkerPool() throws Exception {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				SharedRenewalScheduler.getTaskExecutor(), restOperations);
+
+		final CountDownLatch renewed = new CountDownLatch(1);
+		final String[] renewalThread = new String[1];
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("login", 5));
+		when(
+				restOperations.postForObject(eq("/auth/token/renew-self"), any(),
+						any(Class.class))).thenAnswer(new Answer<Object>() {
+
+			@Override
+			public Object answer(InvocationOnMock invocation) {
+
+				renewalThread[0] = Thread.currentThread().getName();
+				renewed.countDown();
+				return null;
+			}
+		});
+
+		try {
+
+			sessionManager.getSessionToken();
+
+			assertThat(renewed.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(renewalThread[0]).startsWith("spring-vault-worker-");
+		}
+		finally {
+			sessionManager.destroy();
+		}
+	}
+
+	@Test
+	public void shouldExposeSessionStatistics() {
+
+		assertThat(sessionManager.getTokenTimeToLive()).isEqualTo(-1);
+		assertThat(sessionManager.getLastRenewal()).isNull();
+		assertThat(sessionManager.getLoginCount()).isZero();
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("login", 60));
+
+		sessionManager.getSessionToken();
+
+		assertThat(sessionManager.getTokenTimeToLive()).isGreaterThan(0)
+				.isLessThanOrEqualTo(TimeUnit.SECONDS.toMillis(60));
+		assertThat(sessionManager.getLoginCount()).isEqualTo(1);
+		assertThat(sessionManager.getLoginFailureCount()).isZero();
+
+		sessionManager.renewToken();
+
+		assertThat(sessionManager.getLastRenewal()).isNotNull();
+	}
+
 	@Test
 	public void shouldUseTaskScheduler() {
 
@@ -186,7 +258,27 @@ public class LifecycleAwareSessionManagerUnitTests {
 	}
 
 	@Test
-	public void shouldNotReScheduleTokenRenewalAfterFailedRenewal() {
+	public void shouldApplyRefreshPolicy() {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				taskScheduler, restOperations);
+		sessionManager.setRefreshPolicy(RefreshPolicy.before(10, TimeUnit.SECONDS));
+
+		when(clientAuthentication.login()).thenReturn(
+				LoginToken.renewable("login", 100));
+
+		ArgumentCaptor<Trigger> triggerCaptor = ArgumentCaptor.forClass(Trigger.class);
+
+		long now = System.currentTimeMillis();
+		sessionManager.getSessionToken();
+		verify(taskScheduler).schedule(any(Runnable.class), triggerCaptor.capture());
+
+		long delay = triggerCaptor.getValue().nextExecutionTime(null).getTime() - now;
+		assertThat(delay).isBetween(89000L, 91000L);
+	}
+
+	@Test
+	public void shouldRetryTokenRenewalAfterServerError() {
 
 		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("login", 5));
 		when(
@@ -201,7 +293,10 @@ public class LifecycleAwareSessionManagerUnitTests {
 
 		runnableCaptor.getValue().run();
 
-		verify(taskExecutor, times(1)).execute(any(Runnable.class));
+		verify(taskExecutor, times(2)).execute(any(Runnable.class));
+		verify(clientAuthentication, times(1)).login();
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.renewable("login", 5));
 	}
 
 	@Test
@@ -217,17 +312,217 @@ public class LifecycleAwareSessionManagerUnitTests {
 	}
 
 	@Test
-	public void renewShouldReportFalseIfTokenRenewalFails() {
+	public void renewShouldReportFalseAndReLoginIfTokenRenewalFails() {
 
-		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("login", 5));
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("login", 5),
+				LoginToken.renewable("new", 5));
 		when(
-				restOperations.postForObject(anyString(),
+				restOperations.postForObject(eq("/auth/token/renew-self"),
 						ArgumentMatchers.<Object> any(), ArgumentMatchers.<Class> any()))
-				.thenThrow(new HttpServerErrorException(HttpStatus.BAD_REQUEST));
+				.thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
 
 		sessionManager.getSessionToken();
 
 		assertThat(sessionManager.renewToken()).isFalse();
-		verify(clientAuthentication, times(1)).login();
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.renewable("new", 5));
+		verify(clientAuthentication, times(2)).login();
+	}
+
+	@Test
+	public void shouldReLoginNonRenewableTokenInBackground() {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				taskScheduler, restOperations);
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.of("login", 100),
+				LoginToken.of("new", 100));
+
+		ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+		sessionManager.getSessionToken();
+		verify(taskScheduler).schedule(runnableCaptor.capture(), any(Trigger.class));
+
+		runnableCaptor.getValue().run();
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.of("new", 100));
+		verify(clientAuthentication, times(2)).login();
+		verify(taskScheduler, times(2)).schedule(any(Runnable.class),
+				any(Trigger.class));
+
+		verify(taskScheduler).execute(runnableCaptor.capture());
+		runnableCaptor.getValue().run();
+
+		verify(restOperations).postForObject(
+				eq("/auth/token/revoke-self"),
+				eq(new HttpEntity<Object>(VaultHttpHeaders.from(LoginToken.of("login",
+						100)))), any(Class.class));
+	}
+
+	@Test
+	public void shouldReLoginAfterRenewalClientError() {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				taskScheduler, restOperations);
+
+		when(clientAuthentication.login()).thenReturn(
+				LoginToken.renewable("login", 100), LoginToken.renewable("new", 100));
+		when(
+				restOperations.postForObject(eq("/auth/token/renew-self"), any(),
+						ArgumentMatchers.<Class> any())).thenThrow(
+				new HttpClientErrorException(HttpStatus.FORBIDDEN));
+
+		ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+		sessionManager.getSessionToken();
+		verify(taskScheduler).schedule(runnableCaptor.capture(), any(Trigger.class));
+
+		runnableCaptor.getValue().run();
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.renewable("new", 100));
+		verify(clientAuthentication, times(2)).login();
+	}
+
+	@Test
+	public void shouldReLoginBeforeExplicitMaxTtl() {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				taskScheduler, restOperations);
+
+		Map<String, Object> data = new HashMap<String, Object>();
+		data.put("explicit_max_ttl", 5);
+
+		when(clientAuthentication.login()).thenReturn(
+				LoginToken.renewable("login", 100), LoginToken.renewable("new", 100));
+		when(
+				restOperations.exchange(eq("/auth/token/lookup-self"),
+						eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+				.thenReturn(
+						new ResponseEntity<Map>(Collections.singletonMap("data", data),
+								HttpStatus.OK));
+
+		ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+		sessionManager.getSessionToken();
+		verify(taskScheduler).schedule(runnableCaptor.capture(), any(Trigger.class));
+
+		runnableCaptor.getValue().run();
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.renewable("new", 100));
+		verify(restOperations, never()).postForObject(eq("/auth/token/renew-self"),
+				any(), ArgumentMatchers.<Class> any());
+	}
+
+	@Test
+	public void shouldReLoginAfterCappedRenewal() {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				taskScheduler, restOperations);
+
+		Map<String, Object> auth = new HashMap<String, Object>();
+		auth.put("lease_duration", 8);
+
+		when(clientAuthentication.login()).thenReturn(
+				LoginToken.renewable("login", 100), LoginToken.renewable("new", 100));
+		when(
+				restOperations.postForObject(eq("/auth/token/renew-self"), any(),
+						ArgumentMatchers.<Class> any())).thenReturn(
+				Collections.singletonMap("auth", auth));
+
+		ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+		sessionManager.getSessionToken();
+		verify(taskScheduler).schedule(runnableCaptor.capture(), any(Trigger.class));
+		runnableCaptor.getValue().run();
+
+		verify(taskScheduler, times(2)).schedule(runnableCaptor.capture(),
+				any(Trigger.class));
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.renewable("login", 100));
+
+		runnableCaptor.getValue().run();
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.renewable("new", 100));
+		verify(restOperations, times(1)).postForObject(eq("/auth/token/renew-self"),
+				any(), ArgumentMatchers.<Class> any());
+	}
+
+	@Test
+	public void shouldKeepTokenIfBackgroundLoginFails() {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				taskScheduler, restOperations);
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.of("login", 100))
+				.thenThrow(new VaultException("Status 503"));
+
+		ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+		sessionManager.getSessionToken();
+		verify(taskScheduler).schedule(runnableCaptor.capture(), any(Trigger.class));
+
+		runnableCaptor.getValue().run();
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(
+				LoginToken.of("login", 100));
+		verify(taskScheduler, times(2)).schedule(any(Runnable.class),
+				any(Trigger.class));
+	}
+
+	@Test
+	public void shouldKeepTokenUntilExpiryIfBackgroundLoginFails() {
+
+		sessionManager = new LifecycleAwareSessionManager(clientAuthentication,
+				taskScheduler, restOperations);
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.of("login", 1))
+				.thenThrow(new VaultException("Status 503"));
+
+		ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+		sessionManager.getSessionToken();
+		verify(taskScheduler).schedule(runnableCaptor.capture(), any(Trigger.class));
+
+		runnableCaptor.getValue().run();
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(LoginToken.of("login", 1));
+		verify(clientAuthentication, times(2)).login();
+		verify(taskScheduler, times(2)).schedule(any(Runnable.class),
+				any(Trigger.class));
+	}
+
+	@Test
+	public void shouldReLoginAfterInvalidation() {
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.of("login"),
+				LoginToken.of("new"));
+
+		sessionManager.getSessionToken();
+		sessionManager.invalidateSessionToken(VaultToken.of("other"));
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(LoginToken.of("login"));
+
+		sessionManager.invalidateSessionToken(VaultToken.of("login"));
+
+		assertThat(sessionManager.getSessionToken()).isEqualTo(LoginToken.of("new"));
+		verify(clientAuthentication, times(2)).login();
+	}
+
+	/**
+	 * {@link ConcurrentTaskScheduler} running tasks scheduled with a {@link Trigger}
+	 * immediately on the calling thread.
+	 */
+	static class ImmediateTaskScheduler extends ConcurrentTaskScheduler {
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+
+			task.run();
+			return null;
+		}
 	}
 }
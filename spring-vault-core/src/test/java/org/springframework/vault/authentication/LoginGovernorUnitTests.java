@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.support.VaultToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link LoginGovernor}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LoginGovernorUnitTests {
+
+	@Mock
+	private ClientAuthentication clientAuthentication;
+
+	private long time = 1000;
+
+	private double random = 1;
+
+	private LoginGovernor governor;
+
+	@Before
+	public void before() {
+
+		governor = new LoginGovernor() {
+
+			@Override
+			long currentTimeMillis() {
+				return time;
+			}
+
+			@Override
+			double random() {
+				return random;
+			}
+		};
+
+		governor.setInitialBackoff(100, TimeUnit.MILLISECONDS);
+		governor.setMaxBackoff(300, TimeUnit.MILLISECONDS);
+		governor.setMaxAttempts(4);
+		governor.setCircuitOpenDuration(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void shouldLogin() {
+
+		when(clientAuthentication.login()).thenReturn(VaultToken.of("token"));
+
+		assertThat(governor.login(clientAuthentication)).isEqualTo(VaultToken.of("token"));
+		assertThat(governor.getLoginCount()).isEqualTo(1);
+		assertThat(governor.getFailureCount()).isZero();
+	}
+
+	@Test
+	public void shouldRejectLoginDuringBackoff() {
+
+		when(clientAuthentication.login()).thenThrow(new VaultException("Status 503"));
+
+		attemptLogin();
+		attemptLogin();
+
+		assertThat(governor.getRejectedCount()).isEqualTo(1);
+		verify(clientAuthentication, times(1)).login();
+
+		time += 100;
+		attemptLogin();
+
+		verify(clientAuthentication, times(2)).login();
+		assertThat(governor.getConsecutiveFailures()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldApplyExponentialBackoffWithJitter() {
+
+		when(clientAuthentication.login()).thenThrow(new VaultException("Status 503"));
+
+		random = 0.5;
+
+		attemptLogin();
+		time += 49;
+		attemptLogin();
+		assertThat(governor.getRejectedCount()).isEqualTo(1);
+
+		time += 1;
+		attemptLogin();
+		time += 99;
+		attemptLogin();
+		assertThat(governor.getRejectedCount()).isEqualTo(2);
+
+		time += 1;
+		attemptLogin();
+		time += 149;
+		attemptLogin();
+		assertThat(governor.getRejectedCount()).isEqualTo(3);
+
+		verify(clientAuthentication, times(3)).login();
+	}
+
+	@Test
+	public void shouldOpenCircuitAfterMaxAttempts() {
+
+		when(clientAuthentication.login()).thenThrow(new VaultException("Status 503"))
+				.thenThrow(new VaultException("Status 503"))
+				.thenThrow(new VaultException("Status 503"))
+				.thenThrow(new VaultException("Status 503"))
+				.thenReturn(VaultToken.of("token"));
+
+		for (int i = 0; i < 4; i++) {
+			attemptLogin();
+			time += 1000;
+		}
+
+		assertThat(governor.isCircuitOpen()).isTrue();
+
+		try {
+			governor.login(clientAuthentication);
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("circuit open");
+		}
+
+		time += 10000;
+
+		assertThat(governor.isCircuitOpen()).isFalse();
+		assertThat(governor.login(clientAuthentication)).isEqualTo(VaultToken.of("token"));
+		assertThat(governor.getConsecutiveFailures()).isZero();
+		assertThat(governor.getFailureCount()).isEqualTo(4);
+	}
+
+	@Test
+	public void sessionManagerShouldFailFastAfterFailedLogin() {
+
+		when(clientAuthentication.login()).thenThrow(new VaultException("Status 503"));
+
+		SimpleSessionManager sessionManager = new SimpleSessionManager(
+				clientAuthentication);
+		sessionManager.setLoginGovernor(governor);
+
+		for (int i = 0; i < 3; i++) {
+			try {
+				sessionManager.getSessionToken();
+				fail("Missing VaultException");
+			}
+			catch (VaultException e) {
+				// expected
+			}
+		}
+
+		verify(clientAuthentication, times(1)).login();
+		assertThat(governor.getRejectedCount()).isEqualTo(2);
+	}
+
+	private void attemptLogin() {
+
+		try {
+			governor.login(clientAuthentication);
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void shouldRejectLoginAfterDeadlineWithoutBackoff() {
+
+		Deadline previous = Deadline.bind(Deadline.after(0, TimeUnit.MILLISECONDS));
+
+		try {
+			governor.login(clientAuthentication);
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("Deadline exceeded before login");
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+
+		verify(clientAuthentication, never()).login();
+		assertThat(governor.getConsecutiveFailures()).isZero();
+	}
+
+	@Test
+	public void shouldBindLoginTimeout() {
+
+		governor.setLoginTimeout(2, TimeUnit.SECONDS);
+
+		when(clientAuthentication.login()).thenAnswer(new Answer<VaultToken>() {
+
+			@Override
+			public VaultToken answer(InvocationOnMock invocation) {
+
+				assertThat(Deadline.current()).isNotNull();
+				assertThat(Deadline.current().getTimeRemaining(TimeUnit.MILLISECONDS))
+						.isBetween(1L, 2000L);
+
+				return VaultToken.of("token");
+			}
+		});
+
+		governor.login(clientAuthentication);
+
+		assertThat(Deadline.current()).isNull();
+	}
+
+	@Test
+	public void shouldNotLimitLoginByCallerDeadline() {
+
+		governor.setLoginTimeout(2, TimeUnit.SECONDS);
+
+		when(clientAuthentication.login()).thenAnswer(new Answer<VaultToken>() {
+
+			@Override
+			public VaultToken answer(InvocationOnMock invocation) {
+
+				assertThat(Deadline.current().getTimeRemaining(TimeUnit.MILLISECONDS))
+						.isGreaterThan(1000L);
+
+				return VaultToken.of("token");
+			}
+		});
+
+		Deadline deadline = Deadline.after(500, TimeUnit.MILLISECONDS);
+		Deadline previous = Deadline.bind(deadline);
+
+		try {
+			governor.login(clientAuthentication);
+
+			assertThat(Deadline.current()).isSameAs(deadline);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+	}
+}
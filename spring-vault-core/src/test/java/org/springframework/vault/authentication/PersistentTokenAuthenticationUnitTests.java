@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultToken;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link PersistentTokenAuthentication}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PersistentTokenAuthenticationUnitTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Mock
+	private ClientAuthentication delegate;
+
+	@Mock
+	private RestOperations restOperations;
+
+	private File tokenFile;
+
+	private PersistentTokenAuthenticationOptions options;
+
+	@Before
+	public void before() throws Exception {
+
+		tokenFile = new File(temporaryFolder.getRoot(), "token");
+		options = PersistentTokenAuthenticationOptions.builder().tokenFile(tokenFile)
+				.encryptionKey(new byte[16]).build();
+
+		when(delegate.login()).thenReturn(LoginToken.renewable("persisted", 100),
+				LoginToken.renewable("fresh", 100));
+	}
+
+	@Test
+	public void shouldPersistTokenObtainedByDelegate() throws Exception {
+
+		PersistentTokenAuthentication authentication = new PersistentTokenAuthentication(
+				options, delegate, restOperations);
+
+		assertThat(authentication.login()).isEqualTo(VaultToken.of("persisted"));
+		assertThat(tokenFile).exists();
+
+		byte[] content = FileCopyUtils.copyToByteArray(tokenFile);
+		assertThat(new String(content, "ISO-8859-1")).doesNotContain("persisted");
+
+		LoginToken decoded = authentication.decode(content);
+		assertThat(decoded.getToken()).isEqualTo("persisted");
+		assertThat(decoded.getLeaseDuration()).isEqualTo(100);
+		assertThat(decoded.isRenewable()).isTrue();
+	}
+
+	@Test
+	public void shouldReuseValidPersistedToken() {
+
+		new PersistentTokenAuthentication(options, delegate, restOperations).login();
+
+		Map<String, Object> data = new HashMap<String, Object>();
+		data.put("ttl", 42);
+		data.put("renewable", true);
+
+		VaultResponse response = new VaultResponse();
+		response.setData(data);
+
+		when(
+				restOperations.exchange(eq("auth/token/lookup-self"),
+						eq(HttpMethod.GET), any(HttpEntity.class),
+						eq(VaultResponse.class))).thenReturn(
+				new ResponseEntity<VaultResponse>(response, HttpStatus.OK));
+
+		PersistentTokenAuthentication authentication = new PersistentTokenAuthentication(
+				options, delegate, restOperations);
+
+		LoginToken token = (LoginToken) authentication.login();
+
+		assertThat(token.getToken()).isEqualTo("persisted");
+		assertThat(token.getLeaseDuration()).isEqualTo(42);
+		assertThat(token.isRenewable()).isTrue();
+
+		verify(restOperations).exchange(
+				eq("auth/token/lookup-self"),
+				eq(HttpMethod.GET),
+				eq(new HttpEntity<Object>(VaultHttpHeaders.from(LoginToken
+						.of("persisted")))), eq(VaultResponse.class));
+		verify(delegate, times(1)).login();
+	}
+
+	@Test
+	public void shouldUseDelegateAfterRestore() {
+
+		new PersistentTokenAuthentication(options, delegate, restOperations).login();
+
+		when(
+				restOperations.exchange(anyString(), any(HttpMethod.class),
+						any(HttpEntity.class), ArgumentMatchers.<Class> any()))
+				.thenThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN));
+
+		PersistentTokenAuthentication authentication = new PersistentTokenAuthentication(
+				options, delegate, restOperations);
+
+		assertThat(authentication.login()).isEqualTo(VaultToken.of("fresh"));
+		verify(delegate, times(2)).login();
+	}
+
+	@Test
+	public void shouldDiscardTamperedTokenFile() throws Exception {
+
+		new PersistentTokenAuthentication(options, delegate, restOperations).login();
+
+		byte[] content = FileCopyUtils.copyToByteArray(tokenFile);
+		content[content.length / 2] ^= 1;
+		FileCopyUtils.copy(content, tokenFile);
+
+		PersistentTokenAuthentication authentication = new PersistentTokenAuthentication(
+				options, delegate, restOperations);
+
+		assertThat(authentication.login()).isEqualTo(VaultToken.of("fresh"));
+		verify(restOperations, never()).exchange(anyString(), any(HttpMethod.class),
+				any(HttpEntity.class), ArgumentMatchers.<Class> any());
+	}
+
+	@Test
+	public void shouldNotDecodeWithDifferentKey() throws Exception {
+
+		new PersistentTokenAuthentication(options, delegate, restOperations).login();
+
+		byte[] key = new byte[16];
+		key[0] = 1;
+
+		PersistentTokenAuthentication authentication = new PersistentTokenAuthentication(
+				PersistentTokenAuthenticationOptions.builder().tokenFile(tokenFile)
+						.encryptionKey(key).build(), delegate, restOperations);
+
+		assertThat(authentication.decode(FileCopyUtils.copyToByteArray(tokenFile)))
+				.isNull();
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RefreshPolicy}.
+ *
+ * @author Mark Paluch
+ */
+public class RefreshPolicyUnitTests {
+
+	@Test
+	public void shouldRefreshBeforeExpiry() {
+
+		RefreshPolicy policy = RefreshPolicy.before(30, TimeUnit.SECONDS);
+
+		assertThat(policy.getRefreshDelay(100, TimeUnit.SECONDS)).isEqualTo(70000);
+	}
+
+	@Test
+	public void shouldApplyMinimalDelay() {
+
+		RefreshPolicy policy = RefreshPolicy.before(30, TimeUnit.SECONDS);
+
+		assertThat(policy.getRefreshDelay(10, TimeUnit.SECONDS)).isEqualTo(1000);
+	}
+
+	@Test
+	public void shouldApplyJitter() {
+
+		RefreshPolicy policy = RefreshPolicy.before(0, TimeUnit.SECONDS).withJitter(0.5);
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(policy.getRefreshDelay(100, TimeUnit.SECONDS)).isBetween(50000L,
+					100000L);
+		}
+	}
+}
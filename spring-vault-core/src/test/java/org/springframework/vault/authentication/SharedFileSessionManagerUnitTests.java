@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.support.VaultToken;
+import org.springframework.web.client.RestOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SharedFileSessionManager}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SharedFileSessionManagerUnitTests {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Mock
+	private ClientAuthentication clientAuthentication;
+
+	@Mock
+	private TaskScheduler taskScheduler;
+
+	@Mock
+	private RestOperations restOperations;
+
+	private File tokenFile;
+
+	private SharedFileSessionManager leader;
+
+	private SharedFileSessionManager follower;
+
+	@Before
+	public void before() {
+
+		tokenFile = new File(temporaryFolder.getRoot(), "vault-token");
+
+		leader = new SharedFileSessionManager(clientAuthentication, taskScheduler,
+				restOperations, tokenFile);
+		follower = new SharedFileSessionManager(clientAuthentication, taskScheduler,
+				restOperations, tokenFile);
+		follower.setLoginTimeout(0, TimeUnit.MILLISECONDS);
+	}
+
+	@After
+	public void after() {
+
+		leader.destroy();
+		follower.destroy();
+	}
+
+	@Test
+	public void leaderShouldLoginAndWriteTokenFile() throws Exception {
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("shared", 100));
+
+		assertThat(leader.getSessionToken()).isEqualTo(VaultToken.of("shared"));
+		assertThat(leader.isLeader()).isTrue();
+
+		Properties properties = new Properties();
+		properties.load(new ByteArrayInputStream(FileCopyUtils
+				.copyToByteArray(tokenFile)));
+
+		assertThat(properties.getProperty("token")).isEqualTo("shared");
+		assertThat(properties.getProperty("lease_duration")).isEqualTo("100");
+		assertThat(properties.getProperty("renewable")).isEqualTo("true");
+	}
+
+	@Test
+	public void followerShouldUseSharedToken() {
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("shared", 100));
+
+		leader.getSessionToken();
+
+		assertThat(follower.getSessionToken()).isEqualTo(VaultToken.of("shared"));
+		assertThat(follower.isLeader()).isFalse();
+		verify(clientAuthentication, times(1)).login();
+	}
+
+	@Test
+	public void followerShouldLoginIfNoSharedTokenAvailable() {
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("shared", 100),
+				LoginToken.renewable("local", 100));
+
+		leader.getSessionToken();
+		leader.invalidateSessionToken(VaultToken.of("shared"));
+		follower.invalidateSessionToken(VaultToken.of("shared"));
+
+		assertThat(follower.getSessionToken()).isEqualTo(VaultToken.of("shared"));
+
+		follower.invalidateSessionToken(VaultToken.of("shared"));
+
+		assertThat(follower.getSessionToken()).isEqualTo(VaultToken.of("local"));
+		assertThat(follower.isLeader()).isFalse();
+	}
+
+	@Test
+	public void followerShouldTakeOverLeadership() {
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("shared", 100));
+
+		leader.getSessionToken();
+		follower.getSessionToken();
+
+		leader.destroy();
+		follower.poll();
+
+		assertThat(follower.isLeader()).isTrue();
+		assertThat(follower.getSessionToken()).isEqualTo(VaultToken.of("shared"));
+		verify(clientAuthentication, times(1)).login();
+	}
+
+	@Test
+	public void newLeaderShouldShareLocallyObtainedToken() throws Exception {
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("shared", 100),
+				LoginToken.renewable("local", 100));
+
+		leader.getSessionToken();
+		follower.getSessionToken();
+		follower.invalidateSessionToken(VaultToken.of("shared"));
+
+		assertThat(follower.getSessionToken()).isEqualTo(VaultToken.of("local"));
+
+		leader.destroy();
+		follower.poll();
+
+		assertThat(follower.isLeader()).isTrue();
+
+		Properties properties = new Properties();
+		properties.load(new ByteArrayInputStream(FileCopyUtils
+				.copyToByteArray(tokenFile)));
+
+		assertThat(properties.getProperty("token")).isEqualTo("local");
+		verify(clientAuthentication, times(2)).login();
+	}
+
+	@Test
+	public void shouldStartPollingOnFirstUse() {
+
+		ScheduledFuture<?> pollTask = mock(ScheduledFuture.class);
+		doReturn(pollTask).when(taskScheduler).scheduleWithFixedDelay(
+				any(Runnable.class), anyLong());
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("shared", 100));
+
+		verify(taskScheduler, never()).scheduleWithFixedDelay(any(Runnable.class),
+				anyLong());
+
+		leader.getSessionToken();
+		leader.invalidateSessionToken(VaultToken.of("shared"));
+		leader.getSessionToken();
+
+		verify(taskScheduler, times(1)).scheduleWithFixedDelay(any(Runnable.class),
+				eq(SharedFileSessionManager.DEFAULT_POLL_INTERVAL));
+
+		leader.destroy();
+
+		verify(pollTask).cancel(false);
+	}
+
+	@Test
+	public void leaderShouldRenewTokenWhenDue() throws Exception {
+
+		when(clientAuthentication.login()).thenReturn(LoginToken.renewable("shared", 3));
+
+		leader.setRefreshPolicy(RefreshPolicy.before(2, TimeUnit.SECONDS));
+		leader.getSessionToken();
+
+		Thread.sleep(1100);
+		leader.poll();
+
+		verify(restOperations).postForObject(
+				eq("/auth/token/renew-self"),
+				eq(new HttpEntity<Object>(VaultHttpHeaders.from(LoginToken.renewable(
+						"shared", 3)))), ArgumentMatchers.<Class> any());
+		verify(clientAuthentication, times(1)).login();
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SharedRenewalScheduler}.
+ *
+ * @author Mark Paluch
+ */
+public class SharedRenewalSchedulerUnitTests {
+
+	@Test
+	public void shouldRunScheduledTasksOnWorkerThreads() throws Exception {
+
+		final AtomicReference<String> threadName = new AtomicReference<String>();
+		final CountDownLatch latch = new CountDownLatch(1);
+
+		SharedRenewalScheduler.getInstance().schedule(new Runnable() {
+
+			@Override
+			public void run() {
+
+				threadName.set(Thread.currentThread().getName());
+				latch.countDown();
+			}
+		}, new Date());
+
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(threadName.get()).startsWith("spring-vault-worker-");
+	}
+
+	@Test
+	public void blockedTaskShouldNotDelayOtherTasks() throws Exception {
+
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(1);
+
+		SharedRenewalScheduler.getInstance().schedule(new Runnable() {
+
+			@Override
+			public void run() {
+
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, new Date());
+
+		SharedRenewalScheduler.getInstance().schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				completed.countDown();
+			}
+		}, new Date());
+
+		try {
+			assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+		finally {
+			release.countDown();
+		}
+	}
+}
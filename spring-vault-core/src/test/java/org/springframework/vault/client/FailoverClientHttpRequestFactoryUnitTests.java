@@ -0,0 +1,311 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.vault.VaultException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Unit tests for {@link FailoverClientHttpRequestFactory}.
+ *
+ * @author Mark Paluch
+ */
+public class FailoverClientHttpRequestFactoryUnitTests {
+
+	private VaultEndpoint down = VaultEndpoint.create("down", 8200);
+
+	private VaultEndpoint sealed = VaultEndpoint.create("sealed", 8200);
+
+	private VaultEndpoint active = VaultEndpoint.create("active", 8200);
+
+	private StubClientHttpRequestFactory requestFactory = new StubClientHttpRequestFactory();
+
+	@Test
+	public void shouldFailOverOnConnectionErrorsAndUnavailableNodes() {
+
+		StubEndpointProvider endpointProvider = new StubEndpointProvider(down, sealed,
+				active);
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(endpointProvider,
+				requestFactory);
+
+		String response = restTemplate.postForObject("secret/foo", "{\"key\": 1}",
+				String.class);
+
+		assertThat(response).isEqualTo("{\"data\": {}}");
+		assertThat(endpointProvider.failures).containsExactly(down, sealed);
+		assertThat(requestFactory.requests).hasSize(3);
+
+		MockClientHttpRequest request = requestFactory.requests.get(2);
+		assertThat(request.getURI().toString()).isEqualTo(
+				"https://active:8200/v1/secret/foo");
+		assertThat(request.getBodyAsString()).isEqualTo("{\"key\": 1}");
+	}
+
+	@Test
+	public void shouldUseFirstEndpoint() {
+
+		StubEndpointProvider endpointProvider = new StubEndpointProvider(active, down);
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(endpointProvider,
+				requestFactory);
+
+		restTemplate.getForObject("secret/foo?list=true", String.class);
+
+		assertThat(endpointProvider.failures).isEmpty();
+		assertThat(requestFactory.requests).hasSize(1);
+		assertThat(requestFactory.requests.get(0).getURI().toString()).isEqualTo(
+				"https://active:8200/v1/secret/foo?list=true");
+	}
+
+	@Test
+	public void shouldReportLastConnectionError() {
+
+		StubEndpointProvider endpointProvider = new StubEndpointProvider(down);
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(endpointProvider,
+				requestFactory);
+
+		try {
+			restTemplate.getForObject("secret/foo", String.class);
+			fail("Missing ResourceAccessException");
+		}
+		catch (ResourceAccessException e) {
+			assertThat(e).hasCauseInstanceOf(ConnectException.class);
+		}
+
+		assertThat(endpointProvider.failures).containsExactly(down);
+	}
+
+	@Test
+	public void shouldNotFailOverAfterDeadline() {
+
+		StubEndpointProvider endpointProvider = new StubEndpointProvider(
+				VaultEndpoint.create("slow", 8200), active);
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(endpointProvider,
+				requestFactory);
+
+		Deadline previous = Deadline.bind(Deadline.after(10, TimeUnit.MILLISECONDS));
+
+		try {
+			restTemplate.getForObject("secret/foo", String.class);
+			fail("Missing ResourceAccessException");
+		}
+		catch (ResourceAccessException e) {
+			assertThat(e).hasCauseInstanceOf(ConnectException.class);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+
+		assertThat(requestFactory.requests).hasSize(1);
+	}
+
+	@Test
+	public void shouldRejectRequestsAfterDeadline() {
+
+		StubEndpointProvider endpointProvider = new StubEndpointProvider(active);
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(endpointProvider,
+				requestFactory);
+
+		Deadline previous = Deadline.bind(Deadline.after(0, TimeUnit.MILLISECONDS));
+
+		try {
+			restTemplate.getForObject("secret/foo", String.class);
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("Deadline exceeded before GET /v1/secret/foo");
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+
+		assertThat(requestFactory.requests).isEmpty();
+		assertThat(Deadline.current()).isNull();
+	}
+
+	@Test
+	public void shouldNotFailOverWritesAfterReadTimeout() {
+
+		StubEndpointProvider endpointProvider = new StubEndpointProvider(
+				VaultEndpoint.create("timeout", 8200), active);
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(endpointProvider,
+				requestFactory);
+
+		try {
+			restTemplate.postForObject("secret/foo", "{\"key\": 1}", String.class);
+			fail("Missing ResourceAccessException");
+		}
+		catch (ResourceAccessException e) {
+			assertThat(e).hasCauseInstanceOf(SocketTimeoutException.class);
+		}
+
+		assertThat(requestFactory.requests).hasSize(1);
+	}
+
+	@Test
+	public void shouldFailOverReadsAfterReadTimeout() {
+
+		StubEndpointProvider endpointProvider = new StubEndpointProvider(
+				VaultEndpoint.create("timeout", 8200), active);
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(endpointProvider,
+				requestFactory);
+
+		assertThat(restTemplate.getForObject("secret/foo", String.class)).isEqualTo(
+				"{\"data\": {}}");
+		assertThat(requestFactory.requests).hasSize(2);
+	}
+
+	@Test
+	public void shouldFailOverWritesOnConnectFailures() {
+
+		assertThat(
+				FailoverClientHttpRequestFactory.isFailoverSafe(HttpMethod.PUT,
+						new IOException(new ConnectException("Connection refused"))))
+				.isTrue();
+		assertThat(
+				FailoverClientHttpRequestFactory.isFailoverSafe(HttpMethod.POST,
+						new ConnectionPoolTimeoutException("Timeout waiting for connection")))
+				.isTrue();
+		assertThat(
+				FailoverClientHttpRequestFactory.isFailoverSafe(HttpMethod.PUT,
+						new SocketTimeoutException("Read timed out"))).isFalse();
+		assertThat(
+				FailoverClientHttpRequestFactory.isFailoverSafe(HttpMethod.HEAD,
+						new SocketTimeoutException("Read timed out"))).isTrue();
+	}
+
+	@Test
+	public void shouldRewriteUri() {
+
+		URI uri = FailoverClientHttpRequestFactory.rewrite(
+				URI.create("https://localhost:8200/v1/secret/a%20b?list=true"),
+				VaultEndpoint.create("other", 8201));
+
+		assertThat(uri.toString()).isEqualTo(
+				"https://other:8201/v1/secret/a%20b?list=true");
+	}
+
+	static class StubEndpointProvider implements VaultEndpointProvider {
+
+		final List<VaultEndpoint> endpoints;
+
+		final List<VaultEndpoint> failures = Collections
+				.synchronizedList(new ArrayList<VaultEndpoint>());
+
+		StubEndpointProvider(VaultEndpoint... endpoints) {
+			this.endpoints = Arrays.asList(endpoints);
+		}
+
+		@Override
+		public List<VaultEndpoint> getVaultEndpoints() {
+			return endpoints;
+		}
+
+		@Override
+		public void reportFailure(VaultEndpoint endpoint) {
+			failures.add(endpoint);
+		}
+	}
+
+	static class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+		final List<MockClientHttpRequest> requests = new ArrayList<MockClientHttpRequest>();
+
+		@Override
+		public ClientHttpRequest createRequest(final URI uri, HttpMethod httpMethod)
+				throws IOException {
+
+			MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri) {
+
+				@Override
+				protected ClientHttpResponse executeInternal() throws IOException {
+
+					if (uri.getHost().equals("down")) {
+						throw new ConnectException("Connection refused");
+					}
+
+					if (uri.getHost().equals("slow")) {
+
+						try {
+							Thread.sleep(20);
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+
+						throw new ConnectException("Connect timed out");
+					}
+
+					if (uri.getHost().equals("timeout")) {
+						throw new SocketTimeoutException("Read timed out");
+					}
+
+					if (uri.getHost().equals("sealed")) {
+						return response(HttpStatus.SERVICE_UNAVAILABLE,
+								"{\"errors\": [\"Vault is sealed\"]}");
+					}
+
+					return response(HttpStatus.OK, "{\"data\": {}}");
+				}
+			};
+
+			requests.add(request);
+
+			return request;
+		}
+
+		private static ClientHttpResponse response(HttpStatus status, String body) {
+
+			MockClientHttpResponse response = new MockClientHttpResponse(
+					body.getBytes(Charset.forName("UTF-8")), status);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+			return response;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ *
+ * @author Mark Paluch
+ */
+public class LatencyHistogramUnitTests {
+
+	private LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	public void emptyHistogramShouldReportNoPercentiles() {
+
+		assertThat(histogram.getCount()).isZero();
+		assertThat(histogram.getPercentile(0.5, TimeUnit.MILLISECONDS)).isEqualTo(-1);
+		assertThat(histogram.getMean(TimeUnit.MILLISECONDS)).isZero();
+	}
+
+	@Test
+	public void shouldCalculatePercentiles() {
+
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i, TimeUnit.MILLISECONDS);
+		}
+
+		assertThat(histogram.getCount()).isEqualTo(1000);
+		assertThat(histogram.getMax(TimeUnit.MILLISECONDS)).isEqualTo(1000);
+		assertThat(histogram.getMean(TimeUnit.MICROSECONDS)).isEqualTo(500500);
+		assertThat(histogram.getPercentile(0.5, TimeUnit.MICROSECONDS)).isCloseTo(
+				500000, within(500000L / 32));
+		assertThat(histogram.getPercentile(0.99, TimeUnit.MICROSECONDS)).isCloseTo(
+				990000, within(990000L / 32));
+		assertThat(histogram.getPercentile(1, TimeUnit.MILLISECONDS)).isEqualTo(1000);
+	}
+
+	@Test
+	public void shouldRecordSmallValuesExactly() {
+
+		histogram.record(7, TimeUnit.MICROSECONDS);
+		histogram.record(63, TimeUnit.MICROSECONDS);
+
+		assertThat(histogram.getPercentile(0.5, TimeUnit.MICROSECONDS)).isEqualTo(7);
+		assertThat(histogram.getPercentile(1, TimeUnit.MICROSECONDS)).isEqualTo(63);
+	}
+
+	@Test
+	public void bucketsShouldCoverValueRange() {
+
+		for (long value : new long[] { 0, 63, 64, 65, 1000, 123456789,
+				(1L << 41) - 1 }) {
+
+			long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram
+					.indexOf(value));
+
+			assertThat(highest).isGreaterThanOrEqualTo(value);
+			assertThat(highest - value).isLessThanOrEqualTo(value / 32);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.client;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.vault.client.FailoverClientHttpRequestFactoryUnitTests.StubClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Unit tests for {@link ObservingClientHttpRequestFactory}.
+ *
+ * @author Mark Paluch
+ */
+public class ObservingClientHttpRequestFactoryUnitTests {
+
+	private RecordingObserver observer = new RecordingObserver();
+
+	@Test
+	public void shouldObserveRequest() {
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(
+				VaultEndpoint.create("active", 8200), new ObservingClientHttpRequestFactory(
+						new StubClientHttpRequestFactory(), observer));
+
+		restTemplate.postForObject("secret/my-app/database", "{\"key\": 1}",
+				String.class);
+
+		assertThat(observer.started).containsExactly("POST secret/{name}");
+		assertThat(observer.events).hasSize(1);
+
+		VaultRequestEvent event = observer.events.get(0);
+		assertThat(event.getMethod()).isEqualTo(HttpMethod.POST);
+		assertThat(event.getPathTemplate()).isEqualTo("secret/{name}");
+		assertThat(event.getStatusCode()).isEqualTo(200);
+		assertThat(event.getRequestBytes()).isEqualTo(10);
+		assertThat(event.getResponseBytes()).isEqualTo(12);
+		assertThat(event.getDuration(TimeUnit.NANOSECONDS)).isGreaterThanOrEqualTo(
+				event.getResponseTime(TimeUnit.NANOSECONDS));
+		assertThat(event.isFailed()).isFalse();
+	}
+
+	@Test
+	public void shouldObserveFailedRequest() {
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(
+				VaultEndpoint.create("down", 8200), new ObservingClientHttpRequestFactory(
+						new StubClientHttpRequestFactory(), observer));
+
+		try {
+			restTemplate.getForObject("secret/foo", String.class);
+			fail("Missing ResourceAccessException");
+		}
+		catch (ResourceAccessException e) {
+		}
+
+		assertThat(observer.events).hasSize(1);
+
+		VaultRequestEvent event = observer.events.get(0);
+		assertThat(event.getStatusCode()).isEqualTo(0);
+		assertThat(event.getException()).isInstanceOf(ConnectException.class);
+	}
+
+	@Test
+	public void shouldNotFailRequestsIfObserverFails() {
+
+		VaultRequestObserver failing = new VaultRequestObserver() {
+
+			@Override
+			public VaultRequestObservation requestStarted(HttpMethod method,
+					String pathTemplate) {
+				throw new IllegalStateException();
+			}
+		};
+
+		RestTemplate restTemplate = VaultClients.createRestTemplate(
+				VaultEndpoint.create("active", 8200), new ObservingClientHttpRequestFactory(
+						new StubClientHttpRequestFactory(), failing));
+
+		assertThat(restTemplate.getForObject("secret/foo", String.class)).isEqualTo(
+				"{\"data\": {}}");
+	}
+
+	@Test
+	public void shouldNormalizePaths() {
+
+		assertThat(template("/v1/secret/my-app/database")).isEqualTo("secret/{name}");
+		assertThat(template("/v1/secret/")).isEqualTo("secret");
+		assertThat(template("/v1/transit/encrypt/my-key")).isEqualTo(
+				"transit/encrypt/{name}");
+		assertThat(template("/v1/transit/keys/my-key/rotate")).isEqualTo(
+				"transit/keys/{name}/rotate");
+		assertThat(template("/v1/auth/token/lookup-self")).isEqualTo(
+				"auth/token/lookup-self");
+		assertThat(template("/v1/auth/token/renew/a1b2c3")).isEqualTo(
+				"auth/token/renew/{name}");
+		assertThat(template("/v1/auth/approle/role/my-role/secret-id")).isEqualTo(
+				"auth/approle/role/{name}/secret-id");
+		assertThat(template("/v1/auth/my-cert/login")).isEqualTo("auth/my-cert/login");
+		assertThat(template("/v1/sys/renew/database/creds/readonly/1234")).isEqualTo(
+				"sys/renew/{name}/creds/{name}");
+		assertThat(template("/v1/sys/health")).isEqualTo("sys/health");
+		assertThat(template("/v1/pki/issue/web")).isEqualTo("pki/issue/{name}");
+	}
+
+	private static String template(String path) {
+		return ObservingClientHttpRequestFactory.toPathTemplate(path);
+	}
+
+	static class RecordingObserver implements VaultRequestObserver,
+			VaultRequestObservation {
+
+		final List<String> started = new ArrayList<String>();
+
+		final List<VaultRequestEvent> events = new ArrayList<VaultRequestEvent>();
+
+		@Override
+		public VaultRequestObservation requestStarted(HttpMethod method,
+				String pathTemplate) {
+
+			started.add(method + " " + pathTemplate);
+			return this;
+		}
+
+		@Override
+		public void requestCompleted(VaultRequestEvent event) {
+			events.add(event);
+		}
+	}
+}
@@ -32,6 +32,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.vault.authentication.ClientAuthentication;
 import org.springframework.vault.authentication.TokenAuthentication;
+import org.springframework.vault.support.ClientOptions;
 import org.springframework.vault.support.SslConfiguration;
 import org.springframework.vault.support.VaultToken;
 
@@ -97,4 +98,47 @@ public class EnvironmentVaultConfigurationUnitTests {
 
 		configurableEnvironment.getPropertySources().remove(propertySource.getName());
 	}
+
+	@Test
+	public void shouldConfigureConnectionPool() {
+
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("vault.connection-pool.max-total", "200");
+		map.put("vault.connection-pool.max-per-route", "150");
+		map.put("vault.connection-pool.time-to-live", "60000");
+		map.put("vault.connection-pool.validate-after-inactivity", "0");
+
+		MapPropertySource propertySource = new MapPropertySource(
+				"shouldConfigureConnectionPool", map);
+		configurableEnvironment.getPropertySources().addFirst(propertySource);
+
+		ClientOptions clientOptions = configuration.clientOptions();
+
+		assertThat(clientOptions.getMaxTotalConnections()).isEqualTo(200);
+		assertThat(clientOptions.getMaxConnectionsPerRoute()).isEqualTo(150);
+		assertThat(clientOptions.getConnectionTimeToLive()).isEqualTo(60000);
+		assertThat(clientOptions.getValidateAfterInactivity()).isEqualTo(0);
+		assertThat(clientOptions.getMaxRequests()).isEqualTo(
+				new ClientOptions().getMaxRequests());
+
+		configurableEnvironment.getPropertySources().remove(propertySource.getName());
+	}
+
+	@Test
+	public void shouldLimitMaxConnectionsPerRouteToMaxTotal() {
+
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("vault.connection-pool.max-total", "50");
+
+		MapPropertySource propertySource = new MapPropertySource(
+				"shouldLimitMaxConnectionsPerRouteToMaxTotal", map);
+		configurableEnvironment.getPropertySources().addFirst(propertySource);
+
+		ClientOptions clientOptions = configuration.clientOptions();
+
+		assertThat(clientOptions.getMaxTotalConnections()).isEqualTo(50);
+		assertThat(clientOptions.getMaxConnectionsPerRoute()).isEqualTo(50);
+
+		configurableEnvironment.getPropertySources().remove(propertySource.getName());
+	}
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.vault.client.HistogramVaultRequestObserver;
+import org.springframework.vault.client.ObservingClientHttpRequestFactory;
+import org.springframework.vault.config.ClientHttpRequestFactoryFactory.HttpComponents;
+import org.springframework.vault.config.ClientHttpRequestFactoryFactory.Netty;
+import org.springframework.vault.config.ClientHttpRequestFactoryFactory.OkHttp3;
+import org.springframework.vault.support.ClientOptions;
+import org.springframework.vault.support.SslConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link TransportStatistics}.
+ *
+ * @author Mark Paluch
+ */
+public class TransportStatisticsUnitTests {
+
+	@Test
+	public void shouldReportHttpComponentsPoolStatistics() throws Exception {
+
+		ClientOptions options = new ClientOptions();
+		ClientHttpRequestFactory factory = HttpComponents.usingHttpComponents(options,
+				SslConfiguration.NONE);
+
+		TransportStatistics statistics = ClientHttpRequestFactoryFactory
+				.getTransportStatistics(factory);
+
+		assertThat(statistics.getClient()).isEqualTo("HttpComponents");
+		assertThat(statistics.getLeasedConnections()).isZero();
+		assertThat(statistics.getAvailableConnections()).isZero();
+		assertThat(statistics.getPendingConnections()).isZero();
+		assertThat(statistics.getMaxConnections()).isEqualTo(
+				options.getMaxTotalConnections());
+		assertThat(statistics.getQueuedRequests()).isEqualTo(
+				TransportStatistics.UNAVAILABLE);
+		assertThat(statistics.getTlsHandshakeCount()).isZero();
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void shouldReportOkHttp3DispatcherStatistics() throws Exception {
+
+		ClientHttpRequestFactory factory = OkHttp3.usingOkHttp3(new ClientOptions(),
+				SslConfiguration.NONE);
+
+		TransportStatistics statistics = ClientHttpRequestFactoryFactory
+				.getTransportStatistics(factory);
+
+		assertThat(statistics.getClient()).isEqualTo("OkHttp3");
+		assertThat(statistics.getLeasedConnections()).isZero();
+		assertThat(statistics.getAvailableConnections()).isZero();
+		assertThat(statistics.getQueuedRequests()).isZero();
+		assertThat(statistics.getRunningRequests()).isZero();
+		assertThat(statistics.getPendingTasks()).isEqualTo(
+				TransportStatistics.UNAVAILABLE);
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void shouldReportNettyPendingTasks() throws Exception {
+
+		ClientHttpRequestFactory factory = Netty.usingNetty(new ClientOptions(),
+				SslConfiguration.NONE);
+
+		TransportStatistics statistics = ClientHttpRequestFactoryFactory
+				.getTransportStatistics(factory);
+
+		assertThat(statistics.getClient()).isEqualTo("Netty");
+		assertThat(statistics.getPendingTasks()).isGreaterThanOrEqualTo(0);
+		assertThat(statistics.getLeasedConnections()).isEqualTo(
+				TransportStatistics.UNAVAILABLE);
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void shouldUnwrapObservingRequestFactory() throws Exception {
+
+		ClientHttpRequestFactory factory = HttpComponents.usingHttpComponents(
+				new ClientOptions(), SslConfiguration.NONE);
+
+		TransportStatistics statistics = ClientHttpRequestFactoryFactory
+				.getTransportStatistics(new ObservingClientHttpRequestFactory(factory,
+						new HistogramVaultRequestObserver()));
+
+		assertThat(statistics.getClient()).isEqualTo("HttpComponents");
+
+		((DisposableBean) factory).destroy();
+	}
+
+	@Test
+	public void shouldReportUnavailableStatisticsForUnknownRequestFactory() {
+
+		TransportStatistics statistics = ClientHttpRequestFactoryFactory
+				.getTransportStatistics(new SimpleClientHttpRequestFactory());
+
+		assertThat(statistics.getClient()).isEqualTo(
+				SimpleClientHttpRequestFactory.class.getName());
+		assertThat(statistics.getLeasedConnections()).isEqualTo(
+				TransportStatistics.UNAVAILABLE);
+		assertThat(statistics.getTlsHandshakeCount()).isEqualTo(
+				TransportStatistics.UNAVAILABLE);
+	}
+
+	@Test
+	public void shouldAggregateTlsHandshakes() {
+
+		TlsHandshakeStatistics tlsHandshakes = new TlsHandshakeStatistics();
+		tlsHandshakes.record(TimeUnit.MILLISECONDS.toNanos(10));
+		tlsHandshakes.record(TimeUnit.MILLISECONDS.toNanos(30));
+
+		TransportStatistics statistics = new TransportStatistics("test", tlsHandshakes);
+
+		assertThat(statistics.getTlsHandshakeCount()).isEqualTo(2);
+		assertThat(statistics.getTlsHandshakeTimeMean()).isEqualTo(20d);
+		assertThat(statistics.getTlsHandshakeTimeMax()).isEqualTo(30d);
+	}
+}
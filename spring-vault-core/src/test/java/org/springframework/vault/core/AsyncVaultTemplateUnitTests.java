@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockAsyncClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.authentication.SimpleSessionManager;
+import org.springframework.vault.authentication.TokenAuthentication;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.support.VaultResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Unit tests for {@link AsyncVaultTemplate}.
+ *
+ * @author Mark Paluch
+ */
+public class AsyncVaultTemplateUnitTests {
+
+	private StubAsyncClientHttpRequestFactory requestFactory = new StubAsyncClientHttpRequestFactory();
+
+	private AsyncVaultTemplate template;
+
+	@Before
+	public void before() {
+
+		template = new AsyncVaultTemplate(new VaultEndpoint(), requestFactory,
+				new SimpleSessionManager(new TokenAuthentication("my-token")));
+	}
+
+	@Test
+	public void readShouldAddSessionToken() throws Exception {
+
+		requestFactory.respond(HttpStatus.OK, "{\"data\": {\"key\": \"value\"}}");
+
+		VaultResponse response = template.read("secret/foo").get();
+
+		assertThat(response.getData()).containsEntry("key", "value");
+
+		MockAsyncClientHttpRequest request = requestFactory.requests.get(0);
+		assertThat(request.getMethod()).isEqualTo(HttpMethod.GET);
+		assertThat(request.getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/secret/foo");
+		assertThat(request.getHeaders().getFirst(VaultHttpHeaders.VAULT_TOKEN))
+				.isEqualTo("my-token");
+	}
+
+	@Test
+	public void readShouldReturnNullForAbsentPath() throws Exception {
+
+		requestFactory.respond(HttpStatus.NOT_FOUND, "{\"errors\": []}");
+
+		assertThat(template.read("secret/absent").get()).isNull();
+	}
+
+	@Test
+	public void listShouldReturnKeys() throws Exception {
+
+		requestFactory.respond(HttpStatus.OK, "{\"data\": {\"keys\": [\"a\", \"b\"]}}");
+
+		assertThat(template.list("secret").get()).containsExactly("a", "b");
+		assertThat(requestFactory.requests.get(0).getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/secret/?list=true");
+	}
+
+	@Test
+	public void writeShouldTranslateErrors() throws Exception {
+
+		requestFactory.respond(HttpStatus.BAD_REQUEST,
+				"{\"errors\": [\"missing client token\"]}");
+
+		try {
+			template.write("secret/foo", null).get();
+			fail("Missing ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertThat(e.getCause()).isInstanceOf(VaultException.class)
+					.hasMessageContaining("missing client token");
+		}
+	}
+
+	@Test
+	public void transitEncryptShouldReturnCiphertext() throws Exception {
+
+		requestFactory.respond(HttpStatus.OK,
+				"{\"data\": {\"ciphertext\": \"vault:v1:foo\"}}");
+
+		assertThat(template.opsForTransit().encrypt("my-key", "hello").get())
+				.isEqualTo("vault:v1:foo");
+		assertThat(requestFactory.requests.get(0).getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/transit/encrypt/my-key");
+		assertThat(requestFactory.requests.get(0).getBodyAsString()).contains(
+				"\"plaintext\":\"aGVsbG8=\"");
+	}
+
+	@Test
+	public void healthShouldReportStandby() throws Exception {
+
+		requestFactory.respond(HttpStatus.TOO_MANY_REQUESTS,
+				"{\"initialized\": true, \"sealed\": false, \"standby\": true}");
+
+		assertThat(template.opsForSys().health().get().isStandby()).isTrue();
+		assertThat(requestFactory.requests.get(0).getHeaders()).doesNotContainKey(
+				VaultHttpHeaders.VAULT_TOKEN);
+	}
+
+	static class StubAsyncClientHttpRequestFactory implements
+			AsyncClientHttpRequestFactory {
+
+		final List<MockAsyncClientHttpRequest> requests = new ArrayList<MockAsyncClientHttpRequest>();
+
+		private HttpStatus status;
+
+		private String body;
+
+		void respond(HttpStatus status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		@Override
+		public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod)
+				throws IOException {
+
+			MockClientHttpResponse response = new MockClientHttpResponse(
+					body.getBytes(Charset.forName("UTF-8")), status);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+			MockAsyncClientHttpRequest request = new MockAsyncClientHttpRequest(
+					httpMethod, uri);
+			request.setResponse(response);
+
+			requests.add(request);
+
+			return request;
+		}
+	}
+}
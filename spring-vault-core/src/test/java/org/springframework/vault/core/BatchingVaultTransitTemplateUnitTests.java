@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.Ciphertext;
+import org.springframework.vault.support.Plaintext;
+import org.springframework.vault.support.VaultDecryptionResult;
+import org.springframework.vault.support.VaultEncryptionResult;
+import org.springframework.vault.support.VaultTransitContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link BatchingVaultTransitTemplate}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingVaultTransitTemplateUnitTests {
+
+	@Mock
+	private VaultTransitOperations delegate;
+
+	private ExecutorService executor;
+
+	@Before
+	public void before() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void singleCallShouldUseSingleValueApi() {
+
+		when(
+				delegate.encrypt(eq("mykey"), any(byte[].class),
+						any(VaultTransitContext.class))).thenReturn("vault:v1:foo");
+
+		BatchingVaultTransitTemplate template = new BatchingVaultTransitTemplate(
+				delegate, 10, 1, TimeUnit.MILLISECONDS);
+
+		assertThat(template.encrypt("mykey", "hello")).isEqualTo("vault:v1:foo");
+		verify(delegate, never()).encrypt(anyString(), ArgumentMatchers.<Plaintext> anyList());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void concurrentCallsShouldBeSentAsSingleBatch() throws Exception {
+
+		when(delegate.encrypt(eq("mykey"), ArgumentMatchers.<Plaintext> anyList())).thenAnswer(
+				new Answer<List<VaultEncryptionResult>>() {
+					@Override
+					public List<VaultEncryptionResult> answer(InvocationOnMock invocation) {
+
+						List<Plaintext> batch = invocation.getArgument(1);
+						List<VaultEncryptionResult> results = new ArrayList<VaultEncryptionResult>();
+
+						for (Plaintext plaintext : batch) {
+							results.add(new VaultEncryptionResult(Ciphertext
+									.of("vault:v1:" + plaintext.asString())));
+						}
+
+						return results;
+					}
+				});
+
+		final BatchingVaultTransitTemplate template = new BatchingVaultTransitTemplate(
+				delegate, 3, 10, TimeUnit.SECONDS);
+
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (final String plaintext : Arrays.asList("a", "b", "c")) {
+			futures.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() {
+					return template.encrypt("mykey", plaintext);
+				}
+			}));
+		}
+
+		List<String> ciphertexts = new ArrayList<String>();
+		for (Future<String> future : futures) {
+			ciphertexts.add(future.get(5, TimeUnit.SECONDS));
+		}
+
+		assertThat(ciphertexts).containsExactly("vault:v1:a", "vault:v1:b", "vault:v1:c");
+
+		ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+		verify(delegate, times(1)).encrypt(eq("mykey"), captor.capture());
+		assertThat(captor.getValue()).hasSize(3);
+	}
+
+	@Test
+	public void failedItemShouldFailOnlyItsCaller() throws Exception {
+
+		when(delegate.decrypt(eq("mykey"), ArgumentMatchers.<Ciphertext> anyList())).thenAnswer(
+				new Answer<List<VaultDecryptionResult>>() {
+					@Override
+					public List<VaultDecryptionResult> answer(InvocationOnMock invocation) {
+
+						List<Ciphertext> batch = invocation.getArgument(1);
+						List<VaultDecryptionResult> results = new ArrayList<VaultDecryptionResult>();
+
+						for (Ciphertext ciphertext : batch) {
+							if (ciphertext.getCiphertext().endsWith("bad")) {
+								results.add(new VaultDecryptionResult(new VaultException(
+										"invalid ciphertext")));
+							}
+							else {
+								results.add(new VaultDecryptionResult(Plaintext.of("ok")));
+							}
+						}
+
+						return results;
+					}
+				});
+
+		final BatchingVaultTransitTemplate template = new BatchingVaultTransitTemplate(
+				delegate, 2, 10, TimeUnit.SECONDS);
+
+		Future<String> good = executor.submit(new Callable<String>() {
+			@Override
+			public String call() {
+				return template.decrypt("mykey", "vault:v1:good");
+			}
+		});
+
+		Future<String> bad = executor.submit(new Callable<String>() {
+			@Override
+			public String call() {
+				return template.decrypt("mykey", "vault:v1:bad");
+			}
+		});
+
+		assertThat(good.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+
+		try {
+			bad.get(5, TimeUnit.SECONDS);
+			fail("Missing VaultException");
+		}
+		catch (java.util.concurrent.ExecutionException e) {
+			assertThat(e.getCause()).isInstanceOf(VaultException.class)
+					.hasMessageContaining("invalid ciphertext");
+		}
+	}
+
+	@Test
+	public void batchFailureShouldFailAllCallers() throws Exception {
+
+		when(delegate.rewrap(eq("mykey"), ArgumentMatchers.<Ciphertext> anyList())).thenThrow(
+				new VaultException("Status 500"));
+
+		final BatchingVaultTransitTemplate template = new BatchingVaultTransitTemplate(
+				delegate, 2, 10, TimeUnit.SECONDS);
+
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 0; i < 2; i++) {
+			futures.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() {
+					return template.rewrap("mykey", "vault:v1:foo");
+				}
+			}));
+		}
+
+		for (Future<String> future : futures) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				fail("Missing VaultException");
+			}
+			catch (java.util.concurrent.ExecutionException e) {
+				assertThat(e.getCause()).isInstanceOf(VaultException.class);
+			}
+		}
+	}
+
+	@Test
+	public void errorInBatchShouldCompleteAllCallers() throws Exception {
+
+		when(delegate.rewrap(eq("mykey"), ArgumentMatchers.<Ciphertext> anyList())).thenThrow(
+				new AssertionError("boom"));
+
+		final BatchingVaultTransitTemplate template = new BatchingVaultTransitTemplate(
+				delegate, 2, 10, TimeUnit.SECONDS);
+
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 0; i < 2; i++) {
+			futures.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() {
+					return template.rewrap("mykey", "vault:v1:foo");
+				}
+			}));
+		}
+
+		List<Throwable> failures = new ArrayList<Throwable>();
+
+		for (Future<String> future : futures) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				fail("Missing failure");
+			}
+			catch (java.util.concurrent.ExecutionException e) {
+				failures.add(e.getCause());
+			}
+		}
+
+		assertThat(failures).hasAtLeastOneElementOfType(AssertionError.class)
+				.hasAtLeastOneElementOfType(VaultException.class);
+	}
+
+	@Test
+	public void callsForDifferentKeysShouldNotBeCombined() {
+
+		when(
+				delegate.encrypt(eq("key-a"), any(byte[].class),
+						any(VaultTransitContext.class))).thenReturn("vault:v1:a");
+		when(
+				delegate.encrypt(eq("key-b"), any(byte[].class),
+						any(VaultTransitContext.class))).thenReturn("vault:v1:b");
+
+		BatchingVaultTransitTemplate template = new BatchingVaultTransitTemplate(
+				delegate, 10, 0, TimeUnit.MILLISECONDS);
+
+		assertThat(template.encrypt("key-a", "hello")).isEqualTo("vault:v1:a");
+		assertThat(template.encrypt("key-b", "hello")).isEqualTo("vault:v1:b");
+		verify(delegate, never()).encrypt(anyString(), ArgumentMatchers.<Plaintext> anyList());
+	}
+}
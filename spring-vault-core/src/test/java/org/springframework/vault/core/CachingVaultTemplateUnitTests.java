@@ -0,0 +1,349 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.VaultHttpException;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.web.client.ResourceAccessException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CachingVaultTemplate}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingVaultTemplateUnitTests {
+
+	@Mock
+	private VaultOperations delegate;
+
+	private CachingVaultTemplate template;
+
+	@Before
+	public void before() {
+		template = new CachingVaultTemplate(delegate);
+	}
+
+	@Test
+	public void shouldCacheReads() {
+
+		VaultResponse response = response(60);
+		when(delegate.read("secret/foo")).thenReturn(response);
+
+		assertThat(template.read("secret/foo")).isSameAs(response);
+		assertThat(template.read("secret/foo")).isSameAs(response);
+
+		verify(delegate, times(1)).read("secret/foo");
+	}
+
+	@Test
+	public void shouldCacheTypedReadsSeparately() {
+
+		VaultResponseSupport<Person> typed = new VaultResponseSupport<Person>();
+		when(delegate.read("secret/foo")).thenReturn(response(60));
+		when(delegate.read("secret/foo", Person.class)).thenReturn(typed);
+
+		template.read("secret/foo");
+
+		assertThat(template.read("secret/foo", Person.class)).isSameAs(typed);
+		assertThat(template.read("secret/foo", Person.class)).isSameAs(typed);
+
+		verify(delegate, times(1)).read("secret/foo", Person.class);
+	}
+
+	@Test
+	public void shouldExpireEntriesAfterLeaseDuration() throws Exception {
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		when(delegate.read("secret/foo")).thenReturn(response(3600));
+
+		template.read("secret/foo");
+		Thread.sleep(20);
+		template.read("secret/foo");
+
+		verify(delegate, times(2)).read("secret/foo");
+	}
+
+	@Test
+	public void shouldNotCacheAbsentSecretsByDefault() {
+
+		assertThat(template.read("secret/absent")).isNull();
+		assertThat(template.read("secret/absent")).isNull();
+
+		verify(delegate, times(2)).read("secret/absent");
+	}
+
+	@Test
+	public void shouldCacheAbsentSecretsWithNegativeTtl() {
+
+		template.setNegativeTtl(1, TimeUnit.MINUTES);
+
+		assertThat(template.read("secret/absent")).isNull();
+		assertThat(template.read("secret/absent")).isNull();
+
+		verify(delegate, times(1)).read("secret/absent");
+	}
+
+	@Test
+	public void writeShouldInvalidateEntry() {
+
+		when(delegate.read("secret/foo")).thenReturn(response(60));
+		when(delegate.read("secret/foo", Person.class)).thenReturn(
+				new VaultResponseSupport<Person>());
+
+		template.read("secret/foo");
+		template.read("secret/foo", Person.class);
+		template.write("secret/foo", Collections.singletonMap("key", "value"));
+
+		assertThat(template.size()).isZero();
+
+		template.read("secret/foo");
+		verify(delegate, times(2)).read("secret/foo");
+	}
+
+	@Test
+	public void deleteShouldInvalidateEntry() {
+
+		when(delegate.read("secret/foo")).thenReturn(response(60));
+
+		template.read("secret/foo");
+		template.delete("secret/foo");
+		template.read("secret/foo");
+
+		verify(delegate).delete("secret/foo");
+		verify(delegate, times(2)).read("secret/foo");
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedEntries() {
+
+		template.setMaxEntries(2);
+		when(delegate.read("secret/a")).thenReturn(response(60));
+		when(delegate.read("secret/b")).thenReturn(response(60));
+		when(delegate.read("secret/c")).thenReturn(response(60));
+
+		template.read("secret/a");
+		template.read("secret/b");
+		template.read("secret/a");
+		template.read("secret/c");
+		template.read("secret/a");
+		template.read("secret/b");
+
+		verify(delegate, times(1)).read("secret/a");
+		verify(delegate, times(2)).read("secret/b");
+	}
+
+	@Test
+	public void shouldEvictEntriesExceedingMaxWeight() {
+
+		VaultResponse response = response(60);
+		long weight = CachingVaultTemplate.estimateWeight(
+				new CachingVaultTemplate.CacheKey("secret/a", null), response);
+
+		template.setMaxWeight(weight * 2);
+		when(delegate.read("secret/a")).thenReturn(response);
+		when(delegate.read("secret/b")).thenReturn(response(60));
+		when(delegate.read("secret/c")).thenReturn(response(60));
+
+		template.read("secret/a");
+		template.read("secret/b");
+		template.read("secret/c");
+
+		assertThat(template.size()).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldReturnStaleResponseWhileRevalidating() throws Exception {
+
+		VaultResponse stale = response(3600);
+		VaultResponse fresh = response(3600);
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		template.setStaleWhileRevalidate(1, TimeUnit.MINUTES);
+		template.setRefreshExecutor(new SyncTaskExecutor());
+		when(delegate.read("secret/foo")).thenReturn(stale, fresh);
+
+		template.read("secret/foo");
+		Thread.sleep(20);
+
+		assertThat(template.read("secret/foo")).isSameAs(stale);
+		assertThat(template.read("secret/foo")).isSameAs(fresh);
+		verify(delegate, times(2)).read("secret/foo");
+	}
+
+	@Test
+	public void shouldRevalidateOnSharedWorkerPoolByDefault() throws Exception {
+
+		final VaultResponse fresh = response(3600);
+		final CountDownLatch refreshed = new CountDownLatch(1);
+		final String[] refreshThread = new String[1];
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		template.setStaleWhileRevalidate(1, TimeUnit.MINUTES);
+		when(delegate.read("secret/foo")).thenReturn(response(3600)).thenAnswer(
+				new Answer<VaultResponse>() {
+
+					@Override
+					public VaultResponse answer(InvocationOnMock invocation) {
+
+						refreshThread[0] = Thread.currentThread().getName();
+						refreshed.countDown();
+						return fresh;
+					}
+				});
+
+		template.read("secret/foo");
+		Thread.sleep(20);
+		template.read("secret/foo");
+
+		assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(refreshThread[0]).startsWith("spring-vault-worker-");
+	}
+
+	@Test
+	public void shouldKeepStaleResponseIfRevalidationFails() throws Exception {
+
+		VaultResponse stale = response(3600);
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		template.setStaleWhileRevalidate(1, TimeUnit.MINUTES);
+		template.setRefreshExecutor(new SyncTaskExecutor());
+		when(delegate.read("secret/foo")).thenReturn(stale).thenThrow(
+				new VaultHttpException("Status 503 secret/foo: Vault is sealed",
+						HttpStatus.SERVICE_UNAVAILABLE));
+
+		template.read("secret/foo");
+		Thread.sleep(20);
+
+		assertThat(template.read("secret/foo")).isSameAs(stale);
+		assertThat(template.read("secret/foo")).isSameAs(stale);
+	}
+
+	@Test
+	public void shouldReturnStaleResponseOnServerError() throws Exception {
+
+		VaultResponse stale = response(3600);
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		template.setStaleIfError(1, TimeUnit.MINUTES);
+		when(delegate.read("secret/foo")).thenReturn(stale)
+				.thenThrow(
+						new VaultHttpException("Status 500 secret/foo: internal error",
+								HttpStatus.INTERNAL_SERVER_ERROR))
+				.thenThrow(new ResourceAccessException("Read timed out"));
+
+		template.read("secret/foo");
+		Thread.sleep(20);
+
+		assertThat(template.read("secret/foo")).isSameAs(stale);
+		assertThat(template.read("secret/foo")).isSameAs(stale);
+	}
+
+	@Test
+	public void shouldNotReturnStaleResponseOnClientError() throws Exception {
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		template.setStaleIfError(1, TimeUnit.MINUTES);
+		when(delegate.read("secret/foo")).thenReturn(response(3600)).thenThrow(
+				new VaultHttpException("Status 403 secret/foo: permission denied",
+						HttpStatus.FORBIDDEN));
+
+		template.read("secret/foo");
+		Thread.sleep(20);
+
+		try {
+			template.read("secret/foo");
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("403");
+		}
+	}
+
+	@Test
+	public void shouldNotReturnStaleResponseForErrorsWithoutStatus() throws Exception {
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		template.setStaleIfError(1, TimeUnit.MINUTES);
+		when(delegate.read("secret/foo")).thenReturn(response(3600)).thenThrow(
+				new VaultException("Status 500 secret/foo: internal error"));
+
+		template.read("secret/foo");
+		Thread.sleep(20);
+
+		try {
+			template.read("secret/foo");
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("500");
+		}
+	}
+
+	@Test
+	public void shouldNotReturnStaleResponseAfterGracePeriod() throws Exception {
+
+		template.setMaxTtl(10, TimeUnit.MILLISECONDS);
+		template.setStaleIfError(10, TimeUnit.MILLISECONDS);
+		when(delegate.read("secret/foo")).thenReturn(response(3600)).thenThrow(
+				new VaultHttpException("Status 500 secret/foo: internal error",
+						HttpStatus.INTERNAL_SERVER_ERROR));
+
+		template.read("secret/foo");
+		Thread.sleep(40);
+
+		try {
+			template.read("secret/foo");
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("500");
+		}
+	}
+
+	private static VaultResponse response(long leaseDuration) {
+
+		VaultResponse response = new VaultResponse();
+		response.setLeaseDuration(leaseDuration);
+		response.setData(Collections.<String, Object> singletonMap("key", "value"));
+		return response;
+	}
+
+	static class Person {
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.VaultResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CoalescingVaultTemplate}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CoalescingVaultTemplateUnitTests {
+
+	@Mock
+	private VaultOperations delegate;
+
+	private CoalescingVaultTemplate template;
+
+	private ExecutorService executor;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@Before
+	public void before() {
+
+		template = new CoalescingVaultTemplate(delegate);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentReadsShouldShareRequest() throws Exception {
+
+		final VaultResponse response = new VaultResponse();
+		when(delegate.read("secret/foo")).thenAnswer(blockingAnswer(response, null));
+
+		List<Future<VaultResponse>> futures = readConcurrently("secret/foo", 4);
+
+		awaitWaiters(3);
+		release.countDown();
+
+		for (Future<VaultResponse> future : futures) {
+			assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(response);
+		}
+
+		verify(delegate, times(1)).read("secret/foo");
+		assertThat(template.getRequestCount()).isEqualTo(1);
+		assertThat(template.getCoalescedRequestCount()).isEqualTo(3);
+		assertThat(template.getWaiterCount()).isZero();
+		assertThat(template.getInFlightRequestCount()).isZero();
+	}
+
+	@Test
+	public void concurrentReadsShouldShareException() throws Exception {
+
+		VaultException exception = new VaultException("Status 500");
+		when(delegate.read("secret/foo")).thenAnswer(blockingAnswer(null, exception));
+
+		List<Future<VaultResponse>> futures = readConcurrently("secret/foo", 3);
+
+		awaitWaiters(2);
+		release.countDown();
+
+		for (Future<VaultResponse> future : futures) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+				fail("Missing VaultException");
+			}
+			catch (ExecutionException e) {
+				assertThat(e.getCause()).isSameAs(exception);
+			}
+		}
+
+		verify(delegate, times(1)).read("secret/foo");
+	}
+
+	@Test
+	public void sequentialReadsShouldNotBeCoalesced() {
+
+		template.read("secret/foo");
+		template.read("secret/foo");
+
+		verify(delegate, times(2)).read("secret/foo");
+		assertThat(template.getCoalescedRequestCount()).isZero();
+	}
+
+	private List<Future<VaultResponse>> readConcurrently(final String path, int count) {
+
+		List<Future<VaultResponse>> futures = new ArrayList<Future<VaultResponse>>();
+
+		for (int i = 0; i < count; i++) {
+			futures.add(executor.submit(new Callable<VaultResponse>() {
+				@Override
+				public VaultResponse call() {
+					return template.read(path);
+				}
+			}));
+		}
+
+		return futures;
+	}
+
+	private Answer<VaultResponse> blockingAnswer(final VaultResponse response,
+			final RuntimeException exception) {
+
+		return new Answer<VaultResponse>() {
+			@Override
+			public VaultResponse answer(InvocationOnMock invocation) throws Throwable {
+
+				release.await(5, TimeUnit.SECONDS);
+
+				if (exception != null) {
+					throw exception;
+				}
+
+				return response;
+			}
+		};
+	}
+
+	private void awaitWaiters(int waiters) throws InterruptedException {
+
+		long deadline = System.currentTimeMillis() + 5000;
+
+		while (template.getWaiterCount() < waiters
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+
+		assertThat(template.getWaiterCount()).isEqualTo(waiters);
+	}
+}
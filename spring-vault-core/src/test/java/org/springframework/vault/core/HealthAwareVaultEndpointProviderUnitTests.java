@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.vault.authentication.SimpleSessionManager;
+import org.springframework.vault.authentication.TokenAuthentication;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.core.HealthAwareVaultEndpointProvider.NodeState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link HealthAwareVaultEndpointProvider}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class HealthAwareVaultEndpointProviderUnitTests {
+
+	@Mock
+	private TaskScheduler taskScheduler;
+
+	private VaultEndpoint sealed = VaultEndpoint.create("sealed", 8200);
+
+	private VaultEndpoint standby = VaultEndpoint.create("standby", 8200);
+
+	private VaultEndpoint active = VaultEndpoint.create("active", 8200);
+
+	private VaultEndpoint down = VaultEndpoint.create("down", 8200);
+
+	private HealthAwareVaultEndpointProvider provider;
+
+	@Before
+	public void before() {
+
+		provider = new HealthAwareVaultEndpointProvider(Arrays.asList(down, sealed,
+				standby, active), new StubClientHttpRequestFactory(), taskScheduler);
+	}
+
+	@Test
+	public void shouldRetainConfiguredOrderBeforeHealthCheck() {
+
+		assertThat(provider.getVaultEndpoints()).containsExactly(down, sealed, standby,
+				active);
+		assertThat(provider.getNodeState(active)).isEqualTo(NodeState.UNKNOWN);
+	}
+
+	@Test
+	public void shouldOrderEndpointsByHealth() {
+
+		provider.checkHealth();
+
+		assertThat(provider.getNodeState(down)).isEqualTo(NodeState.UNAVAILABLE);
+		assertThat(provider.getNodeState(sealed)).isEqualTo(NodeState.SEALED);
+		assertThat(provider.getNodeState(standby)).isEqualTo(NodeState.STANDBY);
+		assertThat(provider.getNodeState(active)).isEqualTo(NodeState.ACTIVE);
+		assertThat(provider.getVaultEndpoints()).containsExactly(active, standby,
+				sealed, down);
+	}
+
+	@Test
+	public void shouldDemoteFailedEndpointsUntilNextHealthCheck() {
+
+		provider.checkHealth();
+		provider.reportFailure(active);
+
+		assertThat(provider.getVaultEndpoints()).containsExactly(standby, sealed, down,
+				active);
+
+		provider.checkHealth();
+
+		assertThat(provider.getVaultEndpoints().get(0)).isEqualTo(active);
+	}
+
+	@Test
+	public void shouldRouteReadsToLeastLoadedStandby() {
+
+		VaultEndpoint otherStandby = VaultEndpoint.create("standby-2", 8200);
+
+		provider = new HealthAwareVaultEndpointProvider(Arrays.asList(active, standby,
+				otherStandby), new StubClientHttpRequestFactory(), taskScheduler);
+		provider.setStandbyReads(true);
+		provider.checkHealth();
+
+		assertThat(provider.getVaultEndpoints(HttpMethod.GET)).containsExactly(standby,
+				otherStandby, active);
+
+		provider.requestStarted(standby);
+
+		assertThat(provider.getVaultEndpoints(HttpMethod.GET)).containsExactly(
+				otherStandby, standby, active);
+		assertThat(provider.getVaultEndpoints(HttpMethod.POST)).startsWith(active);
+
+		provider.requestCompleted(standby);
+
+		assertThat(provider.getOutstandingRequests(standby)).isZero();
+	}
+
+	@Test
+	public void shouldSpreadSequentialReadsAcrossStandbys() {
+
+		VaultEndpoint otherStandby = VaultEndpoint.create("standby-2", 8200);
+
+		provider = new HealthAwareVaultEndpointProvider(Arrays.asList(active, standby,
+				otherStandby), new StubClientHttpRequestFactory(), taskScheduler);
+		provider.setStandbyReads(true);
+		provider.checkHealth();
+
+		VaultTemplate template = new VaultTemplate(provider,
+				new StubClientHttpRequestFactory(), new SimpleSessionManager(
+						new TokenAuthentication("token")));
+
+		List<Object> hosts = new ArrayList<Object>();
+
+		for (int i = 0; i < 4; i++) {
+			hosts.add(template.read("secret/foo").getData().get("host"));
+		}
+
+		assertThat(hosts).containsExactly("standby", "standby-2", "standby",
+				"standby-2");
+	}
+
+	@Test
+	public void shouldRouteReadsToActiveNodeByDefault() {
+
+		provider.checkHealth();
+
+		assertThat(provider.getVaultEndpoints(HttpMethod.GET)).startsWith(active);
+	}
+
+	@Test
+	public void shouldTrackOutstandingRequestsOfVaultTemplate() {
+
+		provider = new HealthAwareVaultEndpointProvider(Arrays.asList(active, standby),
+				new StubClientHttpRequestFactory(), taskScheduler);
+		provider.setStandbyReads(true);
+		provider.checkHealth();
+
+		VaultTemplate template = new VaultTemplate(provider,
+				new StubClientHttpRequestFactory(), new SimpleSessionManager(
+						new TokenAuthentication("token")));
+
+		assertThat(template.read("secret/foo").getData()).containsEntry("host",
+				"standby");
+		assertThat(template.write("secret/foo", null).getData()).containsEntry("host",
+				"active");
+
+		assertThat(provider.getOutstandingRequests(standby)).isZero();
+		assertThat(provider.getOutstandingRequests(active)).isZero();
+	}
+
+	static class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+		@Override
+		public ClientHttpRequest createRequest(final URI uri, HttpMethod httpMethod)
+				throws IOException {
+
+			return new MockClientHttpRequest(httpMethod, uri) {
+
+				@Override
+				protected ClientHttpResponse executeInternal() throws IOException {
+
+					String host = uri.getHost();
+
+					if (!uri.getPath().endsWith("/sys/health")) {
+						return response(HttpStatus.OK,
+								String.format("{\"data\": {\"host\": \"%s\"}}", host));
+					}
+
+					if (host.equals("down")) {
+						throw new ConnectException("Connection refused");
+					}
+
+					if (host.equals("sealed")) {
+						return health(HttpStatus.SERVICE_UNAVAILABLE, true, false);
+					}
+
+					if (host.startsWith("standby")) {
+						return health(HttpStatus.TOO_MANY_REQUESTS, false, true);
+					}
+
+					return health(HttpStatus.OK, false, false);
+				}
+			};
+		}
+
+		private static ClientHttpResponse health(HttpStatus status, boolean sealed,
+				boolean standby) {
+
+			return response(status, String.format(
+					"{\"initialized\": true, \"sealed\": %s, \"standby\": %s}", sealed,
+					standby));
+		}
+
+		private static ClientHttpResponse response(HttpStatus status, String body) {
+
+			MockClientHttpResponse response = new MockClientHttpResponse(
+					body.getBytes(Charset.forName("UTF-8")), status);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+			return response;
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.VaultResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link HedgingVaultTemplate}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class HedgingVaultTemplateUnitTests {
+
+	@Mock
+	private VaultOperations delegate;
+
+	private CountDownLatch release = new CountDownLatch(1);
+
+	private HedgingVaultTemplate template;
+
+	@Before
+	public void before() {
+		template = new HedgingVaultTemplate(delegate);
+		template.setMinHedgeDelay(100, TimeUnit.MILLISECONDS);
+	}
+
+	@After
+	public void after() {
+		release.countDown();
+	}
+
+	@Test
+	public void shouldNotHedgeFastReads() {
+
+		when(delegate.read(anyString())).thenReturn(response("fast"));
+
+		for (int i = 0; i < 50; i++) {
+			assertThat(template.read("secret/foo").getData()).containsEntry("value",
+					"fast");
+		}
+
+		verify(delegate, times(50)).read("secret/foo");
+		assertThat(template.getHedgedRequestCount()).isZero();
+	}
+
+	@Test
+	public void shouldHedgeSlowRead() {
+
+		when(delegate.read(anyString())).thenAnswer(slowAfter(40));
+
+		warmUp(40);
+
+		long start = System.currentTimeMillis();
+		VaultResponse response = template.read("secret/foo");
+
+		assertThat(response.getData()).containsEntry("value", "fast");
+		assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+		assertThat(template.getHedgedRequestCount()).isEqualTo(1);
+		assertThat(template.getHedgeWinCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldNotHedgeWithoutBudget() throws Exception {
+
+		template.setMaxHedgeRatio(0.01);
+		when(delegate.read(anyString())).thenAnswer(slowAfter(40));
+
+		warmUp(40);
+		release.countDown();
+
+		assertThat(template.read("secret/foo").getData()).containsEntry("value",
+				"slow");
+		assertThat(template.getHedgedRequestCount()).isZero();
+	}
+
+	@Test
+	public void shouldReadOnCallerThreadWithoutBudget() {
+
+		final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+		template.setMaxHedgeRatio(0.01);
+		when(delegate.read(anyString())).thenAnswer(new Answer<VaultResponse>() {
+
+			@Override
+			public VaultResponse answer(InvocationOnMock invocation) {
+
+				threads.add(Thread.currentThread());
+				return response("fast");
+			}
+		});
+
+		warmUp(50);
+
+		assertThat(threads).containsOnly(Thread.currentThread());
+	}
+
+	@Test
+	public void shouldNotHedgeIfExecutorIsSaturated() throws Exception {
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0,
+				TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>());
+		template.setExecutor(new ConcurrentTaskExecutor(executor));
+		when(delegate.read(anyString())).thenAnswer(slowAfter(40));
+
+		try {
+
+			warmUp(40);
+
+			new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(500);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					release.countDown();
+				}
+			}.start();
+
+			assertThat(template.read("secret/foo").getData()).containsEntry("value",
+					"slow");
+			assertThat(template.getHedgedRequestCount()).isZero();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void shouldPropagateFailures() {
+
+		when(delegate.read(anyString())).thenThrow(new VaultException("Status 500"));
+
+		try {
+			template.read("secret/foo");
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessage("Status 500");
+		}
+	}
+
+	@Test
+	public void shouldDeterminePathPrefix() {
+
+		assertThat(HedgingVaultTemplate.getPathPrefix("secret/foo/bar")).isEqualTo(
+				"secret");
+		assertThat(HedgingVaultTemplate.getPathPrefix("/secret")).isEqualTo("secret");
+	}
+
+	private void warmUp(int calls) {
+
+		for (int i = 0; i < calls; i++) {
+			template.read("secret/foo");
+		}
+	}
+
+	/**
+	 * Answer that blocks the call following {@code fastCalls} fast calls until
+	 * {@link #release} is released.
+	 */
+	private Answer<VaultResponse> slowAfter(final int fastCalls) {
+
+		final AtomicInteger counter = new AtomicInteger();
+
+		return new Answer<VaultResponse>() {
+
+			@Override
+			public VaultResponse answer(InvocationOnMock invocation) throws Throwable {
+
+				if (counter.incrementAndGet() == fastCalls + 1) {
+					release.await(10, TimeUnit.SECONDS);
+					return response("slow");
+				}
+
+				return response("fast");
+			}
+		};
+	}
+
+	private static VaultResponse response(String value) {
+
+		VaultResponse response = new VaultResponse();
+		response.setData(Collections.<String, Object> singletonMap("value", value));
+		return response;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.support.VaultCertificateRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TimeoutVaultTemplate}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TimeoutVaultTemplateUnitTests {
+
+	@Mock
+	private VaultOperations vaultOperations;
+
+	@Test
+	public void shouldBindDeadlineDuringCall() {
+
+		RemainingTime remaining = new RemainingTime();
+		when(vaultOperations.read("secret/foo")).thenAnswer(remaining);
+
+		TimeoutVaultTemplate template = new TimeoutVaultTemplate(vaultOperations, 100,
+				TimeUnit.MILLISECONDS);
+
+		template.read("secret/foo");
+
+		assertThat(remaining.remaining).isBetween(1L, 100L);
+		assertThat(Deadline.current()).isNull();
+	}
+
+	@Test
+	public void shouldNotExtendEnclosingDeadline() {
+
+		RemainingTime remaining = new RemainingTime();
+		when(vaultOperations.read("secret/foo")).thenAnswer(remaining);
+
+		TimeoutVaultTemplate template = new TimeoutVaultTemplate(vaultOperations, 10,
+				TimeUnit.SECONDS);
+
+		Deadline enclosing = Deadline.after(200, TimeUnit.MILLISECONDS);
+		Deadline previous = Deadline.bind(enclosing);
+
+		try {
+			template.read("secret/foo");
+			assertThat(Deadline.current()).isSameAs(enclosing);
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+
+		assertThat(remaining.remaining).isBetween(1L, 200L);
+	}
+
+	@Test
+	public void shouldApplyPkiTimeout() {
+
+		RemainingTime remaining = new RemainingTime();
+		when(
+				vaultOperations.doWithSession(ArgumentMatchers
+						.<RestOperationsCallback<Object>> any())).thenAnswer(remaining);
+
+		TimeoutVaultTemplate template = new TimeoutVaultTemplate(vaultOperations, 100,
+				TimeUnit.MILLISECONDS);
+		template.setPkiTimeout(10, TimeUnit.SECONDS);
+
+		template.opsForPki().issueCertificate("www",
+				VaultCertificateRequest.create("www.example.com"));
+
+		assertThat(remaining.remaining).isGreaterThan(1000L);
+	}
+
+	@Test
+	public void shouldApplyTimeoutToSysOperations() {
+
+		RemainingTime remaining = new RemainingTime();
+		when(
+				vaultOperations.doWithSession(ArgumentMatchers
+						.<RestOperationsCallback<Object>> any())).thenAnswer(remaining);
+
+		new TimeoutVaultTemplate(vaultOperations, 100, TimeUnit.MILLISECONDS)
+				.opsForSys().getMounts();
+
+		assertThat(remaining.remaining).isBetween(1L, 100L);
+	}
+
+	static class RemainingTime implements Answer<Object> {
+
+		volatile long remaining = -1;
+
+		@Override
+		public Object answer(InvocationOnMock invocation) {
+
+			remaining = Deadline.current().getTimeRemaining(TimeUnit.MILLISECONDS);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.authentication.ClientAuthentication;
+import org.springframework.vault.authentication.SimpleSessionManager;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultToken;
+import org.springframework.web.client.RestOperations;
+import org.springframework.web.client.RestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link VaultTemplate}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class VaultTemplateUnitTests {
+
+	private static final String PERMISSION_DENIED = "{\"errors\": [\"permission denied\"]}";
+
+	@Mock
+	private ClientAuthentication clientAuthentication;
+
+	private StubClientHttpRequestFactory requestFactory = new StubClientHttpRequestFactory();
+
+	private VaultTemplate template;
+
+	@Before
+	public void before() {
+
+		when(clientAuthentication.login()).thenReturn(VaultToken.of("revoked"),
+				VaultToken.of("renewed"));
+
+		template = new VaultTemplate(new VaultEndpoint(), requestFactory,
+				new SimpleSessionManager(clientAuthentication));
+	}
+
+	@Test
+	public void shouldReAuthenticateAndRetryOnInvalidToken() {
+
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+		requestFactory.respond(HttpStatus.OK, "{\"data\": {\"key\": \"value\"}}");
+
+		VaultResponse response = template.read("secret/foo");
+
+		assertThat(response.getData()).containsEntry("key", "value");
+		assertThat(requestFactory.requests).hasSize(3);
+		assertThat(requestFactory.requests.get(1).getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/auth/token/lookup-self");
+		assertThat(requestFactory.requests.get(1).getHeaders().getFirst(
+				VaultHttpHeaders.VAULT_TOKEN)).isEqualTo("revoked");
+		assertThat(requestFactory.requests.get(2).getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/secret/foo");
+		assertThat(requestFactory.requests.get(2).getHeaders().getFirst(
+				VaultHttpHeaders.VAULT_TOKEN)).isEqualTo("renewed");
+		verify(clientAuthentication, times(2)).login();
+	}
+
+	@Test
+	public void shouldNotRetryPolicyDenials() {
+
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+		requestFactory.respond(HttpStatus.OK,
+				"{\"data\": {\"policies\": [\"default\"]}}");
+
+		try {
+			template.read("secret/foo");
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("Status 403");
+		}
+
+		assertThat(requestFactory.requests).hasSize(2);
+		verify(clientAuthentication, times(1)).login();
+	}
+
+	@Test
+	public void shouldRetryOnlyOnce() {
+
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+
+		try {
+			template.read("secret/foo");
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			assertThat(e).hasMessageContaining("Status 403");
+		}
+
+		assertThat(requestFactory.requests).hasSize(3);
+		verify(clientAuthentication, times(2)).login();
+	}
+
+	@Test
+	public void shouldLookUpTokenOncePerForbiddenResponse() {
+
+		for (int i = 0; i < 2; i++) {
+
+			requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+			requestFactory.respond(HttpStatus.OK,
+					"{\"data\": {\"policies\": [\"default\"]}}");
+
+			try {
+				template.read("secret/foo");
+				fail("Missing VaultException");
+			}
+			catch (VaultException e) {
+				assertThat(e).hasMessageContaining("Status 403");
+			}
+		}
+
+		List<String> paths = new ArrayList<String>();
+		for (MockClientHttpRequest request : requestFactory.requests) {
+			paths.add(request.getURI().getPath());
+		}
+
+		assertThat(paths).containsExactly("/v1/secret/foo",
+				"/v1/auth/token/lookup-self", "/v1/secret/foo",
+				"/v1/auth/token/lookup-self");
+	}
+
+	@Test
+	public void retryShouldApplyAllInterceptors() {
+
+		final List<String> tokens = new ArrayList<String>();
+
+		template.doWithSession(new RestOperationsCallback<Object>() {
+
+			@Override
+			public Object doWithRestOperations(RestOperations restOperations) {
+
+				((RestTemplate) restOperations).getInterceptors().add(
+						new ClientHttpRequestInterceptor() {
+
+							@Override
+							public ClientHttpResponse intercept(HttpRequest request,
+									byte[] body, ClientHttpRequestExecution execution)
+									throws IOException {
+
+								tokens.add(request.getHeaders().getFirst(
+										VaultHttpHeaders.VAULT_TOKEN));
+								return execution.execute(request, body);
+							}
+						});
+				return null;
+			}
+		});
+
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+		requestFactory.respond(HttpStatus.FORBIDDEN, PERMISSION_DENIED);
+		requestFactory.respond(HttpStatus.OK, "{\"data\": {\"key\": \"value\"}}");
+
+		template.read("secret/foo");
+
+		assertThat(tokens).containsExactly("revoked", "renewed");
+	}
+
+	static class StubClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+		final List<MockClientHttpRequest> requests = new ArrayList<MockClientHttpRequest>();
+
+		private final LinkedList<MockClientHttpResponse> responses = new LinkedList<MockClientHttpResponse>();
+
+		void respond(HttpStatus status, String body) {
+
+			MockClientHttpResponse response = new MockClientHttpResponse(
+					body.getBytes(Charset.forName("UTF-8")), status);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+			responses.add(response);
+		}
+
+		@Override
+		public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod)
+				throws IOException {
+
+			MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+			request.setResponse(responses.removeFirst());
+
+			requests.add(request);
+
+			return request;
+		}
+	}
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.Base64Utils;
+import org.springframework.vault.client.Deadline;
+import org.springframework.vault.client.VaultHttpException;
+import org.springframework.vault.support.Ciphertext;
+import org.springframework.vault.support.Plaintext;
+import org.springframework.vault.support.VaultDataKey;
+import org.springframework.vault.support.VaultDecryptionResult;
+import org.springframework.vault.support.VaultEncryptionResult;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultTransitContext;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for batch operations of {@link VaultTransitTemplate}.
+ *
+ * @author Mark Paluch
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class VaultTransitTemplateUnitTests {
+
+	@Mock
+	private VaultOperations vaultOperations;
+
+	@Mock
+	private RestOperations restOperations;
+
+	private VaultTransitTemplate template;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void before() {
+
+		when(vaultOperations.doWithSession(any(RestOperationsCallback.class)))
+				.thenAnswer(new Answer<Object>() {
+					@Override
+					public Object answer(InvocationOnMock invocation) {
+						return ((RestOperationsCallback<?>) invocation.getArgument(0))
+								.doWithRestOperations(restOperations);
+					}
+				});
+
+		template = new VaultTransitTemplate(vaultOperations, "transit");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void encryptShouldSendBatchInput() {
+
+		when(
+				restOperations.postForObject(eq("transit/encrypt/my-key"), any(),
+						eq(VaultResponse.class))).thenReturn(
+				batchResponse(result("ciphertext", "vault:v1:a"),
+						result("ciphertext", "vault:v1:b")));
+
+		VaultTransitContext context = VaultTransitContext.builder()
+				.context("ctx".getBytes()).build();
+
+		List<VaultEncryptionResult> results = template.encrypt("my-key",
+				Arrays.asList(Plaintext.of("a"), Plaintext.of("b").with(context)));
+
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0).get().getCiphertext()).isEqualTo("vault:v1:a");
+		assertThat(results.get(1).get().getCiphertext()).isEqualTo("vault:v1:b");
+		assertThat(results.get(1).get().getContext()).isSameAs(context);
+
+		ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+		verify(restOperations).postForObject(eq("transit/encrypt/my-key"),
+				captor.capture(), eq(VaultResponse.class));
+
+		List<Map<String, String>> batchInput = (List<Map<String, String>>) captor
+				.getValue().get("batch_input");
+
+		assertThat(batchInput.get(0)).containsEntry("plaintext", "YQ==")
+				.doesNotContainKey("context");
+		assertThat(batchInput.get(1)).containsEntry("plaintext", "Yg==")
+				.containsEntry("context", "Y3R4");
+	}
+
+	@Test
+	public void encryptShouldReportItemErrors() {
+
+		when(
+				restOperations.postForObject(anyString(), any(),
+						eq(VaultResponse.class))).thenReturn(
+				batchResponse(result("error", "invalid context"),
+						result("ciphertext", "vault:v1:b")));
+
+		List<VaultEncryptionResult> results = template.encrypt("my-key",
+				Arrays.asList(Plaintext.of("a"), Plaintext.of("b")));
+
+		assertThat(results.get(0).isSuccessful()).isFalse();
+		assertThat(results.get(0).getCause()).hasMessage("invalid context");
+		assertThat(results.get(1).isSuccessful()).isTrue();
+	}
+
+	@Test
+	public void decryptShouldChunkBatches() {
+
+		when(
+				restOperations.postForObject(anyString(), any(),
+						eq(VaultResponse.class))).thenReturn(
+				batchResponse(result("plaintext", "YQ=="), result("plaintext", "Yg==")),
+				batchResponse(result("plaintext", "Yw==")));
+
+		template.setBatchSize(2);
+
+		List<VaultDecryptionResult> results = template.decrypt("my-key", Arrays.asList(
+				Ciphertext.of("vault:v1:a"), Ciphertext.of("vault:v1:b"),
+				Ciphertext.of("vault:v1:c")));
+
+		assertThat(results).hasSize(3);
+		assertThat(results.get(0).get().asString()).isEqualTo("a");
+		assertThat(results.get(1).get().asString()).isEqualTo("b");
+		assertThat(results.get(2).get().asString()).isEqualTo("c");
+
+		verify(restOperations, times(2)).postForObject(eq("transit/decrypt/my-key"),
+				any(), eq(VaultResponse.class));
+	}
+
+	@Test
+	public void failedChunkShouldOnlyFailItsItems() {
+
+		when(
+				restOperations.postForObject(anyString(), any(),
+						eq(VaultResponse.class))).thenReturn(
+				batchResponse(result("ciphertext", "vault:v2:a"))).thenThrow(
+				new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+		template.setBatchSize(1);
+
+		List<VaultEncryptionResult> results = template.rewrap("my-key",
+				Arrays.asList(Ciphertext.of("vault:v1:a"), Ciphertext.of("vault:v1:b")));
+
+		assertThat(results.get(0).get().getCiphertext()).isEqualTo("vault:v2:a");
+		assertThat(results.get(1).isSuccessful()).isFalse();
+		assertThat(results.get(1).getCause()).hasMessageContaining("500");
+		assertThat(results.get(1).getCause()).isInstanceOf(VaultHttpException.class);
+		assertThat(((VaultHttpException) results.get(1).getCause()).getStatusCode())
+				.isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+	}
+
+	@Test
+	public void failedChunkShouldRetainTransportFailure() {
+
+		ResourceAccessException failure = new ResourceAccessException(
+				"Connection refused");
+
+		when(
+				restOperations.postForObject(anyString(), any(),
+						eq(VaultResponse.class))).thenThrow(failure);
+
+		List<VaultEncryptionResult> results = template.rewrap("my-key",
+				Arrays.asList(Ciphertext.of("vault:v1:a"), Ciphertext.of("vault:v1:b")));
+
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0).getCause()).hasCause(failure);
+		assertThat(results.get(1).getCause()).isSameAs(results.get(0).getCause());
+	}
+
+	@Test
+	public void parallelChunksShouldRetainOrder() {
+
+		when(
+				restOperations.postForObject(anyString(), any(),
+						eq(VaultResponse.class))).thenAnswer(new Answer<VaultResponse>() {
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public VaultResponse answer(InvocationOnMock invocation) {
+
+				List<Map<String, String>> batchInput = (List<Map<String, String>>) ((Map<String, Object>) invocation
+						.getArgument(1)).get("batch_input");
+
+				List<Map<String, String>> results = new ArrayList<Map<String, String>>();
+				for (Map<String, String> item : batchInput) {
+					results.add(result("ciphertext", "vault:v1:" + item.get("plaintext")));
+				}
+
+				return batchResponse(results.toArray(new Map[results.size()]));
+			}
+		});
+
+		template.setBatchSize(3);
+		template.setTaskExecutor(new SimpleAsyncTaskExecutor());
+
+		List<Plaintext> batch = new ArrayList<Plaintext>();
+		for (int i = 0; i < 20; i++) {
+			batch.add(Plaintext.of("" + i));
+		}
+
+		List<VaultEncryptionResult> results = template.encrypt("my-key", batch);
+
+		assertThat(results).hasSize(20);
+		for (int i = 0; i < 20; i++) {
+			assertThat(results.get(i).get().getCiphertext()).isEqualTo(
+					"vault:v1:" + Base64Utils.encodeToString(("" + i).getBytes()));
+		}
+	}
+
+	@Test
+	public void parallelChunksShouldInheritDeadline() {
+
+		final Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+		final List<Deadline> deadlines = new ArrayList<Deadline>();
+
+		when(
+				restOperations.postForObject(anyString(), any(),
+						eq(VaultResponse.class))).thenAnswer(new Answer<VaultResponse>() {
+
+			@Override
+			public VaultResponse answer(InvocationOnMock invocation) {
+
+				synchronized (deadlines) {
+					deadlines.add(Deadline.current());
+				}
+
+				return batchResponse(result("ciphertext", "vault:v1:a"));
+			}
+		});
+
+		template.setBatchSize(1);
+		template.setTaskExecutor(new SimpleAsyncTaskExecutor());
+
+		Deadline previous = Deadline.bind(deadline);
+
+		try {
+			template.encrypt("my-key", Arrays.asList(Plaintext.of("a"), Plaintext.of("b")));
+		}
+		finally {
+			Deadline.restore(previous);
+		}
+
+		assertThat(deadlines).containsExactly(deadline, deadline);
+	}
+
+	@Test
+	public void createDataKeyShouldReturnPlaintextAndWrappedKey() {
+
+		VaultResponse response = new VaultResponse();
+		Map<String, Object> data = new HashMap<String, Object>();
+		data.put("plaintext", Base64Utils.encodeToString("key".getBytes()));
+		data.put("ciphertext", "vault:v1:wrapped");
+		response.setData(data);
+
+		when(vaultOperations.write(eq("transit/datakey/plaintext/my-key"), any()))
+				.thenReturn(response);
+
+		VaultDataKey dataKey = template.createDataKey("my-key");
+
+		assertThat(dataKey.getPlaintext()).isEqualTo("key".getBytes());
+		assertThat(dataKey.getCiphertext()).isEqualTo("vault:v1:wrapped");
+	}
+
+	private static Map<String, String> result(String key, String value) {
+
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		result.put(key, value);
+		return result;
+	}
+
+	private static VaultResponse batchResponse(Map<String, String>... results) {
+
+		Map<String, Object> data = new HashMap<String, Object>();
+		data.put("batch_results", Arrays.asList(results));
+
+		VaultResponse response = new VaultResponse();
+		response.setData(data);
+		return response;
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.vault.support.VaultDataKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link CachingDataKeyProvider}.
+ *
+ * @author Mark Paluch
+ */
+public class CachingDataKeyProviderUnitTests {
+
+	private CountingDataKeyProvider delegate = new CountingDataKeyProvider();
+
+	private CachingDataKeyProvider provider;
+
+	@Before
+	public void before() {
+		provider = new CachingDataKeyProvider(delegate);
+	}
+
+	@Test
+	public void shouldReuseDataKeyUpToMaxUses() {
+
+		provider.setMaxUses(3);
+
+		List<String> wrappedKeys = new ArrayList<String>();
+		for (int i = 0; i < 4; i++) {
+
+			VaultDataKey dataKey = provider.getDataKey();
+			wrappedKeys.add(dataKey.getCiphertext());
+			provider.releaseDataKey(dataKey, 10);
+		}
+
+		assertThat(wrappedKeys).containsExactly("vault:v1:1", "vault:v1:1",
+				"vault:v1:1", "vault:v1:2");
+		assertThat(delegate.generated).isEqualTo(2);
+	}
+
+	@Test
+	public void shouldRotateDataKeyAfterMaxBytes() {
+
+		provider.setMaxBytes(100);
+
+		VaultDataKey first = provider.getDataKey();
+		provider.releaseDataKey(first, 100);
+
+		assertThat(provider.getDataKey().getCiphertext()).isEqualTo("vault:v1:2");
+	}
+
+	@Test
+	public void shouldRotateDataKeyAfterMaxAge() throws Exception {
+
+		provider.setMaxAge(1, TimeUnit.MILLISECONDS);
+
+		provider.getDataKey();
+		Thread.sleep(5);
+
+		assertThat(provider.getDataKey().getCiphertext()).isEqualTo("vault:v1:2");
+	}
+
+	@Test
+	public void shouldHandOutCopiesOfDataKey() {
+
+		VaultDataKey first = provider.getDataKey();
+		provider.releaseDataKey(first, 0);
+
+		assertThat(first.getPlaintext()).containsOnly((byte) 0);
+		assertThat(provider.getDataKey().getPlaintext()).containsOnly((byte) 1);
+	}
+
+	@Test
+	public void shouldCacheUnwrappedKeys() {
+
+		byte[] first = provider.decryptDataKey("vault:v1:other");
+		first[0] = 0;
+
+		assertThat(provider.decryptDataKey("vault:v1:other")).containsOnly((byte) 9);
+		assertThat(delegate.unwrapped).isEqualTo(1);
+	}
+
+	@Test
+	public void shouldUnwrapOwnDataKeyFromCache() {
+
+		String wrappedKey = provider.getDataKey().getCiphertext();
+
+		assertThat(provider.decryptDataKey(wrappedKey)).containsOnly((byte) 1);
+		assertThat(delegate.unwrapped).isZero();
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedUnwrappedKeys() {
+
+		provider.setMaxDecryptionKeys(2);
+
+		provider.decryptDataKey("vault:v1:a");
+		provider.decryptDataKey("vault:v1:b");
+		provider.decryptDataKey("vault:v1:a");
+		provider.decryptDataKey("vault:v1:c");
+		provider.decryptDataKey("vault:v1:a");
+		provider.decryptDataKey("vault:v1:b");
+
+		assertThat(delegate.unwrapped).isEqualTo(4);
+	}
+
+	@Test
+	public void destroyShouldClearCachedKeys() {
+
+		provider.getDataKey();
+		provider.decryptDataKey("vault:v1:other");
+
+		provider.destroy();
+
+		assertThat(provider.getDataKey().getCiphertext()).isEqualTo("vault:v1:2");
+		provider.decryptDataKey("vault:v1:other");
+		assertThat(delegate.unwrapped).isEqualTo(2);
+	}
+
+	@Test
+	public void rotationShouldNotBlockDecryption() throws Exception {
+
+		final CountDownLatch rotating = new CountDownLatch(1);
+		final CountDownLatch proceed = new CountDownLatch(1);
+
+		provider = new CachingDataKeyProvider(new CountingDataKeyProvider() {
+
+			@Override
+			public VaultDataKey getDataKey() {
+
+				rotating.countDown();
+
+				try {
+					proceed.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				return super.getDataKey();
+			}
+		});
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+
+			Future<VaultDataKey> dataKey = executor.submit(new Callable<VaultDataKey>() {
+				@Override
+				public VaultDataKey call() {
+					return provider.getDataKey();
+				}
+			});
+
+			assertThat(rotating.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(provider.decryptDataKey("vault:v1:other")).hasSize(4);
+
+			proceed.countDown();
+
+			assertThat(dataKey.get(5, TimeUnit.SECONDS).getCiphertext()).isEqualTo(
+					"vault:v1:1");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	static class CountingDataKeyProvider implements DataKeyProvider {
+
+		int generated;
+
+		int unwrapped;
+
+		@Override
+		public VaultDataKey getDataKey() {
+
+			generated++;
+			return VaultDataKey.of(new byte[] { 1, 1, 1, 1 }, "vault:v1:" + generated);
+		}
+
+		@Override
+		public void releaseDataKey(VaultDataKey dataKey, long encryptedBytes) {
+			dataKey.destroy();
+		}
+
+		@Override
+		public byte[] decryptDataKey(String wrappedKey) {
+
+			unwrapped++;
+			return new byte[] { 9, 9, 9, 9 };
+		}
+	}
+}
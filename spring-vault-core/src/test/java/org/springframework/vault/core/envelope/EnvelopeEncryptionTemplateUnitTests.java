@@ -0,0 +1,202 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core.envelope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.VaultDataKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Unit tests for {@link EnvelopeEncryptionTemplate}.
+ *
+ * @author Mark Paluch
+ */
+public class EnvelopeEncryptionTemplateUnitTests {
+
+	private StubDataKeyProvider dataKeyProvider = new StubDataKeyProvider();
+
+	private EnvelopeEncryptionTemplate template;
+
+	@Before
+	public void before() {
+
+		template = new EnvelopeEncryptionTemplate(dataKeyProvider);
+		template.setChunkSize(16);
+	}
+
+	@Test
+	public void shouldRoundtripPayloads() throws Exception {
+
+		for (int size : new int[] { 0, 1, 15, 16, 17, 32, 100 }) {
+
+			byte[] plaintext = randomBytes(size);
+
+			assertThat(decrypt(encrypt(plaintext))).as("Size %d", size).isEqualTo(
+					plaintext);
+		}
+	}
+
+	@Test
+	public void shouldWriteWrappedKeyToHeader() throws Exception {
+
+		byte[] ciphertext = encrypt("hello".getBytes());
+
+		assertThat(new String(ciphertext, "ISO-8859-1")).contains("vault:v1:wrapped");
+		assertThat(dataKeyProvider.lastKey.getPlaintext()).containsOnly((byte) 0);
+	}
+
+	@Test
+	public void shouldRoundtripByteArrays() {
+
+		byte[] plaintext = "my-field".getBytes();
+
+		assertThat(template.decrypt(template.encrypt(plaintext))).isEqualTo(plaintext);
+	}
+
+	@Test
+	public void shouldRoundtripUsingChannels() throws Exception {
+
+		byte[] plaintext = randomBytes(50);
+		ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+
+		template.encrypt(Channels.newChannel(new ByteArrayInputStream(plaintext)),
+				Channels.newChannel(ciphertext));
+		template.decrypt(
+				Channels.newChannel(new ByteArrayInputStream(ciphertext.toByteArray())),
+				Channels.newChannel(result));
+
+		assertThat(result.toByteArray()).isEqualTo(plaintext);
+	}
+
+	@Test
+	public void shouldRejectTamperedFrame() throws Exception {
+
+		byte[] ciphertext = encrypt(randomBytes(40));
+		ciphertext[ciphertext.length - 1] ^= 1;
+
+		assertDecryptionFails(ciphertext);
+	}
+
+	@Test
+	public void shouldRejectTamperedHeader() throws Exception {
+
+		byte[] ciphertext = encrypt(randomBytes(40));
+		ciphertext[10] ^= 1; // nonce prefix
+
+		assertDecryptionFails(ciphertext);
+	}
+
+	@Test
+	public void shouldRejectTruncatedEnvelope() throws Exception {
+
+		byte[] ciphertext = encrypt(randomBytes(40));
+
+		// drop the final frame (8 plaintext bytes + tag + length)
+		int finalFrame = 4 + 8 + 16;
+
+		assertDecryptionFails(Arrays.copyOf(ciphertext, ciphertext.length - finalFrame));
+	}
+
+	@Test
+	public void shouldRejectNonEnvelopeInput() throws Exception {
+		assertDecryptionFails("not an envelope".getBytes());
+	}
+
+	@Test
+	public void shouldDecryptWithChangedChunkSize() throws Exception {
+
+		byte[] plaintext = randomBytes(100);
+		byte[] ciphertext = encrypt(plaintext);
+
+		template.setChunkSize(1024);
+
+		assertThat(decrypt(ciphertext)).isEqualTo(plaintext);
+	}
+
+	private void assertDecryptionFails(byte[] ciphertext) throws Exception {
+
+		try {
+			decrypt(ciphertext);
+			fail("Missing VaultException");
+		}
+		catch (VaultException e) {
+			// expected
+		}
+	}
+
+	private byte[] encrypt(byte[] plaintext) throws Exception {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		template.encrypt(new ByteArrayInputStream(plaintext), out);
+		return out.toByteArray();
+	}
+
+	private byte[] decrypt(byte[] ciphertext) throws Exception {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		template.decrypt(new ByteArrayInputStream(ciphertext), out);
+		return out.toByteArray();
+	}
+
+	private static byte[] randomBytes(int size) {
+
+		byte[] bytes = new byte[size];
+		new Random(size).nextBytes(bytes);
+		return bytes;
+	}
+
+	static class StubDataKeyProvider implements DataKeyProvider {
+
+		static final byte[] KEY = new byte[32];
+
+		static {
+			new Random(42).nextBytes(KEY);
+		}
+
+		VaultDataKey lastKey;
+
+		@Override
+		public VaultDataKey getDataKey() {
+
+			lastKey = VaultDataKey.of(KEY.clone(), "vault:v1:wrapped");
+			return lastKey;
+		}
+
+		@Override
+		public void releaseDataKey(VaultDataKey dataKey, long encryptedBytes) {
+			dataKey.destroy();
+		}
+
+		@Override
+		public byte[] decryptDataKey(String wrappedKey) {
+
+			assertThat(wrappedKey).isEqualTo("vault:v1:wrapped");
+			return KEY.clone();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import org.springframework.vault.VaultException;
+import org.springframework.vault.support.VaultFlightRecorder.Operation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link VaultFlightRecorder}.
+ *
+ * @author Mark Paluch
+ */
+public class VaultFlightRecorderUnitTests {
+
+	@Test
+	public void shouldNotRecordWithoutFlightRecording() {
+
+		VaultFlightRecorder.Recording recording = VaultFlightRecorder
+				.begin(Operation.REQUEST);
+
+		assertThat(recording.isEnabled()).isFalse();
+		assertThat(VaultFlightRecorder.CURRENT.get()).isNull();
+
+		recording.commit();
+	}
+
+	@Test
+	public void shouldRecordEvents() throws Exception {
+
+		Recording flightRecording = new Recording();
+		flightRecording.enable("org.springframework.vault.*");
+		flightRecording.start();
+
+		try {
+
+			VaultFlightRecorder.Recording login = VaultFlightRecorder
+					.begin(Operation.LOGIN);
+			login.setName("AppRoleAuthentication");
+
+			VaultFlightRecorder.Recording request = VaultFlightRecorder
+					.begin(Operation.REQUEST);
+			request.setName("POST auth/approle/login");
+			request.setStatus(200);
+			request.setRequestBytes(42);
+			VaultFlightRecorder.recordRetry();
+			request.commit();
+
+			login.setFailure(new VaultException("Permission denied"));
+			login.commit();
+		}
+		finally {
+			flightRecording.stop();
+		}
+
+		List<RecordedEvent> events = readEvents(flightRecording);
+
+		assertThat(events).hasSize(2);
+
+		RecordedEvent request = events.get(0);
+		assertThat(request.getEventType().getName()).isEqualTo(
+				"org.springframework.vault.Request");
+		assertThat(request.getString("operation")).isEqualTo("POST auth/approle/login");
+		assertThat(request.getInt("status")).isEqualTo(200);
+		assertThat(request.getInt("retries")).isEqualTo(1);
+		assertThat(request.getLong("requestBytes")).isEqualTo(42);
+
+		RecordedEvent login = events.get(1);
+		assertThat(login.getEventType().getName()).isEqualTo(
+				"org.springframework.vault.Login");
+		assertThat(login.getInt("retries")).isZero();
+		assertThat(login.getString("failure")).contains("Permission denied");
+		assertThat(VaultFlightRecorder.CURRENT.get()).isNull();
+	}
+
+	private static List<RecordedEvent> readEvents(Recording recording) throws IOException {
+
+		File file = File.createTempFile("vault", ".jfr");
+
+		try {
+			recording.dump(file.toPath());
+
+			List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+
+			for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+				if (event.getEventType().getName().startsWith("org.springframework.vault")) {
+					events.add(event);
+				}
+			}
+
+			return events;
+		}
+		finally {
+			recording.close();
+			file.delete();
+		}
+	}
+}
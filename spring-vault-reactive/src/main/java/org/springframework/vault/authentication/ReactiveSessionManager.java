@@ -0,0 +1,40 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.vault.support.VaultToken;
+
+/**
+ * Reactive strategy interface that encapsulates the creation and management of Vault
+ * sessions based on {@link VaultToken}. Unlike {@link SessionManager}, obtaining a token
+ * does not block the calling thread.
+ *
+ * @author Mark Paluch
+ * @see SessionManager
+ * @see ReactiveSessionManagerAdapter
+ */
+@FunctionalInterface
+public interface ReactiveSessionManager {
+
+	/**
+	 * Obtain a session token.
+	 *
+	 * @return a {@link Mono} emitting the current {@link VaultToken}.
+	 */
+	Mono<VaultToken> getSessionToken();
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.Assert;
+import org.springframework.vault.support.VaultToken;
+
+/**
+ * Adapter exposing a blocking {@link SessionManager} as {@link ReactiveSessionManager}.
+ * Token retrieval is offloaded to a {@link Scheduler} so that login and renewal performed
+ * by the {@link SessionManager} do not block event-loop threads. Tokens already held by
+ * {@link SimpleSessionManager}, {@link LifecycleAwareSessionManager} and
+ * {@link SharedFileSessionManager} are emitted without switching threads.
+ *
+ * @author Mark Paluch
+ * @see SessionManager
+ * @see LifecycleAwareSessionManager
+ */
+public class ReactiveSessionManagerAdapter implements ReactiveSessionManager {
+
+	private final SessionManager sessionManager;
+
+	private final Scheduler scheduler;
+
+	/**
+	 * Create a new {@link ReactiveSessionManagerAdapter} using the
+	 * {@link Schedulers#elastic() elastic} {@link Scheduler}.
+	 *
+	 * @param sessionManager must not be {@literal null}.
+	 */
+	public ReactiveSessionManagerAdapter(SessionManager sessionManager) {
+		this(sessionManager, Schedulers.elastic());
+	}
+
+	/**
+	 * Create a new {@link ReactiveSessionManagerAdapter} given {@link SessionManager}
+	 * and {@link Scheduler}.
+	 *
+	 * @param sessionManager must not be {@literal null}.
+	 * @param scheduler must not be {@literal null}.
+	 */
+	public ReactiveSessionManagerAdapter(SessionManager sessionManager,
+			Scheduler scheduler) {
+
+		Assert.notNull(sessionManager, "SessionManager must not be null");
+		Assert.notNull(scheduler, "Scheduler must not be null");
+
+		this.sessionManager = sessionManager;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Mono<VaultToken> getSessionToken() {
+
+		return Mono.defer(() -> {
+
+			if (sessionManager instanceof CachingSessionManager) {
+
+				VaultToken token = ((CachingSessionManager) sessionManager)
+						.getCachedSessionToken();
+
+				if (token != null) {
+					return Mono.just(token);
+				}
+			}
+
+			return Mono.fromCallable(sessionManager::getSessionToken).subscribeOn(
+					scheduler);
+		});
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+
+/**
+ * Interface that specifies a basic set of reactive Vault operations, implemented by
+ * {@link ReactiveVaultTemplate}. Requests are executed in an authenticated session using
+ * a token obtained from {@link org.springframework.vault.authentication.ReactiveSessionManager}.
+ * <p>
+ * Publishers emit {@link org.springframework.vault.VaultException} if Vault responds
+ * with an error status.
+ *
+ * @author Mark Paluch
+ * @see ReactiveVaultTemplate
+ * @see VaultOperations
+ * @see org.springframework.vault.authentication.ReactiveSessionManager
+ */
+public interface ReactiveVaultOperations {
+
+	/**
+	 * @return the operations interface to interact with the Vault transit backend.
+	 */
+	ReactiveVaultTransitOperations opsForTransit();
+
+	/**
+	 * Returns {@link ReactiveVaultTransitOperations} if the transit backend is mounted on
+	 * a different path than {@code transit}.
+	 *
+	 * @param path the mount path
+	 * @return the operations interface to interact with the Vault transit backend.
+	 */
+	ReactiveVaultTransitOperations opsForTransit(String path);
+
+	/**
+	 * Read from a secret backend. Reading data using this method is suitable for secret
+	 * backends that do not require a request body.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @return a {@link Mono} emitting the data. Completes empty if the path does not
+	 * exist.
+	 */
+	Mono<VaultResponse> read(String path);
+
+	/**
+	 * Read from a secret backend. Reading data using this method is suitable for secret
+	 * backends that do not require a request body.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @param responseType must not be {@literal null}.
+	 * @return a {@link Mono} emitting the data. Completes empty if the path does not
+	 * exist.
+	 */
+	<T> Mono<VaultResponseSupport<T>> read(String path, Class<T> responseType);
+
+	/**
+	 * Enumerate keys from a secret backend. The response body is buffered and keys are
+	 * parsed from the buffer one by one as they are requested without materializing the
+	 * {@code keys} array.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @return a {@link Flux} emitting the keys. Completes empty if the path does not
+	 * exist.
+	 */
+	Flux<String> list(String path);
+
+	/**
+	 * Write to a secret backend.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @param body the body, may be {@literal null} if absent.
+	 * @return a {@link Mono} emitting the configuration data. Completes empty if Vault
+	 * responds without a body.
+	 */
+	Mono<VaultResponse> write(String path, Object body);
+
+	/**
+	 * Delete a path in the secret backend.
+	 *
+	 * @param path must not be {@literal null}.
+	 * @return a {@link Mono} completing on deletion.
+	 */
+	Mono<Void> delete(String path);
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.vault.authentication.ReactiveSessionManager;
+import org.springframework.vault.authentication.ReactiveSessionManagerAdapter;
+import org.springframework.vault.authentication.SessionManager;
+import org.springframework.vault.client.VaultClients;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.client.VaultResponses;
+import org.springframework.vault.support.VaultResponse;
+import org.springframework.vault.support.VaultResponseSupport;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
+
+/**
+ * This class encapsulates reactive Vault interaction. {@link ReactiveVaultTemplate} uses
+ * a non-blocking {@link AsyncClientHttpRequestFactory} such as
+ * {@link org.springframework.http.client.Netty4ClientHttpRequestFactory} and obtains
+ * session tokens from a {@link ReactiveSessionManager} so no thread is blocked while
+ * awaiting Vault responses.
+ *
+ * @author Mark Paluch
+ * @see ReactiveSessionManager
+ * @see org.springframework.vault.config.ClientHttpRequestFactoryFactory#createAsync
+ */
+public class ReactiveVaultTemplate implements ReactiveVaultOperations {
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final ReactiveSessionManager sessionManager;
+
+	private final AsyncRestTemplate restTemplate;
+
+	/**
+	 * Creates a new {@link ReactiveVaultTemplate} with a {@link VaultEndpoint},
+	 * {@link AsyncClientHttpRequestFactory} and a blocking {@link SessionManager}. Token
+	 * retrieval is offloaded using {@link ReactiveSessionManagerAdapter}.
+	 *
+	 * @param vaultEndpoint must not be {@literal null}.
+	 * @param asyncRequestFactory must not be {@literal null}.
+	 * @param sessionManager must not be {@literal null}.
+	 */
+	public ReactiveVaultTemplate(VaultEndpoint vaultEndpoint,
+			AsyncClientHttpRequestFactory asyncRequestFactory,
+			SessionManager sessionManager) {
+		this(vaultEndpoint, asyncRequestFactory, new ReactiveSessionManagerAdapter(
+				sessionManager));
+	}
+
+	/**
+	 * Creates a new {@link ReactiveVaultTemplate} with a {@link VaultEndpoint},
+	 * {@link AsyncClientHttpRequestFactory} and {@link ReactiveSessionManager}.
+	 *
+	 * @param vaultEndpoint must not be {@literal null}.
+	 * @param asyncRequestFactory must not be {@literal null}.
+	 * @param sessionManager must not be {@literal null}.
+	 */
+	public ReactiveVaultTemplate(VaultEndpoint vaultEndpoint,
+			AsyncClientHttpRequestFactory asyncRequestFactory,
+			ReactiveSessionManager sessionManager) {
+
+		Assert.notNull(vaultEndpoint, "VaultEndpoint must not be null");
+		Assert.notNull(asyncRequestFactory,
+				"AsyncClientHttpRequestFactory must not be null");
+		Assert.notNull(sessionManager, "ReactiveSessionManager must not be null");
+
+		this.sessionManager = sessionManager;
+		this.restTemplate = VaultClients.createAsyncRestTemplate(vaultEndpoint,
+				asyncRequestFactory);
+	}
+
+	@Override
+	public ReactiveVaultTransitOperations opsForTransit() {
+		return opsForTransit("transit");
+	}
+
+	@Override
+	public ReactiveVaultTransitOperations opsForTransit(String path) {
+		return new ReactiveVaultTransitTemplate(this, path);
+	}
+
+	@Override
+	public Mono<VaultResponse> read(String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return doWithSession(
+				path,
+				headers -> restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(
+						headers), VaultResponse.class)).then(
+				entity -> Mono.justOrEmpty(entity.getBody()));
+	}
+
+	@Override
+	public <T> Mono<VaultResponseSupport<T>> read(String path, Class<T> responseType) {
+
+		Assert.hasText(path, "Path must not be empty");
+		Assert.notNull(responseType, "Response type must not be null");
+
+		ParameterizedTypeReference<VaultResponseSupport<T>> ref = VaultResponses
+				.getTypeReference(responseType);
+
+		return doWithSession(
+				path,
+				headers -> restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(
+						headers), ref)).then(
+				entity -> Mono.justOrEmpty(entity.getBody()));
+	}
+
+	@Override
+	public Flux<String> list(String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		String listPath = String.format("%s?list=true", path.endsWith("/") ? path
+				: (path + "/"));
+
+		Mono<byte[]> body = doWithSession(listPath, headers -> restTemplate.execute(
+				listPath, HttpMethod.GET, request -> request.getHeaders().putAll(headers),
+				response -> StreamUtils.copyToByteArray(response.getBody())));
+
+		return body.flatMap(ReactiveVaultTemplate::readKeys);
+	}
+
+	@Override
+	public Mono<VaultResponse> write(String path, Object body) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return doWithSession(
+				path,
+				headers -> restTemplate.exchange(path, HttpMethod.POST, new HttpEntity<>(
+						body, headers), VaultResponse.class)).then(
+				entity -> Mono.justOrEmpty(entity.getBody()));
+	}
+
+	@Override
+	public Mono<Void> delete(String path) {
+
+		Assert.hasText(path, "Path must not be empty");
+
+		return doWithSession(
+				path,
+				headers -> restTemplate.exchange(path, HttpMethod.DELETE,
+						new HttpEntity<>(headers), Void.class)).then();
+	}
+
+	/**
+	 * Obtain a session token and execute the request. Absent resources ({@code 404 Not
+	 * Found}) complete empty, other error statuses are translated to
+	 * {@link org.springframework.vault.VaultException}.
+	 */
+	private <T> Mono<T> doWithSession(String path,
+			Function<HttpHeaders, ListenableFuture<T>> requestFunction) {
+
+		return sessionManager
+				.getSessionToken()
+				.then(token -> toMono(() -> requestFunction.apply(VaultHttpHeaders
+						.from(token))))
+				.otherwise(
+						HttpStatusCodeException.class,
+						e -> e.getStatusCode() == HttpStatus.NOT_FOUND ? Mono.empty()
+								: Mono.error(VaultResponses.buildException(e, path)));
+	}
+
+	private static <T> Mono<T> toMono(Supplier<ListenableFuture<T>> futureSupplier) {
+
+		return Mono.create(sink -> {
+
+			ListenableFuture<T> future = futureSupplier.get();
+
+			sink.setCancellation(() -> future.cancel(false));
+			future.addCallback(result -> {
+
+				if (result == null) {
+					sink.success();
+				}
+				else {
+					sink.success(result);
+				}
+			}, sink::error);
+		});
+	}
+
+	/**
+	 * Emit the elements of {@code data.keys} from a buffered list response. Keys are
+	 * parsed from the buffer as they are requested.
+	 */
+	private static Flux<String> readKeys(byte[] body) {
+
+		return Flux.using(() -> JSON_FACTORY.createParser(body),
+				parser -> {
+
+					try {
+						if (!moveToKeys(parser)) {
+							return Flux.empty();
+						}
+					}
+					catch (IOException e) {
+						return Flux.error(e);
+					}
+
+					return Flux.<String> generate(sink -> {
+
+						try {
+							if (parser.nextToken() == JsonToken.VALUE_STRING) {
+								sink.next(parser.getText());
+							}
+							else {
+								sink.complete();
+							}
+						}
+						catch (IOException e) {
+							sink.error(e);
+						}
+					});
+				}, parser -> {
+
+					try {
+						parser.close();
+					}
+					catch (IOException e) {
+						// ignore
+					}
+				});
+	}
+
+	/**
+	 * Position the {@link JsonParser} at the start of the {@code data.keys} array.
+	 *
+	 * @return {@literal true} if the parser is positioned at the {@code keys} array.
+	 */
+	private static boolean moveToKeys(JsonParser parser) throws IOException {
+
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			return false;
+		}
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+			String name = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+
+			if ("data".equals(name) && value == JsonToken.START_OBJECT) {
+
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+					String field = parser.getCurrentName();
+
+					if (parser.nextToken() == JsonToken.START_ARRAY
+							&& "keys".equals(field)) {
+						return true;
+					}
+
+					parser.skipChildren();
+				}
+
+				return false;
+			}
+
+			parser.skipChildren();
+		}
+
+		return false;
+	}
+}
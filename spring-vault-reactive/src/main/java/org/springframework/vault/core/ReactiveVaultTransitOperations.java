@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.vault.support.VaultTransitContext;
+
+/**
+ * Interface that specifies reactive cryptographic operations using Vault's transit
+ * backend.
+ *
+ * @author Mark Paluch
+ * @see VaultTransitOperations
+ */
+public interface ReactiveVaultTransitOperations {
+
+	/**
+	 * Encrypts the provided plaintext using the named key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param plaintext must not be empty or {@literal null}.
+	 * @return a {@link Mono} emitting the cipher text.
+	 */
+	Mono<String> encrypt(String keyName, String plaintext);
+
+	/**
+	 * Encrypts the provided plaintext using the named key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param plaintext must not be empty or {@literal null}.
+	 * @param transitRequest may be {@literal null} if no request options provided.
+	 * @return a {@link Mono} emitting the cipher text.
+	 */
+	Mono<String> encrypt(String keyName, byte[] plaintext,
+			VaultTransitContext transitRequest);
+
+	/**
+	 * Decrypts the provided plaintext using the named key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param ciphertext must not be empty or {@literal null}.
+	 * @return a {@link Mono} emitting the plain text.
+	 */
+	Mono<String> decrypt(String keyName, String ciphertext);
+
+	/**
+	 * Decrypts the provided plaintext using the named key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param ciphertext must not be empty or {@literal null}.
+	 * @param transitRequest may be {@literal null} if no request options provided.
+	 * @return a {@link Mono} emitting the plain text.
+	 */
+	Mono<byte[]> decrypt(String keyName, String ciphertext,
+			VaultTransitContext transitRequest);
+
+	/**
+	 * Rewrap the provided ciphertext using the latest version of the named key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param ciphertext must not be empty or {@literal null}.
+	 * @return a {@link Mono} emitting the cipher text.
+	 */
+	Mono<String> rewrap(String keyName, String ciphertext);
+
+	/**
+	 * Rewrap the provided ciphertext using the latest version of the named key.
+	 *
+	 * @param keyName must not be empty or {@literal null}.
+	 * @param ciphertext must not be empty or {@literal null}.
+	 * @param transitRequest may be {@literal null} if no request options provided.
+	 * @return a {@link Mono} emitting the cipher text.
+	 */
+	Mono<String> rewrap(String keyName, String ciphertext,
+			VaultTransitContext transitRequest);
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.util.Assert;
+import org.springframework.util.Base64Utils;
+import org.springframework.vault.support.VaultTransitContext;
+
+/**
+ * Default implementation of {@link ReactiveVaultTransitOperations}.
+ *
+ * @author Mark Paluch
+ */
+public class ReactiveVaultTransitTemplate implements ReactiveVaultTransitOperations {
+
+	private final ReactiveVaultOperations vaultOperations;
+
+	private final String path;
+
+	/**
+	 * Create a new {@link ReactiveVaultTransitTemplate} given
+	 * {@link ReactiveVaultOperations} and the mount {@code path}.
+	 *
+	 * @param vaultOperations must not be {@literal null}.
+	 * @param path must not be empty or {@literal null}.
+	 */
+	public ReactiveVaultTransitTemplate(ReactiveVaultOperations vaultOperations,
+			String path) {
+
+		Assert.notNull(vaultOperations, "ReactiveVaultOperations must not be null");
+		Assert.hasText(path, "Path must not be empty");
+
+		this.vaultOperations = vaultOperations;
+		this.path = path;
+	}
+
+	@Override
+	public Mono<String> encrypt(String keyName, String plaintext) {
+
+		Assert.notNull(plaintext, "Plain text must not be null");
+
+		return encrypt(keyName, plaintext.getBytes(), null);
+	}
+
+	@Override
+	public Mono<String> encrypt(String keyName, byte[] plaintext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.notNull(plaintext, "Plain text must not be null");
+
+		Map<String, String> request = new LinkedHashMap<>();
+
+		request.put("plaintext", Base64Utils.encodeToString(plaintext));
+
+		applyTransitOptions(transitRequest, request);
+
+		return write(String.format("%s/encrypt/%s", path, keyName), request,
+				"ciphertext");
+	}
+
+	@Override
+	public Mono<String> decrypt(String keyName, String ciphertext) {
+		return decrypt(keyName, ciphertext, null).map(String::new);
+	}
+
+	@Override
+	public Mono<byte[]> decrypt(String keyName, String ciphertext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.hasText(ciphertext, "Cipher text must not be empty");
+
+		Map<String, String> request = new LinkedHashMap<>();
+
+		request.put("ciphertext", ciphertext);
+
+		applyTransitOptions(transitRequest, request);
+
+		return write(String.format("%s/decrypt/%s", path, keyName), request,
+				"plaintext").map(Base64Utils::decodeFromString);
+	}
+
+	@Override
+	public Mono<String> rewrap(String keyName, String ciphertext) {
+		return rewrap(keyName, ciphertext, null);
+	}
+
+	@Override
+	public Mono<String> rewrap(String keyName, String ciphertext,
+			VaultTransitContext transitRequest) {
+
+		Assert.hasText(keyName, "KeyName must not be empty");
+		Assert.hasText(ciphertext, "Cipher text must not be empty");
+
+		Map<String, String> request = new LinkedHashMap<>();
+
+		request.put("ciphertext", ciphertext);
+
+		applyTransitOptions(transitRequest, request);
+
+		return write(String.format("%s/rewrap/%s", path, keyName), request,
+				"ciphertext");
+	}
+
+	private Mono<String> write(String path, Map<String, String> request, String key) {
+		return vaultOperations.write(path, request).map(
+				response -> (String) response.getData().get(key));
+	}
+
+	private static void applyTransitOptions(VaultTransitContext transitRequest,
+			Map<String, String> request) {
+
+		if (transitRequest == null) {
+			return;
+		}
+
+		if (transitRequest.getContext() != null) {
+			request.put("context",
+					Base64Utils.encodeToString(transitRequest.getContext()));
+		}
+
+		if (transitRequest.getNonce() != null) {
+			request.put("nonce", Base64Utils.encodeToString(transitRequest.getNonce()));
+		}
+	}
+}
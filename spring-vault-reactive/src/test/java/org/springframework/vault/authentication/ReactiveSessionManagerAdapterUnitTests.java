@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.authentication;
+
+import org.junit.Test;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.vault.support.VaultToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ReactiveSessionManagerAdapter}.
+ *
+ * @author Mark Paluch
+ */
+public class ReactiveSessionManagerAdapterUnitTests {
+
+	@Test
+	public void shouldObtainTokenOnScheduler() {
+
+		Thread[] loginThread = new Thread[1];
+
+		SessionManager sessionManager = () -> {
+			loginThread[0] = Thread.currentThread();
+			return VaultToken.of("token");
+		};
+
+		ReactiveSessionManagerAdapter adapter = new ReactiveSessionManagerAdapter(
+				sessionManager, Schedulers.single());
+
+		StepVerifier.create(adapter.getSessionToken())
+				.expectNext(VaultToken.of("token")).verifyComplete();
+
+		assertThat(loginThread[0]).isNotEqualTo(Thread.currentThread());
+	}
+
+	@Test
+	public void shouldEmitCachedTokenWithoutSwitchingThreads() {
+
+		Thread[] loginThread = new Thread[1];
+
+		SimpleSessionManager sessionManager = new SimpleSessionManager(() -> {
+			loginThread[0] = Thread.currentThread();
+			return VaultToken.of("token");
+		});
+
+		ReactiveSessionManagerAdapter adapter = new ReactiveSessionManagerAdapter(
+				sessionManager, Schedulers.single());
+
+		StepVerifier.create(adapter.getSessionToken())
+				.expectNext(VaultToken.of("token")).verifyComplete();
+
+		assertThat(loginThread[0]).isNotEqualTo(Thread.currentThread());
+
+		Thread[] emitThread = new Thread[1];
+
+		StepVerifier.create(adapter.getSessionToken().doOnNext(token -> {
+			emitThread[0] = Thread.currentThread();
+		})).expectNext(VaultToken.of("token")).verifyComplete();
+
+		assertThat(emitThread[0]).isEqualTo(Thread.currentThread());
+	}
+
+	@Test
+	public void shouldNotObtainTokenBeforeSubscription() {
+
+		SessionManager sessionManager = () -> {
+			throw new IllegalStateException();
+		};
+
+		new ReactiveSessionManagerAdapter(sessionManager).getSessionToken();
+	}
+}
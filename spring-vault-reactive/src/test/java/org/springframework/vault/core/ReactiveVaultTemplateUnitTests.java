@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.vault.core;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockAsyncClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.vault.VaultException;
+import org.springframework.vault.client.VaultEndpoint;
+import org.springframework.vault.client.VaultHttpHeaders;
+import org.springframework.vault.support.VaultToken;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ReactiveVaultTemplate}.
+ *
+ * @author Mark Paluch
+ */
+public class ReactiveVaultTemplateUnitTests {
+
+	private StubAsyncClientHttpRequestFactory requestFactory = new StubAsyncClientHttpRequestFactory();
+
+	private ReactiveVaultTemplate template;
+
+	@Before
+	public void before() {
+
+		template = new ReactiveVaultTemplate(new VaultEndpoint(), requestFactory,
+				() -> Mono.just(VaultToken.of("my-token")));
+	}
+
+	@Test
+	public void readShouldAddSessionToken() {
+
+		requestFactory.respond(HttpStatus.OK, "{\"data\": {\"key\": \"value\"}}");
+
+		StepVerifier.create(template.read("secret/foo"))
+				.consumeNextWith(actual -> {
+					assertThat(actual.getData()).containsEntry("key", "value");
+				}).verifyComplete();
+
+		MockAsyncClientHttpRequest request = requestFactory.requests.get(0);
+		assertThat(request.getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/secret/foo");
+		assertThat(request.getHeaders().getFirst(VaultHttpHeaders.VAULT_TOKEN))
+				.isEqualTo("my-token");
+	}
+
+	@Test
+	public void readShouldCompleteEmptyForAbsentPath() {
+
+		requestFactory.respond(HttpStatus.NOT_FOUND, "{\"errors\": []}");
+
+		StepVerifier.create(template.read("secret/absent")).verifyComplete();
+	}
+
+	@Test
+	public void requestsShouldBeDeferredUntilSubscription() {
+
+		requestFactory.respond(HttpStatus.OK, "{\"data\": {}}");
+
+		template.read("secret/foo");
+
+		assertThat(requestFactory.requests).isEmpty();
+	}
+
+	@Test
+	public void listShouldEmitKeysOnDemand() {
+
+		requestFactory.respond(HttpStatus.OK,
+				"{\"request_id\": \"x\", \"data\": {\"other\": [1, {\"a\": 2}], "
+						+ "\"keys\": [\"a\", \"b\", \"c/\"]}, \"lease_duration\": 0}");
+
+		StepVerifier.create(template.list("secret"), 1) //
+				.expectNext("a") //
+				.thenRequest(1) //
+				.expectNext("b") //
+				.thenRequest(1) //
+				.expectNext("c/") //
+				.thenRequest(1) //
+				.verifyComplete();
+
+		assertThat(requestFactory.requests.get(0).getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/secret/?list=true");
+	}
+
+	@Test
+	public void listShouldCompleteEmptyForAbsentPath() {
+
+		requestFactory.respond(HttpStatus.NOT_FOUND, "{\"errors\": []}");
+
+		StepVerifier.create(template.list("secret")).verifyComplete();
+	}
+
+	@Test
+	public void writeShouldTranslateErrors() {
+
+		requestFactory.respond(HttpStatus.BAD_REQUEST,
+				"{\"errors\": [\"missing client token\"]}");
+
+		StepVerifier.create(template.write("secret/foo", null))
+				.consumeErrorWith(e -> {
+					assertThat(e).isInstanceOf(VaultException.class)
+							.hasMessageContaining("missing client token");
+				}).verify();
+	}
+
+	@Test
+	public void transitDecryptShouldReturnPlaintext() {
+
+		requestFactory.respond(HttpStatus.OK,
+				"{\"data\": {\"plaintext\": \"aGVsbG8=\"}}");
+
+		StepVerifier.create(template.opsForTransit().decrypt("my-key", "vault:v1:foo"))
+				.expectNext("hello").verifyComplete();
+
+		assertThat(requestFactory.requests.get(0).getURI().toString()).isEqualTo(
+				"https://localhost:8200/v1/transit/decrypt/my-key");
+	}
+
+	static class StubAsyncClientHttpRequestFactory implements
+			AsyncClientHttpRequestFactory {
+
+		final List<MockAsyncClientHttpRequest> requests = new ArrayList<>();
+
+		private HttpStatus status;
+
+		private String body;
+
+		void respond(HttpStatus status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+
+		@Override
+		public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod)
+				throws IOException {
+
+			MockClientHttpResponse response = new MockClientHttpResponse(
+					body.getBytes(StandardCharsets.UTF_8), status);
+			response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+			MockAsyncClientHttpRequest request = new MockAsyncClientHttpRequest(
+					httpMethod, uri);
+			request.setResponse(response);
+
+			requests.add(request);
+
+			return request;
+		}
+	}
+}